@@ -33,6 +33,9 @@ import org.isisaddons.module.servletapi.dom.HttpSessionProvider;
 
 import org.incode.module.slack.impl.SlackService;
 
+import org.estatio.module.application.spiimpl.pdfadvisor.PdfAdvisorForEstatio;
+import org.estatio.module.lease.dom.invoicing.summary.InvoiceSummaryKey;
+import org.estatio.module.lease.dom.invoicing.summary.InvoiceSummaryTotalService;
 import org.estatio.module.lease.dom.settings.LeaseInvoicingSettingsService;
 import org.estatio.module.settings.dom.ApplicationSettingForEstatio;
 import org.estatio.module.settings.dom.ApplicationSettingsServiceRW;
@@ -108,6 +111,13 @@ public class AdminDashboard {
         return httpSessionProvider.getHttpSession().map(HttpSession::getMaxInactiveInterval).orElse(null);
     }
 
+    @Property()
+    @MemberOrder(sequence = "4")
+    @XmlTransient
+    public String getPdfViewerPositions() {
+        return pdfAdvisorForEstatio.getStatistics();
+    }
+
 
     @Collection()
     @MemberOrder(sequence = "2")
@@ -177,6 +187,25 @@ public class AdminDashboard {
         return this;
     }
 
+    @Action(semantics = SemanticsOf.IDEMPOTENT_ARE_YOU_SURE)
+    @MemberOrder(sequence = "3.6")
+    public AdminDashboard rebuildInvoiceSummaries() {
+        invoiceSummaryTotalService.rebuildAll();
+        return this;
+    }
+
+    @Action(semantics = SemanticsOf.SAFE)
+    @MemberOrder(sequence = "3.7")
+    public AdminDashboard verifyInvoiceSummaries() {
+        final List<InvoiceSummaryKey> discrepancies = invoiceSummaryTotalService.verifyAll();
+        if (discrepancies.isEmpty()) {
+            messageService.informUser("Invoice summaries are up to date");
+        } else {
+            messageService.warnUser(String.format("%d invoice summaries differ, eg %s", discrepancies.size(), discrepancies.get(0)));
+        }
+        return this;
+    }
+
 
 
     @Action(semantics = SemanticsOf.SAFE, restrictTo = RestrictTo.PROTOTYPING)
@@ -216,4 +245,12 @@ public class AdminDashboard {
     @XmlTransient
     MessageService messageService;
 
+    @Inject
+    @XmlTransient
+    InvoiceSummaryTotalService invoiceSummaryTotalService;
+
+    @Inject
+    @XmlTransient
+    PdfAdvisorForEstatio pdfAdvisorForEstatio;
+
 }
@@ -1,12 +1,15 @@
 package org.estatio.module.application.spiimpl.pdfadvisor;
 
-import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 
-import com.google.common.collect.Maps;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,16 +31,75 @@ import org.estatio.module.capex.app.document.IncomingDocViewModel;
 import org.estatio.module.capex.app.invoice.IncomingDocAsInvoiceViewModel;
 import org.estatio.module.capex.app.order.IncomingDocAsOrderViewModel;
 
+/**
+ * Remembers, per user, the page last viewed of each document (and the scale and height per type of object).
+ *
+ * <p>
+ *     Page numbers are held in a cache bounded by (approximate) size and evicted if not accessed for a while; the
+ *     identifiers of view models are mementos of their state, so can be large.  Optionally the page numbers are
+ *     also persisted (as {@link PdfViewerPosition}s), in which case they survive restarts and are shared between
+ *     nodes: an entry is then also re-read from the database a minute after it was last written.
+ * </p>
+ */
 @DomainService(nature = NatureOfService.DOMAIN)
 public class PdfAdvisorForEstatio implements PdfJsViewerAdvisor {
 
     public static final Logger LOG = LoggerFactory.getLogger(PdfAdvisorForEstatio.class);
 
-    // a more sophisticated implementation would use some sort of MRU/LRU cache.
-    private final Map<InstanceKey.TypeKey, Advice.TypeAdvice> typeAdviceByTypeKey = Maps.newHashMap();
+    public static final String MAX_BYTES_KEY = "estatio.pdfAdvisor.maxBytes";
+    public static final String EXPIRE_AFTER_ACCESS_DAYS_KEY = "estatio.pdfAdvisor.expireAfterAccessDays";
+    public static final String PERSISTENT_KEY = "estatio.pdfAdvisor.persistent";
+
+    private static final long MAX_BYTES_DEFAULT = 16L * 1024 * 1024;
+    private static final int EXPIRE_AFTER_ACCESS_DAYS_DEFAULT = 30;
+    private static final int MAX_TYPES = 1_000;
+
+    private Cache<InstanceKey.TypeKey, Advice.TypeAdvice> typeAdviceByTypeKey;
+
+    private Cache<InstanceKey, Integer> pageNumByInstanceKey;
+
+    private boolean persistent;
+
+    @PostConstruct
+    public void init(final Map<String, String> properties) {
+        final String maxBytes = properties.get(MAX_BYTES_KEY);
+        final String expireAfterAccessDays = properties.get(EXPIRE_AFTER_ACCESS_DAYS_KEY);
+        persistent = Boolean.parseBoolean(properties.get(PERSISTENT_KEY));
+
+        final CacheBuilder<InstanceKey, Integer> builder = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes != null ? Long.parseLong(maxBytes) : MAX_BYTES_DEFAULT)
+                .<InstanceKey, Integer>weigher((key, pageNum) -> approximateSizeOf(key))
+                .expireAfterAccess(
+                        expireAfterAccessDays != null
+                                ? Integer.parseInt(expireAfterAccessDays)
+                                : EXPIRE_AFTER_ACCESS_DAYS_DEFAULT,
+                        TimeUnit.DAYS)
+                .recordStats();
+        if (persistent) {
+            // pick up page numbers changed on other nodes
+            builder.expireAfterWrite(1, TimeUnit.MINUTES);
+        }
+        pageNumByInstanceKey = builder.build();
+
+        typeAdviceByTypeKey = CacheBuilder.newBuilder()
+                .maximumSize(MAX_TYPES)
+                .build();
+    }
 
-    // a more sophisticated implementation would use some sort of MRU/LRU cache.
-    private final Map<InstanceKey, Integer> pageNumByInstanceKey = Maps.newHashMap();
+    /**
+     * Approximate number of bytes retained for the key (and its page number) by the cache.
+     */
+    static int approximateSizeOf(final InstanceKey instanceKey) {
+        final InstanceKey.TypeKey typeKey = instanceKey.getTypeKey();
+        return 128 + 2 * (length(instanceKey.getIdentifier())
+                + length(typeKey.getObjectType())
+                + length(typeKey.getPropertyId())
+                + length(typeKey.getUserName()));
+    }
+
+    private static int length(final String str) {
+        return str != null ? str.length() : 0;
+    }
 
     @Override
     public PdfJsViewerAdvisor.Advice advise(InstanceKey instanceKey) {
@@ -60,24 +122,61 @@ public class PdfAdvisorForEstatio implements PdfJsViewerAdvisor {
     }
 
     private Advice adviceFor(final InstanceKey instanceKey) {
-        Integer pageNumber = pageNumByInstanceKey.computeIfAbsent(instanceKey, k -> 1);
+        Integer pageNumber = pageNumFor(instanceKey);
         Advice.TypeAdvice typeAdvice = typeAdviceFor(instanceKey.getTypeKey());
         return new Advice(pageNumber, typeAdvice);
     }
 
+    Integer pageNumFor(final InstanceKey instanceKey) {
+        try {
+            return pageNumByInstanceKey.get(instanceKey, () -> {
+                if (persistent) {
+                    final PdfViewerPosition position = pdfViewerPositionRepository.findBy(instanceKey);
+                    if (position != null) {
+                        return position.getPageNum();
+                    }
+                }
+                return 1;
+            });
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
     private Advice.TypeAdvice typeAdviceFor(InstanceKey.TypeKey typeKey) {
-        Advice.TypeAdvice typeAdvice = typeAdviceByTypeKey
-                .computeIfAbsent(typeKey, k -> new Advice.TypeAdvice(null, null));
-        return typeAdvice;
+        try {
+            return typeAdviceByTypeKey.get(typeKey, () -> new Advice.TypeAdvice(null, null));
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
     }
 
     @Override
     public void pageNumChangedTo(InstanceKey instanceKey, final int pageNum) {
         instanceKey = simplify(instanceKey);
         pageNumByInstanceKey.put(instanceKey, pageNum);
+        if (persistent) {
+            writeThrough(instanceKey, pageNum);
+        }
         dump("pageNumChangedTo", instanceKey);
     }
 
+    /**
+     * Best-effort: the page number is already cached, so a failure to persist it is logged rather than surfaced in
+     * the viewer.
+     */
+    private void writeThrough(final InstanceKey instanceKey, final int pageNum) {
+        try {
+            pdfViewerPositionRepository.upsert(instanceKey, pageNum);
+        } catch (RuntimeException ex) {
+            // not the (possibly large) identifier
+            final InstanceKey.TypeKey typeKey = instanceKey.getTypeKey();
+            LOG.warn(String.format(
+                    "Could not persist page number of %s#%s for %s",
+                    typeKey.getObjectType(), typeKey.getPropertyId(), typeKey.getUserName()), ex);
+        }
+    }
+
     @Override
     public void scaleChangedTo(InstanceKey instanceKey, final Scale scale) {
         instanceKey = simplify(instanceKey);
@@ -104,36 +203,51 @@ public class PdfAdvisorForEstatio implements PdfJsViewerAdvisor {
 
         LOG.debug("\n" + method + "(" + bookmarkFor(instanceKey) + "):\n");
         LOG.debug("  types:");
-        for (InstanceKey.TypeKey key : typeAdviceByTypeKey.keySet()) {
-            LOG.debug(String.format("    %s: %s", key.getObjectType(), typeAdviceByTypeKey.get(key)));
-        }
-        LOG.debug("  instances:");
-        for (Iterator<InstanceKey> iterator = pageNumByInstanceKey.keySet().iterator(); iterator.hasNext(); ) {
-            final InstanceKey key = iterator.next();
-            String bookmark = bookmarkFor(key);
-            if(bookmark != null) {
-                final Integer integer = pageNumByInstanceKey.get(key);
-                LOG.debug(String.format("    %s: %d", bookmark, integer));
-            } else {
-                // presumably deleted
-                iterator.remove();
-            }
+        for (Map.Entry<InstanceKey.TypeKey, Advice.TypeAdvice> entry : typeAdviceByTypeKey.asMap().entrySet()) {
+            LOG.debug(String.format("    %s: %s", entry.getKey().getObjectType(), entry.getValue()));
         }
+        LOG.debug(String.format("  instances: %s", getStatistics()));
     }
 
-    // TODO: we'll need a better way to prevent this class taking up too much memory
-    // for now, this method clears up any cache for documents that have been deleted; but it isn't called yet...
+    //region > metrics
+
     @Programmatic
-    public void gc() {
-        for (Iterator<InstanceKey> iterator = pageNumByInstanceKey.keySet().iterator(); iterator.hasNext(); ) {
-            final InstanceKey key = iterator.next();
-            String bookmark = bookmarkFor(key);
-            if (bookmark == null) {
-                iterator.remove();
-            }
+    public long getInstanceCount() {
+        return pageNumByInstanceKey.size();
+    }
+
+    /**
+     * Approximate number of bytes retained; iterates over all entries, so intended only for monitoring.
+     */
+    @Programmatic
+    public long getApproximateBytes() {
+        long bytes = 0;
+        for (final InstanceKey instanceKey : pageNumByInstanceKey.asMap().keySet()) {
+            bytes += approximateSizeOf(instanceKey);
         }
+        return bytes;
     }
 
+    @Programmatic
+    public long getEvictionCount() {
+        return pageNumByInstanceKey.stats().evictionCount();
+    }
+
+    @Programmatic
+    public double getHitRate() {
+        return pageNumByInstanceKey.stats().hitRate();
+    }
+
+    @Programmatic
+    public String getStatistics() {
+        return String.format(
+                "%d instances (~%d KB), %d evicted, %.0f%% hit rate%s",
+                getInstanceCount(), getApproximateBytes() / 1024, getEvictionCount(), getHitRate() * 100,
+                persistent ? ", persistent" : "");
+    }
+
+    //endregion
+
     private String bookmarkFor(final InstanceKey instanceKey) {
 
         Document document = determineDocument(instanceKey);
@@ -206,6 +320,9 @@ public class PdfAdvisorForEstatio implements PdfJsViewerAdvisor {
         return viewModel.getDocument();
     }
 
+    @Inject
+    PdfViewerPositionRepository pdfViewerPositionRepository;
+
     @Inject
     BookmarkService2 bookmarkService2;
 
@@ -0,0 +1,98 @@
+/*
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.module.application.spiimpl.pdfadvisor;
+
+import javax.jdo.annotations.Column;
+import javax.jdo.annotations.DatastoreIdentity;
+import javax.jdo.annotations.IdGeneratorStrategy;
+import javax.jdo.annotations.IdentityType;
+import javax.jdo.annotations.PersistenceCapable;
+import javax.jdo.annotations.Queries;
+import javax.jdo.annotations.Query;
+import javax.jdo.annotations.Unique;
+import javax.jdo.annotations.Uniques;
+import javax.jdo.annotations.Version;
+import javax.jdo.annotations.VersionStrategy;
+
+import org.joda.time.DateTime;
+
+import org.apache.isis.applib.annotation.DomainObject;
+import org.apache.isis.applib.annotation.Editing;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The page last shown to a user in the PDF viewer of a property of an object, persisted (if enabled) by
+ * {@link PdfAdvisorForEstatio} so that it survives restarts and is shared between nodes.
+ *
+ * <p>
+ *     The identifier of the object (which for view models is a memento of their state) is stored only as a hash.
+ * </p>
+ */
+@PersistenceCapable(identityType = IdentityType.DATASTORE, schema = "dbo")
+@DatastoreIdentity(strategy = IdGeneratorStrategy.NATIVE, column = "id")
+@Version(strategy = VersionStrategy.VERSION_NUMBER, column = "version")
+@Queries({
+        @Query(
+                name = "findByKey", language = "JDOQL",
+                value = "SELECT "
+                        + "FROM org.estatio.module.application.spiimpl.pdfadvisor.PdfViewerPosition "
+                        + "WHERE userName == :userName "
+                        + "   && objectType == :objectType "
+                        + "   && propertyId == :propertyId "
+                        + "   && identifierHash == :identifierHash ")
+})
+@Uniques({
+        @Unique(
+                name = "PdfViewerPosition_key_UNQ",
+                members = { "userName", "objectType", "propertyId", "identifierHash" })
+})
+@DomainObject(
+        objectType = "application.PdfViewerPosition",
+        editing = Editing.DISABLED
+)
+public class PdfViewerPosition {
+
+    @Column(allowsNull = "false", length = 120)
+    @Getter @Setter
+    private String userName;
+
+    @Column(allowsNull = "false", length = 254)
+    @Getter @Setter
+    private String objectType;
+
+    @Column(allowsNull = "false", length = 120)
+    @Getter @Setter
+    private String propertyId;
+
+    /**
+     * SHA-256 (hex) of the identifier of the object.
+     */
+    @Column(allowsNull = "false", length = 64)
+    @Getter @Setter
+    private String identifierHash;
+
+    @Column(allowsNull = "false")
+    @Getter @Setter
+    private int pageNum;
+
+    @Column(allowsNull = "false")
+    @Getter @Setter
+    private DateTime updatedAt;
+
+}
@@ -0,0 +1,134 @@
+/*
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.module.application.spiimpl.pdfadvisor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.jdo.JDOException;
+import javax.jdo.PersistenceManager;
+import javax.jdo.Query;
+import javax.jdo.Transaction;
+
+import com.google.common.hash.Hashing;
+
+import org.apache.isis.applib.annotation.DomainService;
+import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.annotation.Programmatic;
+import org.apache.isis.applib.query.QueryDefault;
+import org.apache.isis.applib.services.clock.ClockService;
+import org.apache.isis.applib.services.jdosupport.IsisJdoSupport;
+import org.apache.isis.applib.services.repository.RepositoryService;
+
+import org.isisaddons.wicket.pdfjs.cpt.applib.PdfJsViewerAdvisor.InstanceKey;
+
+@DomainService(
+        nature = NatureOfService.DOMAIN,
+        repositoryFor = PdfViewerPosition.class
+)
+public class PdfViewerPositionRepository {
+
+    private static final int MAX_UPSERT_ATTEMPTS = 2;
+
+    @Programmatic
+    public PdfViewerPosition findBy(final InstanceKey instanceKey) {
+        final InstanceKey.TypeKey typeKey = instanceKey.getTypeKey();
+        return repositoryService.firstMatch(
+                new QueryDefault<>(
+                        PdfViewerPosition.class,
+                        "findByKey",
+                        "userName", typeKey.getUserName(),
+                        "objectType", typeKey.getObjectType(),
+                        "propertyId", typeKey.getPropertyId(),
+                        "identifierHash", hashOf(instanceKey.getIdentifier())));
+    }
+
+    /**
+     * Records the page number in a short transaction of its own (on a separate persistence manager), so that it is
+     * written whether or not the caller's transaction commits, and a failure does not affect the caller's transaction.
+     */
+    @Programmatic
+    public void upsert(final InstanceKey instanceKey, final int pageNum) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                doUpsert(instanceKey, pageNum);
+                return;
+            } catch (final JDOException ex) {
+                // eg inserted concurrently for the same key (PdfViewerPosition_key_UNQ), so updated on the next attempt
+                if (attempt == MAX_UPSERT_ATTEMPTS) {
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    private void doUpsert(final InstanceKey instanceKey, final int pageNum) {
+        final InstanceKey.TypeKey typeKey = instanceKey.getTypeKey();
+        final String identifierHash = hashOf(instanceKey.getIdentifier());
+        final PersistenceManager pm = isisJdoSupport.getJdoPersistenceManager().getPersistenceManagerFactory().getPersistenceManager();
+        try {
+            final Transaction tx = pm.currentTransaction();
+            tx.begin();
+            try {
+                final Query query = pm.newNamedQuery(PdfViewerPosition.class, "findByKey");
+                query.setUnique(true);
+                final Map<String, Object> parameters = new HashMap<>();
+                parameters.put("userName", typeKey.getUserName());
+                parameters.put("objectType", typeKey.getObjectType());
+                parameters.put("propertyId", typeKey.getPropertyId());
+                parameters.put("identifierHash", identifierHash);
+                PdfViewerPosition position = (PdfViewerPosition) query.executeWithMap(parameters);
+                if (position == null) {
+                    position = new PdfViewerPosition();
+                    position.setUserName(typeKey.getUserName());
+                    position.setObjectType(typeKey.getObjectType());
+                    position.setPropertyId(typeKey.getPropertyId());
+                    position.setIdentifierHash(identifierHash);
+                    position.setPageNum(pageNum);
+                    position.setUpdatedAt(clockService.nowAsDateTime());
+                    pm.makePersistent(position);
+                } else {
+                    position.setPageNum(pageNum);
+                    position.setUpdatedAt(clockService.nowAsDateTime());
+                }
+                tx.commit();
+            } finally {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+            }
+        } finally {
+            pm.close();
+        }
+    }
+
+    static String hashOf(final String identifier) {
+        return Hashing.sha256().hashString(identifier, StandardCharsets.UTF_8).toString();
+    }
+
+    @Inject
+    RepositoryService repositoryService;
+
+    @Inject
+    ClockService clockService;
+
+    @Inject
+    IsisJdoSupport isisJdoSupport;
+
+}
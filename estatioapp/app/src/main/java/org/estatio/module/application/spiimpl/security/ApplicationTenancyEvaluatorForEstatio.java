@@ -16,14 +16,20 @@
  */
 package org.estatio.module.application.spiimpl.security;
 
-import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.Callable;
+import java.util.function.BiPredicate;
 
 import javax.inject.Inject;
 
 import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 
 import org.apache.isis.applib.annotation.DomainService;
 import org.apache.isis.applib.annotation.NatureOfService;
@@ -33,6 +39,9 @@ import org.isisaddons.module.security.dom.tenancy.ApplicationTenancyEvaluator;
 import org.isisaddons.module.security.dom.tenancy.HasAtPath;
 import org.isisaddons.module.security.dom.user.ApplicationUser;
 
+import lombok.Data;
+import lombok.Getter;
+
 @DomainService(nature = NatureOfService.DOMAIN, menuOrder = "99")
 public class ApplicationTenancyEvaluatorForEstatio implements ApplicationTenancyEvaluator {
 
@@ -76,44 +85,21 @@ public class ApplicationTenancyEvaluatorForEstatio implements ApplicationTenancy
     }
 
     boolean objectVisibleToUser(String objectTenancyPath, String userTenancyPath) {
-        final List<String> objectTenancyPathList = split(objectTenancyPath);
-        final List<String> userTenancyPathList = split(userTenancyPath);
-
-        for (int i = 0; i < objectTenancyPathList.size(); i++) {
-            final String objectTenancyPathPart = objectTenancyPathList.get(i);
-            if(i >= userTenancyPathList.size()) {
-                // run out of parts for the user tenancy, so the user tenancy is higher than object
-                return true;
-            }
-            final String userTenancyPathPart = userTenancyPathList.get(i);
-            if(!partsEqual(objectTenancyPathPart, userTenancyPathPart)) {
-                return false;
-            }
-        }
-        // run out of parts for the object tenancy, so the user tenancy is same or lower than the object
-        return true;
+        return verdictFor(objectTenancyPath, userTenancyPath).isVisible();
     }
 
     boolean objectEnabledForUser(String objectTenancyPath, String userTenancyPath) {
-        final List<String> objectTenancyPathList = split(objectTenancyPath);
-        final List<String> userTenancyPathList = split(userTenancyPath);
-
-        for (int i = 0; i < objectTenancyPathList.size(); i++) {
-            final String objectTenancyPathPart = objectTenancyPathList.get(i);
-            if(i >= userTenancyPathList.size()) {
-                // run out of parts for the user tenancy, so the user tenancy is higher than object
-                return true;
-            }
-            final String userTenancyPathPart = userTenancyPathList.get(i);
-            if(!partsEqual(objectTenancyPathPart, userTenancyPathPart)) {
-                return false;
-            }
-        }
-        // run out of parts for the object tenancy, so the user tenancy is same or lower than the object
-        final boolean sameSize = objectTenancyPathList.size() == userTenancyPathList.size();
-        return sameSize;
+        return verdictFor(objectTenancyPath, userTenancyPath).isEnabled();
     }
 
+    /**
+     * Whether a part of the object's tenancy matches the corresponding part of the user's.
+     *
+     * <p>
+     *     A hook for subclasses: the {@link TenancyPathMatcher matchers} compiled for user tenancies apply this
+     *     default themselves (without calling it), unless it is overridden.
+     * </p>
+     */
     protected boolean partsEqual(String objectTenancyPathPart, String userTenancyPathPart) {
         if (Objects.equals(objectTenancyPathPart, userTenancyPathPart)) {
             return true;
@@ -126,13 +112,154 @@ public class ApplicationTenancyEvaluatorForEstatio implements ApplicationTenancy
         return Objects.equals(objectTenancyPathPart, baseUserTenancyPathPart);
     }
 
-    private static List<String> split(String objectTenancyPath) {
-        return FluentIterable.from(Splitter.on('/')
-                            .split(objectTenancyPath))
-                            .filter(s -> !com.google.common.base.Strings.isNullOrEmpty(s))
-                            .toList();
+    //region > verdictFor, TenancyPathMatcher, Verdict
+
+    /**
+     * Upper bound on the number of distinct user tenancies whose compiled matcher is retained.
+     */
+    static final int MAX_USER_TENANCIES = 1_000;
+
+    /**
+     * Upper bound on the number of distinct object tenancies whose segments are retained.
+     */
+    static final int MAX_OBJECT_TENANCIES = 10_000;
+
+    /**
+     * Upper bound on the number of verdicts retained, across all users.
+     */
+    static final int MAX_VERDICTS = 100_000;
+
+    /**
+     * Split object tenancies, shared across all users; segments are interned so that the many objects with the
+     * same tenancy hold onto the same strings.
+     */
+    private final LoadingCache<String, String[]> objectTenancyPathSegments =
+            CacheBuilder.newBuilder()
+                    .maximumSize(MAX_OBJECT_TENANCIES)
+                    .build(CacheLoader.from(ApplicationTenancyEvaluatorForEstatio::segmentsOf));
+
+    private final LoadingCache<String, TenancyPathMatcher> userTenancyPathMatchers =
+            CacheBuilder.newBuilder()
+                    .maximumSize(MAX_USER_TENANCIES)
+                    .build(CacheLoader.from(userTenancyPath -> new TenancyPathMatcher(
+                            segmentsOf(userTenancyPath), overridesPartsEqual(getClass()) ? this::partsEqual : null)));
+
+    /**
+     * The {@link Verdict} for each (user tenancy, object tenancy) pair asked about, shared across all users.
+     */
+    private final Cache<VerdictKey, Verdict> verdicts =
+            CacheBuilder.newBuilder()
+                    .maximumSize(MAX_VERDICTS)
+                    .build();
+
+    private static final Interner<String> SEGMENTS = Interners.newWeakInterner();
+
+    @Data
+    static class VerdictKey {
+        private final String userTenancyPath;
+        private final String objectTenancyPath;
     }
 
+    Verdict verdictFor(final String objectTenancyPath, final String userTenancyPath) {
+        final VerdictKey key = new VerdictKey(userTenancyPath, objectTenancyPath);
+        final Verdict verdict = verdicts.getIfPresent(key);
+        if (verdict != null) {
+            return verdict;
+        }
+        final Verdict computed = userTenancyPathMatchers.getUnchecked(userTenancyPath)
+                .verdictFor(objectTenancyPathSegments.getUnchecked(objectTenancyPath));
+        verdicts.put(key, computed);
+        return computed;
+    }
+
+    static boolean overridesPartsEqual(final Class<?> cls) {
+        for (Class<?> c = cls; c != null && c != ApplicationTenancyEvaluatorForEstatio.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod("partsEqual", String.class, String.class);
+                return true;
+            } catch (NoSuchMethodException ex) {
+                // keep looking
+            }
+        }
+        return false;
+    }
+
+    private static String[] segmentsOf(final String tenancyPath) {
+        return FluentIterable.from(Splitter.on('/').omitEmptyStrings().split(tenancyPath))
+                .transform(SEGMENTS::intern)
+                .toArray(String.class);
+    }
+
+    enum Verdict {
+        HIDDEN(false, false),
+        VISIBLE(true, false),
+        ENABLED(true, true);
+
+        @Getter
+        private final boolean visible;
+        @Getter
+        private final boolean enabled;
+
+        Verdict(final boolean visible, final boolean enabled) {
+            this.visible = visible;
+            this.enabled = enabled;
+        }
+    }
+
+    /**
+     * The tenancy of a user, compiled once into its segments (with the base of any "X-" segment precomputed).
+     *
+     * <p>
+     *     Users are each assigned a single tenancy, so the trie of segments is a single chain; the object tenancy
+     *     is walked down it, matching each segment either exactly or against the base of an "X-" segment.
+     * </p>
+     */
+    static final class TenancyPathMatcher {
+
+        private final String[] segments;
+        private final String[] wildcardBases;
+
+        /**
+         * An overridden {@link ApplicationTenancyEvaluatorForEstatio#partsEqual(String, String)}, if any.
+         */
+        private final BiPredicate<String, String> partsEqual;
+
+        TenancyPathMatcher(final String[] segments, final BiPredicate<String, String> partsEqual) {
+            this.segments = segments;
+            this.partsEqual = partsEqual;
+            this.wildcardBases = new String[segments.length];
+            for (int i = 0; i < segments.length; i++) {
+                wildcardBases[i] = segments[i].startsWith("X-") ? segments[i].substring(2) : null;
+            }
+        }
+
+        Verdict verdictFor(final String[] objectSegments) {
+            for (int i = 0; i < objectSegments.length; i++) {
+                if (i >= segments.length) {
+                    // run out of parts for the user tenancy, so the user tenancy is higher than object
+                    return Verdict.ENABLED;
+                }
+                if (!matches(i, objectSegments[i])) {
+                    return Verdict.HIDDEN;
+                }
+            }
+            // run out of parts for the object tenancy, so the user tenancy is same or lower than the object
+            return objectSegments.length == segments.length ? Verdict.ENABLED : Verdict.VISIBLE;
+        }
+
+        /**
+         * eg allow "X-CAR" user to match with "CAR"
+         */
+        private boolean matches(final int i, final String objectSegment) {
+            if (partsEqual != null) {
+                return partsEqual.test(objectSegment, segments[i]);
+            }
+            return segments[i].equals(objectSegment) || objectSegment.equals(wildcardBases[i]);
+        }
+    }
+
+    //endregion
+
     //region > helpers: applicationTenancyPathForCached, applicationTenancyPathFor, userTenancyPathForCached, userTenancyPathFor
     private String applicationTenancyPathForCached(final Object domainObject) {
         return (String)queryResultsCache.execute(
@@ -19,10 +19,23 @@
 package org.estatio.module.base.dom;
 
 import java.util.List;
+import java.util.Map;
+
 import javax.jdo.Query;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
 import org.apache.isis.applib.query.QueryDefault;
 import org.apache.isis.applib.services.jdosupport.IsisJdoSupport;
+import org.apache.isis.applib.services.queryresultscache.QueryResultsCache;
+import org.apache.isis.applib.services.user.UserService;
+
+import org.isisaddons.module.security.dom.user.ApplicationUser;
+import org.isisaddons.module.security.dom.user.ApplicationUserRepository;
+
+import org.estatio.module.base.dom.apptenancy.ApplicationTenancyPathFilter;
+import org.estatio.module.base.dom.apptenancy.WithApplicationTenancyPathPersisted;
 
 public abstract class UdoDomainRepositoryAndFactory<T> extends UdoDomainService<T> {
 
@@ -81,9 +94,78 @@ public abstract class UdoDomainRepositoryAndFactory<T> extends UdoDomainService<
 
     // //////////////////////////////////////
 
+    /**
+     * Opt-in alternative to {@link #allMatches(String, Object...)} for entities with a persisted atPath, that also
+     * restricts to those objects visible to the current user (as per {@link ApplicationTenancyPathFilter}).
+     *
+     * <p>
+     *     Since named queries cannot be amended, the filter (and ordering) are provided as JDOQL fragments, using
+     *     implicit parameters.  The <code>ApplicationTenancyEvaluator</code> continues to apply to the results; the
+     *     point is to avoid loading (only to then hide) the rows of other countries.
+     * </p>
+     *
+     * @param filter - may be null, to select all instances visible to the current user
+     * @param ordering - may be null
+     */
+    @SuppressWarnings("unchecked")
+    protected List<T> allMatchesVisibleToCurrentUser(
+            final String filter,
+            final String ordering,
+            final Object... paramArgs) {
+        if (!WithApplicationTenancyPathPersisted.class.isAssignableFrom(getEntityType())) {
+            throw new IllegalStateException(String.format(
+                    "%s does not persist its atPath", getEntityType().getName()));
+        }
+
+        final ApplicationTenancyPathFilter tenancyFilter = tenancyPathFilterForCurrentUser();
+
+        final Map<String, Object> parameters = Maps.newHashMap();
+        for (int i = 0; i < paramArgs.length; i += 2) {
+            parameters.put((String) paramArgs[i], paramArgs[i + 1]);
+        }
+        parameters.putAll(tenancyFilter.getParameters());
+
+        final String tenancyJdoql = tenancyFilter.toJdoql(atPathMember());
+        final Query query = isisJdoSupport.getJdoPersistenceManager().newQuery(getEntityType());
+        query.setFilter(filter == null ? tenancyJdoql : "(" + filter + ") && " + tenancyJdoql);
+        if (ordering != null) {
+            query.setOrdering(ordering);
+        }
+        try {
+            return Lists.newArrayList((List<T>) query.executeWithMap(parameters));
+        } finally {
+            query.closeAll();
+        }
+    }
+
+    /**
+     * The name of the member holding the persisted atPath; by convention <code>applicationTenancyPath</code>.
+     */
+    protected String atPathMember() {
+        return "applicationTenancyPath";
+    }
+
+    private ApplicationTenancyPathFilter tenancyPathFilterForCurrentUser() {
+        return queryResultsCache.execute(() -> {
+            final ApplicationUser user = applicationUserRepository.findByUsername(userService.getUser().getName());
+            return ApplicationTenancyPathFilter.forUser(user != null ? user.getAtPath() : null);
+        }, UdoDomainRepositoryAndFactory.class, "tenancyPathFilterForCurrentUser");
+    }
+
+    // //////////////////////////////////////
+
     @javax.inject.Inject
     IsisJdoSupport isisJdoSupport;
 
+    @javax.inject.Inject
+    UserService userService;
+
+    @javax.inject.Inject
+    ApplicationUserRepository applicationUserRepository;
+
+    @javax.inject.Inject
+    QueryResultsCache queryResultsCache;
+
     protected IsisJdoSupport getIsisJdoSupport() {
         return isisJdoSupport;
     }
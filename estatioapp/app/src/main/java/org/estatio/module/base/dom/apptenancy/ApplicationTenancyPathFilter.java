@@ -0,0 +1,150 @@
+/*
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.module.base.dom.apptenancy;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
+
+/**
+ * Value type; a JDOQL predicate on a persisted atPath that selects exactly those objects visible to a user with a
+ * given tenancy, so that repositories can push tenancy filtering down into the query rather than loading rows only
+ * for them to be hidden afterwards.
+ *
+ * <p>
+ *     An object is visible if its tenancy is the same as, above or below that of the user; a user segment of
+ *     "X-CAR" also matches an object segment of "CAR".
+ * </p>
+ */
+public final class ApplicationTenancyPathFilter {
+
+    public static final ApplicationTenancyPathFilter UNRESTRICTED =
+            new ApplicationTenancyPathFilter(Collections.emptySet(), Collections.emptyList());
+
+    static final String PARAM_AT_PATHS = "tenancyAtPaths";
+    static final String PARAM_AT_PATH_PREFIX = "tenancyAtPathPrefix";
+
+    /**
+     * @param userTenancyPath - if null, then {@link #UNRESTRICTED} is returned, leaving it to the
+     *                        <code>ApplicationTenancyEvaluator</code> to decide.
+     */
+    public static ApplicationTenancyPathFilter forUser(final String userTenancyPath) {
+        if (userTenancyPath == null) {
+            return UNRESTRICTED;
+        }
+        final List<String> segments = Splitter.on('/').omitEmptyStrings().splitToList(userTenancyPath);
+        if (segments.isEmpty()) {
+            // global users see everything
+            return UNRESTRICTED;
+        }
+
+        // all the tenancies above the user (including the root), each of which is visible exactly
+        final Set<String> atPaths = new LinkedHashSet<>();
+        atPaths.add("/");
+
+        List<String> paths = Collections.singletonList("");
+        for (int i = 0; i < segments.size(); i++) {
+            final String segment = segments.get(i);
+            final List<String> nextPaths = Lists.newArrayList();
+            for (final String path : paths) {
+                nextPaths.add(path + "/" + segment);
+                if (segment.startsWith("X-")) {
+                    nextPaths.add(path + "/" + segment.substring(2));
+                }
+            }
+            paths = nextPaths;
+            atPaths.addAll(paths);
+        }
+
+        // everything below the user
+        final List<String> atPathPrefixes = Lists.newArrayList();
+        for (final String path : paths) {
+            atPathPrefixes.add(path + "/");
+        }
+        return new ApplicationTenancyPathFilter(atPaths, atPathPrefixes);
+    }
+
+    private final Set<String> atPaths;
+    private final List<String> atPathPrefixes;
+
+    private ApplicationTenancyPathFilter(final Set<String> atPaths, final List<String> atPathPrefixes) {
+        this.atPaths = Collections.unmodifiableSet(atPaths);
+        this.atPathPrefixes = Collections.unmodifiableList(atPathPrefixes);
+    }
+
+    public boolean isUnrestricted() {
+        return atPathPrefixes.isEmpty();
+    }
+
+    /**
+     * The JDOQL filter on the given (persisted atPath) member, referencing the implicit {@link #getParameters() parameters}.
+     */
+    public String toJdoql(final String atPathMember) {
+        if (isUnrestricted()) {
+            return "true";
+        }
+        final StringBuilder buf = new StringBuilder("(:").append(PARAM_AT_PATHS).append(".contains(").append(atPathMember).append(")");
+        for (int i = 0; i < atPathPrefixes.size(); i++) {
+            buf.append(" || ").append(atPathMember).append(".startsWith(:").append(PARAM_AT_PATH_PREFIX).append(i).append(")");
+        }
+        return buf.append(")").toString();
+    }
+
+    public Map<String, Object> getParameters() {
+        final Map<String, Object> parameters = new LinkedHashMap<>();
+        if (isUnrestricted()) {
+            return parameters;
+        }
+        parameters.put(PARAM_AT_PATHS, atPaths);
+        for (int i = 0; i < atPathPrefixes.size(); i++) {
+            parameters.put(PARAM_AT_PATH_PREFIX + i, atPathPrefixes.get(i));
+        }
+        return parameters;
+    }
+
+    /**
+     * The same predicate as {@link #toJdoql(String)}, evaluated in memory.
+     */
+    public boolean accepts(final String atPath) {
+        if (isUnrestricted()) {
+            return true;
+        }
+        if (atPath == null) {
+            return false;
+        }
+        if (atPaths.contains(atPath)) {
+            return true;
+        }
+        for (final String atPathPrefix : atPathPrefixes) {
+            if (atPath.startsWith(atPathPrefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return isUnrestricted() ? "unrestricted" : atPaths + " or below " + atPathPrefixes;
+    }
+}
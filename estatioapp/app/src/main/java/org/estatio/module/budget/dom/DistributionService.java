@@ -4,6 +4,7 @@ import java.math.BigDecimal;
 import java.math.MathContext;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.ListIterator;
 
 public class DistributionService {
 
@@ -13,7 +14,9 @@ public class DistributionService {
      * equally distributed over {@link BigDecimal} item.value according to
      * {@link BigDecimal} item.sourceValue.
      *
-     * Rounding correction finds place according to {@link int} precision.
+     * Rounding correction finds place according to {@link int} precision: the delta between the sum of the
+     * rounded values and the (rounded) targetTotal is corrected one unit of the least significant digit at a time,
+     * on the last items (with non-zero sourceValue) of the input, each item being corrected at most once.
      *
      * The original order of List input is preserved.
      *
@@ -38,185 +41,42 @@ public class DistributionService {
             return input;
         }
 
-            /*debug*/
-//        System.out.println("***************************");
-//        System.out.println("denominator: ");
-//        System.out.println(denominator);
-            /*debug*/
-
-        List<OutputHelper> outputHelperList = new ArrayList<>();
+        BigDecimal sumOfCalculatedRoundedValues = BigDecimal.ZERO;
         for (Distributable distributable : input) {
-
             BigDecimal unroundedTargetValue = distributable.getSourceValue().multiply(targetTotal, MathContext.DECIMAL64).divide(denominator, MathContext.DECIMAL64);
             BigDecimal roundedTargetValue = unroundedTargetValue.setScale(precision, BigDecimal.ROUND_HALF_UP);
             distributable.setValue(roundedTargetValue);
-            OutputHelper newOutputObject = new OutputHelper(
-                    distributable,
-                    roundedTargetValue.subtract(unroundedTargetValue, MathContext.DECIMAL64),
-                    false
-            );
-
-            outputHelperList.add(newOutputObject);
-
+            sumOfCalculatedRoundedValues = sumOfCalculatedRoundedValues.add(roundedTargetValue, MathContext.DECIMAL64);
         }
 
-
-        // 1. check if rounding correction is needed
-        BigDecimal sumOfCalculatedRoundedValues = BigDecimal.ZERO;
-        for (OutputHelper helper : outputHelperList) {
-            sumOfCalculatedRoundedValues = sumOfCalculatedRoundedValues.add(helper.distributable.getValue(), MathContext.DECIMAL64);
-                    /*debug*/
-//            System.out.println("***************************");
-//            System.out.println(helper.distributable.getValue());
-//            System.out.print("sumOfCalculatedRoundedValues: ");
-//            System.out.println(sumOfCalculatedRoundedValues);
-                    /*debug*/
-        }
-
-        BigDecimal deltaOfSum = BigDecimal.ZERO;
-        Delta deltaSignOfSum = Delta.NO_DELTA;
+        // 1. check if rounding correction is needed, as a number of units of the least significant digit
         BigDecimal validTotal = targetTotal.setScale(precision, BigDecimal.ROUND_HALF_UP);
-
-        if (sumOfCalculatedRoundedValues.compareTo(validTotal) > 0) {
-            deltaSignOfSum = Delta.DELTA_POSITIVE;
-            deltaOfSum = deltaOfSum.add(sumOfCalculatedRoundedValues.subtract(validTotal, MathContext.DECIMAL64));
-                    /*debug*/
-//            System.out.println("***************************");
-//            System.out.print("positive delta: ");
-//            System.out.println(deltaOfSum);
-                    /*debug*/
-        }
-        if (sumOfCalculatedRoundedValues.compareTo(validTotal) < 0) {
-            deltaSignOfSum = Delta.DELTA_NEGATIVE;
-            deltaOfSum = deltaOfSum.add(sumOfCalculatedRoundedValues.subtract(validTotal, MathContext.DECIMAL64));
-                    /*debug*/
-//            System.out.println("***************************");
-//            System.out.print("negative delta: ");
-//            System.out.println(deltaOfSum);
-                    /*debug*/
-        }
-
-        // 2. in case of rounding needed: iterate over sorted array until fixed
-        Integer numberOfIterationsNeeded = deltaOfSum.abs().multiply(multiplicationFactor(precision)).intValue();
-
-        for (int i = 0; i < numberOfIterationsNeeded; i = i + 1) {
-
-            if (deltaSignOfSum == Delta.DELTA_NEGATIVE) {
-
-                //find largest (positive) delta in output Object and round up
-                BigDecimal largestPositiveDelta = new BigDecimal(-1);
-                OutputHelper helperToRoundUp = null;
-                for (OutputHelper helper : outputHelperList) {
-                    if (
-                            helper.delta.compareTo(largestPositiveDelta) > 0
-                            &&
-                                    !helper.corrected
-                            &&
-                                    !(helper.distributable.getSourceValue().compareTo(BigDecimal.ZERO) == 0)
-                            ) {
-                        helperToRoundUp = helper;
-                    }
+        BigDecimal deltaOfSum = sumOfCalculatedRoundedValues.subtract(validTotal, MathContext.DECIMAL64);
+        long numberOfCorrectionsNeeded = deltaOfSum.abs().movePointRight(precision).longValue();
+
+        // 2. in case of rounding needed: correct each of the last items with a non-zero source value by one unit
+        // (towards the valid total), walking the list from the end
+        if (numberOfCorrectionsNeeded > 0) {
+            BigDecimal correction = deltaOfSum.signum() < 0 ? unit(precision) : unit(precision).negate();
+            for (ListIterator<Distributable> iterator = input.listIterator(input.size());
+                 iterator.hasPrevious() && numberOfCorrectionsNeeded > 0; ) {
+                Distributable distributable = iterator.previous();
+                if (distributable.getSourceValue().compareTo(BigDecimal.ZERO) == 0) {
+                    continue;
                 }
-                helperToRoundUp
-                        .distributable.setValue(
-                        helperToRoundUp.distributable.getValue()
-                                .add(increment(precision), MathContext.DECIMAL64)
-                                .setScale(precision, BigDecimal.ROUND_HALF_UP)
-                );
-                deltaOfSum = deltaOfSum.add(increment(precision)).setScale(precision +3, BigDecimal.ROUND_HALF_UP);
-                helperToRoundUp.setCorrected(true);
-
-                        /*debug*/
-//                System.out.print("Identifier: ");
-//                System.out.println(helperToRoundUp.distributable.getSourceValue());
-//                System.out.print("New keyRoundedValue: ");
-//                System.out.println(helperToRoundUp.distributable.getValue());
-//                System.out.print("New deltaOfSum: ");
-//                System.out.println(deltaOfSum);
-                        /*debug*/
-
-            } else {
-
-                //find largest negative delta in output Object and round down
-                BigDecimal largestNegativeDelta = BigDecimal.ONE;
-                OutputHelper helperToRoundDown = null;
-                for (OutputHelper helper : outputHelperList) {
-                    if (
-                            helper.delta.compareTo(largestNegativeDelta) < 0
-                            &&
-                                    !helper.corrected
-                            &&
-                                    !(helper.distributable.getSourceValue().compareTo(BigDecimal.ZERO) == 0)
-                            ) {
-                        helperToRoundDown = helper;
-                    }
-                }
-                helperToRoundDown.
-                        distributable.setValue(
-                        helperToRoundDown.distributable.getValue()
-                                .subtract(increment(precision), MathContext.DECIMAL64)
-                                .setScale(precision, BigDecimal.ROUND_HALF_UP)
-                );
-                deltaOfSum = deltaOfSum.subtract(increment(precision)).setScale(precision +3, BigDecimal.ROUND_HALF_UP);
-                helperToRoundDown.setCorrected(true);
-
-                        /*debug*/
-//                System.out.print("Identifier: ");
-//                System.out.println(helperToRoundDown.distributable.getSourceValue());
-//                System.out.print("New keyRoundedValue: ");
-//                System.out.println(helperToRoundDown.distributable.getValue());
-//                System.out.print("New deltaOfSum: ");
-//                System.out.println(deltaOfSum);
-                        /*debug*/
-
+                distributable.setValue(distributable.getValue().add(correction, MathContext.DECIMAL64).setScale(precision, BigDecimal.ROUND_HALF_UP));
+                numberOfCorrectionsNeeded--;
             }
-
-        }
-
-        ArrayList<Distributable> output = new ArrayList<>();
-
-        for (OutputHelper helper : outputHelperList) {
-            output.add(helper.distributable);
         }
 
-        return output;
+        return new ArrayList<>(input);
     }
 
-    private BigDecimal multiplicationFactor(final int scale) {
-        return new BigDecimal(10).pow(scale, MathContext.DECIMAL64);
-    }
-
-    private BigDecimal increment(final int scale) {
-        return BigDecimal.valueOf(0.1).pow(scale, MathContext.DECIMAL64);
-    }
-
-    private class OutputHelper {
-
-        OutputHelper(
-                final Distributable distributable,
-                final BigDecimal delta,
-                final boolean corrected) {
-            this.distributable = distributable;
-            this.delta = delta;
-            this.corrected = corrected;
-        }
-
-        private Distributable distributable;
-
-        private BigDecimal delta;
-
-        private boolean corrected;
-
-        public void setCorrected(final boolean corrected){
-            this.corrected = corrected;
-        }
-
-    }
-
-    private enum Delta {
-        DELTA_POSITIVE,
-        DELTA_NEGATIVE,
-        NO_DELTA
+    /**
+     * One unit of the least significant digit at this precision, eg 0.01 for a precision of 2.
+     */
+    private static BigDecimal unit(final int precision) {
+        return BigDecimal.ONE.scaleByPowerOfTen(-precision);
     }
 
 }
@@ -81,6 +81,11 @@ import lombok.Setter;
                         "WHERE partitionItem == :partitionItem " +
                         "&& keyItem == :keyItem " +
                         "&& calculationType == :calculationType"),
+        @Query(
+                name = "findByBudget", language = "JDOQL",
+                value = "SELECT " +
+                        "FROM org.estatio.module.budget.dom.budgetcalculation.BudgetCalculation " +
+                        "WHERE budget == :budget"),
         @Query(
                 name = "findByPartitionItemAndCalculationType", language = "JDOQL",
                 value = "SELECT " +
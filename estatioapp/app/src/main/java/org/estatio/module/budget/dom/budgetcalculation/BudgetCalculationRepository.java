@@ -74,14 +74,7 @@ public class BudgetCalculationRepository extends UdoDomainRepositoryAndFactory<B
     }
 
     public List<BudgetCalculation> findByBudget(final Budget budget) {
-        List<BudgetCalculation> result = new ArrayList<>();
-        for (BudgetItem item : budget.getItems()){
-
-            result.addAll(findByBudgetItemAndCalculationType(item, BudgetCalculationType.ACTUAL));
-            result.addAll(findByBudgetItemAndCalculationType(item, BudgetCalculationType.BUDGETED));
-
-        }
-        return result;
+        return allMatches("findByBudget", "budget", budget);
     }
 
     public List<BudgetCalculation> findByBudgetItemAndCalculationType(final BudgetItem budgetItem, final BudgetCalculationType calculationType) {
@@ -3,33 +3,61 @@ package org.estatio.module.budget.dom.budgetcalculation;
 import java.math.BigDecimal;
 import java.math.MathContext;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.inject.Inject;
 
 import org.apache.isis.applib.annotation.DomainService;
 import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.services.repository.RepositoryService;
+import org.apache.isis.applib.services.xactn.TransactionService;
 
 import org.estatio.module.budget.dom.partioning.PartitionItem;
 import org.estatio.module.budget.dom.budget.Budget;
 import org.estatio.module.budget.dom.budgetitem.BudgetItem;
 import org.estatio.module.budget.dom.keyitem.KeyItem;
+import org.estatio.module.budget.dom.keytable.KeyTable;
 
 @DomainService(nature = NatureOfService.DOMAIN)
 public class BudgetCalculationService {
 
+    /**
+     * Replaces the calculations of the budget with status {@link Status#NEW new}; calculations that have been
+     * {@link Status#ASSIGNED assigned} already are kept as they are.
+     *
+     * <p>
+     *     The existing calculations are loaded in one query and the new ones are only persisted, without looking them
+     *     up one by one, so that they are inserted in batches when the transaction is flushed.
+     * </p>
+     */
     public List<BudgetCalculation> calculatePersistedCalculations(final Budget budget) {
 
-        removeNewCalculations(budget);
+        final Map<CalculationKey, BudgetCalculation> assignedCalculations = new HashMap<>();
+        for (BudgetCalculation calc : budgetCalculationRepository.findByBudget(budget)) {
+            if (calc.getStatus() == Status.NEW) {
+                repositoryService.remove(calc);
+            } else {
+                assignedCalculations.put(new CalculationKey(calc.getPartitionItem(), calc.getKeyItem(), calc.getCalculationType()), calc);
+            }
+        }
+        // the removed calculations must be deleted before any new ones (with the same unique key) are inserted
+        transactionService.flushTransaction();
 
         List<BudgetCalculation> budgetCalculations = new ArrayList<>();
         for (BudgetCalculationViewmodel result : getBudgetedCalculations(budget)){
+            final BudgetCalculation assigned = assignedCalculations.get(
+                    new CalculationKey(result.getPartitionItem(), result.getKeyItem(), result.getCalculationType()));
             budgetCalculations.add(
-                    budgetCalculationRepository.findOrCreateBudgetCalculation(
-                    result.getPartitionItem(),
-                    result.getKeyItem(),
-                    result.getValue(),
-                    result.getCalculationType())
+                    assigned != null
+                            ? assigned
+                            : budgetCalculationRepository.createBudgetCalculation(
+                                    result.getPartitionItem(),
+                                    result.getKeyItem(),
+                                    result.getValue(),
+                                    result.getCalculationType())
             );
         }
         return budgetCalculations;
@@ -42,95 +70,62 @@ public class BudgetCalculationService {
     }
 
     public List<BudgetCalculationViewmodel> getBudgetedCalculations(final Budget budget){
-        List<BudgetCalculationViewmodel> budgetCalculationViewmodels = new ArrayList<>();
-        for (BudgetItem budgetItem : budget.getItems()) {
-
-            budgetCalculationViewmodels.addAll(calculate(budgetItem, BudgetCalculationType.BUDGETED));
-
-        }
-        return budgetCalculationViewmodels;
+        return calculate(budget, BudgetCalculationType.BUDGETED);
     }
 
     public List<BudgetCalculationViewmodel> getAuditedCalculations(final Budget budget){
-        List<BudgetCalculationViewmodel> budgetCalculationViewmodels = new ArrayList<>();
-        for (BudgetItem budgetItem : budget.getItems()) {
-
-            budgetCalculationViewmodels.addAll(calculate(budgetItem, BudgetCalculationType.ACTUAL));
-
-        }
-        return budgetCalculationViewmodels;
+        return calculate(budget, BudgetCalculationType.ACTUAL);
     }
 
     public List<BudgetCalculationViewmodel> getAllCalculations(final Budget budget){
-        List<BudgetCalculationViewmodel> budgetCalculationViewmodels = new ArrayList<>();
-        for (BudgetItem budgetItem : budget.getItems()) {
-
-            budgetCalculationViewmodels.addAll(calculate(budgetItem, BudgetCalculationType.BUDGETED));
-            budgetCalculationViewmodels.addAll(calculate(budgetItem, BudgetCalculationType.ACTUAL));
-
-        }
-        return budgetCalculationViewmodels;
+        return calculate(budget, BudgetCalculationType.BUDGETED, BudgetCalculationType.ACTUAL);
     }
 
-    private List<BudgetCalculationViewmodel> calculate(final BudgetItem budgetItem, final BudgetCalculationType type) {
-
-        List<BudgetCalculationViewmodel> result = new ArrayList<>();
-        for (PartitionItem partitionItem : budgetItem.getPartitionItems()) {
-
-            result.addAll(calculate(partitionItem, type));
-
+    /**
+     * Calculates all partition items of the budget in one pass, per budget item in the order of the types; each
+     * {@link KeyTable} is loaded only once.
+     */
+    private List<BudgetCalculationViewmodel> calculate(final Budget budget, final BudgetCalculationType... types) {
+        final Map<KeyTable, KeyTableColumns> columnsByKeyTable = new IdentityHashMap<>();
+        List<BudgetCalculationViewmodel> results = new ArrayList<>();
+        for (BudgetItem budgetItem : budget.getItems()) {
+            final List<PartitionItem> partitionItems = budgetItem.getPartitionItems();
+            for (BudgetCalculationType type : types) {
+                for (PartitionItem partitionItem : partitionItems) {
+                    final BigDecimal total = totalFor(partitionItem, type);
+                    if (total != null) {
+                        final KeyTableColumns columns = columnsByKeyTable.computeIfAbsent(partitionItem.getKeyTable(), KeyTableColumns::of);
+                        calculateForTotalAndType(partitionItem, columns, total, type, results);
+                    }
+                }
+            }
         }
-
-        return result;
+        return results;
     }
 
-    private List<BudgetCalculationViewmodel> calculate(final PartitionItem partitionItem, final BudgetCalculationType type) {
-
-        List<BudgetCalculationViewmodel> results = new ArrayList<>();
-
+    private BigDecimal totalFor(final PartitionItem partitionItem, final BudgetCalculationType type) {
         switch (type) {
             case BUDGETED:
-                BigDecimal budgetedTotal = percentageOf(partitionItem.getBudgetItem().getBudgetedValue(), partitionItem.getPercentage());
-                results.addAll(calculateForTotalAndType(partitionItem, budgetedTotal, BudgetCalculationType.BUDGETED));
-            break;
+                return percentageOf(partitionItem.getBudgetItem().getBudgetedValue(), partitionItem.getPercentage());
 
             case ACTUAL:
-                if (partitionItem.getBudgetItem().getAuditedValue() != null) {
-                    BigDecimal auditedTotal = percentageOf(partitionItem.getBudgetItem().getAuditedValue(), partitionItem.getPercentage());
-                    results.addAll(calculateForTotalAndType(partitionItem, auditedTotal, BudgetCalculationType.ACTUAL));
-                }
-            break;
+                final BigDecimal auditedValue = partitionItem.getBudgetItem().getAuditedValue();
+                return auditedValue != null ? percentageOf(auditedValue, partitionItem.getPercentage()) : null;
         }
-
-        return results;
+        return null;
     }
 
-    private List<BudgetCalculationViewmodel> calculateForTotalAndType(final PartitionItem partitionItem, final BigDecimal total, final BudgetCalculationType calculationType) {
-
-        List<BudgetCalculationViewmodel> results = new ArrayList<>();
-
-        BigDecimal divider = partitionItem.getKeyTable().getKeyValueMethod().divider(partitionItem.getKeyTable());
-
-        for (KeyItem keyItem : partitionItem.getKeyTable().getItems()) {
-
-            BudgetCalculationViewmodel calculationResult;
-
+    private void calculateForTotalAndType(
+            final PartitionItem partitionItem,
+            final KeyTableColumns columns,
+            final BigDecimal total,
+            final BudgetCalculationType calculationType,
+            final List<BudgetCalculationViewmodel> results) {
 
-            calculationResult = new BudgetCalculationViewmodel(
-                    partitionItem,
-                    keyItem,
-                    total.multiply(keyItem.getValue()).
-                            divide(divider, MathContext.DECIMAL64).
-                            setScale(keyItem.getKeyTable().getPrecision(), BigDecimal.ROUND_HALF_UP),
-                    calculationType);
-
-
-
-            results.add(calculationResult);
+        final BigDecimal[] values = columns.distribute(total);
+        for (int i = 0; i < columns.size(); i++) {
+            results.add(new BudgetCalculationViewmodel(partitionItem, columns.keyItem(i), values[i], calculationType));
         }
-
-        return results;
-
     }
 
     private BigDecimal percentageOf(final BigDecimal value, final BigDecimal percentage) {
@@ -139,9 +134,46 @@ public class BudgetCalculationService {
                 .divide(new BigDecimal("100"), MathContext.DECIMAL64);
     }
 
+    /**
+     * Matches calculations on the identity of their partition item and key item, as loaded in the one persistence
+     * context.
+     */
+    private static final class CalculationKey {
+
+        private final PartitionItem partitionItem;
+        private final KeyItem keyItem;
+        private final BudgetCalculationType calculationType;
+
+        CalculationKey(final PartitionItem partitionItem, final KeyItem keyItem, final BudgetCalculationType calculationType) {
+            this.partitionItem = partitionItem;
+            this.keyItem = keyItem;
+            this.calculationType = calculationType;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof CalculationKey)) {
+                return false;
+            }
+            final CalculationKey other = (CalculationKey) o;
+            return partitionItem == other.partitionItem && keyItem == other.keyItem && calculationType == other.calculationType;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * System.identityHashCode(partitionItem) + System.identityHashCode(keyItem)) + calculationType.hashCode();
+        }
+    }
+
 
     @Inject
     private BudgetCalculationRepository budgetCalculationRepository;
 
+    @Inject
+    private RepositoryService repositoryService;
+
+    @Inject
+    private TransactionService transactionService;
+
 
 }
@@ -0,0 +1,77 @@
+/*
+ *
+ *  Copyright 2012-2015 Eurocommercial Properties NV
+ *
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.module.budget.dom.budgetcalculation;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+import org.estatio.module.budget.dom.keyitem.KeyItem;
+import org.estatio.module.budget.dom.keytable.KeyTable;
+
+/**
+ * A {@link KeyTable} loaded once into arrays, so that distributing a total over its {@link KeyItem}s does not go
+ * back to the key table (and its {@link org.estatio.module.budget.dom.keytable.KeyValueMethod#divider(KeyTable) divider})
+ * for every partition item.
+ */
+class KeyTableColumns {
+
+    private final KeyItem[] keyItems;
+    private final BigDecimal[] values;
+    private final BigDecimal divider;
+    private final int precision;
+
+    private KeyTableColumns(final KeyItem[] keyItems, final BigDecimal[] values, final BigDecimal divider, final int precision) {
+        this.keyItems = keyItems;
+        this.values = values;
+        this.divider = divider;
+        this.precision = precision;
+    }
+
+    static KeyTableColumns of(final KeyTable keyTable) {
+        final KeyItem[] keyItems = keyTable.getItems().toArray(new KeyItem[0]);
+        final BigDecimal[] values = new BigDecimal[keyItems.length];
+        for (int i = 0; i < keyItems.length; i++) {
+            values[i] = keyItems[i].getValue();
+        }
+        return new KeyTableColumns(keyItems, values, keyTable.getKeyValueMethod().divider(keyTable), keyTable.getPrecision());
+    }
+
+    int size() {
+        return keyItems.length;
+    }
+
+    KeyItem keyItem(final int i) {
+        return keyItems[i];
+    }
+
+    /**
+     * The share of the total for each key item, in the order of the key items: the total times the value of the key
+     * item divided by the divider of the table, rounded (half up) to the precision of the table.
+     */
+    BigDecimal[] distribute(final BigDecimal total) {
+        final BigDecimal[] shares = new BigDecimal[values.length];
+        for (int i = 0; i < values.length; i++) {
+            shares[i] = total.multiply(values[i])
+                    .divide(divider, MathContext.DECIMAL64)
+                    .setScale(precision, BigDecimal.ROUND_HALF_UP);
+        }
+        return shares;
+    }
+
+}
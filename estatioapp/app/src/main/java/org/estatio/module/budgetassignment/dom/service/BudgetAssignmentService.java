@@ -3,6 +3,8 @@ package org.estatio.module.budgetassignment.dom.service;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
@@ -39,7 +41,10 @@ import org.estatio.module.lease.dom.LeaseRepository;
 import org.estatio.module.lease.dom.LeaseStatus;
 import org.estatio.module.lease.dom.LeaseTermForServiceCharge;
 import org.estatio.module.lease.dom.LeaseTermRepository;
+import org.estatio.module.lease.dom.invoicing.LeaseInvoicingChangeSubscriber;
 import org.estatio.module.lease.dom.occupancy.Occupancy;
+import org.estatio.module.lease.dom.occupancy.OccupancyIntervalIndex;
+import org.estatio.module.lease.dom.occupancy.OccupancyRepository;
 
 @DomainService(nature = NatureOfService.DOMAIN)
 public class BudgetAssignmentService {
@@ -57,16 +62,13 @@ public class BudgetAssignmentService {
     }
 
     List<Lease> leasesWithActiveOccupations(final Budget budget){
+        final Set<Lease> leasesOverlappingBudget =
+                occupancyRepository.intervalIndexFor(budget.getProperty()).leasesOverlapping(budget.getInterval());
         List<Lease> result = new ArrayList<>();
         for (Lease lease : leaseRepository.findLeasesByProperty(budget.getProperty())){
             // TODO: this is an extra filter because currently occupancies can outrun terminated leases
-            if (lease.getStatus()!=LeaseStatus.TERMINATED) {
-                for (Occupancy occupancy : lease.getOccupancies()) {
-                    if (occupancy.getInterval().overlaps(budget.getInterval())) {
-                        result.add(lease);
-                        break;
-                    }
-                }
+            if (lease.getStatus()!=LeaseStatus.TERMINATED && leasesOverlappingBudget.contains(lease)) {
+                result.add(lease);
             }
         }
         return result;
@@ -123,6 +125,7 @@ public class BudgetAssignmentService {
                 budgetCalculationResultLinkRepository.findOrCreateLink(resultForLease, leaseTerm);
 
                 leaseTerm.setBudgetedValue(resultForLease.getValue());
+                leaseInvoicingChangeSubscriber.changed(run.getLease());
             }
 
             run.finalizeRun();
@@ -161,6 +164,7 @@ public class BudgetAssignmentService {
 
     public List<CalculationResultViewModel> getCalculationResults(final Budget budget){
         List<CalculationResultViewModel> results = new ArrayList<>();
+        final OccupancyIntervalIndex occupancyIntervalIndex = occupancyRepository.intervalIndexFor(budget.getProperty());
         for (BudgetCalculationRun run : budgetCalculationRunRepository.findByBudgetAndType(budget, BudgetCalculationType.BUDGETED)){
             for (BudgetCalculationResult result : run.getBudgetCalculationResults()){
                 CalculationResultViewModel vm = new CalculationResultViewModel(
@@ -173,24 +177,19 @@ public class BudgetAssignmentService {
                         run.getType()==BudgetCalculationType.ACTUAL ? result.getValue() :BigDecimal.ZERO ,
                         run.getType()==BudgetCalculationType.ACTUAL ? result.getShortfall(): BigDecimal.ZERO
                 );
-                String unitString = run.getLease().getOccupancies().first().getUnit().getReference();
-                if (run.getLease().getOccupancies().size()>1) {
-                    boolean skip = true;
-                    for (Occupancy occupancy : run.getLease().getOccupancies()){
-                        if (skip){
-                            skip = false;
-                        } else {
-                            unitString = unitString.concat(" | ").concat(occupancy.getUnit().getReference());
-                        }
-                    }
-                }
-                vm.setUnit(unitString);
+                vm.setUnit(unitStringFor(occupancyIntervalIndex.occupanciesOf(run.getLease())));
                 results.add(vm);
             }
         }
         return results;
     }
 
+    static String unitStringFor(final List<Occupancy> occupanciesOfLease) {
+        return occupanciesOfLease.stream()
+                .map(occupancy -> occupancy.getUnit().getReference())
+                .collect(Collectors.joining(" | "));
+    }
+
     public List<DetailedCalculationResultViewmodel> getDetailedCalculationResults(final Lease lease, final Budget budget, final BudgetCalculationType type){
 
         List<DetailedCalculationResultViewmodel> results = new ArrayList<>();
@@ -261,6 +260,9 @@ public class BudgetAssignmentService {
     @Inject
     LeaseRepository leaseRepository;
 
+    @Inject
+    OccupancyRepository occupancyRepository;
+
     @Inject
     private LeaseTermRepository leaseTermRepository;
 
@@ -276,4 +278,7 @@ public class BudgetAssignmentService {
     @Inject
     private BudgetCalculationResultLinkRepository budgetCalculationResultLinkRepository;
 
+    @Inject
+    private LeaseInvoicingChangeSubscriber leaseInvoicingChangeSubscriber;
+
 }
@@ -45,6 +45,7 @@ import org.estatio.module.asset.dom.Property;
 import org.estatio.module.lease.dom.LeaseItemType;
 import org.estatio.module.lease.dom.LeaseTermForServiceCharge;
 import org.estatio.module.lease.dom.LeaseTermRepository;
+import org.estatio.module.lease.dom.invoicing.LeaseInvoicingChangeSubscriber;
 
 import lombok.Getter;
 import lombok.Setter;
@@ -132,6 +133,7 @@ public class LeaseTermForServiceChargeBudgetAuditManager  {
             if (nextLeaseTerm != null && nextLeaseTerm == nextLeaseTermUploaded) {
                 nextLeaseTerm.setBudgetedValue(lineItem.getNextBudgetedValue());
             }
+            leaseInvoicingChangeSubscriber.changed(leaseTerm.getLeaseItem().getLease());
         }
         return this;
     }
@@ -158,6 +160,9 @@ public class LeaseTermForServiceChargeBudgetAuditManager  {
 
     @javax.inject.Inject
     private ExcelService excelService;
+
+    @javax.inject.Inject
+    private LeaseInvoicingChangeSubscriber leaseInvoicingChangeSubscriber;
     //endregion
 
 }
@@ -33,6 +33,7 @@ import org.apache.isis.applib.annotation.NatureOfService;
 import org.apache.isis.applib.annotation.Optionality;
 import org.apache.isis.applib.annotation.Parameter;
 import org.apache.isis.applib.annotation.SemanticsOf;
+import org.apache.isis.applib.services.background.BackgroundService2;
 import org.apache.isis.applib.services.clock.ClockService;
 import org.apache.isis.applib.value.Blob;
 
@@ -41,8 +42,10 @@ import org.isisaddons.module.security.dom.user.ApplicationUser;
 
 import org.incode.module.document.dom.impl.docs.Document;
 import org.incode.module.document.dom.impl.docs.DocumentRepository;
+import org.incode.module.document.dom.impl.docs.DocumentSort;
 import org.incode.module.document.dom.impl.types.DocumentType;
 import org.incode.module.document.dom.impl.types.DocumentTypeRepository;
+import org.incode.module.document.dom.spi.DocumentBlobStore;
 import org.incode.module.document.spi.DeriveBlobFromReturnedDocumentArg0;
 
 import org.estatio.module.base.dom.UdoDomainService;
@@ -102,10 +105,43 @@ public class DocumentMenu extends UdoDomainService<DocumentMenu> {
     }
 
 
+    /**
+     * Schedules the oldest documents still held in the database to be moved to the blob store, in the background
+     * and each in its own transaction.
+     */
+    @Action(semantics = SemanticsOf.NON_IDEMPOTENT)
+    @MemberOrder(sequence = "4")
+    public List<Document> moveDocumentsToBlobStore(final int batchSize) {
+        final List<Document> documents = documentRepository.findBySort(DocumentSort.BLOB, batchSize);
+        for (final Document document : documents) {
+            backgroundService2.execute(document).moveToBlobStore();
+        }
+        return documents;
+    }
+
+    public int default0MoveDocumentsToBlobStore() {
+        return 100;
+    }
+
+    public String validate0MoveDocumentsToBlobStore(final int batchSize) {
+        return batchSize <= 0 ? "Must be positive" : null;
+    }
+
+    public boolean hideMoveDocumentsToBlobStore() {
+        return !documentBlobStore.isEnabled();
+    }
+
+
 
     @Inject
     MeService meService;
 
+    @Inject
+    BackgroundService2 backgroundService2;
+
+    @Inject
+    DocumentBlobStore documentBlobStore;
+
     @Inject
     ClockService clockService;
 
@@ -14,6 +14,7 @@ import org.incode.module.document.dom.impl.docs.Document;
 import org.estatio.module.capex.dom.invoice.approval.IncomingInvoiceApprovalStateTransition;
 import org.estatio.module.capex.dom.invoice.IncomingInvoice;
 import org.estatio.module.capex.platform.pdfmanipulator.ExtractSpec;
+import org.estatio.module.capex.platform.pdfmanipulator.PdfAssemblyService;
 import org.estatio.module.capex.platform.pdfmanipulator.PdfManipulator;
 import org.estatio.module.capex.platform.pdfmanipulator.Stamp;
 
@@ -54,28 +55,7 @@ class DocumentPreparer {
         try {
             final String documentName = document.getName();
 
-            final List<String> leftLineTexts = Lists.newArrayList();
-
-            leftLineTexts.add(documentName);
-            if(transitionIfAny != null) {
-                final String completedBy = transitionIfAny.getCompletedBy();
-                leftLineTexts.add(String.format(
-                        "approved by: %s",
-                        completedBy != null ? completedBy : "(unknown)"));
-                leftLineTexts.add("approved on: " + transitionIfAny.getCompletedOn().toString("dd-MMM-yyyy HH:mm"));
-            } else {
-                leftLineTexts.add("not yet approved");
-            }
-
-            final List<String> rightLineTexts = Lists.newArrayList();
-            rightLineTexts.add(String.format("net Amt       : %s", new DecimalFormat("0.00").format(incomingInvoice.getNetAmount())));
-            rightLineTexts.add(String.format("gross Amt     : %s", new DecimalFormat("0.00").format(incomingInvoice.getGrossAmount())));
-
-            final String hyperlink = null;
-
-            byte[] bytes = pdfManipulator.extractAndStamp(document.getBlobBytes(),
-                    new ExtractSpec(numFirstPages, numLastPages),
-                    new Stamp(leftLineTexts, rightLineTexts, hyperlink));
+            byte[] bytes = pdfManipulator.extractAndStamp(document.asBytes(), extractSpec(), stamp());
 
             tempFile = File.createTempFile(documentName, "pdf");
 
@@ -89,6 +69,41 @@ class DocumentPreparer {
         }
     }
 
+    /**
+     * As an alternative to {@link #stampUsing(PdfManipulator)}, for the {@link PdfAssemblyService} to extract and
+     * stamp (the document's bytes being read only when required).
+     */
+    PdfAssemblyService.Part asPart() {
+        return new PdfAssemblyService.Part(null, document::asBytes, extractSpec(), stamp());
+    }
+
+    private ExtractSpec extractSpec() {
+        return new ExtractSpec(numFirstPages, numLastPages);
+    }
+
+    private Stamp stamp() {
+        final List<String> leftLineTexts = Lists.newArrayList();
+
+        leftLineTexts.add(document.getName());
+        if(transitionIfAny != null) {
+            final String completedBy = transitionIfAny.getCompletedBy();
+            leftLineTexts.add(String.format(
+                    "approved by: %s",
+                    completedBy != null ? completedBy : "(unknown)"));
+            leftLineTexts.add("approved on: " + transitionIfAny.getCompletedOn().toString("dd-MMM-yyyy HH:mm"));
+        } else {
+            leftLineTexts.add("not yet approved");
+        }
+
+        final List<String> rightLineTexts = Lists.newArrayList();
+        rightLineTexts.add(String.format("net Amt       : %s", new DecimalFormat("0.00").format(incomingInvoice.getNetAmount())));
+        rightLineTexts.add(String.format("gross Amt     : %s", new DecimalFormat("0.00").format(incomingInvoice.getGrossAmount())));
+
+        final String hyperlink = null;
+
+        return new Stamp(leftLineTexts, rightLineTexts, hyperlink);
+    }
+
     File getTempFile() {
         return tempFile;
     }
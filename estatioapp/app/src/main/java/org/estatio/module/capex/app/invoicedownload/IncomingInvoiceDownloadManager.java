@@ -2,11 +2,11 @@ package org.estatio.module.capex.app.invoicedownload;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nullable;
@@ -36,21 +36,13 @@ import org.apache.isis.applib.services.tablecol.TableColumnOrderService;
 import org.apache.isis.applib.value.Blob;
 import org.apache.isis.schema.utils.jaxbadapters.JodaLocalDateStringAdapter;
 
-import org.isisaddons.module.excel.dom.ExcelService;
-import org.isisaddons.module.excel.dom.WorksheetContent;
-import org.isisaddons.module.excel.dom.WorksheetSpec;
 import org.isisaddons.module.pdfbox.dom.service.PdfBoxService;
 
 import org.incode.module.document.dom.impl.docs.Document;
-import org.incode.module.document.dom.impl.docs.DocumentAbstract;
-import org.incode.module.zip.impl.ZipService;
 
 import org.estatio.module.asset.dom.Property;
 import org.estatio.module.asset.dom.PropertyRepository;
 import org.estatio.module.base.platform.applib.ReasonBuffer2;
-import org.estatio.module.capex.dom.coda.CodaElement;
-import org.estatio.module.capex.dom.coda.CodaMapping;
-import org.estatio.module.capex.dom.coda.CodaMappingRepository;
 import org.estatio.module.capex.dom.documents.LookupAttachedPdfService;
 import org.estatio.module.capex.dom.invoice.IncomingInvoice;
 import org.estatio.module.capex.dom.invoice.IncomingInvoiceItem;
@@ -60,8 +52,8 @@ import org.estatio.module.capex.dom.invoice.IncomingInvoiceType;
 import org.estatio.module.capex.dom.invoice.approval.IncomingInvoiceApprovalState;
 import org.estatio.module.capex.dom.invoice.approval.IncomingInvoiceApprovalStateTransition;
 import org.estatio.module.capex.dom.state.NatureOfTransition;
-import org.estatio.module.capex.dom.state.StateTransitionRepositoryGeneric;
 import org.estatio.module.capex.dom.util.InvoicePageRange;
+import org.estatio.module.capex.platform.pdfmanipulator.PdfAssemblyService;
 import org.estatio.module.capex.platform.pdfmanipulator.PdfManipulator;
 import org.estatio.module.invoice.dom.InvoiceItem;
 
@@ -233,20 +225,9 @@ public class IncomingInvoiceDownloadManager {
 
 
     @Action(semantics = SemanticsOf.SAFE)
-    public Blob downloadToExcel(final String fileName) {
-
-        final List<IncomingInvoiceExport> exports = getInvoiceItems().stream()
-                .map(item -> new IncomingInvoiceExport(
-                        item,
-                        documentNumberFor(item),
-                        codaElementFor(item),
-                        commentsFor(item)))
-                .sorted(Comparator.comparing(x -> x.getDocumentNumber()!=null ? x.getDocumentNumber() : "_No_Document")) // guard only for (demo)fixtures because in production a document can be expected
-                .collect(Collectors.toList());
-
-        WorksheetSpec spec = new WorksheetSpec(IncomingInvoiceDownloadManager.exportClass, "invoiceExport");
-        WorksheetContent worksheetContent = new WorksheetContent(exports, spec);
-        return excelService.toExcel(worksheetContent, fileName);
+    public Blob downloadToExcel(final String fileName) throws IOException {
+        final List<IncomingInvoiceExport> exports = incomingInvoiceExportService.exportsFor(getInvoiceItems());
+        return incomingInvoiceExportService.toExcel(exports, "invoiceExport", fileName);
     }
 
     public String default0DownloadToExcel() {
@@ -306,14 +287,25 @@ public class IncomingInvoiceDownloadManager {
     @ActionLayout(named = "Download all PDFs (zipped)")
     public Blob downloadToPdfZipped(final String fileName) throws IOException {
 
-        final List<DocumentPreparer> preparers = documentPreparersForInvoices();
-        final List<ZipService.FileAndName> fileList = fileAndNamesFrom(preparers);
-
-        final byte[] zipBytes = zipService.zip(fileList);
-
-        preparers.forEach(DocumentPreparer::cleanup);
-
-        return new Blob(fileName, "application/zip", zipBytes);
+        // invoices without a (named) document have nothing to zip
+        final List<DocumentPreparer> preparers = documentPreparersForInvoices().stream()
+                .filter(preparer -> preparer.getDocumentName() != null)
+                .collect(Collectors.toList());
+        final File zipFile;
+        try {
+            zipFile = pdfAssemblyService.zip(
+                    preparers.stream().map(DocumentPreparer::asPart).collect(Collectors.toList()),
+                    preparers.stream().map(DocumentPreparer::getDocumentName).collect(Collectors.toList()));
+        } catch (PdfAssemblyService.PartFailedException ex) {
+            final String documentName = preparers.get(ex.getPartIndex()).getDocumentName();
+            throw new DownloadException("Failed to prepare: " + documentName, ex.getCause());
+        }
+        try {
+            // Blob is backed by a byte[], so this is the only point at which the archive is held in memory
+            return new Blob(fileName, "application/zip", Files.readAllBytes(zipFile.toPath()));
+        } finally {
+            Files.deleteIfExists(zipFile.toPath());
+        }
     }
 
     public String disableDownloadToPdfZipped() {
@@ -336,7 +328,10 @@ public class IncomingInvoiceDownloadManager {
             Integer numFirstPages,
             Integer numLastPages) {
 
-        return getInvoices().stream()
+        final List<IncomingInvoice> invoices = getInvoices();
+        lookupAttachedPdfService.prime(invoices);
+
+        return invoices.stream()
                 .map(invoice -> {
                     final Document document =
                             lookupAttachedPdfService.lookupIncomingInvoicePdfFrom(invoice).orElse(null);
@@ -378,14 +373,6 @@ public class IncomingInvoiceDownloadManager {
     }
 
 
-    private List<ZipService.FileAndName> fileAndNamesFrom(final List<DocumentPreparer> preparers) {
-        return preparers.stream()
-                .map(preparer -> new ZipService.FileAndName(preparer.getDocumentName(), preparer.stampUsing(pdfManipulator).getTempFile()))
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-    }
-
-
     private List<File> filesFrom(final List<DocumentPreparer> preparers) {
         return preparers.stream()
                 .map(preparer -> preparer.stampUsing(pdfManipulator).getTempFile())
@@ -396,31 +383,6 @@ public class IncomingInvoiceDownloadManager {
 
 
 
-    CodaElement codaElementFor(final IncomingInvoiceItem x) {
-        final List<CodaMapping> codaMappings = codaMappingRepository.findMatching(x.getIncomingInvoiceType(), x.getCharge());
-        return codaMappings.size() == 0 ? null : codaMappings.get(0).getCodaElement();
-    }
-
-    String documentNumberFor(final IncomingInvoiceItem invoiceItem) {
-        final IncomingInvoice invoice = (IncomingInvoice) invoiceItem.getInvoice();
-        final Optional<Document> documentIfAny = lookupAttachedPdfService.lookupIncomingInvoicePdfFrom(invoice);
-        return documentIfAny.map(DocumentAbstract::getName).orElse(null);
-    }
-
-    String commentsFor(final IncomingInvoiceItem invoiceItem){
-        StringBuffer result = new StringBuffer();
-        final IncomingInvoice invoice = (IncomingInvoice) invoiceItem.getInvoice();
-        List<IncomingInvoiceApprovalStateTransition> transitions = stateTransitionRepositoryGeneric.findByDomainObject(invoice, IncomingInvoiceApprovalStateTransition.class);
-        for (IncomingInvoiceApprovalStateTransition transition : transitions){
-            if (transition.getTask()!=null && transition.getTask().getComment() !=null){
-                result.append(transition.getTask().getComment());
-                result.append(" | ");
-            }
-        }
-        return result.toString();
-    }
-
-
     final static Class exportClass = IncomingInvoiceExport.class;
 
     String defaultFileNameWithSuffix(final String suffix) {
@@ -498,25 +460,17 @@ public class IncomingInvoiceDownloadManager {
     @XmlTransient
     IncomingInvoiceItemRepository incomingInvoiceItemRepository;
 
-    @Inject
-    @XmlTransient
-    CodaMappingRepository codaMappingRepository;
-
     @Inject
     @XmlTransient
     PropertyRepository propertyRepository;
 
-    @Inject
-    @XmlTransient
-    StateTransitionRepositoryGeneric stateTransitionRepositoryGeneric;
-
     @Inject
     @XmlTransient
     IncomingInvoiceApprovalStateTransition.Repository stateTransitionRepository;
 
-    @javax.inject.Inject
+    @Inject
     @XmlTransient
-    ExcelService excelService;
+    IncomingInvoiceExportService incomingInvoiceExportService;
 
 
     @javax.inject.Inject
@@ -534,7 +488,7 @@ public class IncomingInvoiceDownloadManager {
 
     @javax.inject.Inject
     @XmlTransient
-    ZipService zipService;
+    PdfAssemblyService pdfAssemblyService;
 
     @javax.inject.Inject
     @XmlTransient
@@ -0,0 +1,226 @@
+package org.estatio.module.capex.app.invoicedownload;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Maps;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.joda.time.LocalDate;
+
+import org.apache.isis.applib.annotation.DomainService;
+import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.annotation.Programmatic;
+import org.apache.isis.applib.value.Blob;
+
+import org.incode.module.document.dom.impl.docs.Document;
+
+import org.estatio.module.capex.dom.coda.CodaElement;
+import org.estatio.module.capex.dom.coda.CodaMapping;
+import org.estatio.module.capex.dom.coda.CodaMappingRepository;
+import org.estatio.module.capex.dom.documents.LookupAttachedPdfService;
+import org.estatio.module.capex.dom.invoice.IncomingInvoice;
+import org.estatio.module.capex.dom.invoice.IncomingInvoiceItem;
+import org.estatio.module.capex.dom.invoice.IncomingInvoiceType;
+import org.estatio.module.capex.dom.invoice.approval.IncomingInvoiceApprovalStateTransition;
+import org.estatio.module.charge.dom.Charge;
+
+import lombok.Value;
+
+/**
+ * Exports incoming invoice items to Excel, as {@link IncomingInvoiceExport} rows.
+ *
+ * <p>
+ *     The Coda elements, invoice documents and approval comments of all of the items are looked up up front, in a
+ *     handful of queries, rather than per item; and the sheet is written using POI's streaming workbook, which keeps
+ *     only a window of rows in memory.
+ * </p>
+ */
+@DomainService(nature = NatureOfService.DOMAIN)
+public class IncomingInvoiceExportService {
+
+    static final String NO_DOCUMENT = "_No_Document";
+
+    /**
+     * Number of rows of the sheet kept in memory while writing.
+     */
+    static final int ROW_ACCESS_WINDOW = 100;
+
+    @Value
+    static class CodaMappingKey {
+        private final IncomingInvoiceType incomingInvoiceType;
+        private final Charge charge;
+    }
+
+    @Value
+    static class Column {
+        private final String name;
+        private final Function<IncomingInvoiceExport, Object> value;
+    }
+
+    /**
+     * In the same order as the {@link org.apache.isis.applib.annotation.MemberOrder}s of {@link IncomingInvoiceExport}.
+     */
+    static final List<Column> COLUMNS = Arrays.asList(
+            new Column("Buyer Reference", IncomingInvoiceExport::getBuyerReference),
+            new Column("Buyer Name", IncomingInvoiceExport::getBuyerName),
+            new Column("Seller Name", IncomingInvoiceExport::getSellerName),
+            new Column("Seller Reference", IncomingInvoiceExport::getSellerReference),
+            new Column("Seller Iban", IncomingInvoiceExport::getSellerIban),
+            new Column("Invoice Date", IncomingInvoiceExport::getInvoiceDate),
+            new Column("Invoice Number", IncomingInvoiceExport::getInvoiceNumber),
+            new Column("Invoice Status", IncomingInvoiceExport::getInvoiceStatus),
+            new Column("Net Amount", IncomingInvoiceExport::getNetAmount),
+            new Column("Vat Amount", IncomingInvoiceExport::getVatAmount),
+            new Column("Gross Amount", IncomingInvoiceExport::getGrossAmount),
+            new Column("Invoice Type", IncomingInvoiceExport::getInvoiceType),
+            new Column("Property Reference", IncomingInvoiceExport::getPropertyReference),
+            new Column("Property Name", IncomingInvoiceExport::getPropertyName),
+            new Column("Project Reference", IncomingInvoiceExport::getProjectReference),
+            new Column("Charge Reference", IncomingInvoiceExport::getChargeReference),
+            new Column("Charge Name", IncomingInvoiceExport::getChargeName),
+            new Column("Vat Code", IncomingInvoiceExport::getVatCode),
+            new Column("Coda Element Code", IncomingInvoiceExport::getCodaElementCode),
+            new Column("Coda Element Name", IncomingInvoiceExport::getCodaElementName),
+            new Column("Document Number", IncomingInvoiceExport::getDocumentNumber),
+            new Column("Comments", IncomingInvoiceExport::getComments));
+
+    /**
+     * The export rows of the items, sorted by document number.
+     */
+    @Programmatic
+    public List<IncomingInvoiceExport> exportsFor(final List<IncomingInvoiceItem> items) {
+
+        final List<IncomingInvoice> invoices = items.stream()
+                .map(IncomingInvoiceItem::getInvoice)
+                .filter(IncomingInvoice.class::isInstance)
+                .map(IncomingInvoice.class::cast)
+                .distinct()
+                .collect(Collectors.toList());
+
+        final Map<CodaMappingKey, CodaElement> codaElementByKey = codaElementByKey();
+        final Map<IncomingInvoice, Document> documentByInvoice =
+                lookupAttachedPdfService.lookupIncomingInvoicePdfByInvoice(invoices);
+        final ListMultimap<IncomingInvoice, String> commentsByInvoice =
+                stateTransitionRepository.findTaskCommentsByInvoices(invoices);
+
+        return items.stream()
+                .map(item -> {
+                    final IncomingInvoice invoice = (IncomingInvoice) item.getInvoice();
+                    final Document document = documentByInvoice.get(invoice);
+                    return new IncomingInvoiceExport(
+                            item,
+                            document != null ? document.getName() : null,
+                            codaElementByKey.get(new CodaMappingKey(item.getIncomingInvoiceType(), item.getCharge())),
+                            commentsFor(commentsByInvoice.get(invoice)));
+                })
+                // guard only for (demo)fixtures because in production a document can be expected
+                .sorted(Comparator.comparing(x -> x.getDocumentNumber() != null ? x.getDocumentNumber() : NO_DOCUMENT))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * The first Coda element for each combination of invoice type and charge (as per
+     * {@link CodaMappingRepository#findMatching(IncomingInvoiceType, Charge)}).
+     */
+    private Map<CodaMappingKey, CodaElement> codaElementByKey() {
+        final Map<CodaMappingKey, CodaElement> codaElementByKey = Maps.newHashMap();
+        for (final CodaMapping codaMapping : codaMappingRepository.all()) {
+            codaElementByKey.putIfAbsent(
+                    new CodaMappingKey(codaMapping.getIncomingInvoiceType(), codaMapping.getCharge()),
+                    codaMapping.getCodaElement());
+        }
+        return codaElementByKey;
+    }
+
+    static String commentsFor(final List<String> comments) {
+        final StringBuilder result = new StringBuilder();
+        for (final String comment : comments) {
+            result.append(comment);
+            result.append(" | ");
+        }
+        return result.toString();
+    }
+
+    @Programmatic
+    public Blob toExcel(final List<IncomingInvoiceExport> exports, final String sheetName, final String fileName)
+            throws IOException {
+        final SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_ACCESS_WINDOW);
+        try {
+            final SXSSFSheet sheet = workbook.createSheet(sheetName);
+
+            final CellStyle headerStyle = workbook.createCellStyle();
+            final Font headerFont = workbook.createFont();
+            headerFont.setBold(true);
+            headerStyle.setFont(headerFont);
+
+            final CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd"));
+
+            final CellStyle amountStyle = workbook.createCellStyle();
+            amountStyle.setDataFormat(workbook.createDataFormat().getFormat("#,##0.00"));
+
+            final Row header = sheet.createRow(0);
+            for (int col = 0; col < COLUMNS.size(); col++) {
+                final Cell cell = header.createCell(col);
+                cell.setCellValue(COLUMNS.get(col).getName());
+                cell.setCellStyle(headerStyle);
+            }
+            sheet.createFreezePane(0, 1);
+
+            int rowNum = 1;
+            for (final IncomingInvoiceExport export : exports) {
+                final Row row = sheet.createRow(rowNum++);
+                for (int col = 0; col < COLUMNS.size(); col++) {
+                    final Object value = COLUMNS.get(col).getValue().apply(export);
+                    if (value == null) {
+                        continue;
+                    }
+                    final Cell cell = row.createCell(col);
+                    if (value instanceof BigDecimal) {
+                        cell.setCellValue(((BigDecimal) value).doubleValue());
+                        cell.setCellStyle(amountStyle);
+                    } else if (value instanceof LocalDate) {
+                        cell.setCellValue(((LocalDate) value).toDate());
+                        cell.setCellStyle(dateStyle);
+                    } else {
+                        cell.setCellValue(value.toString());
+                    }
+                }
+            }
+
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            workbook.write(baos);
+            return new Blob(fileName, "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", baos.toByteArray());
+        } finally {
+            // deletes the temporary files backing the rows already flushed
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    @Inject
+    CodaMappingRepository codaMappingRepository;
+
+    @Inject
+    LookupAttachedPdfService lookupAttachedPdfService;
+
+    @Inject
+    IncomingInvoiceApprovalStateTransition.Repository stateTransitionRepository;
+
+}
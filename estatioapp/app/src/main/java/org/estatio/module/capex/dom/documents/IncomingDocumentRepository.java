@@ -38,6 +38,7 @@ import org.apache.isis.applib.value.Blob;
 import org.incode.module.document.dom.api.DocumentService;
 import org.incode.module.document.dom.impl.docs.Document;
 import org.incode.module.document.dom.impl.docs.DocumentRepository;
+import org.incode.module.document.dom.impl.docs.DocumentSort;
 import org.incode.module.document.dom.impl.docs.QDocument;
 import org.incode.module.document.dom.impl.paperclips.Paperclip;
 import org.incode.module.document.dom.impl.paperclips.PaperclipRepository;
@@ -150,7 +151,7 @@ public class IncomingDocumentRepository extends DocumentRepository {
                 document = incomingDocumentsWithSameName.get(0);
             }
             if (document!=null){
-                if(Arrays.equals(document.getBlobBytes(), blob.getBytes())) {
+                if(Arrays.equals(document.asBytes(), blob.getBytes())) {
                     return document;
                 }
                 // else...
@@ -159,6 +160,9 @@ public class IncomingDocumentRepository extends DocumentRepository {
                 Document archivedDocument = documentService.createForBlob(document.getType(), document.getAtPath(), archivedName, document.getBlob());
                 // update blobbytes of document
                 document.setBlobBytes(blob.getBytes());
+                // (the previous content may have been moved to the blob store)
+                document.setSort(DocumentSort.BLOB);
+                document.setExternalUrl(null);
                 // attach document to archived document
                 paperclipRepository.attach(document, "", archivedDocument);
             } else {
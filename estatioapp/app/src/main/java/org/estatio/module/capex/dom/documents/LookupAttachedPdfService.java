@@ -1,12 +1,18 @@
 package org.estatio.module.capex.dom.documents;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Maps;
+
 import org.apache.isis.applib.annotation.DomainService;
 import org.apache.isis.applib.annotation.NatureOfService;
 import org.apache.isis.applib.annotation.Programmatic;
@@ -14,6 +20,7 @@ import org.apache.isis.applib.services.queryresultscache.QueryResultsCache;
 
 import org.incode.module.document.dom.impl.docs.Document;
 import org.incode.module.document.dom.impl.paperclips.Paperclip;
+import org.incode.module.document.dom.impl.paperclips.PaperclipLoader;
 import org.incode.module.document.dom.impl.paperclips.PaperclipRepository;
 
 import org.estatio.module.capex.contributions.BankAccount_attachInvoiceAsIbanProof;
@@ -80,11 +87,66 @@ public class LookupAttachedPdfService {
                 "lookupPdfsFrom", domainObject, documentTypeDataIfAny);
     }
 
+    /**
+     * As {@link #lookupIncomingInvoicePdfFrom(IncomingInvoice)}, but for many invoices at once (those with no PDF
+     * being omitted from the map).
+     */
+    @Programmatic
+    public Map<IncomingInvoice, Document> lookupIncomingInvoicePdfByInvoice(final Collection<IncomingInvoice> incomingInvoices) {
+        final ListMultimap<IncomingInvoice, Document> documentsByInvoice =
+                lookupPdfsFromAll(incomingInvoices, DocumentTypeData.INCOMING_INVOICE, null);
+        final Map<IncomingInvoice, Document> documentByInvoice = Maps.newHashMap();
+        for (final IncomingInvoice incomingInvoice : documentsByInvoice.keySet()) {
+            documentByInvoice.put(incomingInvoice, documentsByInvoice.get(incomingInvoice).get(0));
+        }
+        return documentByInvoice;
+    }
+
+    /**
+     * As {@link #lookupPdfsFrom(Object, DocumentTypeData, String)}, but for many domain objects at once, using
+     * a query per chunk of objects rather than per object.
+     */
+    @Programmatic
+    public <T> ListMultimap<T, Document> lookupPdfsFromAll(
+            final Collection<T> domainObjects,
+            final DocumentTypeData documentTypeDataIfAny,
+            final String roleNameIfAny) {
+        final ListMultimap<T, Paperclip> paperclipsByDomainObject =
+                paperclipRepository.findByAttachedToIn(domainObjects, roleNameIfAny);
+        final ListMultimap<T, Document> documentsByDomainObject = ArrayListMultimap.create();
+        for (final Map.Entry<T, Paperclip> entry : paperclipsByDomainObject.entries()) {
+            if (isPdf(entry.getValue(), documentTypeDataIfAny)) {
+                documentsByDomainObject.put(entry.getKey(), (Document) entry.getValue().getDocument());
+            }
+        }
+        return documentsByDomainObject;
+    }
+
+    /**
+     * Registers the domain objects whose PDFs are about to be looked up one by one (using eg
+     * {@link #lookupIncomingInvoicePdfFrom(IncomingInvoice)}), so that their paperclips are loaded together.
+     */
+    @Programmatic
+    public void prime(final Collection<?> domainObjects) {
+        paperclipLoader.prime(domainObjects);
+    }
+
+    private static boolean isPdf(
+            final Paperclip paperclip,
+            final DocumentTypeData documentTypeDataIfAny) {
+        if (!(paperclip.getDocument() instanceof Document)) {
+            return false;
+        }
+        final Document document = (Document) paperclip.getDocument();
+        return (documentTypeDataIfAny == null || documentTypeDataIfAny.isDocTypeFor(document))
+                && Objects.equals(document.getMimeType(), "application/pdf");
+    }
+
     private List<Document> doLookupPdfsFrom(
             final Object domainObject,
             final DocumentTypeData documentTypeDataIfAny,
             final String roleNameIfAny) {
-        final List<Paperclip> paperclips = paperclipRepository.findByAttachedTo(domainObject);
+        final List<Paperclip> paperclips = paperclipLoader.findByAttachedTo(domainObject);
         return paperclips.stream()
                 .filter(paperclip -> roleNameIfAny == null || roleNameIfAny.equals(paperclip.getRoleName()))
                 .map(Paperclip::getDocument)
@@ -102,4 +164,7 @@ public class LookupAttachedPdfService {
     @Inject
     PaperclipRepository paperclipRepository;
 
+    @Inject
+    PaperclipLoader paperclipLoader;
+
 }
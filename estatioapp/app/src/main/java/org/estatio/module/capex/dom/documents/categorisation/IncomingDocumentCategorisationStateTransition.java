@@ -63,6 +63,14 @@ import lombok.Setter;
                         + "&& completed == :completed "
                         + "ORDER BY completedOn DESC "
         ),
+        @Query(
+                name = "findByDomainObjectsAndCompleted", language = "JDOQL",
+                value = "SELECT "
+                        + "FROM org.estatio.module.capex.dom.documents.categorisation.IncomingDocumentCategorisationStateTransition "
+                        + "WHERE :domainObjects.contains(document) "
+                        + "&& completed == :completed "
+                        + "ORDER BY completedOn DESC "
+        ),
         @Query(
                 name = "findByTask", language = "JDOQL",
                 value = "SELECT "
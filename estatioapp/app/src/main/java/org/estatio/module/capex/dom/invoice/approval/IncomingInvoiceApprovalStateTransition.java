@@ -1,5 +1,11 @@
 package org.estatio.module.capex.dom.invoice.approval;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import javax.inject.Inject;
 import javax.jdo.annotations.Column;
 import javax.jdo.annotations.DatastoreIdentity;
 import javax.jdo.annotations.IdGeneratorStrategy;
@@ -9,16 +15,22 @@ import javax.jdo.annotations.PersistenceCapable;
 import javax.jdo.annotations.Queries;
 import javax.jdo.annotations.Query;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+
 import org.joda.time.LocalDateTime;
 
 import org.apache.isis.applib.annotation.DomainObject;
 import org.apache.isis.applib.annotation.DomainService;
 import org.apache.isis.applib.annotation.NatureOfService;
 import org.apache.isis.applib.annotation.Programmatic;
+import org.apache.isis.applib.services.jdosupport.IsisJdoSupport;
 
 import org.estatio.module.capex.dom.invoice.IncomingInvoice;
 import org.estatio.module.capex.dom.state.StateTransitionAbstract;
 import org.estatio.module.capex.dom.state.StateTransitionRepositoryAbstract;
+import org.estatio.module.capex.dom.state.StateTransitionRepositoryGeneric;
 import org.estatio.module.capex.dom.task.Task;
 
 import lombok.Getter;
@@ -51,6 +63,14 @@ import lombok.Setter;
                         + "&& completed == :completed "
                         + "ORDER BY completedOn DESC "
         ),
+        @Query(
+                name = "findByDomainObjectsAndCompleted", language = "JDOQL",
+                value = "SELECT "
+                        + "FROM org.estatio.module.capex.dom.invoice.approval.IncomingInvoiceApprovalStateTransition "
+                        + "WHERE :domainObjects.contains(invoice) "
+                        + "&& completed == :completed "
+                        + "ORDER BY completedOn DESC "
+        ),
         @Query(
                 name = "findByTask", language = "JDOQL",
                 value = "SELECT "
@@ -146,5 +166,39 @@ public class IncomingInvoiceApprovalStateTransition
             super(IncomingInvoiceApprovalStateTransition.class);
         }
 
+        /**
+         * The comments of the tasks of the transitions of each of the invoices, most recently completed first (as
+         * per {@link #findByDomainObject(Object)}), but with one query for many invoices rather than a query for
+         * the transitions of each invoice and another for each of their tasks.
+         */
+        @Programmatic
+        public ListMultimap<IncomingInvoice, String> findTaskCommentsByInvoices(
+                final Collection<IncomingInvoice> invoices) {
+            final ListMultimap<IncomingInvoice, String> commentsByInvoice = ArrayListMultimap.create();
+            for (final List<IncomingInvoice> partition : Lists.partition(
+                    new ArrayList<>(invoices), StateTransitionRepositoryGeneric.MAX_DOMAIN_OBJECTS_PER_QUERY)) {
+                final javax.jdo.Query query = isisJdoSupport.getJdoPersistenceManager().newQuery(
+                        "SELECT invoice, task.comment "
+                                + "FROM org.estatio.module.capex.dom.invoice.approval.IncomingInvoiceApprovalStateTransition "
+                                + "WHERE :invoices.contains(invoice) "
+                                + "&& task != null && task.comment != null "
+                                + "ORDER BY completedOn DESC ");
+                try {
+                    @SuppressWarnings("unchecked")
+                    final List<Object[]> rows = (List<Object[]>) query.executeWithMap(
+                            Collections.singletonMap("invoices", partition));
+                    for (final Object[] row : rows) {
+                        commentsByInvoice.put((IncomingInvoice) row[0], (String) row[1]);
+                    }
+                } finally {
+                    query.closeAll();
+                }
+            }
+            return commentsByInvoice;
+        }
+
+        @Inject
+        IsisJdoSupport isisJdoSupport;
+
     }
 }
@@ -0,0 +1,386 @@
+package org.estatio.module.capex.dom.payment;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import javax.xml.XMLConstants;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.SchemaOutputResolver;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.ValidatorHandler;
+
+import com.google.common.collect.Lists;
+
+import org.joda.time.DateTime;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import org.estatio.module.financial.dom.BankAccount;
+
+import iso.std.iso._20022.tech.xsd.pain_001_001.Document;
+
+/**
+ * Writes the ISO 20022 pain.001.001.03 credit transfer file of a {@link PaymentBatch} directly to a stream, one
+ * {@link CreditTransfer transfer} at a time.
+ *
+ * <p>
+ *     The output is identical to marshalling {@link PaymentBatch#convertToXmlDocument()} with (formatted) JAXB, but
+ *     neither the JAXB object graph nor the XML as a whole are held in memory. If enabled (as by the tests), the
+ *     output is validated as it is written, against the schema of the JAXB bindings.
+ * </p>
+ */
+class Pain001Writer {
+
+    static final String NAMESPACE = "urn:iso:std:iso:20022:tech:xsd:pain.001.001.03";
+
+    private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>";
+    private static final String INDENT = "    ";
+
+    private final boolean validate;
+
+    Pain001Writer(final boolean validate) {
+        this.validate = validate;
+    }
+
+    void write(final PaymentBatch paymentBatch, final OutputStream outputStream) throws IOException {
+        final Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+        write(paymentBatch, writer);
+        writer.flush();
+    }
+
+    void write(final PaymentBatch paymentBatch, final Writer writer) throws IOException {
+        try {
+            writer.write(XML_DECLARATION);
+            final XMLStreamWriter xmlStreamWriter = XMLOutputFactory.newInstance().createXMLStreamWriter(writer);
+            final Emitter emitter = new Emitter(xmlStreamWriter, validate ? schema().newValidatorHandler() : null);
+            emitter.startDocument();
+            writeDocument(paymentBatch, emitter);
+            emitter.endDocument();
+            xmlStreamWriter.flush();
+            xmlStreamWriter.close();
+        } catch (XMLStreamException | SAXException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    /**
+     * Mirrors {@link PaymentBatch#convertToXmlDocument()}.
+     */
+    private static void writeDocument(final PaymentBatch paymentBatch, final Emitter emitter)
+            throws XMLStreamException, SAXException {
+        final List<CreditTransfer> transfers = paymentBatch.getTransfers();
+
+        emitter.start("Document");
+        emitter.start("CstmrCdtTrfInitn");
+
+        emitter.start("GrpHdr");
+        emitter.leaf("MsgId", paymentBatch.msgId());
+        emitter.leaf("CreDtTm", dateTime(paymentBatch.getCreatedOn()));
+        emitter.leaf("NbOfTxs", "" + transfers.size());
+        emitter.leaf("CtrlSum", decimal(paymentBatch.ctrlSum()));
+        writeParty(emitter, "InitgPty", paymentBatch.getDebtorBankAccount().getOwner().getName());
+        emitter.end();
+
+        emitter.start("PmtInf");
+        emitter.leaf("PmtInfId", paymentBatch.getId());
+        emitter.leaf("PmtMtd", "TRF");
+        emitter.leaf("BtchBookg", "false");
+        emitter.leaf("ReqdExctnDt", date(paymentBatch.getRequestedExecutionDate()));
+        writeParty(emitter, "Dbtr", paymentBatch.getDebtorBankAccount().getOwner().getName());
+        writeCashAccount(emitter, "DbtrAcct", paymentBatch.getDebtorBankAccount());
+        writeAgent(emitter, "DbtrAgt", paymentBatch.getDebtorBankAccount());
+        for (final CreditTransfer transfer : transfers) {
+            writeTransfer(emitter, transfer);
+        }
+        emitter.end();
+
+        emitter.end();
+        emitter.end();
+    }
+
+    /**
+     * Mirrors {@link CreditTransfer#asXml()}.
+     */
+    private static void writeTransfer(final Emitter emitter, final CreditTransfer transfer)
+            throws XMLStreamException, SAXException {
+        emitter.start("CdtTrfTxInf");
+
+        emitter.start("PmtId");
+        emitter.leaf("EndToEndId", transfer.getEndToEndId());
+        emitter.end();
+
+        emitter.start("Amt");
+        emitter.leaf("InstdAmt", "Ccy", transfer.getCurrency().getReference().trim(), decimal(transfer.getAmount()));
+        emitter.end();
+
+        final BankAccount creditorBankAccount = transfer.getSellerBankAccount();
+        writeAgent(emitter, "CdtrAgt", creditorBankAccount);
+
+        emitter.start("Cdtr");
+        emitter.leaf("Nm", transfer.getSeller().getName());
+        emitter.start("PstlAdr");
+        emitter.leaf("Ctry", PaymentBatch.ctryFor(transfer.getSeller()));
+        emitter.end();
+        emitter.end();
+
+        writeCashAccount(emitter, "CdtrAcct", creditorBankAccount);
+
+        emitter.start("RmtInf");
+        emitter.leaf("Ustrd", transfer.getRemittanceInformation());
+        emitter.end();
+
+        emitter.end();
+    }
+
+    private static void writeParty(final Emitter emitter, final String name, final String nm)
+            throws XMLStreamException, SAXException {
+        emitter.start(name);
+        emitter.leaf("Nm", nm);
+        emitter.end();
+    }
+
+    private static void writeCashAccount(final Emitter emitter, final String name, final BankAccount bankAccount)
+            throws XMLStreamException, SAXException {
+        emitter.start(name);
+        emitter.start("Id");
+        emitter.leaf("IBAN", bankAccount.getIban());
+        emitter.end();
+        emitter.end();
+    }
+
+    private static void writeAgent(final Emitter emitter, final String name, final BankAccount bankAccount)
+            throws XMLStreamException, SAXException {
+        emitter.start(name);
+        emitter.start("FinInstnId");
+        emitter.leaf("BIC", BankAccount.trimBic(bankAccount.getBic()));
+        emitter.end();
+        emitter.end();
+    }
+
+    // //////////////////////////////////////
+
+    /**
+     * As JAXB prints an <tt>XMLGregorianCalendar</tt> (converted from a <tt>GregorianCalendar</tt>, so with
+     * milliseconds) for <tt>xs:dateTime</tt>.
+     */
+    static String dateTime(final DateTime dateTime) {
+        return dateTime == null ? null : dateTime.toString("yyyy-MM-dd'T'HH:mm:ss.SSS") + timezone(dateTime);
+    }
+
+    /**
+     * As JAXB prints an <tt>XMLGregorianCalendar</tt> for <tt>xs:date</tt>.
+     */
+    static String date(final DateTime dateTime) {
+        return dateTime == null ? null : dateTime.toString("yyyy-MM-dd") + timezone(dateTime);
+    }
+
+    private static String timezone(final DateTime dateTime) {
+        int offsetMinutes = dateTime.getZone().getOffset(dateTime.getMillis()) / 60_000;
+        if (offsetMinutes == 0) {
+            return "Z";
+        }
+        final char sign = offsetMinutes < 0 ? '-' : '+';
+        offsetMinutes = Math.abs(offsetMinutes);
+        return String.format("%c%02d:%02d", sign, offsetMinutes / 60, offsetMinutes % 60);
+    }
+
+    private static String decimal(final BigDecimal value) {
+        return value == null ? null : value.toPlainString();
+    }
+
+    // //////////////////////////////////////
+
+    /**
+     * Writes elements indented as JAXB does when formatting, and (optionally) passes them on for validation.
+     *
+     * <p>
+     *     Elements with a <tt>null</tt> value are omitted. Containers are only written once their first child is, so
+     *     that those left without any are written as empty elements, as JAXB does.
+     * </p>
+     */
+    private static class Emitter {
+
+        private final XMLStreamWriter writer;
+        private final ValidatorHandler validator;
+
+        /**
+         * The containers started but not yet ended, innermost first; each is only written once it has a child.
+         */
+        private final Deque<Container> open = new ArrayDeque<>();
+
+        private Emitter(final XMLStreamWriter writer, final ValidatorHandler validator) {
+            this.writer = writer;
+            this.validator = validator;
+        }
+
+        void startDocument() throws SAXException {
+            if (validator != null) {
+                validator.startDocument();
+                validator.startPrefixMapping(XMLConstants.DEFAULT_NS_PREFIX, NAMESPACE);
+            }
+        }
+
+        void endDocument() throws XMLStreamException, SAXException {
+            writer.writeCharacters("\n");
+            writer.writeEndDocument();
+            if (validator != null) {
+                validator.endPrefixMapping(XMLConstants.DEFAULT_NS_PREFIX);
+                validator.endDocument();
+            }
+        }
+
+        void start(final String name) {
+            open.push(new Container(name, open.size()));
+        }
+
+        void end() throws XMLStreamException, SAXException {
+            final Container container = open.pop();
+            if (container.written) {
+                writer.writeCharacters("\n" + indent(container.depth));
+                writer.writeEndElement();
+            } else {
+                writeOpenAncestors();
+                writer.writeCharacters("\n" + indent(container.depth));
+                writer.writeEmptyElement(container.name);
+                validatorStart(container.name, null, null);
+            }
+            validatorEnd(container.name);
+        }
+
+        void leaf(final String name, final String value) throws XMLStreamException, SAXException {
+            leaf(name, null, null, value);
+        }
+
+        void leaf(final String name, final String attributeName, final String attributeValue, final String value)
+                throws XMLStreamException, SAXException {
+            if (value == null) {
+                return;
+            }
+            writeOpenAncestors();
+            writer.writeCharacters("\n" + indent(open.size()));
+            writer.writeStartElement(name);
+            if (attributeName != null && attributeValue != null) {
+                writer.writeAttribute(attributeName, attributeValue);
+            }
+            writer.writeCharacters(value);
+            writer.writeEndElement();
+
+            validatorStart(name, attributeName, attributeValue);
+            if (validator != null) {
+                validator.characters(value.toCharArray(), 0, value.length());
+            }
+            validatorEnd(name);
+        }
+
+        private void writeOpenAncestors() throws XMLStreamException, SAXException {
+            for (final Container container : Lists.reverse(Lists.newArrayList(open))) {
+                if (container.written) {
+                    continue;
+                }
+                writer.writeCharacters("\n" + indent(container.depth));
+                writer.writeStartElement(container.name);
+                if (container.depth == 0) {
+                    writer.writeDefaultNamespace(NAMESPACE);
+                }
+                validatorStart(container.name, null, null);
+                container.written = true;
+            }
+        }
+
+        private void validatorStart(final String name, final String attributeName, final String attributeValue)
+                throws SAXException {
+            if (validator == null) {
+                return;
+            }
+            final AttributesImpl attributes = new AttributesImpl();
+            if (attributeName != null && attributeValue != null) {
+                attributes.addAttribute("", attributeName, attributeName, "CDATA", attributeValue);
+            }
+            validator.startElement(NAMESPACE, name, name, attributes);
+        }
+
+        private void validatorEnd(final String name) throws SAXException {
+            if (validator != null) {
+                validator.endElement(NAMESPACE, name, name);
+            }
+        }
+
+        private static String indent(final int depth) {
+            final StringBuilder buf = new StringBuilder();
+            for (int i = 0; i < depth; i++) {
+                buf.append(INDENT);
+            }
+            return buf.toString();
+        }
+    }
+
+    private static class Container {
+        private final String name;
+        private final int depth;
+        private boolean written;
+
+        private Container(final String name, final int depth) {
+            this.name = name;
+            this.depth = depth;
+        }
+    }
+
+    // //////////////////////////////////////
+
+    private static volatile Schema schema;
+
+    /**
+     * The schema of the JAXB bindings, generated on first use; should that fail, it is attempted again the next time.
+     */
+    static Schema schema() throws IOException {
+        Schema generated = schema;
+        if (generated == null) {
+            synchronized (Pain001Writer.class) {
+                generated = schema;
+                if (generated == null) {
+                    generated = schema = generateSchema();
+                }
+            }
+        }
+        return generated;
+    }
+
+    private static Schema generateSchema() throws IOException {
+        try {
+            final List<DOMResult> results = Lists.newArrayList();
+            JAXBContext.newInstance(Document.class).generateSchema(new SchemaOutputResolver() {
+                @Override
+                public Result createOutput(final String namespaceUri, final String suggestedFileName) {
+                    final DOMResult result = new DOMResult();
+                    result.setSystemId(suggestedFileName);
+                    results.add(result);
+                    return result;
+                }
+            });
+            final Source[] sources = new Source[results.size()];
+            for (int i = 0; i < results.size(); i++) {
+                sources[i] = new DOMSource(results.get(i).getNode(), results.get(i).getSystemId());
+            }
+            return SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(sources);
+        } catch (JAXBException | SAXException | RuntimeException ex) {
+            throw new IOException("Unable to generate the pain.001 schema", ex);
+        }
+    }
+
+}
@@ -1,11 +1,9 @@
 package org.estatio.module.capex.dom.payment;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.net.URI;
-import java.nio.file.Files;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Comparator;
@@ -23,6 +21,7 @@ import java.util.stream.Collectors;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
+import javax.jdo.JDOHelper;
 import javax.jdo.annotations.Column;
 import javax.jdo.annotations.DatastoreIdentity;
 import javax.jdo.annotations.IdGeneratorStrategy;
@@ -58,7 +57,6 @@ import org.apache.isis.applib.annotation.Property;
 import org.apache.isis.applib.annotation.Publishing;
 import org.apache.isis.applib.annotation.SemanticsOf;
 import org.apache.isis.applib.annotation.Where;
-import org.apache.isis.applib.services.jaxb.JaxbService;
 import org.apache.isis.applib.services.linking.DeepLinkService;
 import org.apache.isis.applib.services.queryresultscache.QueryResultsCache;
 import org.apache.isis.applib.services.registry.ServiceRegistry2;
@@ -69,7 +67,6 @@ import org.apache.isis.applib.value.Clob;
 import org.apache.isis.schema.utils.jaxbadapters.PersistentEntityAdapter;
 
 import org.isisaddons.module.excel.dom.ExcelService;
-import org.isisaddons.module.pdfbox.dom.service.PdfBoxService;
 import org.isisaddons.module.security.app.user.MeService;
 import org.isisaddons.module.security.dom.tenancy.ApplicationTenancy;
 import org.isisaddons.module.security.dom.tenancy.HasAtPath;
@@ -91,7 +88,7 @@ import org.estatio.module.capex.dom.state.StateTransitionType;
 import org.estatio.module.capex.dom.state.Stateful;
 import org.estatio.module.capex.dom.util.InvoicePageRange;
 import org.estatio.module.capex.platform.pdfmanipulator.ExtractSpec;
-import org.estatio.module.capex.platform.pdfmanipulator.PdfManipulator;
+import org.estatio.module.capex.platform.pdfmanipulator.PdfAssemblyService;
 import org.estatio.module.capex.platform.pdfmanipulator.Stamp;
 import org.estatio.module.financial.dom.BankAccount;
 import org.estatio.module.invoice.dom.DocumentTypeData;
@@ -351,10 +348,10 @@ public class PaymentBatch extends UdoDomainObject2<PaymentBatch> implements Stat
                 final String rejectionReason) {
             for (IncomingInvoice incomingInvoice : incomingInvoices) {
                 paymentBatch.removeLineFor(incomingInvoice);
-                if(rejectAlso) {
-                    stateTransitionService.trigger(
-                            incomingInvoice, IncomingInvoiceApprovalStateTransitionType.REJECT, null, rejectionReason);
-                }
+            }
+            if(rejectAlso) {
+                stateTransitionService.triggerAll(
+                        incomingInvoices, IncomingInvoiceApprovalStateTransitionType.REJECT, null, rejectionReason);
             }
             return paymentBatch;
         }
@@ -549,10 +546,10 @@ public class PaymentBatch extends UdoDomainObject2<PaymentBatch> implements Stat
         }
         @Action(semantics = SemanticsOf.SAFE)
         @ActionLayout(contributed= Contributed.AS_ACTION)
-        public Clob act(final String documentName) {
-            Document document = paymentBatch.convertToXmlDocument();
-            String xml = jaxbService.toXml(document);
-            return new Clob(documentName, "text/xml", xml);
+        public Clob act(final String documentName) throws IOException {
+            final StringWriter xml = new StringWriter();
+            new Pain001Writer(false).write(paymentBatch, xml);
+            return new Clob(documentName, "text/xml", xml.toString());
         }
         public String disableAct() {
             if(paymentBatch.getLines().isEmpty()) {
@@ -567,10 +564,6 @@ public class PaymentBatch extends UdoDomainObject2<PaymentBatch> implements Stat
             return paymentBatch.fileNameWithSuffix("xml");
         }
 
-
-        @Inject
-        JaxbService jaxbService;
-
     }
 
 
@@ -583,9 +576,17 @@ public class PaymentBatch extends UdoDomainObject2<PaymentBatch> implements Stat
             @ParameterLayout(named = "How many final pages of each invoice's PDF?")
             final Integer numLastPages) throws IOException {
 
-        final List<File> pdfFiles = Lists.newArrayList();
+        final List<PdfAssemblyService.Part> parts = Lists.newArrayList();
 
         final List<CreditTransfer> transfers = this.getTransfers();
+
+        final List<Object> invoicesAndBankAccounts = Lists.newArrayList();
+        for (final PaymentLine line : getLines()) {
+            invoicesAndBankAccounts.add(line.getInvoice());
+            invoicesAndBankAccounts.add(line.getInvoice().getBankAccount());
+        }
+        lookupAttachedPdfService.prime(invoicesAndBankAccounts);
+
         for (CreditTransfer transfer : transfers) {
             final List<PaymentLine> lines = transfer.getLines();
 
@@ -599,7 +600,6 @@ public class PaymentBatch extends UdoDomainObject2<PaymentBatch> implements Stat
 
                 if(invoiceDocIfAny.isPresent()) {
                     final org.incode.module.document.dom.impl.docs.Document invoiceDoc = invoiceDocIfAny.get();
-                    final byte[] invoiceDocBytes = invoiceDoc.asBytes();
 
                     final Optional<org.incode.module.document.dom.impl.docs.Document> ibanProofDocIfAny = lookupAttachedPdfService
                             .lookupIbanProofPdfFrom(bankAccount);
@@ -636,50 +636,29 @@ public class PaymentBatch extends UdoDomainObject2<PaymentBatch> implements Stat
                     URI uri = deepLinkService.deepLinkFor(invoice);
 
                     final Stamp stamp = new Stamp(leftLines, rightLines, uri.toString());
-                    final byte[] extractedInvoiceDocBytes =
-                            pdfManipulator.extractAndStamp(invoiceDocBytes, new ExtractSpec(numFirstPages, numLastPages), stamp);
-
-                    appendTempFile(extractedInvoiceDocBytes, documentName, pdfFiles);
+                    parts.add(new PdfAssemblyService.Part(
+                            keyOf(invoiceDoc), invoiceDoc::asBytes, new ExtractSpec(numFirstPages, numLastPages), stamp));
 
                     if(attachProof) {
                         final org.incode.module.document.dom.impl.docs.Document ibanProofDoc = ibanProofDocIfAny.get();
-                        final byte[] ibanProofBytes = ibanProofDoc.asBytes();
-                        final byte[] firstPageIbanProofDocBytes =
-                                pdfManipulator.extract(ibanProofBytes, ExtractSpec.FIRST_PAGE_ONLY);
-
-                        appendTempFile(firstPageIbanProofDocBytes, documentName, pdfFiles);
+                        parts.add(new PdfAssemblyService.Part(
+                                keyOf(ibanProofDoc), ibanProofDoc::asBytes, ExtractSpec.FIRST_PAGE_ONLY, null));
                     }
                 }
             }
         }
 
-        byte[] pdfMergedBytes = pdfBoxService.merge(pdfFiles);
-
-        pdfFiles.stream().forEach(this::cleanup);
+        final byte[] pdfMergedBytes = pdfAssemblyService.assemble(parts);
 
         return new Blob(documentName, DocumentConstants.MIME_TYPE_APPLICATION_PDF, pdfMergedBytes);
     }
 
-    void cleanup(File tempFile) {
-        if (tempFile != null) {
-            try {
-                Files.delete(tempFile.toPath());
-                tempFile.delete();
-            } catch (Exception e) {
-                // ignore
-            }
-        }
-    }
-
-    void appendTempFile(final byte[] pdfBytes, final String documentName, final List<File> pdfFiles)
-            throws IOException {
-        File tempFile = File.createTempFile(documentName, "pdf");
-
-        final FileOutputStream fos = new FileOutputStream(tempFile);
-        fos.write(pdfBytes);
-        fos.close();
-
-        pdfFiles.add(tempFile);
+    /**
+     * Changes whenever the document does, so that its extractions are memoised only for as long as they are valid.
+     */
+    private static String keyOf(final org.incode.module.document.dom.impl.docs.Document document) {
+        final Object objectId = JDOHelper.getObjectId(document);
+        return objectId != null ? objectId + "@" + JDOHelper.getVersion(document) : null;
     }
 
     public String default0DownloadReviewPdf() {
@@ -732,8 +711,6 @@ public class PaymentBatch extends UdoDomainObject2<PaymentBatch> implements Stat
         return lineVms;
     }
 
-    @Inject
-    PdfBoxService pdfBoxService;
 
     @Inject
     LookupAttachedPdfService lookupAttachedPdfService;
@@ -745,7 +722,7 @@ public class PaymentBatch extends UdoDomainObject2<PaymentBatch> implements Stat
     DeepLinkService deepLinkService;
 
     @Inject
-    PdfManipulator pdfManipulator;
+    PdfAssemblyService pdfAssemblyService;
 
     @Programmatic
     public String fileNameWithSuffix(String suffix) {
@@ -823,7 +800,7 @@ public class PaymentBatch extends UdoDomainObject2<PaymentBatch> implements Stat
         return cdtrAgtFinInstnId;
     }
 
-    private BigDecimal ctrlSum() {
+    BigDecimal ctrlSum() {
         return Lists.newArrayList(getLines()).stream()
                 .map(PaymentLine::getAmount)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
@@ -865,7 +842,7 @@ public class PaymentBatch extends UdoDomainObject2<PaymentBatch> implements Stat
         }
     }
 
-    private String msgId() {
+    String msgId() {
         Person meAsPerson = personRepository.me();
         String userName =
                 meAsPerson != null
@@ -51,6 +51,14 @@ import lombok.Setter;
                         + "&& completed == :completed "
                         + "ORDER BY completedOn DESC "
         ),
+        @Query(
+                name = "findByDomainObjectsAndCompleted", language = "JDOQL",
+                value = "SELECT "
+                        + "FROM org.estatio.module.capex.dom.payment.approval.PaymentBatchApprovalStateTransition "
+                        + "WHERE :domainObjects.contains(paymentBatch) "
+                        + "&& completed == :completed "
+                        + "ORDER BY completedOn DESC "
+        ),
         @Query(
                 name = "findByTask", language = "JDOQL",
                 value = "SELECT "
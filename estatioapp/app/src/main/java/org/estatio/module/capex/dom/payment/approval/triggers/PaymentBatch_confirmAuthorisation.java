@@ -1,5 +1,8 @@
 package org.estatio.module.capex.dom.payment.approval.triggers;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 
@@ -13,6 +16,7 @@ import org.apache.isis.applib.annotation.SemanticsOf;
 import org.estatio.module.capex.dom.invoice.IncomingInvoice;
 import org.estatio.module.capex.dom.invoice.approval.IncomingInvoiceApprovalStateTransitionType;
 import org.estatio.module.capex.dom.payment.PaymentBatch;
+import org.estatio.module.capex.dom.payment.PaymentLine;
 import org.estatio.module.capex.dom.payment.approval.PaymentBatchApprovalStateTransitionType;
 import org.estatio.module.capex.dom.state.StateTransitionService;
 
@@ -41,15 +45,14 @@ public class PaymentBatch_confirmAuthorisation extends PaymentBatch_triggerAbstr
             @Nullable final String comment) {
         trigger(comment, null);
 
-        Lists.newArrayList(paymentBatch.getLines()).forEach(x -> triggerPaidOn(x.getInvoice()));
+        final List<IncomingInvoice> invoices = Lists.newArrayList(paymentBatch.getLines()).stream()
+                .map(PaymentLine::getInvoice)
+                .collect(Collectors.toList());
+        stateTransitionService.triggerAll(invoices, IncomingInvoiceApprovalStateTransitionType.PAY_BY_IBP, null, null);
 
         return paymentBatch;
     }
 
-    private void triggerPaidOn(final IncomingInvoice invoice) {
-        stateTransitionService.trigger(invoice, IncomingInvoiceApprovalStateTransitionType.PAY_BY_IBP, null, null);
-    }
-
     public boolean hideAct() {
         return cannotTransition();
     }
@@ -0,0 +1,179 @@
+package org.estatio.module.capex.dom.state;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import javax.inject.Inject;
+
+import org.apache.isis.applib.annotation.DomainService;
+import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.annotation.Programmatic;
+import org.apache.isis.applib.services.scratchpad.Scratchpad;
+import org.apache.isis.applib.services.xactn.Transaction;
+import org.apache.isis.applib.services.xactn.TransactionService;
+
+/**
+ * Caches the pending and the most recently completed {@link StateTransition} of domain objects, for the current
+ * transaction.
+ *
+ * <p>
+ *     {@link StateTransitionService#trigger(Object, Class, StateTransitionType, String, String) Triggering} a
+ *     transition looks up both on every step; with this cache each is queried at most once per domain object, or
+ *     not at all if {@link #prefetched(Class, Collection, Map, Map) prefetched} for many domain objects at once.
+ * </p>
+ *
+ * <p>
+ *     The cache is kept up to date by the {@link StateTransitionService} and {@link StateTransitionRepositoryGeneric},
+ *     through which all transitions are created, completed and removed. It is held in the {@link Scratchpad}, but is
+ *     discarded as soon as it is used in a transaction other than the one that populated it (so that nothing
+ *     survives a rollback).
+ * </p>
+ */
+@DomainService(nature = NatureOfService.DOMAIN)
+public class StateTransitionCache {
+
+    private static final String KEY = StateTransitionCache.class.getName();
+
+    @Programmatic
+    public <ST> ST pendingTransitionOf(
+            final Object domainObject,
+            final Class<ST> stateTransitionClass,
+            final Supplier<ST> loader) {
+        final Entry entry = entryFor(domainObject, stateTransitionClass);
+        if (!entry.pendingKnown) {
+            entry.pending(loader.get());
+        }
+        return stateTransitionClass.cast(entry.pending);
+    }
+
+    @Programmatic
+    public <ST> ST mostRecentlyCompletedTransitionOf(
+            final Object domainObject,
+            final Class<ST> stateTransitionClass,
+            final Supplier<ST> loader) {
+        final Entry entry = entryFor(domainObject, stateTransitionClass);
+        if (!entry.mostRecentlyCompletedKnown) {
+            entry.mostRecentlyCompleted(loader.get());
+        }
+        return stateTransitionClass.cast(entry.mostRecentlyCompleted);
+    }
+
+    /**
+     * Records the transitions of all of the domain objects, as loaded in bulk; domain objects missing from the maps
+     * have no such transition.
+     */
+    @Programmatic
+    public <DO, ST> void prefetched(
+            final Class<ST> stateTransitionClass,
+            final Collection<DO> domainObjects,
+            final Map<DO, ST> pendingTransitions,
+            final Map<DO, ST> mostRecentlyCompletedTransitions) {
+        for (final DO domainObject : domainObjects) {
+            final Entry entry = entryFor(domainObject, stateTransitionClass);
+            entry.pending(pendingTransitions.get(domainObject));
+            entry.mostRecentlyCompleted(mostRecentlyCompletedTransitions.get(domainObject));
+        }
+    }
+
+    /**
+     * A new transition is always pending, replacing any (removed) pending transition.
+     */
+    @Programmatic
+    public void created(final Object domainObject, final Object transition, final Class<?> stateTransitionClass) {
+        entryFor(domainObject, stateTransitionClass).pending(transition);
+    }
+
+    @Programmatic
+    public void removed(final Object domainObject, final Object transition, final Class<?> stateTransitionClass) {
+        final Entry entry = entryFor(domainObject, stateTransitionClass);
+        if (entry.pending == transition) {
+            entry.pending(null);
+        }
+        if (entry.mostRecentlyCompleted == transition) {
+            entry.mostRecentlyCompletedKnown = false;
+            entry.mostRecentlyCompleted = null;
+        }
+    }
+
+    @Programmatic
+    public void completed(final Object domainObject, final Object transition, final Class<?> stateTransitionClass) {
+        final Entry entry = entryFor(domainObject, stateTransitionClass);
+        if (entry.pending == transition) {
+            entry.pending(null);
+        }
+        entry.mostRecentlyCompleted(transition);
+    }
+
+    @Programmatic
+    public void evict(final Object domainObject, final Class<?> stateTransitionClass) {
+        final Map<Object, Entry> entries = cache().get(stateTransitionClass);
+        if (entries != null) {
+            entries.remove(domainObject);
+        }
+    }
+
+    // //////////////////////////////////////
+
+    private Entry entryFor(final Object domainObject, final Class<?> stateTransitionClass) {
+        return cache()
+                .computeIfAbsent(stateTransitionClass, x -> new IdentityHashMap<>())
+                .computeIfAbsent(domainObject, x -> new Entry());
+    }
+
+    private Map<Class<?>, Map<Object, Entry>> cache() {
+        final String transactionKey = currentTransactionKey();
+        final Object cached = scratchpad.get(KEY);
+        if (cached instanceof ForTransaction && Objects.equals(((ForTransaction) cached).transactionKey, transactionKey)) {
+            return ((ForTransaction) cached).entries;
+        }
+        final ForTransaction forTransaction = new ForTransaction(transactionKey);
+        scratchpad.put(KEY, forTransaction);
+        return forTransaction.entries;
+    }
+
+    private String currentTransactionKey() {
+        final Transaction transaction = transactionService.currentTransaction();
+        return transaction != null
+                ? transaction.getTransactionId() + ":" + transaction.getSequence()
+                : null;
+    }
+
+    private static class ForTransaction {
+        private final String transactionKey;
+        private final Map<Class<?>, Map<Object, Entry>> entries = new HashMap<>();
+
+        private ForTransaction(final String transactionKey) {
+            this.transactionKey = transactionKey;
+        }
+    }
+
+    private static class Entry {
+        private boolean pendingKnown;
+        private Object pending;
+        private boolean mostRecentlyCompletedKnown;
+        private Object mostRecentlyCompleted;
+
+        private void pending(final Object transition) {
+            pending = transition;
+            pendingKnown = true;
+        }
+
+        private void mostRecentlyCompleted(final Object transition) {
+            mostRecentlyCompleted = transition;
+            mostRecentlyCompletedKnown = true;
+        }
+    }
+
+    // //////////////////////////////////////
+
+    @Inject
+    Scratchpad scratchpad;
+
+    @Inject
+    TransactionService transactionService;
+
+}
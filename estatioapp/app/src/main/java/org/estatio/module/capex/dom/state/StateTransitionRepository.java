@@ -1,5 +1,6 @@
 package org.estatio.module.capex.dom.state;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.apache.isis.applib.annotation.Programmatic;
@@ -24,6 +25,13 @@ public interface StateTransitionRepository<
     @Programmatic
     ST findByDomainObjectAndCompleted(final DO domainObject, final boolean whetherCompleted);
 
+    /**
+     * The transitions of all of the domain objects that are (or are not) completed, most recently completed first;
+     * in effect {@link #findByDomainObjectAndCompleted(Object, boolean)} for many domain objects at once.
+     */
+    @Programmatic
+    List<ST> findByDomainObjectsAndCompleted(final Collection<DO> domainObjects, final boolean whetherCompleted);
+
     @Programmatic
     ST findByTask(final Task task);
 
@@ -1,5 +1,6 @@
 package org.estatio.module.capex.dom.state;
 
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -44,6 +45,12 @@ public abstract class StateTransitionRepositoryAbstract<
     }
 
 
+    @Override
+    @Programmatic
+    public List<ST> findByDomainObjectsAndCompleted(final Collection<DO> domainObjects, final boolean completed) {
+        return stateTransitionRepositoryGeneric.findByDomainObjectsAndCompleted(domainObjects, completed, stateTransitionClass);
+    }
+
     @Override
     @Programmatic
     public ST findByTask(final Task task) {
@@ -1,9 +1,13 @@
 package org.estatio.module.capex.dom.state;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import javax.inject.Inject;
 
+import com.google.common.collect.Lists;
+
 import org.joda.time.LocalDateTime;
 
 import org.apache.isis.applib.annotation.DomainService;
@@ -25,6 +29,11 @@ import org.estatio.module.party.dom.role.PartyRoleTypeService;
 @DomainService(nature = NatureOfService.DOMAIN)
 public class StateTransitionRepositoryGeneric {
 
+    /**
+     * The maximum number of domain objects passed to a single query (as the parameters of an SQL <tt>IN</tt>).
+     */
+    public static final int MAX_DOMAIN_OBJECTS_PER_QUERY = 500;
+
     @Programmatic
     public <
             DO,
@@ -85,6 +94,29 @@ public class StateTransitionRepositoryGeneric {
     }
 
 
+    @Programmatic
+    public <
+            DO,
+            ST extends StateTransitionAbstract<DO, ST, STT, S>,
+            STT extends StateTransitionType<DO, ST, STT, S>,
+            S extends State<S>
+            >
+    List<ST> findByDomainObjectsAndCompleted(
+            final Collection<DO> domainObjects,
+            final boolean completed,
+            final Class<ST> stateTransitionClass) {
+        final List<ST> transitions = new ArrayList<>();
+        for (final List<DO> partition : Lists.partition(new ArrayList<>(domainObjects), MAX_DOMAIN_OBJECTS_PER_QUERY)) {
+            transitions.addAll(repositoryService.allMatches(
+                    new QueryDefault<>(
+                            stateTransitionClass,
+                            "findByDomainObjectsAndCompleted",
+                            "domainObjects", partition,
+                            "completed", completed)));
+        }
+        return transitions;
+    }
+
     @Programmatic
     public <
             DO,
@@ -179,6 +211,7 @@ public class StateTransitionRepositoryGeneric {
         stateTransition.setCreatedOn(createdOn);
 
         repositoryService.persistAndFlush(stateTransition);
+        stateTransitionCache.created(domainObject, stateTransition, stateTransitionClass);
 
         return stateTransition;
     }
@@ -191,6 +224,7 @@ public class StateTransitionRepositoryGeneric {
             S extends State<S>
             >
     void deleteFor(final DO domainObject, final Class<ST> stateTransitionClass) {
+        stateTransitionCache.evict(domainObject, stateTransitionClass);
         final List<ST> stateTransitions = findByDomainObject(domainObject, stateTransitionClass);
         for (ST transition : stateTransitions) {
             Task taskToRemove = null;
@@ -214,6 +248,9 @@ public class StateTransitionRepositoryGeneric {
     @Inject
     MetaModelService3 metaModelService3;
 
+    @Inject
+    StateTransitionCache stateTransitionCache;
+
     @Inject
     protected RepositoryService repositoryService;
 
@@ -1,6 +1,10 @@
 package org.estatio.module.capex.dom.state;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.inject.Inject;
 
@@ -76,8 +80,9 @@ public class StateTransitionService {
     >  S currentStateOf(
             final DO domainObject,
             final STT prototype) {
-        final StateTransitionServiceSupport<DO, ST, STT, S> supportService = supportFor(prototype);
-        return supportService.currentStateOf(domainObject);
+        final Class<ST> stateTransitionClass = transitionClassFor(prototype);
+        final ST mostRecentTransitionIfAny = mostRecentlyCompletedTransitionOf(domainObject, stateTransitionClass);
+        return mostRecentTransitionIfAny != null ? mostRecentTransitionIfAny.getToState() : null;
     }
 
     /**
@@ -100,8 +105,8 @@ public class StateTransitionService {
                 return currentStateIfKnown;
             }
         }
-        final StateTransitionServiceSupport<DO, ST, STT, S> supportService = supportFor(stateTransitionClass);
-        return supportService.currentStateOf(domainObject);
+        final ST mostRecentTransitionIfAny = mostRecentlyCompletedTransitionOf(domainObject, stateTransitionClass);
+        return mostRecentTransitionIfAny != null ? mostRecentTransitionIfAny.getToState() : null;
     }
 
     // ////////////////////////////////////
@@ -123,8 +128,8 @@ public class StateTransitionService {
     > ST pendingTransitionOf(
             final DO domainObject,
             final STT prototype) {
-        final StateTransitionServiceSupport<DO, ST, STT, S> supportService = supportFor(prototype);
-        return supportService.pendingTransitionOf(domainObject);
+        final Class<ST> stateTransitionClass = transitionClassFor(prototype);
+        return pendingTransitionOf(domainObject, stateTransitionClass);
     }
 
     /**
@@ -140,8 +145,12 @@ public class StateTransitionService {
     > ST pendingTransitionOf(
             final DO domainObject,
             final Class<ST> stateTransitionClass) {
-        final StateTransitionServiceSupport<DO, ST, STT, S> supportService = supportFor(stateTransitionClass);
-        return supportService.pendingTransitionOf(domainObject);
+        return stateTransitionCache.pendingTransitionOf(
+                domainObject, stateTransitionClass,
+                () -> {
+                    final StateTransitionServiceSupport<DO, ST, STT, S> supportService = supportFor(stateTransitionClass);
+                    return supportService.pendingTransitionOf(domainObject);
+                });
     }
 
     // ////////////////////////////////////
@@ -293,6 +302,64 @@ public class StateTransitionService {
     }
 
 
+    /**
+     * As {@link #trigger(Object, StateTransitionType, String, String)}, for many domain objects.
+     */
+    @Programmatic
+    public <
+            DO,
+            ST extends StateTransition<DO, ST, STT, S>,
+            STT extends StateTransitionType<DO, ST, STT, S>,
+            S extends State<S>
+    > List<ST> triggerAll(
+            final Collection<DO> domainObjects,
+            final STT requiredTransitionType, // always non-null
+            final String currentTaskCommentIfAny,
+            final String nextTaskDescriptionIfAny) {
+        final Class<ST> stateTransitionClass = transitionClassFor(requiredTransitionType);
+        return triggerAll(domainObjects, stateTransitionClass, requiredTransitionType,
+                currentTaskCommentIfAny, nextTaskDescriptionIfAny);
+    }
+
+    /**
+     * As {@link #trigger(Object, Class, StateTransitionType, String, String)}, for many domain objects.
+     *
+     * <p>
+     *     The pending and most recently completed transitions of all of the domain objects are loaded up-front, with
+     *     one query each, rather than with two queries per domain object.
+     * </p>
+     *
+     * @return the most recently completed transition of each of the domain objects, in the same order.
+     */
+    @Programmatic
+    public <
+            DO,
+            ST extends StateTransition<DO, ST, STT, S>,
+            STT extends StateTransitionType<DO, ST, STT, S>,
+            S extends State<S>
+    > List<ST> triggerAll(
+            final Collection<DO> domainObjects,
+            final Class<ST> stateTransitionClass,
+            final STT requestedTransitionTypeIfAny,
+            final String currentTaskCommentIfAny,
+            final String nextTaskDescriptionIfAny) {
+
+        final StateTransitionServiceSupport<DO, ST, STT, S> supportService = supportFor(stateTransitionClass);
+        stateTransitionCache.prefetched(
+                stateTransitionClass,
+                domainObjects,
+                supportService.pendingTransitionsOf(domainObjects),
+                supportService.mostRecentlyCompletedTransitionsOf(domainObjects));
+
+        final List<ST> transitions = new ArrayList<>();
+        for (final DO domainObject : domainObjects) {
+            transitions.add(trigger(domainObject, stateTransitionClass, requestedTransitionTypeIfAny,
+                    currentTaskCommentIfAny, nextTaskDescriptionIfAny));
+        }
+        return transitions;
+    }
+
+
     // ////////////////////////////////////
 
 
@@ -396,6 +463,7 @@ public class StateTransitionService {
 
                     final Task taskIfAny = pendingTransitionIfAny.getTask();
                     repositoryService.remove(pendingTransitionIfAny);
+                    stateTransitionCache.removed(domainObject, pendingTransitionIfAny, stateTransitionClass);
                     if(taskIfAny != null) {
                         repositoryService.removeAndFlush(taskIfAny);
                     }
@@ -545,6 +613,7 @@ public class StateTransitionService {
 
         // mark tasks as complete
         transitionToComplete.completed(comment, natureOfTransition);
+        stateTransitionCache.completed(domainObject, transitionToComplete, stateTransitionClass);
 
         event.setPhase(StateTransitionEvent.Phase.TRANSITIONED);
         eventBusService.post(event);
@@ -640,12 +709,21 @@ public class StateTransitionService {
     > ST mostRecentlyCompletedTransitionOf(
             final DO domainObject,
             final Class<ST> stateTransitionClass) {
-        final StateTransitionServiceSupport<DO, ST, STT, S> supportService = supportFor(stateTransitionClass);
-        return supportService.mostRecentlyCompletedTransitionOf(domainObject);
+        return stateTransitionCache.mostRecentlyCompletedTransitionOf(
+                domainObject, stateTransitionClass,
+                () -> {
+                    final StateTransitionServiceSupport<DO, ST, STT, S> supportService = supportFor(stateTransitionClass);
+                    return supportService.mostRecentlyCompletedTransitionOf(domainObject);
+                });
     }
 
 
-    // REVIEW: we could cache the result, perhaps (it's idempotent)
+    /**
+     * The supporting services are looked up once per {@link StateTransitionType} (and {@link StateTransition}) class,
+     * and cached thereafter (the lookup is idempotent).
+     */
+    private final Map<Class<?>, StateTransitionServiceSupport> supportByClass = new ConcurrentHashMap<>();
+
     @Programmatic
     <
             DO,
@@ -654,6 +732,16 @@ public class StateTransitionService {
             S extends State<S>
             >
     StateTransitionServiceSupport<DO,ST,STT,S> supportFor(final STT transitionType) {
+        return supportByClass.computeIfAbsent(transitionType.getClass(), x -> doSupportFor(transitionType));
+    }
+
+    private <
+            DO,
+            ST extends StateTransition<DO, ST, STT, S>,
+            STT extends StateTransitionType<DO, ST, STT, S>,
+            S extends State<S>
+            >
+    StateTransitionServiceSupport<DO,ST,STT,S> doSupportFor(final STT transitionType) {
         if(supportServices == null) {
             throw new IllegalArgumentException("No implementations of StateTransitionServiceSupport found");
         }
@@ -665,7 +753,6 @@ public class StateTransitionService {
         throw new IllegalArgumentException("No implementations of StateTransitionServiceSupport found for " + transitionType);
     }
 
-    // REVIEW: we could cache the result, perhaps (it's idempotent)
     @Programmatic
     private <
             DO,
@@ -674,11 +761,12 @@ public class StateTransitionService {
             S extends State<S>
             >
     StateTransitionServiceSupport<DO,ST,STT,S> supportFor(final Class<ST> stateTransitionClass) {
-        final String transitionType = metaModelService3.toObjectType(stateTransitionClass);
-        return supportFor(transitionType);
+        return supportByClass.computeIfAbsent(stateTransitionClass, x -> {
+            final String transitionType = metaModelService3.toObjectType(stateTransitionClass);
+            return supportFor(transitionType);
+        });
     }
 
-    // REVIEW: we could cache the result, perhaps (it's idempotent)
     private <
             DO,
             ST extends StateTransition<DO, ST, STT, S>,
@@ -750,5 +838,8 @@ public class StateTransitionService {
     @Inject
     EventBusService eventBusService;
 
+    @Inject
+    StateTransitionCache stateTransitionCache;
+
 
 }
@@ -1,6 +1,9 @@
 
 package org.estatio.module.capex.dom.state;
 
+import java.util.Collection;
+import java.util.Map;
+
 import org.apache.isis.applib.annotation.DomainObject;
 import org.apache.isis.applib.annotation.Programmatic;
 
@@ -51,6 +54,21 @@ public interface StateTransitionServiceSupport <
     @Programmatic
     ST mostRecentlyCompletedTransitionOf(DO domainObject);
 
+    /**
+     * Supports {@link StateTransitionService#triggerAll(java.util.Collection, Class, StateTransitionType, String, String)}:
+     * the {@link #pendingTransitionOf(Object) pending transition} of each of the domain objects that has one.
+     */
+    @Programmatic
+    Map<DO, ST> pendingTransitionsOf(Collection<DO> domainObjects);
+
+    /**
+     * Supports {@link StateTransitionService#triggerAll(java.util.Collection, Class, StateTransitionType, String, String)}:
+     * the {@link #mostRecentlyCompletedTransitionOf(Object) most recently completed transition} of each of the domain
+     * objects that has one.
+     */
+    @Programmatic
+    Map<DO, ST> mostRecentlyCompletedTransitionsOf(Collection<DO> domainObjects);
+
     /**
      * Supports {@link StateTransitionService#currentStateOf(Object, StateTransitionType)}.
      * @return
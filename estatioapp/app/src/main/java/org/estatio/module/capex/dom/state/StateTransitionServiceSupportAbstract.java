@@ -1,5 +1,8 @@
 package org.estatio.module.capex.dom.state;
 
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Objects;
 
 import javax.inject.Inject;
@@ -58,6 +61,27 @@ public abstract class StateTransitionServiceSupportAbstract<
         return getRepository().findByDomainObjectAndCompleted(domainObject, true);
     }
 
+    @Override
+    public Map<DO, ST> pendingTransitionsOf(final Collection<DO> domainObjects) {
+        return firstPerDomainObject(getRepository().findByDomainObjectsAndCompleted(domainObjects, false));
+    }
+
+    @Override
+    public Map<DO, ST> mostRecentlyCompletedTransitionsOf(final Collection<DO> domainObjects) {
+        return firstPerDomainObject(getRepository().findByDomainObjectsAndCompleted(domainObjects, true));
+    }
+
+    /**
+     * As per the <tt>firstMatch</tt> of the queries for a single domain object.
+     */
+    private Map<DO, ST> firstPerDomainObject(final Iterable<ST> transitions) {
+        final Map<DO, ST> transitionByDomainObject = new IdentityHashMap<>();
+        for (final ST transition : transitions) {
+            transitionByDomainObject.putIfAbsent(transition.getDomainObject(), transition);
+        }
+        return transitionByDomainObject;
+    }
+
     @Override
     public S currentStateOf(final DO domainObject) {
         final ST mostRecentlyCompletedTransitionIfAny = mostRecentlyCompletedTransitionOf(domainObject);
@@ -9,6 +9,8 @@ import javax.jdo.annotations.Column;
 import javax.jdo.annotations.DatastoreIdentity;
 import javax.jdo.annotations.IdGeneratorStrategy;
 import javax.jdo.annotations.IdentityType;
+import javax.jdo.annotations.Index;
+import javax.jdo.annotations.Indices;
 import javax.jdo.annotations.PersistenceCapable;
 import javax.jdo.annotations.Queries;
 import javax.jdo.annotations.Query;
@@ -137,8 +139,37 @@ import lombok.Setter;
                         + "WHERE completedBy      == null "
                         + "   && personAssignedTo == :personAssignedTo "
                         + "   && createdOn        >  :createdOn "
+                        + "ORDER BY createdOn ASC "),
+        @Query(
+                name = "findIncompleteByPersonAssignedToAndCreatedOn", language = "JDOQL",
+                value = "SELECT "
+                        + "FROM org.estatio.module.capex.dom.task.Task "
+                        + "WHERE completedBy      == null "
+                        + "   && personAssignedTo == :personAssignedTo "
+                        + "   && createdOn        == :createdOn "),
+        @Query(
+                name = "findIncompleteByUnassignedForRolesAndCreatedOn", language = "JDOQL",
+                value = "SELECT "
+                        + "FROM org.estatio.module.capex.dom.task.Task "
+                        + "WHERE completedBy      == null "
+                        + "   && personAssignedTo == null "
+                        + "   && :roleTypes.contains(assignedTo) "
+                        + "   && createdOn        == :createdOn "),
+        @Query(
+                name = "findIncompleteByUnassignedForRolesOldestFirst", language = "JDOQL",
+                value = "SELECT "
+                        + "FROM org.estatio.module.capex.dom.task.Task "
+                        + "WHERE completedBy      == null "
+                        + "   && personAssignedTo == null "
+                        + "   && :roleTypes.contains(assignedTo) "
                         + "ORDER BY createdOn ASC ")
 })
+@Indices({
+        @Index(name = "Task_completedBy_personAssignedTo_createdOn_IDX",
+                members = { "completedBy", "personAssignedTo", "createdOn" }),
+        @Index(name = "Task_completedBy_personAssignedTo_assignedTo_createdOn_IDX",
+                members = { "completedBy", "personAssignedTo", "assignedTo", "createdOn" })
+})
 @DomainObject(objectType = "task.Task")
 @DomainObjectLayout(bookmarking = BookmarkPolicy.AS_ROOT)
 @XmlJavaTypeAdapter(PersistentEntityAdapter.class)
@@ -1,10 +1,12 @@
 package org.estatio.module.capex.dom.task;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
+import javax.jdo.JDOHelper;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Ordering;
@@ -302,30 +304,244 @@ public class TaskRepository {
         return tasks;
     }
 
+    /**
+     * The task immediately before the given one amongst {@link #findIncompleteForMe() my tasks}, ordered by
+     * createdOn and then by id; or the task itself if there is none.
+     */
     @Programmatic
     public Task previousTaskBefore(final Task previousTask) {
-
-        final LocalDateTime previousCreatedOn = previousTask.getCreatedOn();
         final Optional<Task> firstTaskIfAny =
-                findIncompleteForMeAndCreatedOnBefore(previousCreatedOn)
+                findIncompleteForMeBefore(previousTask, 1)
                         .stream()
                         .findFirst();
 
         return firstTaskIfAny.orElse(previousTask);
     }
 
+    /**
+     * The task immediately after the given one amongst {@link #findIncompleteForMe() my tasks}, ordered by
+     * createdOn and then by id; or the task itself if there is none.
+     */
     @Programmatic
     public Task nextTaskAfter(final Task previousTask) {
-
-        final LocalDateTime previousCreatedOn = previousTask.getCreatedOn();
         final Optional<Task> firstTaskIfAny =
-                findIncompleteForMeAndCreatedOnAfter(previousCreatedOn)
+                findIncompleteForMeAfter(previousTask, 1)
                         .stream()
                         .findFirst();
 
         return firstTaskIfAny.orElse(previousTask);
     }
 
+    /**
+     * A page of {@link #findIncompleteForMe() my tasks}, ordered by createdOn and then by id, following the given
+     * task (or starting with the oldest task, if <tt>null</tt>).
+     *
+     * <p>
+     *     The page is read using the key (createdOn, id) of the given task rather than an offset, so each page reads
+     *     (using the indices on {@link Task}) no more than <tt>pageSize</tt> tasks from each of my tasks and the
+     *     unassigned tasks for my roles, plus those created at the very same moment as the first and the last task of
+     *     the page.
+     * </p>
+     */
+    @Programmatic
+    public List<Task> findIncompleteForMeAfter(final Task after, final int pageSize) {
+        return findIncompleteForMe(after, pageSize, true);
+    }
+
+    /**
+     * As {@link #findIncompleteForMeAfter(Task, int)}, but for the page preceding the given task, most recent first.
+     */
+    @Programmatic
+    public List<Task> findIncompleteForMeBefore(final Task before, final int pageSize) {
+        return findIncompleteForMe(before, pageSize, false);
+    }
+
+    private List<Task> findIncompleteForMe(final Task key, final int pageSize, final boolean ascending) {
+        final Person meAsPerson = meAsPerson();
+        if(meAsPerson == null || pageSize <= 0 || (key == null && !ascending)) {
+            return Lists.newArrayList();
+        }
+        final List<PartyRoleType> myRoleTypes = partyRoleTypesFor(meAsPerson);
+
+        final List<Task> tasks = page(key, pageSize, ascending, new PersonAssignedTo(meAsPerson));
+        if(!myRoleTypes.isEmpty()) {
+            tasks.addAll(page(key, pageSize, ascending, new UnassignedForRoles(myRoleTypes)));
+        }
+        tasks.sort(orderingFor(ascending));
+        return firstOf(tasks, pageSize);
+    }
+
+    /**
+     * The tasks of the source following the key (in the requested direction), up to <tt>pageSize</tt> of them.
+     *
+     * <p>
+     *     The database only orders by createdOn, so any tasks created at the same moment as the key, or as the last
+     *     task read, are read in full and ordered by their id here.
+     * </p>
+     */
+    List<Task> page(
+            final Task key,
+            final int pageSize,
+            final boolean ascending,
+            final KeysetSource source) {
+        final Comparator<Task> ordering = orderingFor(ascending);
+
+        final List<Task> tasks = Lists.newArrayList();
+        if(key != null) {
+            source.createdOn(key.getCreatedOn()).stream()
+                    .filter(task -> ordering.compare(task, key) > 0)
+                    .forEach(tasks::add);
+            if(tasks.size() >= pageSize) {
+                tasks.sort(ordering);
+                return firstOf(tasks, pageSize);
+            }
+        }
+
+        final int count = pageSize - tasks.size();
+        final List<Task> following = Lists.newArrayList(
+                key == null
+                        ? source.oldest(count)
+                        : ascending
+                            ? source.createdOnAfter(key.getCreatedOn(), count)
+                            : source.createdOnBefore(key.getCreatedOn(), count));
+        if(following.size() >= count) {
+            // the page may have been cut off part way through the tasks created at the same moment as its last task
+            final LocalDateTime last = following.get(following.size() - 1).getCreatedOn();
+            following.removeIf(task -> task.getCreatedOn().equals(last));
+            following.addAll(source.createdOn(last));
+        }
+        tasks.addAll(following);
+        tasks.sort(ordering);
+        return firstOf(tasks, pageSize);
+    }
+
+    private Comparator<Task> orderingFor(final boolean ascending) {
+        final Comparator<Task> ordering = Comparator.comparing(Task::getCreatedOn).thenComparingLong(this::idOf);
+        return ascending ? ordering : ordering.reversed();
+    }
+
+    private static List<Task> firstOf(final List<Task> tasks, final int count) {
+        return tasks.size() > count ? Lists.newArrayList(tasks.subList(0, count)) : tasks;
+    }
+
+    long idOf(final Task task) {
+        final Object objectId = JDOHelper.getObjectId(task);
+        if(objectId == null) {
+            return 0L;
+        }
+        return Long.parseLong(objectId.toString().split("\\[OID\\]")[0]);
+    }
+
+    /**
+     * Incomplete tasks of one kind (assigned to a person, or unassigned for some roles), read in createdOn order.
+     */
+    interface KeysetSource {
+        List<Task> createdOn(LocalDateTime createdOn);
+        List<Task> createdOnAfter(LocalDateTime createdOn, int count);
+        List<Task> createdOnBefore(LocalDateTime createdOn, int count);
+        List<Task> oldest(int count);
+    }
+
+    private class PersonAssignedTo implements KeysetSource {
+        private final Person personAssignedTo;
+
+        private PersonAssignedTo(final Person personAssignedTo) {
+            this.personAssignedTo = personAssignedTo;
+        }
+
+        @Override
+        public List<Task> createdOn(final LocalDateTime createdOn) {
+            return repositoryService.allMatches(
+                    new QueryDefault<>(
+                            Task.class,
+                            "findIncompleteByPersonAssignedToAndCreatedOn",
+                            "personAssignedTo", personAssignedTo,
+                            "createdOn", createdOn));
+        }
+
+        @Override
+        public List<Task> createdOnAfter(final LocalDateTime createdOn, final int count) {
+            return repositoryService.allMatches(
+                    new QueryDefault<>(
+                            Task.class,
+                            "findIncompleteByPersonAssignedToAndCreatedOnAfter",
+                            "personAssignedTo", personAssignedTo,
+                            "createdOn", createdOn)
+                            .withCount(count));
+        }
+
+        @Override
+        public List<Task> createdOnBefore(final LocalDateTime createdOn, final int count) {
+            return repositoryService.allMatches(
+                    new QueryDefault<>(
+                            Task.class,
+                            "findIncompleteByPersonAssignedToAndCreatedOnBefore",
+                            "personAssignedTo", personAssignedTo,
+                            "createdOn", createdOn)
+                            .withCount(count));
+        }
+
+        @Override
+        public List<Task> oldest(final int count) {
+            return repositoryService.allMatches(
+                    new QueryDefault<>(
+                            Task.class,
+                            "findIncompleteByPersonAssignedTo",
+                            "personAssignedTo", personAssignedTo)
+                            .withCount(count));
+        }
+    }
+
+    private class UnassignedForRoles implements KeysetSource {
+        private final List<PartyRoleType> roleTypes;
+
+        private UnassignedForRoles(final List<PartyRoleType> roleTypes) {
+            this.roleTypes = roleTypes;
+        }
+
+        @Override
+        public List<Task> createdOn(final LocalDateTime createdOn) {
+            return repositoryService.allMatches(
+                    new QueryDefault<>(
+                            Task.class,
+                            "findIncompleteByUnassignedForRolesAndCreatedOn",
+                            "roleTypes", roleTypes,
+                            "createdOn", createdOn));
+        }
+
+        @Override
+        public List<Task> createdOnAfter(final LocalDateTime createdOn, final int count) {
+            return repositoryService.allMatches(
+                    new QueryDefault<>(
+                            Task.class,
+                            "findIncompleteByUnassignedForRolesAndCreatedOnAfter",
+                            "roleTypes", roleTypes,
+                            "createdOn", createdOn)
+                            .withCount(count));
+        }
+
+        @Override
+        public List<Task> createdOnBefore(final LocalDateTime createdOn, final int count) {
+            return repositoryService.allMatches(
+                    new QueryDefault<>(
+                            Task.class,
+                            "findIncompleteByUnassignedForRolesAndCreatedOnBefore",
+                            "roleTypes", roleTypes,
+                            "createdOn", createdOn)
+                            .withCount(count));
+        }
+
+        @Override
+        public List<Task> oldest(final int count) {
+            return repositoryService.allMatches(
+                    new QueryDefault<>(
+                            Task.class,
+                            "findIncompleteByUnassignedForRolesOldestFirst",
+                            "roleTypes", roleTypes)
+                            .withCount(count));
+        }
+    }
+
     private Person meAsPerson() {
         return queryResultsCache.execute(this::doMeAsPerson, getClass(), "meAsPerson");
     }
@@ -0,0 +1,376 @@
+package org.estatio.module.capex.platform.pdfmanipulator;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.multipdf.PDFMergerUtility;
+
+import org.apache.isis.applib.annotation.DomainService;
+import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.annotation.Programmatic;
+
+import lombok.Data;
+
+/**
+ * Assembles a single PDF (or a zip of PDFs) from pages {@link PdfManipulator#extractAndStamp(byte[], ExtractSpec, Stamp)
+ * extracted and stamped} from many documents.
+ *
+ * <p>
+ *     The documents are read one by one on the calling thread (typically from the database), and extracted and
+ *     stamped in parallel on a bounded pool. No more than a window of documents is held in memory at any one time;
+ *     each extraction is spooled to a temporary file as soon as it (and all before it) are done, and the temporary
+ *     files are merged with PDFBox using temporary files rather than main memory.
+ * </p>
+ *
+ * <p>
+ *     Extractions are memoised (up to a total size) by the key of their document, the pages extracted and the stamp,
+ *     so that downloading the same review PDF again does not repeat the work.
+ * </p>
+ */
+@DomainService(nature = NatureOfService.DOMAIN)
+public class PdfAssemblyService {
+
+    public static final String THREADS_KEY = "estatio.pdfAssembly.threads";
+    public static final String WINDOW_KEY = "estatio.pdfAssembly.window";
+    public static final String CACHE_MAX_BYTES_KEY = "estatio.pdfAssembly.cacheMaxBytes";
+
+    private static final int THREADS_DEFAULT = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int WINDOW_DEFAULT = 16;
+    private static final long CACHE_MAX_BYTES_DEFAULT = 64L * 1024 * 1024;
+
+    /**
+     * The pages to extract from a document, and the stamp (if any) to apply to them.
+     */
+    @Data
+    public static class Part {
+
+        /**
+         * Identifies the content of the document (for example its object id and version), for memoisation; the
+         * extraction is not memoised if <tt>null</tt>.
+         */
+        private final String documentKey;
+
+        /**
+         * Called on the thread assembling the PDF, and only if the extraction has not been memoised.
+         */
+        private final Callable<byte[]> documentBytes;
+
+        private final ExtractSpec extractSpec;
+
+        private final Stamp stamp;
+    }
+
+    /**
+     * The failure of (reading or extracting) one of the parts, identified by its index.
+     */
+    public static class PartFailedException extends IOException {
+        private final int partIndex;
+
+        PartFailedException(final int partIndex, final Exception cause) {
+            super(cause.getMessage(), cause);
+            this.partIndex = partIndex;
+        }
+
+        public int getPartIndex() {
+            return partIndex;
+        }
+    }
+
+    @Data
+    static class ExtractionKey {
+        private final String documentKey;
+        private final ExtractSpec extractSpec;
+        private final Stamp stamp;
+    }
+
+    private ExecutorService executorService;
+    private int window;
+    Cache<ExtractionKey, byte[]> extractions;
+
+    /**
+     * Where extractions are spooled to; the default temporary-file directory if <tt>null</tt>.
+     */
+    File spoolDirectory;
+
+    @PostConstruct
+    public void init(final Map<String, String> properties) {
+        final int threads = intProperty(properties, THREADS_KEY, THREADS_DEFAULT);
+        window = Math.max(threads, intProperty(properties, WINDOW_KEY, WINDOW_DEFAULT));
+
+        final String cacheMaxBytes = properties.get(CACHE_MAX_BYTES_KEY);
+        extractions = CacheBuilder.newBuilder()
+                .maximumWeight(cacheMaxBytes != null ? Long.parseLong(cacheMaxBytes) : CACHE_MAX_BYTES_DEFAULT)
+                .<ExtractionKey, byte[]>weigher((key, bytes) -> bytes.length)
+                .build();
+
+        final AtomicInteger threadNumber = new AtomicInteger();
+        executorService = Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "pdf-assembly-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static int intProperty(final Map<String, String> properties, final String key, final int defaultValue) {
+        final String value = properties.get(key);
+        return value != null ? Math.max(1, Integer.parseInt(value)) : defaultValue;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executorService != null) {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * The extracted and stamped pages of all of the parts, in order, as a single PDF.
+     */
+    @Programmatic
+    public byte[] assemble(final List<Part> parts) throws IOException {
+        final List<File> files = Lists.newArrayList();
+        try {
+            extractInOrder(parts, files::add);
+            return merge(files);
+        } catch (PartFailedException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (IOException) cause;
+        } finally {
+            files.forEach(PdfAssemblyService::delete);
+        }
+    }
+
+    /**
+     * The extracted and stamped pages of each of the parts as a separate entry (named by the corresponding element
+     * of <tt>entryNames</tt>) of a zip archive, written to a temporary file.
+     *
+     * <p>
+     *     Each extraction is written to the archive as soon as it (and all before it) are done, and its own temporary
+     *     file then deleted.  The caller is responsible for deleting the returned file.
+     * </p>
+     *
+     * @throws PartFailedException - should any of the parts fail, identifying which.
+     */
+    @Programmatic
+    public File zip(final List<Part> parts, final List<String> entryNames) throws IOException {
+        if (parts.size() != entryNames.size()) {
+            throw new IllegalArgumentException("Require an entry name for each part");
+        }
+        final File zipFile = File.createTempFile("pdf-assembly", ".zip");
+        final Iterator<String> entryNameIterator = entryNames.iterator();
+        try (final ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(zipFile)))) {
+            extractInOrder(parts, file -> {
+                try {
+                    zos.putNextEntry(new ZipEntry(entryNameIterator.next()));
+                    Files.copy(file.toPath(), zos);
+                    zos.closeEntry();
+                } finally {
+                    delete(file);
+                }
+            });
+        } catch (IOException | RuntimeException ex) {
+            delete(zipFile);
+            throw ex;
+        }
+        return zipFile;
+    }
+
+    /**
+     * Takes ownership of each spooled extraction.
+     */
+    private interface ExtractionConsumer {
+        void accept(File file) throws IOException;
+    }
+
+    /**
+     * Extracts (in parallel, but with no more than a window in flight) and passes each spooled extraction, in the
+     * order of the parts, to the consumer.
+     */
+    private void extractInOrder(final List<Part> parts, final ExtractionConsumer consumer) throws IOException {
+        final Deque<Extraction> inFlight = new ArrayDeque<>();
+        try {
+            int partIndex = 0;
+            for (final Part part : parts) {
+                inFlight.add(submit(part, partIndex++));
+                while (inFlight.size() > window) {
+                    consume(inFlight.poll(), consumer);
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                consume(inFlight.poll(), consumer);
+            }
+        } finally {
+            inFlight.forEach(Extraction::discard);
+        }
+    }
+
+    private static void consume(final Extraction extraction, final ExtractionConsumer consumer) throws IOException {
+        final File file;
+        try {
+            file = await(extraction.future);
+        } catch (IOException | RuntimeException ex) {
+            throw new PartFailedException(extraction.partIndex, ex);
+        }
+        consumer.accept(file);
+    }
+
+    /**
+     * An extraction in flight.  Its spooled file is either taken by the consumer (through the future) or, if the
+     * extraction is discarded, deleted: by the task itself if discarded before it has handed the file off, otherwise
+     * by {@link #discard()}.
+     */
+    private static class Extraction {
+
+        private static final File DISCARDED = new File("");
+
+        private final int partIndex;
+        private final AtomicReference<File> spooled = new AtomicReference<>();
+        private Future<File> future;
+
+        Extraction(final int partIndex) {
+            this.partIndex = partIndex;
+        }
+
+        File handOff(final File file) throws InterruptedIOException {
+            if (Thread.currentThread().isInterrupted() || !spooled.compareAndSet(null, file)) {
+                // discarded (cancelled) meanwhile, so no-one else will take the file
+                delete(file);
+                throw new InterruptedIOException("Extraction discarded");
+            }
+            return file;
+        }
+
+        /**
+         * Cancels an extraction that is no longer needed (because another failed).
+         */
+        void discard() {
+            future.cancel(true);
+            final File file = spooled.getAndSet(DISCARDED);
+            if (file != null && file != DISCARDED) {
+                delete(file);
+            }
+        }
+    }
+
+    private Extraction submit(final Part part, final int partIndex) throws IOException {
+        final ExtractionKey key = part.getDocumentKey() != null
+                ? new ExtractionKey(part.getDocumentKey(), part.getExtractSpec(), part.getStamp())
+                : null;
+        final byte[] memoised = key != null ? extractions.getIfPresent(key) : null;
+        final byte[] documentBytes;
+        try {
+            documentBytes = memoised == null ? read(part) : null;
+        } catch (IOException | RuntimeException ex) {
+            throw new PartFailedException(partIndex, ex);
+        }
+
+        final Extraction extraction = new Extraction(partIndex);
+        extraction.future = executorService.submit(() -> {
+            byte[] extracted = memoised;
+            if (extracted == null) {
+                extracted = pdfManipulator.extractAndStamp(documentBytes, part.getExtractSpec(), part.getStamp());
+                if (key != null) {
+                    extractions.put(key, extracted);
+                }
+            }
+            return extraction.handOff(spool(extracted));
+        });
+        return extraction;
+    }
+
+    private static byte[] read(final Part part) throws IOException {
+        try {
+            return part.getDocumentBytes().call();
+        } catch (IOException | RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    private static File await(final Future<File> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while assembling PDF", ex);
+        } catch (ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private File spool(final byte[] pdfBytes) throws IOException {
+        final File file = File.createTempFile("pdf-assembly", ".pdf", spoolDirectory);
+        try {
+            Files.write(file.toPath(), pdfBytes);
+        } catch (IOException ex) {
+            delete(file);
+            throw ex;
+        }
+        return file;
+    }
+
+    private static byte[] merge(final List<File> files) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        if (files.isEmpty()) {
+            return baos.toByteArray();
+        }
+        final PDFMergerUtility merger = new PDFMergerUtility();
+        for (final File file : files) {
+            merger.addSource(file);
+        }
+        merger.setDestinationStream(baos);
+        merger.mergeDocuments(MemoryUsageSetting.setupTempFileOnly());
+        return baos.toByteArray();
+    }
+
+    private static void delete(final File file) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    @Inject
+    PdfManipulator pdfManipulator;
+
+}
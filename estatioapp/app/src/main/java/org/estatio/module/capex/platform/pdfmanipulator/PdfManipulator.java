@@ -9,6 +9,8 @@ import javax.inject.Inject;
 
 import com.google.common.collect.Lists;
 
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.multipdf.Splitter;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
@@ -41,7 +43,11 @@ public class PdfManipulator {
     private static final float TEXT_LINE_HEIGHT = 14F;
     private static final int TEXT_X_PADDING = 4;
     static final Color TEXT_COLOR = Color.BLUE;
-    private static final PDFont TEXT_FONT = PDType1Font.COURIER;
+    /**
+     * A standard 14 font; created for each call (see {@link #newTextFont()}), rather than sharing
+     * {@link PDType1Font#COURIER}, whose (mutable) dictionary is not safe to use from concurrent threads.
+     */
+    private static final String TEXT_FONT_NAME = "Courier";
     private static final int TEXT_FONT_SIZE = 10;
 
     static final Color HYPERLINK_COLOR = Color.MAGENTA;
@@ -75,6 +81,7 @@ public class PdfManipulator {
         final PDDocument pdDoc = PDDocument.load(docBytes);
 
         try {
+            final PDFont textFont = stamp != null ? newTextFont() : null;
 
             final Splitter splitter = new Splitter();
             final List<PDDocument> splitDocs = splitter.split(pdDoc);
@@ -93,7 +100,7 @@ public class PdfManipulator {
                     leftLines.add(new Line(String.format("Page: %d/%d", (pageNum+1), sizeOfDoc), TEXT_COLOR, null));
                     stamp.appendHyperlinkIfAnyTo(leftLines);
 
-                    extractedPageDocBytes.add(stamp(docOfExtractedPage, leftLines, rightLines));
+                    extractedPageDocBytes.add(stamp(docOfExtractedPage, leftLines, rightLines, textFont));
 
                 } else {
                     extractedPageDocBytes.add(asBytes(docOfExtractedPage));
@@ -114,6 +121,14 @@ public class PdfManipulator {
         return mergedBytes;
     }
 
+    private static PDFont newTextFont() throws IOException {
+        final COSDictionary fontDictionary = new COSDictionary();
+        fontDictionary.setItem(COSName.TYPE, COSName.FONT);
+        fontDictionary.setItem(COSName.SUBTYPE, COSName.TYPE1);
+        fontDictionary.setName(COSName.BASE_FONT, TEXT_FONT_NAME);
+        return new PDType1Font(fontDictionary);
+    }
+
     private static byte[] asBytes(final PDDocument doc) throws IOException {
 
         final ByteArrayOutputStream baos = new ByteArrayOutputStream();
@@ -125,7 +140,8 @@ public class PdfManipulator {
     private byte[] stamp(
             final PDDocument onePageDoc,
             final List<Line> leftLines,
-            final List<Line> rightLines) throws IOException {
+            final List<Line> rightLines,
+            final PDFont textFont) throws IOException {
 
         PDPage pdPage = onePageDoc.getPage(0);
 
@@ -152,13 +168,13 @@ public class PdfManipulator {
             final float y = 36;
 
             float x = X_MARGIN_LEFT;
-            float yLine = addLines(x, y, height, leftLines, appendStream);
+            float yLine = addLines(x, y, height, leftLines, textFont, appendStream);
 
             String hyperlink = leftLines.get(leftLineSize - 1).hyperlink;
             addHyperlink(x, yLine + TEXT_LINE_HEIGHT - 6, hyperlink, pdPage);
 
             x = X_MARGIN_RIGHT;
-            addLines(x, y, height, rightLines, appendStream);
+            addLines(x, y, height, rightLines, textFont, appendStream);
 
         } finally {
             appendStream.close();
@@ -188,8 +204,9 @@ public class PdfManipulator {
             final float x, final float y,
             final float height,
             final List<Line> lines,
+            final PDFont textFont,
             final PDPageContentStream cs) throws IOException {
-        cs.setFont(TEXT_FONT, TEXT_FONT_SIZE);
+        cs.setFont(textFont, TEXT_FONT_SIZE);
         float yLine = y + height - TEXT_LINE_HEIGHT;
         for (Line line : lines) {
 
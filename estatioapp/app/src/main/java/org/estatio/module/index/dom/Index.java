@@ -37,6 +37,7 @@ import javax.jdo.annotations.Version;
 import javax.jdo.annotations.VersionStrategy;
 
 import org.joda.time.LocalDate;
+import org.joda.time.LocalDateTime;
 
 import org.apache.isis.applib.annotation.Action;
 import org.apache.isis.applib.annotation.CollectionLayout;
@@ -161,6 +162,15 @@ public class Index
     @Getter @Setter
     private SortedSet<IndexBase> indexBases = new TreeSet<>();
 
+    /**
+     * When any {@link IndexValue} of this index was last created, changed or removed; <tt>null</tt> if not since
+     * this has been tracked.
+     */
+    @Column(allowsNull = "true")
+    @Property(hidden = Where.EVERYWHERE)
+    @Getter @Setter
+    private LocalDateTime valuesChangedOn;
+
     @Action(semantics = SemanticsOf.NON_IDEMPOTENT)
     @MemberOrder(sequence = "1")
     @Override
@@ -182,6 +192,10 @@ public class Index
     @Programmatic
     public BigDecimal getIndexValueForDate(final LocalDate date) {
         if (date != null) {
+            final IndexTimeSeries timeSeries = timeSeries();
+            if (timeSeries != null) {
+                return timeSeries.valueFor(date);
+            }
             IndexValue indexValue = indexValueRepository.findByIndexAndStartDate(this, date);
             return indexValue == null ? null : indexValue.getValue();
         }
@@ -193,6 +207,10 @@ public class Index
         if (baseIndexStartDate == null || nextIndexStartDate == null) {
             return null;
         }
+        final IndexTimeSeries timeSeries = timeSeries();
+        if (timeSeries != null) {
+            return timeSeries.rebaseFactorFor(baseIndexStartDate, nextIndexStartDate);
+        }
         IndexValue nextIndexValue = indexValueRepository.findByIndexAndStartDate(this, nextIndexStartDate);
         if (nextIndexValue != null) {
             final BigDecimal rebaseFactor = nextIndexValue.getIndexBase().factorForDate(baseIndexStartDate);
@@ -226,9 +244,16 @@ public class Index
         input.setRebaseFactor(getRebaseFactorForDates(input.getBaseIndexStartDate(), input.getNextIndexStartDate()));
     }
 
+    private IndexTimeSeries timeSeries() {
+        return indexTimeSeriesService == null ? null : indexTimeSeriesService.timeSeriesFor(this);
+    }
+
     @Inject
     public IndexValueRepository indexValueRepository;
 
+    @Inject
+    IndexTimeSeriesService indexTimeSeriesService;
+
     @Inject
     private IndexBaseRepository indexBaseRepository;
 
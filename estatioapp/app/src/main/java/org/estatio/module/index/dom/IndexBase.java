@@ -46,6 +46,9 @@ import org.apache.isis.applib.annotation.Property;
 import org.apache.isis.applib.annotation.PropertyLayout;
 import org.apache.isis.applib.annotation.RenderType;
 import org.apache.isis.applib.annotation.SemanticsOf;
+import org.apache.isis.applib.services.eventbus.ObjectPersistingEvent;
+import org.apache.isis.applib.services.eventbus.ObjectRemovingEvent;
+import org.apache.isis.applib.services.eventbus.ObjectUpdatingEvent;
 
 import org.isisaddons.module.security.dom.tenancy.ApplicationTenancy;
 
@@ -96,12 +99,19 @@ import lombok.Setter;
 })
 @DomainObject(
         editing = Editing.DISABLED,
-        objectType = "org.estatio.dom.index.IndexBase"
+        objectType = "org.estatio.dom.index.IndexBase",
+        persistingLifecycleEvent = IndexBase.PersistingLifecycleEvent.class,
+        updatingLifecycleEvent = IndexBase.UpdatingLifecycleEvent.class,
+        removingLifecycleEvent = IndexBase.RemovingLifecycleEvent.class
 )
 public class IndexBase
         extends UdoDomainObject2<IndexBase>
         implements WithStartDate, Chained<IndexBase>, WithApplicationTenancyCountry, IndexValueCreator {
 
+    public static class PersistingLifecycleEvent extends ObjectPersistingEvent<IndexBase> {}
+    public static class UpdatingLifecycleEvent extends ObjectUpdatingEvent<IndexBase> {}
+    public static class RemovingLifecycleEvent extends ObjectRemovingEvent<IndexBase> {}
+
     public static final int FACTOR_SCALE = 4;
 
     public IndexBase() {
@@ -0,0 +1,172 @@
+/*
+ *
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.module.index.dom;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDate;
+import org.joda.time.LocalDateTime;
+
+import lombok.Getter;
+
+/**
+ * An immutable snapshot of the {@link IndexValue value}s of an {@link Index}, detached from the persistence layer.
+ *
+ * <p>
+ *     Values are held in arrays sorted by (epoch day of) their start date, so that looking one up is a binary search.
+ *     For every {@link IndexBase base} the rebase factors for all dates are precomputed, being the products of the
+ *     factors of the chain of {@link IndexBase#getPrevious() previous} bases. The results are identical to
+ *     {@link Index#getIndexValueForDate(LocalDate)} and {@link IndexBase#factorForDate(LocalDate)}.
+ * </p>
+ */
+class IndexTimeSeries {
+
+    /**
+     * The {@link Index#getValuesChangedOn()} of the index when this snapshot was taken.
+     */
+    @Getter
+    private final LocalDateTime valuesChangedOn;
+
+    private final int[] days;
+    private final BigDecimal[] values;
+    private final int[] baseOfValue;
+
+    /**
+     * Per base, the start dates of the base and its previous bases, most recent first.
+     */
+    private final LocalDate[][] chainStartDates;
+
+    /**
+     * Per base, the product of the factors of the first <i>m</i> bases of its chain, for <i>m</i> from zero up to and
+     * including the length of the chain; <tt>null</tt> from the first base without a factor.
+     */
+    private final BigDecimal[][] chainFactors;
+
+    private IndexTimeSeries(
+            final LocalDateTime valuesChangedOn,
+            final int[] days,
+            final BigDecimal[] values,
+            final int[] baseOfValue,
+            final LocalDate[][] chainStartDates,
+            final BigDecimal[][] chainFactors) {
+        this.valuesChangedOn = valuesChangedOn;
+        this.days = days;
+        this.values = values;
+        this.baseOfValue = baseOfValue;
+        this.chainStartDates = chainStartDates;
+        this.chainFactors = chainFactors;
+    }
+
+    static IndexTimeSeries of(final LocalDateTime valuesChangedOn, final List<IndexValue> indexValues) {
+        final List<IndexValue> sorted = new ArrayList<>(indexValues);
+        sorted.sort(Comparator.comparing(IndexValue::getStartDate));
+
+        final Map<IndexBase, Integer> baseNumbers = new IdentityHashMap<>();
+        final List<IndexBase> bases = new ArrayList<>();
+
+        final int[] days = new int[sorted.size()];
+        final BigDecimal[] values = new BigDecimal[sorted.size()];
+        final int[] baseOfValue = new int[sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            final IndexValue indexValue = sorted.get(i);
+            days[i] = epochDay(indexValue.getStartDate());
+            values[i] = indexValue.getValue();
+            Integer baseNumber = baseNumbers.get(indexValue.getIndexBase());
+            if (baseNumber == null) {
+                baseNumber = bases.size();
+                baseNumbers.put(indexValue.getIndexBase(), baseNumber);
+                bases.add(indexValue.getIndexBase());
+            }
+            baseOfValue[i] = baseNumber;
+        }
+
+        final LocalDate[][] chainStartDates = new LocalDate[bases.size()][];
+        final BigDecimal[][] chainFactors = new BigDecimal[bases.size()][];
+        for (int b = 0; b < bases.size(); b++) {
+            final List<IndexBase> chain = new ArrayList<>();
+            for (IndexBase base = bases.get(b); base != null; base = base.getPrevious()) {
+                chain.add(base);
+            }
+            chainStartDates[b] = new LocalDate[chain.size()];
+            chainFactors[b] = new BigDecimal[chain.size() + 1];
+            chainFactors[b][0] = BigDecimal.ONE;
+            for (int m = 0; m < chain.size(); m++) {
+                chainStartDates[b][m] = chain.get(m).getStartDate();
+                final BigDecimal factor = chain.get(m).getFactor();
+                chainFactors[b][m + 1] = factor == null || chainFactors[b][m] == null
+                        ? null
+                        : chainFactors[b][m].multiply(factor);
+            }
+        }
+
+        return new IndexTimeSeries(valuesChangedOn, days, values, baseOfValue, chainStartDates, chainFactors);
+    }
+
+    BigDecimal valueFor(final LocalDate date) {
+        final int i = indexOf(date);
+        return i < 0 ? null : values[i];
+    }
+
+    /**
+     * As per {@link Index#getRebaseFactorForDates(LocalDate, LocalDate)}: the factor of the base of the value at the
+     * next date, for the base date.
+     */
+    BigDecimal rebaseFactorFor(final LocalDate baseIndexStartDate, final LocalDate nextIndexStartDate) {
+        final int i = indexOf(nextIndexStartDate);
+        if (i < 0) {
+            return null;
+        }
+        final int base = baseOfValue[i];
+        final LocalDate[] startDates = chainStartDates[base];
+        // the recursion of IndexBase#factorForDate stops at the first base not after the date
+        int m = 0;
+        while (m < startDates.length && baseIndexStartDate.isBefore(startDates[m])) {
+            m++;
+        }
+        final BigDecimal factor = chainFactors[base][m];
+        if (factor == null) {
+            throw new IllegalStateException(String.format("No factor for a base before %s", nextIndexStartDate));
+        }
+        return factor;
+    }
+
+    int size() {
+        return days.length;
+    }
+
+    private int indexOf(final LocalDate date) {
+        if (date == null) {
+            return -1;
+        }
+        final int i = Arrays.binarySearch(days, epochDay(date));
+        return i < 0 ? -1 : i;
+    }
+
+    private static int epochDay(final LocalDate date) {
+        return (int) (date.toDateTimeAtStartOfDay(DateTimeZone.UTC).getMillis() / 86_400_000L);
+    }
+
+}
@@ -0,0 +1,166 @@
+/*
+ *
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.module.index.dom;
+
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.inject.Inject;
+
+import org.apache.isis.applib.AbstractSubscriber;
+import org.apache.isis.applib.annotation.DomainService;
+import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.annotation.Programmatic;
+import org.apache.isis.applib.services.clock.ClockService;
+import org.apache.isis.applib.services.scratchpad.Scratchpad;
+
+/**
+ * Holds an {@link IndexTimeSeries} per {@link Index} (by reference) for the lifetime of the application, so that
+ * indexation needs neither queries nor recursion through the {@link IndexBase bases}.
+ *
+ * <p>
+ *     Any change to an {@link IndexValue} or {@link IndexBase} stamps the {@link Index#getValuesChangedOn() index}
+ *     and evicts its time series. A time series is only used while the stamp of the index is the one it was loaded
+ *     with, which also picks up changes committed by other nodes. For the remainder of the interaction that made the
+ *     change, the index is not cached at all (its changes may not have been flushed yet).
+ * </p>
+ */
+@DomainService(nature = NatureOfService.DOMAIN)
+public class IndexTimeSeriesService extends AbstractSubscriber {
+
+    private static final String CHANGED_KEY = IndexTimeSeriesService.class.getName() + ".changed";
+
+    private final ConcurrentMap<String, IndexTimeSeries> timeSeriesByReference = new ConcurrentHashMap<>();
+
+    /**
+     * The time series of the index, or <tt>null</tt> if the index has been changed in the current interaction, in
+     * which case the values should be looked up through the {@link IndexValueRepository repository}.
+     */
+    @Programmatic
+    IndexTimeSeries timeSeriesFor(final Index index) {
+        if (index.getReference() == null || isChangedInThisInteraction(index)) {
+            return null;
+        }
+        final IndexTimeSeries cached = timeSeriesByReference.get(index.getReference());
+        if (cached != null && Objects.equals(cached.getValuesChangedOn(), index.getValuesChangedOn())) {
+            return cached;
+        }
+        final IndexTimeSeries loaded = IndexTimeSeries.of(index.getValuesChangedOn(), indexValueRepository.findByIndex(index));
+        timeSeriesByReference.put(index.getReference(), loaded);
+        return loaded;
+    }
+
+    @Programmatic
+    public void evict(final Index index) {
+        if (index != null && index.getReference() != null) {
+            timeSeriesByReference.remove(index.getReference());
+        }
+    }
+
+    // //////////////////////////////////////
+
+    @Programmatic
+    @com.google.common.eventbus.Subscribe
+    @org.axonframework.eventhandling.annotation.EventHandler
+    public void on(final IndexValue.PersistingLifecycleEvent ev) {
+        changed(ev.getSource().getIndexBase());
+    }
+
+    @Programmatic
+    @com.google.common.eventbus.Subscribe
+    @org.axonframework.eventhandling.annotation.EventHandler
+    public void on(final IndexValue.UpdatingLifecycleEvent ev) {
+        changed(ev.getSource().getIndexBase());
+    }
+
+    @Programmatic
+    @com.google.common.eventbus.Subscribe
+    @org.axonframework.eventhandling.annotation.EventHandler
+    public void on(final IndexValue.RemovingLifecycleEvent ev) {
+        changed(ev.getSource().getIndexBase());
+    }
+
+    @Programmatic
+    @com.google.common.eventbus.Subscribe
+    @org.axonframework.eventhandling.annotation.EventHandler
+    public void on(final IndexValue.UpdateEvent ev) {
+        changed(ev.getSource().getIndexBase());
+    }
+
+    @Programmatic
+    @com.google.common.eventbus.Subscribe
+    @org.axonframework.eventhandling.annotation.EventHandler
+    public void on(final IndexBase.PersistingLifecycleEvent ev) {
+        changed(ev.getSource());
+    }
+
+    @Programmatic
+    @com.google.common.eventbus.Subscribe
+    @org.axonframework.eventhandling.annotation.EventHandler
+    public void on(final IndexBase.UpdatingLifecycleEvent ev) {
+        changed(ev.getSource());
+    }
+
+    @Programmatic
+    @com.google.common.eventbus.Subscribe
+    @org.axonframework.eventhandling.annotation.EventHandler
+    public void on(final IndexBase.RemovingLifecycleEvent ev) {
+        changed(ev.getSource());
+    }
+
+    private void changed(final IndexBase indexBase) {
+        final Index index = indexBase == null ? null : indexBase.getIndex();
+        if (index == null) {
+            return;
+        }
+        index.setValuesChangedOn(clockService.nowAsLocalDateTime());
+        evict(index);
+        changedInThisInteraction().add(index.getReference());
+    }
+
+    private boolean isChangedInThisInteraction(final Index index) {
+        final Object changed = scratchpad.get(CHANGED_KEY);
+        return changed != null && ((Set<?>) changed).contains(index.getReference());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<String> changedInThisInteraction() {
+        Set<String> changed = (Set<String>) scratchpad.get(CHANGED_KEY);
+        if (changed == null) {
+            changed = new HashSet<>();
+            scratchpad.put(CHANGED_KEY, changed);
+        }
+        return changed;
+    }
+
+    // //////////////////////////////////////
+
+    @Inject
+    IndexValueRepository indexValueRepository;
+
+    @Inject
+    Scratchpad scratchpad;
+
+    @Inject
+    ClockService clockService;
+
+}
@@ -33,6 +33,9 @@ import org.apache.isis.applib.annotation.PropertyLayout;
 import org.apache.isis.applib.annotation.SemanticsOf;
 import org.apache.isis.applib.annotation.Where;
 import org.apache.isis.applib.services.eventbus.ActionDomainEvent;
+import org.apache.isis.applib.services.eventbus.ObjectPersistingEvent;
+import org.apache.isis.applib.services.eventbus.ObjectRemovingEvent;
+import org.apache.isis.applib.services.eventbus.ObjectUpdatingEvent;
 import org.apache.isis.applib.services.repository.RepositoryService;
 import org.apache.isis.applib.services.user.UserService;
 
@@ -70,6 +73,12 @@ import lombok.Setter;
                         + "FROM org.estatio.module.index.dom.IndexValue "
                         + "WHERE indexBase.index == :index "
                         + "   && startDate == :startDate"),
+        @javax.jdo.annotations.Query(
+                name = "findByIndex", language = "JDOQL",
+                value = "SELECT "
+                        + "FROM org.estatio.module.index.dom.IndexValue "
+                        + "WHERE indexBase.index == :index "
+                        + "ORDER BY startDate ASC"),
         @javax.jdo.annotations.Query(
                 name = "findLastByIndex", language = "JDOQL",
                 value = "SELECT "
@@ -81,12 +90,19 @@ import lombok.Setter;
         name = "IndexValue_indexBase_startDate_IDX",
         members = { "indexBase", "startDate" })
 @DomainObject(
-        objectType = "org.estatio.dom.index.IndexValue"
+        objectType = "org.estatio.dom.index.IndexValue",
+        updatingLifecycleEvent = IndexValue.UpdatingLifecycleEvent.class,
+        persistingLifecycleEvent = IndexValue.PersistingLifecycleEvent.class,
+        removingLifecycleEvent = IndexValue.RemovingLifecycleEvent.class
 )
 public class IndexValue
         extends UdoDomainObject2<IndexValue>
         implements WithStartDate, WithApplicationTenancyCountry {
 
+    public static class PersistingLifecycleEvent extends ObjectPersistingEvent<IndexValue> {}
+    public static class UpdatingLifecycleEvent extends ObjectUpdatingEvent<IndexValue> {}
+    public static class RemovingLifecycleEvent extends ObjectRemovingEvent<IndexValue> {}
+
     public IndexValue() {
         super("indexBase, startDate desc");
     }
@@ -96,6 +96,12 @@ public class IndexValueRepository
                 IndexValueRepository.class, "findIndexValueByIndexAndStartDate", index, startDate);
     }
 
+    public List<IndexValue> findByIndex(
+            final Index index) {
+        return allMatches("findByIndex",
+                "index", index);
+    }
+
     public IndexValue findLastByIndex(
             final Index index) {
         return firstMatch("findLastByIndex",
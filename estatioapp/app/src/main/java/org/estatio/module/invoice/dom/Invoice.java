@@ -129,6 +129,8 @@ import lombok.Setter;
                 members = { "invoiceNumber" })
         , @Index(name = "Invoice_sendTo_IDX",
         members = { "sendTo" })
+        , @Index(name = "Invoice_atPath_IDX",
+        members = { "applicationTenancyPath" })
 })
 @DomainObject(
         editing = Editing.DISABLED
@@ -75,6 +75,14 @@ public class InvoiceRepository extends UdoDomainRepositoryAndFactory<Invoice> {
         return allInstances();
     }
 
+    /**
+     * As {@link #allInvoices()}, but with the tenancy check pushed down into the query.
+     */
+    @Programmatic
+    public List<Invoice> allInvoicesVisibleToCurrentUser() {
+        return allMatchesVisibleToCurrentUser(null, null);
+    }
+
     @Programmatic
     public List<Invoice> findBySendTo(final CommunicationChannel communicationChannel) {
         final TypesafeQuery<Invoice> query = isisJdoSupport.newTypesafeQuery(Invoice.class);
@@ -18,18 +18,28 @@
  */
 package org.estatio.module.invoice.dom.paperclips;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Maps;
+
 import org.apache.isis.applib.annotation.DomainService;
 import org.apache.isis.applib.annotation.NatureOfService;
 import org.apache.isis.applib.annotation.Programmatic;
 import org.apache.isis.applib.services.queryresultscache.QueryResultsCache;
 
 import org.incode.module.communications.dom.impl.comms.Communication;
+import org.incode.module.communications.dom.impl.paperclips.PaperclipForCommunication;
 import org.incode.module.document.dom.impl.docs.Document;
+import org.incode.module.document.dom.impl.docs.DocumentAbstract;
 import org.incode.module.document.dom.impl.paperclips.Paperclip;
+import org.incode.module.document.dom.impl.paperclips.PaperclipLoader;
 import org.incode.module.document.dom.impl.paperclips.PaperclipRepository;
 import org.incode.module.document.dom.impl.types.DocumentType;
 
@@ -50,7 +60,7 @@ public class InvoiceDocAndCommService {
 
 
     private Document findDocumentNotCached(final Invoice invoice, final DocumentType documentType) {
-        final List<Paperclip> paperclips = paperclipRepository.findByAttachedTo(invoice);
+        final List<Paperclip> paperclips = paperclipLoader.findByAttachedTo(invoice);
         return (Document) paperclips
                 .stream()
                 .map(paperclip -> paperclip.getDocument())
@@ -91,10 +101,47 @@ public class InvoiceDocAndCommService {
                 .orElse(null);
     }
 
+    /**
+     * For each of the invoices, the most recent document (if any) of the given type attached to it, using a single
+     * query (rather than one per invoice).
+     */
+    @Programmatic
+    public <T extends Invoice> Map<T, Document> findMostRecentDocuments(
+            final List<T> invoices,
+            final DocumentType documentType) {
+        final ListMultimap<T, Paperclip> paperclipsByInvoice = paperclipRepository.findByAttachedToIn(invoices, null);
+        final Map<T, Document> documentByInvoice = Maps.newHashMap();
+        for (final Map.Entry<T, Paperclip> entry : paperclipsByInvoice.entries()) {
+            final DocumentAbstract document = entry.getValue().getDocument();
+            if (!(document instanceof Document) || document.getType() != documentType) {
+                continue;
+            }
+            // paperclips are most recent first
+            documentByInvoice.putIfAbsent(entry.getKey(), (Document) document);
+        }
+        return documentByInvoice;
+    }
+
+    /**
+     * Those of the documents that are attached to a {@link Communication}, using a single query (rather than one
+     * per document).
+     */
+    @Programmatic
+    public Set<Document> findDocumentsWithCommunication(final Collection<Document> documents) {
+        return paperclipRepository.findByDocumentIn(documents)
+                .stream()
+                .filter(PaperclipForCommunication.class::isInstance)
+                .map(paperclip -> (Document) paperclip.getDocument())
+                .collect(Collectors.toSet());
+    }
+
     @Inject
     PaperclipRepository paperclipRepository;
 
     @Inject
     QueryResultsCache queryResultsCache;
 
+    @Inject
+    PaperclipLoader paperclipLoader;
+
 }
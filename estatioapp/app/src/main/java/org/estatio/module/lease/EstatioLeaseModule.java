@@ -54,6 +54,8 @@ import org.estatio.module.lease.dom.breaks.BreakOptionRepository;
 import org.estatio.module.lease.dom.breaks.EventSourceLinkForBreakOption;
 import org.estatio.module.lease.dom.invoicing.InvoiceForLease;
 import org.estatio.module.lease.dom.invoicing.InvoiceItemForLease;
+import org.estatio.module.lease.dom.invoicing.comms.InvoicePreparationJob;
+import org.estatio.module.lease.dom.invoicing.comms.InvoicePreparationJobItem;
 import org.estatio.module.lease.dom.occupancy.Occupancy;
 import org.estatio.module.lease.dom.occupancy.tags.Activity;
 import org.estatio.module.lease.dom.occupancy.tags.Brand;
@@ -98,6 +100,9 @@ public final class EstatioLeaseModule extends ModuleAbstract {
 
                 deleteFrom(EventSourceLinkForBreakOption.class);
 
+                deleteFrom(InvoicePreparationJobItem.class);
+                deleteFrom(InvoicePreparationJob.class);
+
                 // InvoiceAttribute
                 schema = schemaOf(InvoiceAttribute.class);
                 table = tableOf(InvoiceAttribute.class);
@@ -174,7 +174,7 @@ public class InvoiceMenu extends UdoDomainRepositoryAndFactory<Invoice> {
     @Action(semantics = SemanticsOf.SAFE, restrictTo = RestrictTo.PROTOTYPING)
     @MemberOrder(sequence = "98")
     public List<Invoice> allInvoices() {
-        return invoiceRepository.allInvoices().stream()
+        return invoiceRepository.allInvoicesVisibleToCurrentUser().stream()
                 .filter(i -> i instanceof InvoiceForLease)
                 .collect(Collectors.toList());
     }
@@ -24,6 +24,8 @@ import org.estatio.module.lease.dom.Lease;
 import org.estatio.module.lease.dom.LeaseItemType;
 import org.estatio.module.lease.dom.LeaseRepository;
 import org.estatio.module.lease.dom.invoicing.InvoiceCalculationParameters;
+import org.estatio.module.lease.dom.invoicing.InvoiceCalculationRunReport;
+import org.estatio.module.lease.dom.invoicing.InvoiceCalculationRunService;
 import org.estatio.module.lease.dom.invoicing.InvoiceCalculationSelection;
 import org.estatio.module.lease.dom.invoicing.InvoiceCalculationService;
 import org.estatio.module.lease.dom.invoicing.summary.InvoiceSummaryForInvoiceRun;
@@ -174,7 +176,7 @@ public class InvoiceServiceMenu extends UdoDomainService<InvoiceServiceMenu> {
             final LocalDate invoiceDueDate,
             final LocalDate startDueDate,
             final LocalDate nextDueDate) {
-        final String runId = invoiceCalculationService.calculateAndInvoice(
+        final InvoiceCalculationRunReport report = invoiceCalculationRunService.calculateAndInvoice(
                 InvoiceCalculationParameters.builder()
                         .property(property)
                         .leaseItemTypes(leaseItemTypes)
@@ -182,7 +184,10 @@ public class InvoiceServiceMenu extends UdoDomainService<InvoiceServiceMenu> {
                         .invoiceDueDate(invoiceDueDate)
                         .startDueDate(startDueDate)
                         .nextDueDate(nextDueDate).build());
-        return invoiceSummaries.findByRunId(runId);
+        if (report.hasFailures()) {
+            getContainer().warnUser(String.format("Calculation failed for %s", report.getFailedPartitions()));
+        }
+        return invoiceSummaries.findByRunId(report.getRunId());
     }
 
     private InvoiceRunType doDefault1CalculateInvoicesForProperty() {
@@ -462,6 +467,9 @@ public class InvoiceServiceMenu extends UdoDomainService<InvoiceServiceMenu> {
     @javax.inject.Inject
     private InvoiceCalculationService invoiceCalculationService;
 
+    @javax.inject.Inject
+    private InvoiceCalculationRunService invoiceCalculationRunService;
+
     @javax.inject.Inject
     private InvoiceSummaryForInvoiceRunRepository invoiceSummaries;
 
@@ -62,6 +62,7 @@ import org.estatio.module.lease.dom.LeaseRepository;
 import org.estatio.module.lease.dom.LeaseRoleTypeEnum;
 import org.estatio.module.lease.dom.LeaseType;
 import org.estatio.module.lease.dom.LeaseTypeRepository;
+import org.estatio.module.lease.dom.invoicing.InvoiceCalculationRunService;
 import org.estatio.module.lease.dom.occupancy.tags.Brand;
 import org.estatio.module.party.dom.Party;
 import org.estatio.module.party.dom.PartyRepository;
@@ -195,7 +196,7 @@ public class LeaseMenu {
             final @ParameterLayout(describedAs = "May include wildcards '*' and '?'") String referenceOrName,
             final boolean includeTerminated) {
         String pattern = StringUtils.wildcardToCaseInsensitiveRegex(referenceOrName);
-        return leaseRepository.matchByReferenceOrName(referenceOrName, includeTerminated);
+        return leaseRepository.matchByReferenceOrNameVisibleToCurrentUser(referenceOrName, includeTerminated);
     }
 
     @ActionLayout(contributed = Contributed.AS_NEITHER)
@@ -238,7 +239,7 @@ public class LeaseMenu {
             final LeaseItemType leaseItemType,
             final LocalDate untilDate) {
         DateTime start = DateTime.now();
-        List<Lease> leases = allLeases();
+        List<Lease> leases = leaseRepository.allLeases();
         for (Lease lease : leases) {
             for (LeaseItem leaseItem : lease.getItems()) {
                 if (leaseItem.getType().equals(leaseItemType)) {
@@ -250,6 +251,21 @@ public class LeaseMenu {
         return String.format("Verified %d leases in %s", leases.size(), JodaPeriodUtils.asString(p));
     }
 
+    @Action(semantics = SemanticsOf.IDEMPOTENT)
+    @MemberOrder(sequence = "4.1")
+    public String verifyLeasesOfPropertyUntil(
+            final Property property,
+            final LocalDate untilDate) {
+        DateTime start = DateTime.now();
+        final int numberOfItems = invoiceCalculationRunService.verifyUntil(property, untilDate, InvoiceCalculationRunService.DEFAULT_PARTITION_SIZE);
+        Period p = new Period(start, DateTime.now());
+        return String.format("Verified %d lease items in %s", numberOfItems, JodaPeriodUtils.asString(p));
+    }
+
+    public LocalDate default1VerifyLeasesOfPropertyUntil() {
+        return clockService.now();
+    }
+
     @Action(semantics = SemanticsOf.SAFE)
     public List<Lease> findLeasesByExternalReference(final String externalReference){
         return leaseRepository.matchLeaseByExternalReference(externalReference);
@@ -258,7 +274,7 @@ public class LeaseMenu {
     @Action(semantics = SemanticsOf.SAFE, restrictTo = RestrictTo.PROTOTYPING)
     @MemberOrder(sequence = "99")
     public List<Lease> allLeases() {
-        return leaseRepository.allLeases();
+        return leaseRepository.allLeasesVisibleToCurrentUser();
     }
 
     @Action(semantics = SemanticsOf.IDEMPOTENT, restrictTo = RestrictTo.PROTOTYPING)
@@ -288,4 +304,7 @@ public class LeaseMenu {
     @Inject
     private LeaseTypeRepository leaseTypeRepository;
 
+    @Inject
+    private InvoiceCalculationRunService invoiceCalculationRunService;
+
 }
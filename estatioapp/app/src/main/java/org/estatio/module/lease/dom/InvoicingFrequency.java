@@ -112,12 +112,14 @@ public enum InvoicingFrequency {
         this.numerator = numerator;
         this.denominator = denominator;
         this.paidIn = paidIn;
+        this.annualMultiplier = numerator.divide(denominator, MathContext.DECIMAL64);
     }
 
     private final String rrule;
     private final PaidIn paidIn;
     private final BigDecimal numerator;
     private final BigDecimal denominator;
+    private final BigDecimal annualMultiplier;
 
     private LocalDate dueDateOfInterval(final Interval interval) {
         if (interval == null) {
@@ -198,7 +200,7 @@ public enum InvoicingFrequency {
     }
 
     public BigDecimal annualMultiplier() {
-        return numerator.divide(denominator, MathContext.DECIMAL64);
+        return annualMultiplier;
     }
 
     public final static Ordering<InvoicingFrequency> ORDERING_BY_TYPE =
@@ -39,6 +39,7 @@ import com.google.common.collect.Sets;
 
 import org.apache.commons.lang3.ObjectUtils;
 import org.joda.time.LocalDate;
+import org.joda.time.LocalDateTime;
 import org.joda.time.Period;
 import org.joda.time.PeriodType;
 
@@ -60,6 +61,7 @@ import org.apache.isis.applib.annotation.SemanticsOf;
 import org.apache.isis.applib.annotation.Where;
 import org.apache.isis.applib.services.clock.ClockService;
 import org.apache.isis.applib.services.eventbus.ActionDomainEvent;
+import org.apache.isis.applib.services.eventbus.ObjectUpdatingEvent;
 import org.apache.isis.applib.services.wrapper.WrapperFactory;
 import org.apache.isis.schema.utils.jaxbadapters.PersistentEntityAdapter;
 
@@ -114,6 +116,8 @@ import static org.apache.commons.lang3.StringUtils.left;
 @javax.jdo.annotations.Indices({
         @javax.jdo.annotations.Index(
                 name = "Lease_externalReference_IDX", members = { "externalReference" }),
+        @javax.jdo.annotations.Index(
+                name = "Lease_atPath_IDX", members = { "applicationTenancyPath" }),
         }
 )
 @javax.jdo.annotations.Queries({
@@ -132,10 +136,7 @@ import static org.apache.commons.lang3.StringUtils.left;
                 name = "matchByReferenceOrName", language = "JDOQL",
                 value = "SELECT "
                         + "FROM org.estatio.module.lease.dom.Lease "
-                        + "WHERE (reference.matches(:referenceOrName) "
-                        + "|| name.matches(:referenceOrName) "
-                        + "|| externalReference.matches(:referenceOrName)) "
-                        + "&& (:includeTerminated || tenancyEndDate == null || tenancyEndDate >= :date) "
+                        + "WHERE " + Lease.MATCH_BY_REFERENCE_OR_NAME_FILTER + " "
                         + "ORDER BY reference"),
         @javax.jdo.annotations.Query(
                 name = "findByProperty", language = "JDOQL",
@@ -175,19 +176,34 @@ import static org.apache.commons.lang3.StringUtils.left;
                         "endDate != null && (endDate >= :rangeStartDate && endDate < :rangeEndDate) " +
                         "ORDER BY endDate")
 })
-@DomainObject(autoCompleteRepository = LeaseRepository.class)
+@DomainObject(
+        autoCompleteRepository = LeaseRepository.class,
+        updatingLifecycleEvent = Lease.UpdatingLifecycleEvent.class
+)
 @DomainObjectLayout(bookmarking = BookmarkPolicy.AS_ROOT)
 @XmlJavaTypeAdapter(PersistentEntityAdapter.class)
 public class Lease
         extends Agreement
         implements WithApplicationTenancyProperty, WithApplicationTenancyPathPersisted {
 
+    /**
+     * The filter of the <tt>matchByReferenceOrName</tt> query, shared with
+     * {@link LeaseRepository#matchByReferenceOrNameVisibleToCurrentUser(String, boolean)}.
+     */
+    static final String MATCH_BY_REFERENCE_OR_NAME_FILTER =
+            "(reference.matches(:referenceOrName) "
+                    + "|| name.matches(:referenceOrName) "
+                    + "|| externalReference.matches(:referenceOrName)) "
+                    + "&& (:includeTerminated || tenancyEndDate == null || tenancyEndDate >= :date)";
+
     public Lease() {
         super(LeaseAgreementRoleTypeEnum.LANDLORD, LeaseAgreementRoleTypeEnum.TENANT);
     }
 
     public static class RemoveEvent extends ActionDomainEvent<Lease> {}
 
+    public static class UpdatingLifecycleEvent extends ObjectUpdatingEvent<Lease> {}
+
     public void created() {
         setStatus(LeaseStatus.ACTIVE);
     }
@@ -674,6 +690,22 @@ public class Lease
 
     // //////////////////////////////////////
 
+    /**
+     * When any of the inputs of the invoice calculation of this lease (its items and terms, break options, the index
+     * values its terms are indexed by, or the lease itself) were last changed; <tt>null</tt> if not known.
+     *
+     * <p>
+     *     Maintained by {@link org.estatio.module.lease.dom.invoicing.LeaseInvoicingChangeSubscriber}, and used to
+     *     decide which leases an incremental invoice calculation run needs to recalculate.
+     * </p>
+     */
+    @javax.jdo.annotations.Column(allowsNull = "true")
+    @org.apache.isis.applib.annotation.Property(hidden = Where.EVERYWHERE)
+    @Getter @Setter
+    private LocalDateTime invoicingInputsChangedOn;
+
+    // //////////////////////////////////////
+
     public Lease paidBy(final BankMandate bankMandate) {
         setPaidBy(bankMandate);
         return this;
@@ -849,6 +881,24 @@ public class Lease
         return this;
     }
 
+    /**
+     * As {@link #verifyUntil(LocalDate)}, but skipping the items whose previous verification still holds.
+     *
+     * @see LeaseItem#verifyUntilIfRequired(LocalDate)
+     * @return the number of items verified.
+     */
+    @Programmatic
+    public int verifyUntilIfRequired(final LocalDate date) {
+        int verified = 0;
+        for (LeaseItem item : getItems()) {
+            LocalDateInterval effectiveInterval = item.getEffectiveInterval();
+            if (item.verifyUntilIfRequired(ObjectUtils.min(effectiveInterval == null ? null : effectiveInterval.endDateExcluding(), date))) {
+                verified++;
+            }
+        }
+        return verified;
+    }
+
     // //////////////////////////////////////
 
     @Action(domainEvent = Lease.TerminateEvent.class, semantics = SemanticsOf.NON_IDEMPOTENT_ARE_YOU_SURE)
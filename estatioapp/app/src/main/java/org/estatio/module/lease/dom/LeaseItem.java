@@ -47,6 +47,7 @@ import com.google.common.collect.Sets;
 
 import org.apache.commons.lang3.ObjectUtils;
 import org.joda.time.LocalDate;
+import org.joda.time.LocalDateTime;
 
 import org.apache.isis.applib.annotation.Action;
 import org.apache.isis.applib.annotation.BookmarkPolicy;
@@ -64,6 +65,9 @@ import org.apache.isis.applib.annotation.RenderType;
 import org.apache.isis.applib.annotation.SemanticsOf;
 import org.apache.isis.applib.annotation.Where;
 import org.apache.isis.applib.services.eventbus.ActionDomainEvent;
+import org.apache.isis.applib.services.eventbus.ObjectPersistingEvent;
+import org.apache.isis.applib.services.eventbus.ObjectRemovingEvent;
+import org.apache.isis.applib.services.eventbus.ObjectUpdatingEvent;
 
 import org.isisaddons.module.security.dom.tenancy.ApplicationTenancy;
 
@@ -169,13 +173,20 @@ import lombok.Setter;
 @Unique(name = "LeaseItem_lease_type_charge_startDate_invoicedBy_sequence_UNQ", members = {"lease", "type", "charge", "startDate", "invoicedBy", "sequence"})
 @DomainObject(
         editing = Editing.DISABLED,
-        objectType = "org.estatio.dom.lease.LeaseItem"
+        objectType = "org.estatio.dom.lease.LeaseItem",
+        updatingLifecycleEvent = LeaseItem.UpdatingLifecycleEvent.class,
+        persistingLifecycleEvent = LeaseItem.PersistingLifecycleEvent.class,
+        removingLifecycleEvent = LeaseItem.RemovingLifecycleEvent.class
 )
 @DomainObjectLayout(bookmarking = BookmarkPolicy.AS_CHILD)
 public class LeaseItem
         extends UdoDomainObject2<LeaseItem>
         implements WithIntervalMutable<LeaseItem>, WithSequence, WithApplicationTenancyPropertyLocal, WithApplicationTenancyPathPersisted {
 
+    public static class PersistingLifecycleEvent extends ObjectPersistingEvent<LeaseItem> {}
+    public static class UpdatingLifecycleEvent extends ObjectUpdatingEvent<LeaseItem> {}
+    public static class RemovingLifecycleEvent extends ObjectRemovingEvent<LeaseItem> {}
+
     private static final int PAGE_SIZE = 15;
 
     public LeaseItem() {
@@ -720,6 +731,77 @@ public class LeaseItem
         return this;
     }
 
+    /**
+     * As {@link #verifyUntil(LocalDate)}, unless this item {@link #isVerifiedUntil(LocalDate) is already verified}
+     * until the date; records the {@link #getVerifiedUntil() watermark} if verified.
+     *
+     * <p>
+     *     The watermark is only maintained here, not by {@link #verifyUntil(LocalDate)}: callers are expected to have
+     *     {@link org.estatio.module.lease.dom.invoicing.LeaseInvoicingChangeSubscriber#suspend() suspended} the
+     *     tracking of changes (otherwise the verification itself would count as a change of the inputs).
+     * </p>
+     *
+     * @return whether the item was verified.
+     */
+    @Programmatic
+    public boolean verifyUntilIfRequired(final LocalDate date) {
+        if (isVerifiedUntil(date)) {
+            return false;
+        }
+        verifyUntil(date);
+        setVerifiedUntil(date);
+        setVerifiedOn(getClockService().nowAsLocalDateTime());
+        return true;
+    }
+
+    /**
+     * Whether a previous verification of this item still holds for the date: it was verified until (at least) that
+     * date and none of its inputs have changed since; that is, nothing on the
+     * {@link Lease#getInvoicingInputsChangedOn() lease}, none of its {@link #getSourceItems() source items} (which are
+     * verified in their own right), and nothing its terms {@link LeaseTerm#isStillVerifiedUntil(LocalDate) depend on
+     * otherwise}.
+     */
+    @Programmatic
+    public boolean isVerifiedUntil(final LocalDate date) {
+        if (date == null || getVerifiedUntil() == null || getVerifiedOn() == null || getVerifiedUntil().isBefore(date)) {
+            return false;
+        }
+        final LocalDateTime inputsChangedOn = getLease().getInvoicingInputsChangedOn();
+        if (inputsChangedOn == null || inputsChangedOn.isAfter(getVerifiedOn())) {
+            return false;
+        }
+        for (LeaseItemSource source : getSourceItems()) {
+            final LocalDateTime sourceVerifiedOn = source.getSourceItem().getVerifiedOn();
+            if (sourceVerifiedOn == null || sourceVerifiedOn.isAfter(getVerifiedOn())) {
+                return false;
+            }
+        }
+        for (LeaseTerm term : getTerms()) {
+            if (!term.isStillVerifiedUntil(date)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The date this item was last {@link #verifyUntilIfRequired(LocalDate) verified} until; a watermark used to skip
+     * {@link #verifyUntilIfRequired(LocalDate) redundant verifications}.
+     */
+    @Column(allowsNull = "true")
+    @Property(hidden = Where.EVERYWHERE)
+    @Getter @Setter
+    private LocalDate verifiedUntil;
+
+    /**
+     * When this item was last {@link #verifyUntilIfRequired(LocalDate) verified}, to compare with the time its inputs were last
+     * changed.
+     */
+    @Column(allowsNull = "true")
+    @Property(hidden = Where.EVERYWHERE)
+    @Getter @Setter
+    private LocalDateTime verifiedOn;
+
     // //////////////////////////////////////
 
     @Programmatic
@@ -38,6 +38,7 @@ import org.apache.isis.applib.annotation.SemanticsOf;
 import org.estatio.module.base.dom.UdoDomainRepositoryAndFactory;
 import org.estatio.module.charge.dom.Charge;
 import org.estatio.module.invoice.dom.PaymentMethod;
+import org.estatio.module.lease.dom.invoicing.LeaseInvoicingChangeSubscriber;
 
 @DomainService(menuOrder = "40", repositoryFor = LeaseItem.class, nature = NatureOfService.DOMAIN)
 public class LeaseItemRepository extends UdoDomainRepositoryAndFactory<LeaseItem> {
@@ -74,6 +75,8 @@ public class LeaseItemRepository extends UdoDomainRepositoryAndFactory<LeaseItem
         leaseItem.setSequence(nextSequence);
         leaseItem.setInvoicedBy(invoicedBy);
         persistIfNotAlready(leaseItem);
+        // its persisting lifecycle event is only raised when flushed
+        leaseInvoicingChangeSubscriber.changing(lease);
         return leaseItem;
     }
 
@@ -161,4 +164,7 @@ public class LeaseItemRepository extends UdoDomainRepositoryAndFactory<LeaseItem
     @Inject
     EstatioApplicationTenancyRepositoryForLease estatioApplicationTenancyRepository;
 
+    @Inject
+    LeaseInvoicingChangeSubscriber leaseInvoicingChangeSubscriber;
+
 }
@@ -131,6 +131,25 @@ public class LeaseRepository extends UdoDomainRepositoryAndFactory<Lease> {
         return allMatches("matchByReferenceOrName", "referenceOrName", pattern, "includeTerminated", includeTerminated, "date", clockService.now());
     }
 
+    /**
+     * As {@link #matchByReferenceOrName(String, boolean)}, but with the tenancy check pushed down into the query.
+     */
+    @Programmatic
+    public List<Lease> matchByReferenceOrNameVisibleToCurrentUser(
+            final String referenceOrName,
+            final boolean includeTerminated) {
+        String pattern = StringUtils.wildcardToCaseInsensitiveRegex(referenceOrName);
+        return allMatchesVisibleToCurrentUser(
+                Lease.MATCH_BY_REFERENCE_OR_NAME_FILTER,
+                "reference ascending",
+                "referenceOrName", pattern, "includeTerminated", includeTerminated, "date", clockService.now());
+    }
+
+    @Programmatic
+    public List<Lease> allLeasesVisibleToCurrentUser() {
+        return allMatchesVisibleToCurrentUser(null, "reference ascending");
+    }
+
     public List<Lease> matchByTenantName(final String tenantName, final Property property) {
         String pattern = StringUtils.wildcardToCaseInsensitiveRegex(tenantName);
         return allMatches("findByProperty", "property", property)
@@ -20,6 +20,7 @@ package org.estatio.module.lease.dom;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -52,6 +53,9 @@ import org.apache.isis.applib.annotation.RenderType;
 import org.apache.isis.applib.annotation.RestrictTo;
 import org.apache.isis.applib.annotation.SemanticsOf;
 import org.apache.isis.applib.annotation.Where;
+import org.apache.isis.applib.services.eventbus.ObjectPersistingEvent;
+import org.apache.isis.applib.services.eventbus.ObjectRemovingEvent;
+import org.apache.isis.applib.services.eventbus.ObjectUpdatingEvent;
 
 import org.isisaddons.module.security.dom.tenancy.ApplicationTenancy;
 
@@ -141,11 +145,19 @@ import lombok.Setter;
                         + "&& (endDate == null || endDate > :date )")
 })
 @DomainObjectLayout(bookmarking = BookmarkPolicy.AS_CHILD)
-@DomainObject()
+@DomainObject(
+        updatingLifecycleEvent = LeaseTerm.UpdatingLifecycleEvent.class,
+        persistingLifecycleEvent = LeaseTerm.PersistingLifecycleEvent.class,
+        removingLifecycleEvent = LeaseTerm.RemovingLifecycleEvent.class
+)
 public abstract class LeaseTerm
         extends UdoDomainObject2<LeaseTerm>
         implements WithIntervalMutable<LeaseTerm>, Chained<LeaseTerm>, WithSequence, InvoiceSource, WithApplicationTenancyPropertyLocal {
 
+    public static class PersistingLifecycleEvent extends ObjectPersistingEvent<LeaseTerm> {}
+    public static class UpdatingLifecycleEvent extends ObjectUpdatingEvent<LeaseTerm> {}
+    public static class RemovingLifecycleEvent extends ObjectRemovingEvent<LeaseTerm> {}
+
     public LeaseTerm() {
         // TODO: the integration tests fail if this is made DESCending.
         super("leaseItem, sequence, startDate, endDate");
@@ -387,8 +399,35 @@ public abstract class LeaseTerm
         return this;
     }
 
+    /**
+     * Verifies this term and the terms that follow it in the chain.
+     *
+     * <p>
+     *     The chain is walked iteratively (one {@link #verifyTerm(LocalDate) step} per term) rather than recursively,
+     *     so that long chains (eg decades of yearly indexations) do not grow the stack. Once the chain has been walked,
+     *     the {@link #afterVerify(LocalDate)} hooks are called from the last term back to this one, the same order as
+     *     the recursion used to unwind in.
+     * </p>
+     */
     @Action(semantics = SemanticsOf.IDEMPOTENT)
     public LeaseTerm verifyUntil(final LocalDate date) {
+        final List<LeaseTerm> verified = new ArrayList<>();
+        for (LeaseTerm term = this; term != null; term = term.verifyTerm(date)) {
+            verified.add(term);
+        }
+        for (int i = verified.size() - 1; i >= 0; i--) {
+            verified.get(i).afterVerify(date);
+        }
+        return this;
+    }
+
+    /**
+     * Verifies this term only, creating the next term if required.
+     *
+     * @return the next term to verify, or <tt>null</tt> if this is the last term (to verify) of the chain.
+     */
+    @Programmatic
+    LeaseTerm verifyTerm(final LocalDate date) {
         LeaseTerm nextTerm = getNext();
         boolean autoCreateTerms = getLeaseItem().getType().autoCreateTerms();
         if (autoCreateTerms) {
@@ -397,7 +436,7 @@ public abstract class LeaseTerm
             LocalDate endDateExcluding = effectiveInterval != null ? effectiveInterval.endDateExcluding() : date;
             if (getNext() != null && endDateExcluding != null && getNext().getStartDate().compareTo(endDateExcluding) >= 0) {
                 getNext().doRemove();
-                return this;
+                return null;
             }
         }
         align();
@@ -413,10 +452,23 @@ public abstract class LeaseTerm
                 nextTerm = createNext(nextstartDate, nextEndDate);
             }
         }
-        if (nextTerm != null) {
-            nextTerm.verifyUntil(date);
-        }
-        return this;
+        return nextTerm;
+    }
+
+    /**
+     * Hook for subclasses to update values derived at the verification date, called once the whole chain has been
+     * verified.
+     */
+    protected void afterVerify(final LocalDate date) {
+    }
+
+    /**
+     * Whether a verification of the {@link LeaseItem#getVerifiedUntil() lease item} still holds for this term, given
+     * that nothing tracked on the lease itself has changed since; for subclasses that depend on other inputs.
+     */
+    @Programmatic
+    public boolean isStillVerifiedUntil(final LocalDate date) {
+        return true;
     }
 
     protected LocalDate nextStartDate() {
@@ -133,13 +133,18 @@ public class LeaseTermForDeposit extends LeaseTerm {
     }
 
     @Override
-    public LeaseTerm verifyUntil(final LocalDate date) {
-        super.verifyUntil(date);
-
+    protected void afterVerify(final LocalDate date) {
         setDepositBase(calculateDepositBaseValue(date));
         setCalculatedDepositValue(getFraction().fractionOf(getDepositBase()));
+    }
 
-        return this;
+    /**
+     * The deposit base is calculated at the verification date itself, so only a verification up to that very date
+     * still holds.
+     */
+    @Override
+    public boolean isStillVerifiedUntil(final LocalDate date) {
+        return date.equals(getLeaseItem().getVerifiedUntil());
     }
 
     @Programmatic
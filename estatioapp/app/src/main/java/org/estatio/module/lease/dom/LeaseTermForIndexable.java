@@ -268,6 +268,17 @@ public class LeaseTermForIndexable extends LeaseTerm implements Indexable {
         }
     }
 
+    /**
+     * Index values are tracked on the {@link Index} rather than on the lease.
+     */
+    @Override
+    public boolean isStillVerifiedUntil(final LocalDate date) {
+        final Index index = getIndex();
+        return index == null
+                || index.getValuesChangedOn() == null
+                || !index.getValuesChangedOn().isAfter(getLeaseItem().getVerifiedOn());
+    }
+
     // //////////////////////////////////////
 
     @Override
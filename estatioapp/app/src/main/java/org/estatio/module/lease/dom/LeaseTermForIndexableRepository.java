@@ -20,10 +20,15 @@ package org.estatio.module.lease.dom;
 
 import java.util.List;
 
+import javax.jdo.Query;
+
+import com.google.common.collect.Lists;
+
 import org.joda.time.LocalDate;
 
 import org.apache.isis.applib.annotation.DomainService;
 import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.annotation.Programmatic;
 
 import org.estatio.module.base.dom.UdoDomainRepositoryAndFactory;
 import org.estatio.module.index.dom.Index;
@@ -41,5 +46,21 @@ public class LeaseTermForIndexableRepository extends UdoDomainRepositoryAndFacto
         return allMatches("findByIndexAndDate", "index", index, "date", date);
     }
 
+    /**
+     * The leases having any term indexed by the index.
+     */
+    @Programmatic
+    public List<Lease> findLeasesByIndex(final Index index) {
+        final Query query = newQuery(
+                "SELECT DISTINCT leaseItem.lease "
+                        + "FROM org.estatio.module.lease.dom.LeaseTermForIndexable "
+                        + "WHERE index == :index");
+        try {
+            return Lists.newArrayList((List<Lease>) query.execute(index));
+        } finally {
+            query.closeAll();
+        }
+    }
+
 
 }
@@ -43,7 +43,12 @@ import lombok.Setter;
 )
 @javax.jdo.annotations.Inheritance(strategy = InheritanceStrategy.SUPERCLASS_TABLE)
 @javax.jdo.annotations.Discriminator("org.estatio.dom.lease.LeaseTermForServiceCharge")
-@DomainObject(editing = Editing.DISABLED)
+@DomainObject(
+        editing = Editing.DISABLED,
+        updatingLifecycleEvent = LeaseTerm.UpdatingLifecycleEvent.class,
+        persistingLifecycleEvent = LeaseTerm.PersistingLifecycleEvent.class,
+        removingLifecycleEvent = LeaseTerm.RemovingLifecycleEvent.class
+)
 public class LeaseTermForServiceCharge extends LeaseTerm {
 
     @javax.jdo.annotations.Column(scale = 2, allowsNull = "true")
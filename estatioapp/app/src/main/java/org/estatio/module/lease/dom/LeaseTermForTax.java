@@ -29,7 +29,11 @@ import lombok.Setter;
 )
 @javax.jdo.annotations.Inheritance(strategy = InheritanceStrategy.SUPERCLASS_TABLE)
 @javax.jdo.annotations.Discriminator("org.estatio.dom.lease.LeaseTermForTax")
-@DomainObject
+@DomainObject(
+        updatingLifecycleEvent = LeaseTerm.UpdatingLifecycleEvent.class,
+        persistingLifecycleEvent = LeaseTerm.PersistingLifecycleEvent.class,
+        removingLifecycleEvent = LeaseTerm.RemovingLifecycleEvent.class
+)
 public class LeaseTermForTax extends LeaseTerm {
 
     private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
@@ -46,6 +46,9 @@ import org.apache.isis.applib.annotation.Property;
 import org.apache.isis.applib.annotation.PropertyLayout;
 import org.apache.isis.applib.annotation.SemanticsOf;
 import org.apache.isis.applib.annotation.Where;
+import org.apache.isis.applib.services.eventbus.ObjectPersistingEvent;
+import org.apache.isis.applib.services.eventbus.ObjectRemovingEvent;
+import org.apache.isis.applib.services.eventbus.ObjectUpdatingEvent;
 
 import org.isisaddons.module.security.dom.tenancy.ApplicationTenancy;
 import org.isisaddons.wicket.fullcalendar2.cpt.applib.CalendarEventable;
@@ -101,11 +104,20 @@ import lombok.Setter;
                         + "&& type == :type"
                         + "&& breakDate == :breakDate "
                         + "&& exerciseType == :exerciseType ") })
-@DomainObject(editing = Editing.DISABLED)
+@DomainObject(
+        editing = Editing.DISABLED,
+        updatingLifecycleEvent = BreakOption.UpdatingLifecycleEvent.class,
+        persistingLifecycleEvent = BreakOption.PersistingLifecycleEvent.class,
+        removingLifecycleEvent = BreakOption.RemovingLifecycleEvent.class
+)
 public abstract class BreakOption
         extends UdoDomainObject2<BreakOption>
         implements EventSource, WithApplicationTenancyProperty {
 
+    public static class PersistingLifecycleEvent extends ObjectPersistingEvent<BreakOption> {}
+    public static class UpdatingLifecycleEvent extends ObjectUpdatingEvent<BreakOption> {}
+    public static class RemovingLifecycleEvent extends ObjectRemovingEvent<BreakOption> {}
+
     public BreakOption() {
         super("lease, type, exerciseType, breakDate, exerciseDate");
     }
@@ -35,6 +35,7 @@ import org.incode.module.base.dom.utils.JodaPeriodUtils;
 
 import org.estatio.module.base.dom.UdoDomainRepositoryAndFactory;
 import org.estatio.module.lease.dom.Lease;
+import org.estatio.module.lease.dom.invoicing.LeaseInvoicingChangeSubscriber;
 
 @DomainService(nature = NatureOfService.DOMAIN, repositoryFor = BreakOption.class)
 public class BreakOptionRepository extends UdoDomainRepositoryAndFactory<BreakOption> {
@@ -61,6 +62,8 @@ public class BreakOptionRepository extends UdoDomainRepositoryAndFactory<BreakOp
         breakOption.setExerciseDate(breakDate.minus(JodaPeriodUtils.asPeriod(notificationPeriod)));
         breakOption.setDescription(description);
         persist(breakOption);
+        // its persisting lifecycle event is only raised when flushed
+        leaseInvoicingChangeSubscriber.changing(lease);
         return breakOption;
     }
 
@@ -111,4 +114,7 @@ public class BreakOptionRepository extends UdoDomainRepositoryAndFactory<BreakOp
     public List<BreakOption> allBreakOptions() {
         return allInstances();
     }
+
+    @javax.inject.Inject
+    LeaseInvoicingChangeSubscriber leaseInvoicingChangeSubscriber;
 }
@@ -46,7 +46,11 @@ import lombok.Setter;
         strategy = InheritanceStrategy.SUPERCLASS_TABLE)
 // no @DatastoreIdentity nor @Version, since inherited from supertype
 @javax.jdo.annotations.Discriminator("org.estatio.dom.lease.breaks.FixedBreakOption")
-@DomainObject()
+@DomainObject(
+        updatingLifecycleEvent = BreakOption.UpdatingLifecycleEvent.class,
+        persistingLifecycleEvent = BreakOption.PersistingLifecycleEvent.class,
+        removingLifecycleEvent = BreakOption.RemovingLifecycleEvent.class
+)
 public class FixedBreakOption
         extends BreakOption {
 
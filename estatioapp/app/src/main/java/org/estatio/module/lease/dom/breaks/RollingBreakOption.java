@@ -35,7 +35,11 @@ import org.apache.isis.applib.annotation.Programmatic;
 @javax.jdo.annotations.Inheritance(
         strategy = InheritanceStrategy.SUPERCLASS_TABLE)
 @javax.jdo.annotations.Discriminator("org.estatio.dom.lease.breaks.RollingBreakOption")
-@DomainObject()
+@DomainObject(
+        updatingLifecycleEvent = BreakOption.UpdatingLifecycleEvent.class,
+        persistingLifecycleEvent = BreakOption.PersistingLifecycleEvent.class,
+        removingLifecycleEvent = BreakOption.RemovingLifecycleEvent.class
+)
 public class RollingBreakOption
         extends BreakOption {
 
@@ -0,0 +1,135 @@
+/*
+ *
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.module.lease.dom.invoicing;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+import lombok.Getter;
+
+/**
+ * Aggregate report of a partitioned invoice calculation run, see {@link InvoiceCalculationRunService}.
+ */
+public class InvoiceCalculationRunReport {
+
+    @Getter
+    private final String runId;
+
+    private final List<Partition> partitions = Lists.newArrayList();
+
+    private final List<String> unchangedLeaseReferences = Lists.newArrayList();
+
+    public InvoiceCalculationRunReport(final String runId) {
+        this.runId = runId;
+    }
+
+    public List<Partition> getPartitions() {
+        return Collections.unmodifiableList(partitions);
+    }
+
+    /**
+     * Leases not recalculated by an incremental run, because nothing changed since they were last calculated.
+     */
+    public List<String> getUnchangedLeaseReferences() {
+        return Collections.unmodifiableList(unchangedLeaseReferences);
+    }
+
+    void unchanged(final String leaseReference) {
+        unchangedLeaseReferences.add(leaseReference);
+    }
+
+    void succeeded(final List<String> leaseReferences, final int numberOfItems) {
+        partitions.add(new Partition(leaseReferences, numberOfItems, null));
+    }
+
+    void failed(final List<String> leaseReferences, final Exception cause) {
+        partitions.add(new Partition(leaseReferences, 0, cause));
+    }
+
+    public int getNumberOfLeases() {
+        int numberOfLeases = 0;
+        for (Partition partition : partitions) {
+            numberOfLeases += partition.getLeaseReferences().size();
+        }
+        return numberOfLeases;
+    }
+
+    public int getNumberOfItems() {
+        int numberOfItems = 0;
+        for (Partition partition : partitions) {
+            numberOfItems += partition.getNumberOfItems();
+        }
+        return numberOfItems;
+    }
+
+    public List<Partition> getFailedPartitions() {
+        final List<Partition> failed = Lists.newArrayList();
+        for (Partition partition : partitions) {
+            if (partition.isFailed()) {
+                failed.add(partition);
+            }
+        }
+        return failed;
+    }
+
+    public boolean hasFailures() {
+        return !getFailedPartitions().isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%s: %d leases in %d partitions, %d items created, %d partitions failed, %d leases unchanged",
+                runId, getNumberOfLeases(), partitions.size(), getNumberOfItems(), getFailedPartitions().size(),
+                unchangedLeaseReferences.size());
+    }
+
+    /**
+     * Outcome of a single partition, committed (or rolled back) in its own transaction.
+     */
+    public static class Partition {
+
+        @Getter
+        private final List<String> leaseReferences;
+
+        @Getter
+        private final int numberOfItems;
+
+        @Getter
+        private final Exception cause;
+
+        Partition(final List<String> leaseReferences, final int numberOfItems, final Exception cause) {
+            this.leaseReferences = Collections.unmodifiableList(Lists.newArrayList(leaseReferences));
+            this.numberOfItems = numberOfItems;
+            this.cause = cause;
+        }
+
+        public boolean isFailed() {
+            return cause != null;
+        }
+
+        @Override
+        public String toString() {
+            return leaseReferences + (isFailed() ? " : failed - " + cause.getMessage() : " : " + numberOfItems);
+        }
+    }
+
+}
@@ -0,0 +1,403 @@
+/*
+ *
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.module.lease.dom.invoicing;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Multisets;
+
+import org.joda.time.LocalDate;
+import org.joda.time.LocalDateTime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.isis.applib.annotation.DomainService;
+import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.annotation.Programmatic;
+import org.apache.isis.applib.services.factory.FactoryService;
+import org.apache.isis.applib.services.xactn.Transaction;
+import org.apache.isis.applib.services.xactn.TransactionService;
+import org.apache.isis.applib.services.xactn.TransactionState;
+import org.apache.isis.core.commons.exceptions.IsisException;
+import org.apache.isis.core.runtime.system.transaction.IsisTransaction;
+
+import org.estatio.module.asset.dom.Property;
+import org.estatio.module.base.dom.UdoDomainService;
+import org.estatio.module.index.dom.Index;
+import org.estatio.module.index.dom.IndexRepository;
+import org.estatio.module.invoice.dom.Invoice;
+import org.estatio.module.invoice.dom.InvoiceItem;
+import org.estatio.module.invoice.dom.InvoiceStatus;
+import org.estatio.module.lease.dom.Lease;
+import org.estatio.module.lease.dom.LeaseRepository;
+import org.estatio.module.lease.dom.LeaseTermForIndexableRepository;
+import org.estatio.module.lease.dom.invoicing.summary.InvoiceSummaryTotal;
+import org.estatio.module.lease.dom.invoicing.summary.InvoiceSummaryTotalService;
+
+/**
+ * Runs an invoice calculation split into partitions of leases, each partition committed in its own transaction.
+ *
+ * <p>
+ *     The transaction of a failing partition is aborted, so that none of its changes (neither the invoices created for
+ *     the run nor, for example, any lease terms created while verifying) are committed, and the failure is recorded in
+ *     the {@link InvoiceCalculationRunReport report}; the remaining partitions still commit.  The run id is passed
+ *     through to each partition rather than being held as state on the (singleton)
+ *     {@link InvoiceCalculationService}.
+ * </p>
+ *
+ * <p>
+ *     The {@link InvoiceSummaryTotal invoice summary totals} are refreshed in the transaction of each partition.
+ * </p>
+ *
+ * <p>
+ *     Partitions are executed one after the other on the calling thread, the persistence session being bound to that
+ *     thread (and the partitions of a run sharing the same {@link InvoiceSummaryTotal}s).  Partitioning therefore does
+ *     not shorten a run: it keeps each transaction small, and keeps a failing lease from losing the work of the
+ *     others.
+ * </p>
+ */
+@DomainService(nature = NatureOfService.DOMAIN)
+public class InvoiceCalculationRunService extends UdoDomainService<InvoiceCalculationRunService> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(InvoiceCalculationRunService.class);
+
+    public static final int DEFAULT_PARTITION_SIZE = 25;
+
+    /**
+     * Changes are stamped when made rather than when committed, so a change stamped shortly before a run started may
+     * not yet have been visible to it; such leases are recalculated anyway.  This is the longest a transaction
+     * changing the inputs of a lease is expected to take.
+     */
+    public static final int IN_FLIGHT_MARGIN_MINUTES = 30;
+
+    public InvoiceCalculationRunService() {
+        super(InvoiceCalculationRunService.class);
+    }
+
+    @Programmatic
+    public InvoiceCalculationRunReport calculateAndInvoice(final InvoiceCalculationParameters parameters) {
+        return calculateAndInvoice(parameters, DEFAULT_PARTITION_SIZE);
+    }
+
+    @Programmatic
+    public InvoiceCalculationRunReport calculateAndInvoice(
+            final InvoiceCalculationParameters parameters,
+            final int partitionSize) {
+        if (partitionSize < 1) {
+            throw new IllegalArgumentException("Partition size must be at least 1");
+        }
+
+        final List<Lease> leases = invoiceCalculationService.leasesFor(parameters);
+        final String runId = invoiceCalculationService.newRunId(parameters);
+        final InvoiceCalculationRunReport report = new InvoiceCalculationRunReport(runId);
+
+        invoiceForLeaseRepository.removeRuns(parameters);
+        invoiceSummaryTotalService.refreshPending();
+        transactionService.nextTransaction();
+
+        for (List<Lease> partition : Lists.partition(leases, partitionSize)) {
+            calculatePartition(partition, parameters, runId, report);
+        }
+
+        LOG.info(report.toString());
+        return report;
+    }
+
+    // //////////////////////////////////////
+
+    @Programmatic
+    public InvoiceCalculationRunReport calculateAndInvoiceIncrementally(final InvoiceCalculationParameters parameters) {
+        return calculateAndInvoiceIncrementally(parameters, DEFAULT_PARTITION_SIZE);
+    }
+
+    /**
+     * As {@link #calculateAndInvoice(InvoiceCalculationParameters, int)}, but only recalculating those leases that
+     * have changed (see {@link LeaseInvoicingChangeSubscriber}) since they were last calculated by a run with the
+     * same parameters.
+     *
+     * <p>
+     *     The (new) invoices of the unchanged leases are kept, and moved over to this run.
+     * </p>
+     */
+    @Programmatic
+    public InvoiceCalculationRunReport calculateAndInvoiceIncrementally(
+            final InvoiceCalculationParameters parameters,
+            final int partitionSize) {
+        if (partitionSize < 1) {
+            throw new IllegalArgumentException("Partition size must be at least 1");
+        }
+
+        final List<Lease> leases = invoiceCalculationService.leasesFor(parameters);
+        final String runId = invoiceCalculationService.newRunId(parameters);
+        final InvoiceCalculationRunReport report = new InvoiceCalculationRunReport(runId);
+
+        final ListMultimap<Lease, InvoiceForLease> previousInvoicesByLease = ArrayListMultimap.create();
+        for (InvoiceForLease invoice : invoiceForLeaseRepository.findByFixedAssetAndDueDateAndStatus(
+                parameters.property(), parameters.invoiceDueDate(), InvoiceStatus.NEW)) {
+            previousInvoicesByLease.put(invoice.getLease(), invoice);
+        }
+
+        final Map<Lease, LocalDateTime> indexValuesChangedOnByLease =
+                indexValuesChangedOnByLease(previousInvoicesByLease.values(), parameters);
+
+        final List<Lease> changedLeases = Lists.newArrayList();
+        for (Lease lease : leases) {
+            final List<InvoiceForLease> previousInvoices = previousInvoicesByLease.get(lease);
+            if (isUnchangedSince(lease, previousInvoices, parameters, indexValuesChangedOnByLease.get(lease))) {
+                for (InvoiceForLease invoice : previousInvoices) {
+                    invoice.setRunId(runId);
+                }
+                report.unchanged(lease.getReference());
+            } else {
+                for (InvoiceForLease invoice : previousInvoices) {
+                    factoryService.mixin(Invoice._remove.class, invoice).exec();
+                }
+                changedLeases.add(lease);
+            }
+        }
+        invoiceSummaryTotalService.refreshPending();
+        transactionService.nextTransaction();
+
+        for (List<Lease> partition : Lists.partition(changedLeases, partitionSize)) {
+            calculatePartition(partition, parameters, runId, report);
+        }
+
+        LOG.info(report.toString());
+        return report;
+    }
+
+    /**
+     * Whether the provided (new) invoices of the lease were calculated by a run with the same parameters, and none of
+     * the inputs of the lease's calculation (as {@link Lease#getInvoicingInputsChangedOn() stamped} on the lease, or
+     * as {@link Index#getValuesChangedOn() stamped} on the indices its terms are indexed by) changed since
+     * {@link #IN_FLIGHT_MARGIN_MINUTES shortly before} that run started.
+     *
+     * @param indexValuesChangedOn - the latest stamp of the indices the lease is indexed by, if any changed since the
+     *                             earliest of the runs; <tt>null</tt> otherwise.
+     */
+    boolean isUnchangedSince(
+            final Lease lease,
+            final List<InvoiceForLease> previousInvoices,
+            final InvoiceCalculationParameters parameters,
+            final LocalDateTime indexValuesChangedOn) {
+        if (previousInvoices.isEmpty() || lease.getInvoicingInputsChangedOn() == null) {
+            return false;
+        }
+        final LocalDateTime inputsChangedOn = indexValuesChangedOn != null && indexValuesChangedOn.isAfter(lease.getInvoicingInputsChangedOn())
+                ? indexValuesChangedOn
+                : lease.getInvoicingInputsChangedOn();
+        for (InvoiceForLease invoice : previousInvoices) {
+            if (!InvoiceCalculationService.isRunFor(invoice.getRunId(), parameters)) {
+                return false;
+            }
+            final LocalDateTime startOfRun = InvoiceCalculationService.startOfRun(invoice.getRunId());
+            if (!inputsChangedOn.isBefore(startOfRun.minusMinutes(IN_FLIGHT_MARGIN_MINUTES))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The latest {@link Index#getValuesChangedOn() stamp}, per lease, of the indices (changed since shortly before the
+     * earliest of the runs of the provided invoices) that the lease's terms are indexed by; only the few indices
+     * changed are looked up, once for the whole run, rather than stamping every lease whenever an index changes.
+     */
+    Map<Lease, LocalDateTime> indexValuesChangedOnByLease(
+            final Collection<InvoiceForLease> previousInvoices,
+            final InvoiceCalculationParameters parameters) {
+        LocalDateTime earliestStartOfRun = null;
+        for (InvoiceForLease invoice : previousInvoices) {
+            if (!InvoiceCalculationService.isRunFor(invoice.getRunId(), parameters)) {
+                continue;
+            }
+            final LocalDateTime startOfRun = InvoiceCalculationService.startOfRun(invoice.getRunId());
+            if (earliestStartOfRun == null || startOfRun.isBefore(earliestStartOfRun)) {
+                earliestStartOfRun = startOfRun;
+            }
+        }
+        final Map<Lease, LocalDateTime> changedOnByLease = new HashMap<>();
+        if (earliestStartOfRun == null) {
+            return changedOnByLease;
+        }
+        final LocalDateTime since = earliestStartOfRun.minusMinutes(IN_FLIGHT_MARGIN_MINUTES);
+        for (Index index : indexRepository.all()) {
+            final LocalDateTime changedOn = index.getValuesChangedOn();
+            if (changedOn == null || changedOn.isBefore(since)) {
+                continue;
+            }
+            for (Lease lease : leaseTermForIndexableRepository.findLeasesByIndex(index)) {
+                final LocalDateTime current = changedOnByLease.get(lease);
+                if (current == null || changedOn.isAfter(current)) {
+                    changedOnByLease.put(lease, changedOn);
+                }
+            }
+        }
+        return changedOnByLease;
+    }
+
+    // //////////////////////////////////////
+
+    /**
+     * Runs the calculation incrementally and then in full, and returns the differences between the invoice items
+     * each produced; an empty list proves that the incremental run was equivalent.
+     *
+     * <p>
+     *     The invoices of the full run are those left in place.
+     * </p>
+     */
+    @Programmatic
+    public List<String> verifyIncremental(final InvoiceCalculationParameters parameters) {
+        final InvoiceCalculationRunReport incremental = calculateAndInvoiceIncrementally(parameters);
+        final Multiset<String> incrementalItems = itemsOf(incremental.getRunId());
+        final InvoiceCalculationRunReport full = calculateAndInvoice(parameters);
+        final Multiset<String> fullItems = itemsOf(full.getRunId());
+
+        final List<String> differences = Lists.newArrayList();
+        for (String item : Multisets.difference(incrementalItems, fullItems)) {
+            differences.add("Only in incremental run: " + item);
+        }
+        for (String item : Multisets.difference(fullItems, incrementalItems)) {
+            differences.add("Only in full run: " + item);
+        }
+        return differences;
+    }
+
+    private Multiset<String> itemsOf(final String runId) {
+        final Multiset<String> items = HashMultiset.create();
+        for (InvoiceForLease invoice : invoiceForLeaseRepository.findInvoicesByRunId(runId)) {
+            for (InvoiceItem item : invoice.getItems()) {
+                items.add(Joiner.on(" | ").useForNull("").join(
+                        invoice.getLease().getReference(),
+                        item.getCharge() == null ? null : item.getCharge().getReference(),
+                        item.getStartDate(),
+                        item.getEndDate(),
+                        item.getEffectiveStartDate(),
+                        item.getEffectiveEndDate(),
+                        item.getNetAmount(),
+                        item instanceof InvoiceItemForLease ? ((InvoiceItemForLease) item).getAdjustment() : null));
+            }
+        }
+        return items;
+    }
+
+    // //////////////////////////////////////
+
+    /**
+     * Verifies all leases of the property until the date, as a bulk step ahead of (any number of) invoice calculation
+     * runs, each partition of leases in its own transaction.
+     *
+     * @return the number of lease items verified (those whose previous verification still held are skipped).
+     */
+    @Programmatic
+    public int verifyUntil(final Property property, final LocalDate date, final int partitionSize) {
+        if (partitionSize < 1) {
+            throw new IllegalArgumentException("Partition size must be at least 1");
+        }
+        int numberOfItems = 0;
+        for (List<Lease> partition : Lists.partition(leaseRepository.findLeasesByProperty(property), partitionSize)) {
+            numberOfItems += invoiceCalculationService.verifyUntil(partition, date);
+            transactionService.nextTransaction();
+        }
+        LOG.info("Verified {} lease item(s) of {} until {}", numberOfItems, property.getReference(), date);
+        return numberOfItems;
+    }
+
+    // //////////////////////////////////////
+
+    private void calculatePartition(
+            final List<Lease> partition,
+            final InvoiceCalculationParameters parameters,
+            final String runId,
+            final InvoiceCalculationRunReport report) {
+        final List<String> leaseReferences = referencesOf(partition);
+        try {
+            final int numberOfItems = invoiceCalculationService.calculateAndInvoice(partition, parameters, runId);
+            invoiceSummaryTotalService.refreshPending();
+            transactionService.nextTransaction();
+            report.succeeded(leaseReferences, numberOfItems);
+        } catch (RuntimeException ex) {
+            LOG.warn("Invoice calculation for {} in run '{}' failed", leaseReferences, runId, ex);
+            // a partition may have changed other objects (such as lease terms created while verifying) before it
+            // failed; none of its changes are to be committed
+            markForAbort(ex);
+            transactionService.nextTransaction(TransactionService.Policy.ALWAYS);
+            report.failed(leaseReferences, ex);
+        }
+    }
+
+    /**
+     * Marks the current transaction for abort, so that the next transaction boundary (with
+     * {@link TransactionService.Policy#ALWAYS}) rolls it back rather than committing it, even if the failure did not
+     * arise from the persistence layer; the applib's transaction does not expose this.
+     */
+    private void markForAbort(final RuntimeException cause) {
+        final Transaction transaction = transactionService.currentTransaction();
+        if (transaction instanceof IsisTransaction && transaction.getTransactionState() == TransactionState.IN_PROGRESS) {
+            ((IsisTransaction) transaction).setAbortCause(new IsisException(cause));
+        }
+    }
+
+    private static List<String> referencesOf(final List<Lease> leases) {
+        final List<String> references = Lists.newArrayList();
+        for (Lease lease : leases) {
+            references.add(lease.getReference());
+        }
+        return references;
+    }
+
+    // //////////////////////////////////////
+
+    @Inject
+    InvoiceCalculationService invoiceCalculationService;
+
+    @Inject
+    LeaseRepository leaseRepository;
+
+    @Inject
+    InvoiceForLeaseRepository invoiceForLeaseRepository;
+
+    @Inject
+    TransactionService transactionService;
+
+    @Inject
+    FactoryService factoryService;
+
+    @Inject
+    InvoiceSummaryTotalService invoiceSummaryTotalService;
+
+    @Inject
+    IndexRepository indexRepository;
+
+    @Inject
+    LeaseTermForIndexableRepository leaseTermForIndexableRepository;
+
+}
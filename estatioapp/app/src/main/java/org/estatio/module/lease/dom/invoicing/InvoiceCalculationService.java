@@ -37,6 +37,7 @@ import org.joda.time.LocalDateTime;
 import org.apache.isis.applib.annotation.DomainService;
 import org.apache.isis.applib.annotation.NatureOfService;
 import org.apache.isis.applib.annotation.Programmatic;
+import org.apache.isis.applib.services.xactn.TransactionService;
 
 import org.incode.module.base.dom.valuetypes.AbstractInterval.IntervalEnding;
 import org.incode.module.base.dom.valuetypes.LocalDateInterval;
@@ -57,7 +58,6 @@ import org.estatio.module.lease.dom.LeaseTerm;
 import org.estatio.module.lease.dom.LeaseTermValueType;
 import org.estatio.module.lease.dom.invoicing.ssrs.InvoiceItemAttributesVM;
 
-//@RequestScoped  // TODO: this should be @RequestScoped, I think, since has a field
 @DomainService(menuOrder = "50", nature = NatureOfService.DOMAIN)
 public class InvoiceCalculationService extends UdoDomainService<InvoiceCalculationService> {
 
@@ -136,56 +136,153 @@ public class InvoiceCalculationService extends UdoDomainService<InvoiceCalculati
         return defaultEpochDate;
     }
 
-    private String interactionId;
+    /**
+     * Calculates and invoices all leases selected by the parameters as a single run, within the current transaction.
+     *
+     * @return the id of the run, also stored as the <tt>runId</tt> of every invoice created.
+     */
+    @Programmatic
+    public String calculateAndInvoice(final InvoiceCalculationParameters parameters) {
+        invoiceForLeaseRepository.removeRuns(parameters);
+        final String runId = newRunId(parameters);
+        calculateAndInvoice(leasesFor(parameters), parameters, runId);
+        return runId;
+    }
 
-    private void startInteraction(final String parameters) {
-        if (interactionId == null) {
-            interactionId = LocalDateTime.now().toString().concat(" - ").concat(parameters);
+    /**
+     * Calculates and invoices a partition of the leases of a run.
+     *
+     * <p>
+     *     Unlike {@link #calculateAndInvoice(InvoiceCalculationParameters)} this does <i>not</i> remove earlier runs;
+     *     that is the responsibility of the caller, who does so once for the run as a whole.
+     * </p>
+     *
+     * @return the number of invoice items created.
+     */
+    @Programmatic
+    public int calculateAndInvoice(
+            final List<Lease> leases,
+            final InvoiceCalculationParameters parameters,
+            final String runId) {
+        suspendTracking();
+        try {
+            final int numberOfItems = doCalculateAndInvoice(leases, parameters, runId);
+            // changes made by the calculation itself are flushed while tracking is still suspended
+            transactionService.flushTransaction();
+            return numberOfItems;
+        } finally {
+            leaseInvoicingChangeSubscriber.resume();
         }
     }
 
-    private void endInteraction() {
-        interactionId = null;
+    /**
+     * Stamps the changes made so far (in this interaction) before suspending the tracking of the changes the
+     * calculation makes itself.
+     */
+    private void suspendTracking() {
+        transactionService.flushTransaction();
+        leaseInvoicingChangeSubscriber.stampRecorded();
+        leaseInvoicingChangeSubscriber.suspend();
     }
 
-    @Programmatic
-    public String calculateAndInvoice(InvoiceCalculationParameters parameters) {
-        String lastInteractionId = null;
-        invoiceForLeaseRepository.removeRuns(parameters);
-        try {
-            startInteraction(parameters.toString());
-            final List<Lease> leases = parameters.leases();
-            for (Lease lease : leases.size() == 0 ? leaseRepository.findLeasesByProperty(parameters.property()) : leases) {
-                lease.verifyUntil(parameters.dueDateRange().endDateExcluding());
-                if (lease.getStatus() != LeaseStatus.SUSPENDED) {
-                    SortedSet<LeaseItem> leaseItems =
-                            parameters.leaseItem() == null ?
-                                    lease.getItems() :
-                                    new TreeSet<>(Arrays.asList(parameters.leaseItem()));
-                    for (LeaseItem leaseItem : leaseItems) {
-                        if (!leaseItem.getStatus().equals(LeaseItemStatus.SUSPENDED) && leaseItem.getInvoicedBy().equals(
-                                LeaseAgreementRoleTypeEnum.LANDLORD)) {
-                            //TODO: We only filter the Landlords
-                            if (parameters.leaseItemTypes() == null || parameters.leaseItemTypes().contains(leaseItem.getType())) {
-                                SortedSet<LeaseTerm> leaseTerms =
-                                        parameters.leaseTerm() == null ?
-                                                leaseItem.getTerms() :
-                                                new TreeSet<>(Arrays.asList(parameters.leaseTerm()));
-                                for (LeaseTerm leaseTerm : leaseTerms) {
-                                    final List<CalculationResult> results;
-                                    results = calculateDueDateRange(leaseTerm, parameters);
-                                    createInvoiceItems(leaseTerm, parameters, results);
-                                }
+    private int doCalculateAndInvoice(
+            final List<Lease> leases,
+            final InvoiceCalculationParameters parameters,
+            final String runId) {
+        int numberOfItems = 0;
+        final InvoiceItemForLeasePrefetch invoicedItems = invoiceItemForLeaseRepository.prefetch(leases);
+        for (Lease lease : leases) {
+            if (lease.getInvoicingInputsChangedOn() == null) {
+                // start tracking changes from this run onwards
+                lease.setInvoicingInputsChangedOn(startOfRun(runId));
+            }
+            // items already verified (eg by verifyUntil as a pre-step) are skipped
+            lease.verifyUntilIfRequired(parameters.dueDateRange().endDateExcluding());
+            if (lease.getStatus() != LeaseStatus.SUSPENDED) {
+                SortedSet<LeaseItem> leaseItems =
+                        parameters.leaseItem() == null ?
+                                lease.getItems() :
+                                new TreeSet<>(Arrays.asList(parameters.leaseItem()));
+                for (LeaseItem leaseItem : leaseItems) {
+                    if (!leaseItem.getStatus().equals(LeaseItemStatus.SUSPENDED) && leaseItem.getInvoicedBy().equals(
+                            LeaseAgreementRoleTypeEnum.LANDLORD)) {
+                        //TODO: We only filter the Landlords
+                        if (parameters.leaseItemTypes() == null || parameters.leaseItemTypes().contains(leaseItem.getType())) {
+                            SortedSet<LeaseTerm> leaseTerms =
+                                    parameters.leaseTerm() == null ?
+                                            leaseItem.getTerms() :
+                                            new TreeSet<>(Arrays.asList(parameters.leaseTerm()));
+                            for (LeaseTerm leaseTerm : leaseTerms) {
+                                final List<CalculationResult> results;
+                                results = calculateDueDateRange(leaseTerm, parameters);
+                                numberOfItems += createInvoiceItems(leaseTerm, parameters, results, runId, invoicedItems);
                             }
                         }
                     }
                 }
             }
+        }
+        return numberOfItems;
+    }
+
+    /**
+     * Verifies the leases until the date, as a separate step ahead of calculating them, within the current
+     * transaction; the calculation then skips the items verified here (see
+     * {@link LeaseItem#verifyUntilIfRequired(LocalDate)}).
+     *
+     * @return the number of lease items verified.
+     */
+    @Programmatic
+    public int verifyUntil(final List<Lease> leases, final LocalDate date) {
+        suspendTracking();
+        try {
+            int numberOfItems = 0;
+            for (Lease lease : leases) {
+                numberOfItems += lease.verifyUntilIfRequired(date);
+            }
+            transactionService.flushTransaction();
+            return numberOfItems;
         } finally {
-            lastInteractionId = interactionId;
-            endInteraction();
+            leaseInvoicingChangeSubscriber.resume();
+        }
+    }
+
+    /**
+     * The leases to be calculated: those explicitly provided, otherwise all leases of the property.
+     */
+    @Programmatic
+    public List<Lease> leasesFor(final InvoiceCalculationParameters parameters) {
+        final List<Lease> leases = parameters.leases();
+        return leases.size() == 0 ? leaseRepository.findLeasesByProperty(parameters.property()) : leases;
+    }
+
+    @Programmatic
+    public String newRunId(final InvoiceCalculationParameters parameters) {
+        return getClockService().nowAsLocalDateTime().toString().concat(RUN_ID_SEPARATOR).concat(parameters.toString());
+    }
+
+    private static final String RUN_ID_SEPARATOR = " - ";
+
+    /**
+     * The time at which the run with the provided id started, or <tt>null</tt> if the id was not created by
+     * {@link #newRunId(InvoiceCalculationParameters)}.
+     */
+    public static LocalDateTime startOfRun(final String runId) {
+        if (runId == null || !runId.contains(RUN_ID_SEPARATOR)) {
+            return null;
         }
-        return lastInteractionId;
+        try {
+            return LocalDateTime.parse(runId.substring(0, runId.indexOf(RUN_ID_SEPARATOR)));
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Whether the run with the provided id was started with the same parameters.
+     */
+    public static boolean isRunFor(final String runId, final InvoiceCalculationParameters parameters) {
+        return startOfRun(runId) != null && runId.endsWith(RUN_ID_SEPARATOR.concat(parameters.toString()));
     }
 
     /**
@@ -248,22 +345,32 @@ public class InvoiceCalculationService extends UdoDomainService<InvoiceCalculati
             final List<InvoicingInterval> intervals) {
         final List<CalculationResult> results2 = Lists.newArrayList();
         if (!intervals.isEmpty()) {
-            LocalDate dueDateForCalculation = intervals.get(intervals.size() - 1).dueDate();
+            final LocalDate dueDateForCalculation = intervals.get(intervals.size() - 1).dueDate();
+            // invariant for all intervals, so looked up once
+            final LocalDate epochDate = ObjectUtils.firstNonNull(leaseTerm.getLeaseItem().getEpochDate(), systemEpochDate());
+            final BigDecimal annualFactor = leaseTerm.getLeaseItem().getInvoicingFrequency().annualMultiplier();
+            final LocalDateInterval termEffectiveInterval = leaseTerm.getEffectiveInterval();
+            final LeaseTermValueType valueType = leaseTerm.valueType();
+            BigDecimal valueForDate = null;
+            boolean valueForDateResolved = false;
             for (final InvoicingInterval invoicingInterval : intervals) {
-                final LocalDate epochDate = ObjectUtils.firstNonNull(leaseTerm.getLeaseItem().getEpochDate(), systemEpochDate());
                 if (!invoicingInterval.dueDate().isBefore(epochDate)) {
-                    final LocalDateInterval effectiveInterval = invoicingInterval.asLocalDateInterval().overlap(leaseTerm.getEffectiveInterval());
+                    final LocalDateInterval effectiveInterval = invoicingInterval.asLocalDateInterval().overlap(termEffectiveInterval);
                     if (effectiveInterval == null) {
                         results2.add(new CalculationResult(invoicingInterval));
                     } else {
-                        final BigDecimal overlapDays = new BigDecimal(effectiveInterval.days());
-                        final BigDecimal frequencyDays = new BigDecimal(invoicingInterval.days());
-                        final BigDecimal rangeFactor = frequencyDays.equals(BigDecimal.ZERO) ? BigDecimal.ZERO : overlapDays.divide(frequencyDays, MathContext.DECIMAL64);
-                        final BigDecimal annualFactor = leaseTerm.getLeaseItem().getInvoicingFrequency().annualMultiplier();
+                        if (!valueForDateResolved) {
+                            valueForDate = leaseTerm.valueForDate(dueDateForCalculation);
+                            valueForDateResolved = true;
+                        }
                         final CalculationResult calculationResult = new CalculationResult(
                                 invoicingInterval,
                                 effectiveInterval,
-                                calculateValue(rangeFactor, annualFactor, leaseTerm.valueForDate(dueDateForCalculation), leaseTerm.valueType())
+                                calculateValue(
+                                        rangeFactor(effectiveInterval.days(), invoicingInterval.days()),
+                                        annualFactor,
+                                        valueForDate,
+                                        valueType)
                         );
                         results2.add(calculationResult);
                     }
@@ -273,6 +380,24 @@ public class InvoiceCalculationService extends UdoDomainService<InvoiceCalculati
         return results2;
     }
 
+    /**
+     * The fraction of the invoicing interval that is covered, computed on the (integer) day counts.
+     *
+     * <p>
+     *     A fully covered interval (the common case) yields exactly the same value as the division would, without
+     *     performing it; otherwise the division is as it always was, so that results are unchanged.
+     * </p>
+     */
+    static BigDecimal rangeFactor(final int overlapDays, final int frequencyDays) {
+        if (frequencyDays == 0) {
+            return BigDecimal.ZERO;
+        }
+        if (overlapDays == frequencyDays) {
+            return BigDecimal.ONE;
+        }
+        return BigDecimal.valueOf(overlapDays).divide(BigDecimal.valueOf(frequencyDays), MathContext.DECIMAL64);
+    }
+
     /**
      * Multiplies a value with the range and annual factors
      */
@@ -297,18 +422,27 @@ public class InvoiceCalculationService extends UdoDomainService<InvoiceCalculati
     /**
      * Calculates an invoice item with the difference between the already
      * invoiced and calculated value.
+     *
+     * <p>
+     *     The already invoiced values are looked up in the provided prefetch; any items created are added to it.
+     * </p>
+     *
+     * @return the number of invoice items created.
      */
-    void createInvoiceItems(
+    int createInvoiceItems(
             final LeaseTerm leaseTerm,
             final InvoiceCalculationParameters parameters,
-            final List<CalculationResult> results) {
+            final List<CalculationResult> results,
+            final String runId,
+            final InvoiceItemForLeasePrefetch invoicedItems) {
 
+        int numberOfItems = 0;
         for (CalculationResult result : results) {
             // TODO: this is a hack to speed up processing by ignoring zero
             // values on a normal run
             if (result.value().compareTo(BigDecimal.ZERO) != 0 || parameters.invoiceRunType().equals(InvoiceRunType.RETRO_RUN)) {
                 final LocalDateInterval invoicingInterval = result.invoicingInterval().asLocalDateInterval();
-                BigDecimal invoicedValue = invoiceItemForLeaseRepository.invoicedValue(leaseTerm, invoicingInterval);
+                BigDecimal invoicedValue = invoicedItems.invoicedValue(leaseTerm, invoicingInterval);
                 BigDecimal newValue = result.value().subtract(invoicedValue);
 
                 //
@@ -318,7 +452,7 @@ public class InvoiceCalculationService extends UdoDomainService<InvoiceCalculati
                 if (newValue.compareTo(BigDecimal.ZERO) != 0) {
                     if (invoicedValue.compareTo(BigDecimal.ZERO) != 0) {
                         // Has been invoiced before
-                        if (invoiceItemForLeaseRepository.findByLeaseTermAndEffectiveInterval(leaseTerm, calculationInterval).size() > 0) {
+                        if (invoicedItems.findByLeaseTermAndEffectiveInterval(leaseTerm, calculationInterval).size() > 0) {
                             // this exact period has been invoiced before so it is an adjusment
                             adjustment = true;
                         } else {
@@ -334,7 +468,7 @@ public class InvoiceCalculationService extends UdoDomainService<InvoiceCalculati
                                     calculationInterval,
                                     effectiveInterval,
                                     parameters.invoiceDueDate(),
-                                    interactionId);
+                                    runId);
                     invoiceItem.setNetAmount(newValue);
                     invoiceItem.setQuantity(BigDecimal.ONE);
                     LeaseItem leaseItem = leaseTerm.getLeaseItem();
@@ -349,9 +483,12 @@ public class InvoiceCalculationService extends UdoDomainService<InvoiceCalculati
 
                     invoiceItem.verify();
                     invoiceItem.setAdjustment(adjustment);
+                    invoicedItems.add(invoiceItem);
+                    numberOfItems++;
                 }
             }
         }
+        return numberOfItems;
     }
 
     // //////////////////////////////////////
@@ -371,6 +508,12 @@ public class InvoiceCalculationService extends UdoDomainService<InvoiceCalculati
     @Inject
     private LeaseRepository leaseRepository;
 
+    @Inject
+    LeaseInvoicingChangeSubscriber leaseInvoicingChangeSubscriber;
+
+    @Inject
+    TransactionService transactionService;
+
 
     public static LocalDateInterval attemptToCalculateRightSideLeftover(final LocalDateInterval ldi1, final LocalDateInterval ldi2){
         // Do not try to understand this. Consult Johan or Jeroen before reading further.
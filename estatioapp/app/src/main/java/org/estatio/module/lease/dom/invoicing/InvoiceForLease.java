@@ -51,6 +51,9 @@ import org.apache.isis.applib.annotation.RestrictTo;
 import org.apache.isis.applib.annotation.SemanticsOf;
 import org.apache.isis.applib.annotation.Where;
 import org.apache.isis.applib.services.clock.ClockService;
+import org.apache.isis.applib.services.eventbus.ObjectPersistingEvent;
+import org.apache.isis.applib.services.eventbus.ObjectRemovingEvent;
+import org.apache.isis.applib.services.eventbus.ObjectUpdatingEvent;
 import org.apache.isis.applib.services.message.MessageService;
 import org.apache.isis.applib.services.title.TitleService;
 import org.apache.isis.applib.services.user.UserService;
@@ -76,6 +79,7 @@ import org.estatio.module.lease.dom.invoicing.ssrs.InvoiceAttributesVM;
 import org.estatio.module.lease.dom.invoicing.ssrs.InvoiceItemAttributesVM;
 import org.estatio.module.base.dom.EstatioRole;
 import org.estatio.module.numerator.dom.Numerator;
+import org.estatio.module.numerator.dom.NumeratorAllocationService;
 
 import lombok.Getter;
 import lombok.Setter;
@@ -164,6 +168,14 @@ import lombok.Setter;
                         "applicationTenancyPath == :applicationTenancyPath && " +
                         "invoiceDate == :invoiceDate " +
                         "ORDER BY invoiceNumber"),
+        @javax.jdo.annotations.Query(
+                name = "findInvoiceNumbersByApplicationTenancyPathAndPrefix", language = "JDOQL",
+                value = "SELECT invoiceNumber " +
+                        "FROM org.estatio.module.invoice.dom.Invoice " +
+                        "WHERE " +
+                        "applicationTenancyPath.matches(:applicationTenancyPathPattern) && " +
+                        "invoiceNumber.startsWith(:prefix) " +
+                        "ORDER BY invoiceNumber DESC"),
 })
 @Indices({
         @Index(name = "Invoice_runId_IDX",
@@ -178,8 +190,11 @@ import lombok.Setter;
                 members = { "fixedAsset", "dueDate", "status" }),
 })
 @DomainObject(
-        editing = Editing.DISABLED
+        editing = Editing.DISABLED,
         // objectType inferred from @Discriminator
+        persistingLifecycleEvent = InvoiceForLease.PersistingLifecycleEvent.class,
+        updatingLifecycleEvent = InvoiceForLease.UpdatingLifecycleEvent.class,
+        removingLifecycleEvent = InvoiceForLease.RemovingLifecycleEvent.class
 )
 @DomainObjectLayout(bookmarking = BookmarkPolicy.AS_ROOT)
 public class InvoiceForLease
@@ -189,6 +204,12 @@ public class InvoiceForLease
         super("invoiceNumber, collectionNumber, buyer, dueDate, lease, uuid");
     }
 
+    public static class PersistingLifecycleEvent extends ObjectPersistingEvent<InvoiceForLease> {}
+
+    public static class UpdatingLifecycleEvent extends ObjectUpdatingEvent<InvoiceForLease> {}
+
+    public static class RemovingLifecycleEvent extends ObjectRemovingEvent<InvoiceForLease> {}
+
     @javax.jdo.annotations.Column(name = "leaseId", allowsNull = "true")
     @Property(optionality = Optionality.OPTIONAL)
     @Getter @Setter
@@ -397,7 +418,7 @@ public class InvoiceForLease
                 return invoice;
             }
             final Numerator numerator = collectionNumerator();
-            invoice.setCollectionNumber(numerator.nextIncrementStr());
+            invoice.setCollectionNumber(nextCollectionNumber(numerator));
             return invoice;
         }
 
@@ -405,9 +426,22 @@ public class InvoiceForLease
             return numeratorRepository.findCollectionNumberNumerator();
         }
 
+        /**
+         * Collection numbers need not be gap-free, so are handed out from reserved blocks rather than serialising
+         * all collections on the numerator.
+         */
+        private String nextCollectionNumber(final Numerator numerator) {
+            return numeratorAllocationService == null
+                    ? numerator.nextIncrementStr()
+                    : numeratorAllocationService.nextIncrementStr(numerator, NumeratorAllocationService.Mode.RELAXED);
+        }
+
         @javax.inject.Inject
         NumeratorForCollectionRepository numeratorRepository;
 
+        @javax.inject.Inject
+        NumeratorAllocationService numeratorAllocationService;
+
     }
 
     /**
@@ -470,7 +504,7 @@ public class InvoiceForLease
             final Numerator numerator = numeratorRepository
                     .findInvoiceNumberNumerator(invoiceForLease.getFixedAsset(), invoiceForLease.getApplicationTenancy());
 
-            invoiceForLease.setInvoiceNumber(numerator.nextIncrementStr());
+            invoiceForLease.setInvoiceNumber(nextInvoiceNumber(numerator));
             invoiceForLease.setInvoiceDate(invoiceDate);
             invoiceForLease.setStatus(InvoiceStatus.INVOICED);
 
@@ -511,7 +545,7 @@ public class InvoiceForLease
             final ApplicationTenancy applicationTenancy = invoiceForLease.getApplicationTenancy();
             final Numerator numerator = numeratorRepository.findInvoiceNumberNumerator(invoiceForLease.getFixedAsset(), applicationTenancy);
             if (numerator != null) {
-                final String invoiceNumber = numerator.lastIncrementStr();
+                final String invoiceNumber = lastInvoiceNumber(numerator);
                 if (invoiceNumber != null) {
                     List<Invoice> result = invoiceRepository.findMatchingInvoiceNumber(invoiceNumber);
                     if (result.size() > 0) {
@@ -525,9 +559,36 @@ public class InvoiceForLease
             return null;
         }
 
+        /**
+         * Invoice numbers are handed out in the numerator's {@link NumeratorAllocationService#modeFor(Numerator) mode};
+         * relaxed unless configured to be strict (gap-free).
+         */
+        private String nextInvoiceNumber(final Numerator numerator) {
+            return numeratorAllocationService == null
+                    ? numerator.nextIncrementStr()
+                    : numeratorAllocationService.nextIncrementStr(numerator);
+        }
+
+        /**
+         * In relaxed mode the numerator's last increment is the end of the block reserved, which need not have been
+         * issued yet, so the last invoice number is looked up instead.
+         */
+        private String lastInvoiceNumber(final Numerator numerator) {
+            return numeratorAllocationService == null
+                    || numeratorAllocationService.modeFor(numerator) == NumeratorAllocationService.Mode.STRICT
+                    ? numerator.lastIncrementStr()
+                    : invoiceForLeaseRepository.findLastInvoiceNumberIssuedBy(numerator);
+        }
+
         @javax.inject.Inject
         NumeratorForCollectionRepository numeratorRepository;
 
+        @javax.inject.Inject
+        NumeratorAllocationService numeratorAllocationService;
+
+        @javax.inject.Inject
+        InvoiceForLeaseRepository invoiceForLeaseRepository;
+
         @javax.inject.Inject
         ClockService clockService;
 
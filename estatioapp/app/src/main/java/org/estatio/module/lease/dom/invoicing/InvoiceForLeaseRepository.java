@@ -18,7 +18,13 @@
  */
 package org.estatio.module.lease.dom.invoicing;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
+import javax.jdo.Query;
+
+import com.google.common.collect.Lists;
 
 import org.joda.time.LocalDate;
 
@@ -42,6 +48,7 @@ import org.estatio.module.invoice.dom.PaymentMethod;
 import org.estatio.module.lease.dom.AgreementRoleCommunicationChannelTypeEnum;
 import org.estatio.module.lease.dom.LeaseAgreementRoleTypeEnum;
 import org.estatio.module.lease.dom.Lease;
+import org.estatio.module.numerator.dom.Numerator;
 import org.estatio.module.party.dom.Party;
 
 @DomainService(repositoryFor = InvoiceForLease.class, nature = NatureOfService.DOMAIN)
@@ -245,6 +252,39 @@ public class InvoiceForLeaseRepository extends UdoDomainRepositoryAndFactory<Inv
 
 
 
+    /**
+     * The invoice numbers (highest first) that may have been issued by the numerator: those starting with its
+     * {@link Numerator#formatPrefix() prefix}, of invoices within its application tenancy path (which may contain a
+     * <tt>%</tt> wildcard).
+     */
+    @Programmatic
+    public List<String> findInvoiceNumbersIssuedBy(final Numerator numerator) {
+        return findInvoiceNumbersIssuedBy(numerator, null);
+    }
+
+    @Programmatic
+    public String findLastInvoiceNumberIssuedBy(final Numerator numerator) {
+        final List<String> invoiceNumbers = findInvoiceNumbersIssuedBy(numerator, 1L);
+        return invoiceNumbers.isEmpty() ? null : invoiceNumbers.get(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> findInvoiceNumbersIssuedBy(final Numerator numerator, final Long max) {
+        final Query query = getIsisJdoSupport().getJdoPersistenceManager()
+                .newNamedQuery(InvoiceForLease.class, "findInvoiceNumbersByApplicationTenancyPathAndPrefix");
+        if (max != null) {
+            query.setRange(0, max);
+        }
+        final Map<String, Object> parameters = new HashMap<>();
+        parameters.put("applicationTenancyPathPattern", numerator.getApplicationTenancyPath().replace("%", ".*"));
+        parameters.put("prefix", numerator.formatPrefix());
+        try {
+            return Lists.newArrayList((List<String>) query.executeWithMap(parameters));
+        } finally {
+            query.closeAll();
+        }
+    }
+
     @Programmatic
     public void removeRuns(InvoiceCalculationParameters parameters) {
         List<InvoiceForLease> invoices = findByFixedAssetAndDueDateAndStatus(parameters.property(), parameters.invoiceDueDate(), InvoiceStatus.NEW);
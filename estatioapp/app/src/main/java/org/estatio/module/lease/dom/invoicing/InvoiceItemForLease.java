@@ -33,6 +33,9 @@ import org.apache.isis.applib.annotation.Optionality;
 import org.apache.isis.applib.annotation.Property;
 import org.apache.isis.applib.annotation.PropertyLayout;
 import org.apache.isis.applib.annotation.Where;
+import org.apache.isis.applib.services.eventbus.ObjectPersistingEvent;
+import org.apache.isis.applib.services.eventbus.ObjectRemovingEvent;
+import org.apache.isis.applib.services.eventbus.ObjectUpdatingEvent;
 
 import org.incode.module.base.dom.utils.TitleBuilder;
 
@@ -68,6 +71,11 @@ import lombok.Setter;
                 value = "SELECT " +
                         "FROM org.estatio.module.lease.dom.invoicing.InvoiceItemForLease " +
                         "WHERE leaseTerm == :leaseTerm "),
+        @javax.jdo.annotations.Query(
+                name = "findByLeases", language = "JDOQL",
+                value = "SELECT " +
+                        "FROM org.estatio.module.lease.dom.invoicing.InvoiceItemForLease " +
+                        "WHERE :leases.contains(lease) "),
         @javax.jdo.annotations.Query(
                 name = "findByLeaseTermAndInterval", language = "JDOQL",
                 value = "SELECT " +
@@ -119,8 +127,11 @@ import lombok.Setter;
 
 })
 @DomainObject(
-        editing = Editing.DISABLED
+        editing = Editing.DISABLED,
         // objectType inferred from @Discriminator
+        persistingLifecycleEvent = InvoiceItemForLease.PersistingLifecycleEvent.class,
+        updatingLifecycleEvent = InvoiceItemForLease.UpdatingLifecycleEvent.class,
+        removingLifecycleEvent = InvoiceItemForLease.RemovingLifecycleEvent.class
 )
 public class InvoiceItemForLease
         extends InvoiceItem<InvoiceForLease, InvoiceItemForLease> {
@@ -128,6 +139,12 @@ public class InvoiceItemForLease
     public InvoiceItemForLease() {
     }
 
+    public static class PersistingLifecycleEvent extends ObjectPersistingEvent<InvoiceItemForLease> {}
+
+    public static class UpdatingLifecycleEvent extends ObjectUpdatingEvent<InvoiceItemForLease> {}
+
+    public static class RemovingLifecycleEvent extends ObjectRemovingEvent<InvoiceItemForLease> {}
+
     public InvoiceItemForLease(final InvoiceForLease invoice, final LocalDate dueDate) {
         super(invoice);
         setDueDate(dueDate);
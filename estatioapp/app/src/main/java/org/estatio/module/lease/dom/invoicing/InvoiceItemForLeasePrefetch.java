@@ -0,0 +1,119 @@
+/*
+ *
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.module.lease.dom.invoicing;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import org.incode.module.base.dom.valuetypes.LocalDateInterval;
+
+import org.estatio.module.lease.dom.LeaseTerm;
+import org.estatio.module.lease.dom.LeaseTermValueType;
+
+/**
+ * In-memory index of the {@link InvoiceItemForLease}s of a set of leases, keyed by {@link LeaseTerm}, used by the
+ * {@link InvoiceCalculationService} to diff calculated against already invoiced values without a query per term
+ * and interval.
+ *
+ * <p>
+ *     The lookups mirror {@link InvoiceItemForLeaseRepository#invoicedValue(LeaseTerm, LocalDateInterval)} and
+ *     {@link InvoiceItemForLeaseRepository#findByLeaseTermAndEffectiveInterval(LeaseTerm, LocalDateInterval)}.
+ *     Items created during the calculation must be {@link #add(InvoiceItemForLease) added} so that later lookups
+ *     (eg for fixed terms, which sum over all intervals) see them.
+ * </p>
+ */
+public class InvoiceItemForLeasePrefetch {
+
+    private final Map<LeaseTerm, List<InvoiceItemForLease>> itemsByLeaseTerm = Maps.newHashMap();
+
+    public InvoiceItemForLeasePrefetch(final List<InvoiceItemForLease> items) {
+        for (InvoiceItemForLease item : items) {
+            add(item);
+        }
+    }
+
+    public void add(final InvoiceItemForLease item) {
+        if (item.getLeaseTerm() == null) {
+            return;
+        }
+        List<InvoiceItemForLease> items = itemsByLeaseTerm.get(item.getLeaseTerm());
+        if (items == null) {
+            items = Lists.newArrayList();
+            itemsByLeaseTerm.put(item.getLeaseTerm(), items);
+        }
+        items.add(item);
+    }
+
+    public List<InvoiceItemForLease> findByLeaseTerm(final LeaseTerm leaseTerm) {
+        final List<InvoiceItemForLease> items = itemsByLeaseTerm.get(leaseTerm);
+        return items == null ? Collections.<InvoiceItemForLease>emptyList() : items;
+    }
+
+    public List<InvoiceItemForLease> findByLeaseTermAndInterval(
+            final LeaseTerm leaseTerm,
+            final LocalDateInterval interval) {
+        final List<InvoiceItemForLease> matches = Lists.newArrayList();
+        for (InvoiceItemForLease item : findByLeaseTerm(leaseTerm)) {
+            if (Objects.equals(item.getStartDate(), interval.startDate())
+                    && Objects.equals(item.getEndDate(), interval.endDate())) {
+                matches.add(item);
+            }
+        }
+        return matches;
+    }
+
+    public List<InvoiceItemForLease> findByLeaseTermAndEffectiveInterval(
+            final LeaseTerm leaseTerm,
+            final LocalDateInterval effectiveInterval) {
+        final List<InvoiceItemForLease> matches = Lists.newArrayList();
+        for (InvoiceItemForLease item : findByLeaseTerm(leaseTerm)) {
+            final boolean startMatches =
+                    Objects.equals(item.getCalculationStartDate(), effectiveInterval.startDate())
+                            || Objects.equals(item.getEffectiveStartDate(), effectiveInterval.startDate());
+            final boolean endMatches =
+                    Objects.equals(item.getCalculationEndDate(), effectiveInterval.endDate())
+                            || Objects.equals(item.getEffectiveEndDate(), effectiveInterval.endDate());
+            if (startMatches && endMatches) {
+                matches.add(item);
+            }
+        }
+        return matches;
+    }
+
+    public BigDecimal invoicedValue(
+            final LeaseTerm leaseTerm,
+            final LocalDateInterval interval) {
+        BigDecimal invoicedValue = new BigDecimal(0);
+        final List<InvoiceItemForLease> items =
+                leaseTerm.valueType() == LeaseTermValueType.FIXED
+                        ? findByLeaseTerm(leaseTerm)
+                        : findByLeaseTermAndInterval(leaseTerm, interval);
+        for (InvoiceItemForLease invoiceItem : items) {
+            invoicedValue = invoicedValue.add(invoiceItem.getNetAmount());
+        }
+        return invoicedValue;
+    }
+
+}
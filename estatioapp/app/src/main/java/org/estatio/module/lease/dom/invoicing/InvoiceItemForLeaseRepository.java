@@ -19,11 +19,14 @@
 package org.estatio.module.lease.dom.invoicing;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import javax.inject.Inject;
 
+import com.google.common.collect.Lists;
+
 import org.joda.time.LocalDate;
 
 import org.apache.isis.applib.ApplicationException;
@@ -40,6 +43,7 @@ import org.estatio.module.lease.dom.Lease;
 import org.estatio.module.lease.dom.LeaseItem;
 import org.estatio.module.lease.dom.LeaseTerm;
 import org.estatio.module.lease.dom.LeaseTermValueType;
+import org.estatio.module.lease.dom.invoicing.summary.InvoiceSummaryChanges;
 import org.estatio.module.lease.dom.occupancy.Occupancy;
 
 @DomainService(repositoryFor = InvoiceItemForLease.class, nature = NatureOfService.DOMAIN)
@@ -59,6 +63,8 @@ public class InvoiceItemForLeaseRepository extends UdoDomainRepositoryAndFactory
         final InvoiceItemForLease invoiceItem = newItem(invoice, dueDate);
 
         persistIfNotAlready(invoiceItem);
+        // its persisting lifecycle event is only raised when flushed, which may be too late to be refreshed
+        invoiceSummaryChanges.add(invoiceItem.getInvoiceForLease());
         return invoiceItem;
     }
 
@@ -100,6 +106,8 @@ public class InvoiceItemForLeaseRepository extends UdoDomainRepositoryAndFactory
         });
 
         persistIfNotAlready(invoiceItem);
+        // its persisting lifecycle event is only raised when flushed, which may be too late to be refreshed
+        invoiceSummaryChanges.add(invoiceItem.getInvoiceForLease());
         return invoiceItem;
     }
 
@@ -115,6 +123,29 @@ public class InvoiceItemForLeaseRepository extends UdoDomainRepositoryAndFactory
     }
 
 
+    static final int MAX_LEASES_PER_QUERY = 500;
+
+    /**
+     * All items of the provided leases, queried in chunks to stay within the parameter limits of the database driver.
+     */
+    @Programmatic
+    public List<InvoiceItemForLease> findByLeases(final Collection<Lease> leases) {
+        final List<InvoiceItemForLease> items = Lists.newArrayList();
+        for (List<Lease> chunk : Lists.partition(Lists.newArrayList(leases), MAX_LEASES_PER_QUERY)) {
+            items.addAll(allMatches("findByLeases", "leases", chunk));
+        }
+        return items;
+    }
+
+    /**
+     * Loads all items of the provided leases in one go, so that already invoiced values can be looked up in memory
+     * while calculating.
+     */
+    @Programmatic
+    public InvoiceItemForLeasePrefetch prefetch(final Collection<Lease> leases) {
+        return new InvoiceItemForLeasePrefetch(findByLeases(leases));
+    }
+
     @Programmatic
     public List<InvoiceItemForLease> findByLeaseTermAndInterval(
             final LeaseTerm leaseTerm,
@@ -230,4 +261,7 @@ public class InvoiceItemForLeaseRepository extends UdoDomainRepositoryAndFactory
     @Inject
     private InvoiceForLeaseRepository invoiceRepository;
 
+    @Inject
+    private InvoiceSummaryChanges invoiceSummaryChanges;
+
 }
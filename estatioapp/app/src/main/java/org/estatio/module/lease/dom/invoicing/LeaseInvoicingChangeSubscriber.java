@@ -0,0 +1,285 @@
+/*
+ *
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.module.lease.dom.invoicing;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import javax.inject.Inject;
+
+import org.apache.isis.applib.AbstractSubscriber;
+import org.apache.isis.applib.annotation.DomainService;
+import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.annotation.Programmatic;
+import org.apache.isis.applib.services.clock.ClockService;
+import org.apache.isis.applib.services.eventbus.AbstractDomainEvent;
+import org.apache.isis.applib.services.eventbus.ActionDomainEvent;
+import org.apache.isis.applib.services.eventbus.PropertyDomainEvent;
+import org.apache.isis.applib.services.scratchpad.Scratchpad;
+
+import org.estatio.module.index.dom.Index;
+import org.estatio.module.lease.dom.Lease;
+import org.estatio.module.lease.dom.LeaseItem;
+import org.estatio.module.lease.dom.LeaseTerm;
+import org.estatio.module.lease.dom.breaks.BreakOption;
+
+/**
+ * Tracks changes to the inputs of the invoice calculation, by stamping the affected {@link Lease} with the time of
+ * the change. Changes to the values of an {@link Index} are not stamped on the leases indexed by it, but on the index
+ * itself (see {@link org.estatio.module.index.dom.IndexTimeSeriesService}), which is compared in its own right.
+ *
+ * <p>
+ *     The lifecycle events of the lease, its items and terms (some of which are only raised while flushing) merely
+ *     record the lease; the leases recorded are stamped once the action or property edit has executed, or
+ *     {@link #stampRecorded() on demand}, so that no other object is changed from within a flush.
+ * </p>
+ *
+ * <p>
+ *     Changes made by the invoice calculation itself (eg terms created while verifying a lease) are not tracked;
+ *     the calculation {@link #suspend() suspends} tracking for the duration. Inputs fed in from other modules
+ *     (budgets, turnovers) are {@link #changed(Lease) stamped} by the actions that feed them in, suspended or not.
+ * </p>
+ *
+ * <p>
+ *     The changes are stamped using the same {@link ClockService clock} as is used for
+ *     {@link InvoiceCalculationService#newRunId(InvoiceCalculationParameters) run ids} so that the two can be
+ *     compared. Note that a change is stamped once made, not when committed; see
+ *     {@link InvoiceCalculationRunService#IN_FLIGHT_MARGIN_MINUTES}.
+ * </p>
+ */
+@DomainService(nature = NatureOfService.DOMAIN)
+public class LeaseInvoicingChangeSubscriber extends AbstractSubscriber {
+
+    private static final String SUSPENDED_KEY = LeaseInvoicingChangeSubscriber.class.getName() + ".suspended";
+
+    private static final String RECORDED_KEY = LeaseInvoicingChangeSubscriber.class.getName() + ".recorded";
+
+    private static final String STAMPED_KEY = LeaseInvoicingChangeSubscriber.class.getName() + ".stamped";
+
+    @Programmatic
+    @com.google.common.eventbus.Subscribe
+    @org.axonframework.eventhandling.annotation.EventHandler
+    public void on(final Lease.UpdatingLifecycleEvent ev) {
+        if (!stampedInThisInteraction().contains(ev.getSource())) {
+            // otherwise (most likely) updated by the stamp itself
+            touch(ev.getSource());
+        }
+    }
+
+    @Programmatic
+    @com.google.common.eventbus.Subscribe
+    @org.axonframework.eventhandling.annotation.EventHandler
+    public void on(final LeaseItem.PersistingLifecycleEvent ev) {
+        touch(ev.getSource());
+    }
+
+    @Programmatic
+    @com.google.common.eventbus.Subscribe
+    @org.axonframework.eventhandling.annotation.EventHandler
+    public void on(final LeaseItem.UpdatingLifecycleEvent ev) {
+        touch(ev.getSource());
+    }
+
+    @Programmatic
+    @com.google.common.eventbus.Subscribe
+    @org.axonframework.eventhandling.annotation.EventHandler
+    public void on(final LeaseItem.RemovingLifecycleEvent ev) {
+        touch(ev.getSource());
+    }
+
+    @Programmatic
+    @com.google.common.eventbus.Subscribe
+    @org.axonframework.eventhandling.annotation.EventHandler
+    public void on(final LeaseTerm.PersistingLifecycleEvent ev) {
+        touch(ev.getSource());
+    }
+
+    @Programmatic
+    @com.google.common.eventbus.Subscribe
+    @org.axonframework.eventhandling.annotation.EventHandler
+    public void on(final LeaseTerm.UpdatingLifecycleEvent ev) {
+        touch(ev.getSource());
+    }
+
+    @Programmatic
+    @com.google.common.eventbus.Subscribe
+    @org.axonframework.eventhandling.annotation.EventHandler
+    public void on(final LeaseTerm.RemovingLifecycleEvent ev) {
+        touch(ev.getSource());
+    }
+
+    @Programmatic
+    @com.google.common.eventbus.Subscribe
+    @org.axonframework.eventhandling.annotation.EventHandler
+    public void on(final BreakOption.PersistingLifecycleEvent ev) {
+        touch(ev.getSource().getLease());
+    }
+
+    @Programmatic
+    @com.google.common.eventbus.Subscribe
+    @org.axonframework.eventhandling.annotation.EventHandler
+    public void on(final BreakOption.UpdatingLifecycleEvent ev) {
+        touch(ev.getSource().getLease());
+    }
+
+    @Programmatic
+    @com.google.common.eventbus.Subscribe
+    @org.axonframework.eventhandling.annotation.EventHandler
+    public void on(final BreakOption.RemovingLifecycleEvent ev) {
+        touch(ev.getSource().getLease());
+    }
+
+    @Programmatic
+    @com.google.common.eventbus.Subscribe
+    @org.axonframework.eventhandling.annotation.EventHandler
+    public void on(final ActionDomainEvent<?> ev) {
+        if (ev.getEventPhase() == AbstractDomainEvent.Phase.EXECUTED) {
+            stampRecorded();
+        }
+    }
+
+    @Programmatic
+    @com.google.common.eventbus.Subscribe
+    @org.axonframework.eventhandling.annotation.EventHandler
+    public void on(final PropertyDomainEvent<?, ?> ev) {
+        if (ev.getEventPhase() == AbstractDomainEvent.Phase.EXECUTED) {
+            stampRecorded();
+        }
+    }
+
+    // //////////////////////////////////////
+
+    /**
+     * Stops tracking changes until {@link #resume() resumed} (as many times as suspended).
+     *
+     * <p>
+     *     Note that some of the events are only raised when the changes are flushed, so callers should flush before
+     *     resuming.
+     * </p>
+     */
+    @Programmatic
+    public void suspend() {
+        scratchpad.put(SUSPENDED_KEY, suspendedDepth() + 1);
+    }
+
+    @Programmatic
+    public void resume() {
+        final int depth = suspendedDepth();
+        scratchpad.put(SUSPENDED_KEY, depth > 1 ? depth - 1 : null);
+    }
+
+    private boolean isSuspended() {
+        return suspendedDepth() > 0;
+    }
+
+    private int suspendedDepth() {
+        final Integer depth = (Integer) scratchpad.get(SUSPENDED_KEY);
+        return depth == null ? 0 : depth;
+    }
+
+    /**
+     * Stamps the leases whose changes have been recorded (and not yet stamped) in the current interaction; to be
+     * called other than from within a flush, and after flushing for changes only recorded when flushed.
+     */
+    @Programmatic
+    public void stampRecorded() {
+        final Set<Lease> recorded = recordedInThisInteraction();
+        if (recorded.isEmpty()) {
+            return;
+        }
+        final Set<Lease> leases = Collections.newSetFromMap(new IdentityHashMap<>());
+        leases.addAll(recorded);
+        recorded.clear();
+        for (Lease lease : leases) {
+            stamp(lease);
+        }
+    }
+
+    /**
+     * Stamps a change to the lease's inputs made other than to the lease, its items or terms (eg by an action feeding
+     * in values from budgets or turnovers), even if tracking is suspended.
+     */
+    @Programmatic
+    public void changed(final Lease lease) {
+        if (lease != null) {
+            stamp(lease);
+        }
+    }
+
+    /**
+     * Records a change to the lease's inputs, to be stamped with the others recorded; for changes that raise their
+     * lifecycle event only when flushed, such as new items.
+     */
+    @Programmatic
+    public void changing(final Lease lease) {
+        touch(lease);
+    }
+
+    // //////////////////////////////////////
+
+    private void touch(final LeaseTerm leaseTerm) {
+        touch(leaseTerm.getLeaseItem());
+    }
+
+    private void touch(final LeaseItem leaseItem) {
+        if (leaseItem != null) {
+            touch(leaseItem.getLease());
+        }
+    }
+
+    private void touch(final Lease lease) {
+        if (lease == null || isSuspended()) {
+            return;
+        }
+        recordedInThisInteraction().add(lease);
+    }
+
+    private Set<Lease> recordedInThisInteraction() {
+        return leasesInThisInteraction(RECORDED_KEY);
+    }
+
+    private Set<Lease> stampedInThisInteraction() {
+        return leasesInThisInteraction(STAMPED_KEY);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<Lease> leasesInThisInteraction(final String key) {
+        Set<Lease> leases = (Set<Lease>) scratchpad.get(key);
+        if (leases == null) {
+            leases = Collections.newSetFromMap(new IdentityHashMap<>());
+            scratchpad.put(key, leases);
+        }
+        return leases;
+    }
+
+    private void stamp(final Lease lease) {
+        stampedInThisInteraction().add(lease);
+        lease.setInvoicingInputsChangedOn(clockService.nowAsLocalDateTime());
+    }
+
+    // //////////////////////////////////////
+
+    @Inject
+    Scratchpad scratchpad;
+
+    @Inject
+    ClockService clockService;
+
+}
@@ -0,0 +1,83 @@
+/*
+ *
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.module.lease.dom.invoicing;
+
+import java.util.List;
+
+import javax.inject.Inject;
+
+import com.google.common.base.Joiner;
+
+import org.apache.isis.applib.annotation.Action;
+import org.apache.isis.applib.annotation.ActionLayout;
+import org.apache.isis.applib.annotation.Contributed;
+import org.apache.isis.applib.annotation.Mixin;
+import org.apache.isis.applib.annotation.SemanticsOf;
+import org.apache.isis.applib.services.message.MessageService;
+
+import org.estatio.module.invoice.dom.Constants;
+import org.estatio.module.numerator.dom.Numerator;
+import org.estatio.module.numerator.dom.NumeratorAllocationService;
+
+/**
+ * Reports the invoice numbers of a property's invoice number numerator that were skipped (eg lost with the rest of a
+ * block reserved in relaxed mode) or whose invoices no longer exist.
+ */
+@Mixin(method = "act")
+public class Numerator_invoiceNumberGaps {
+
+    private static final int MAX_GAPS_REPORTED = 50;
+
+    private final Numerator numerator;
+
+    public Numerator_invoiceNumberGaps(final Numerator numerator) {
+        this.numerator = numerator;
+    }
+
+    @Action(semantics = SemanticsOf.SAFE)
+    @ActionLayout(contributed = Contributed.AS_ACTION)
+    public Numerator act() {
+        final List<String> gaps = numeratorAllocationService.findGaps(
+                numerator, invoiceForLeaseRepository.findInvoiceNumbersIssuedBy(numerator));
+        if (gaps.isEmpty()) {
+            messageService.informUser("No gaps in invoice numbers up to " + numerator.lastIncrementStr());
+        } else {
+            messageService.warnUser(String.format(
+                    "%d gap(s) in invoice numbers: %s%s",
+                    gaps.size(),
+                    Joiner.on(", ").join(gaps.subList(0, Math.min(gaps.size(), MAX_GAPS_REPORTED))),
+                    gaps.size() > MAX_GAPS_REPORTED ? ", ..." : ""));
+        }
+        return numerator;
+    }
+
+    public boolean hideAct() {
+        return !Constants.NumeratorName.INVOICE_NUMBER.equals(numerator.getName()) || !numerator.isScoped();
+    }
+
+    @Inject
+    NumeratorAllocationService numeratorAllocationService;
+
+    @Inject
+    InvoiceForLeaseRepository invoiceForLeaseRepository;
+
+    @Inject
+    MessageService messageService;
+
+}
@@ -0,0 +1,246 @@
+/*
+ *
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.module.lease.dom.invoicing.comms;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.jdo.annotations.Column;
+import javax.jdo.annotations.DatastoreIdentity;
+import javax.jdo.annotations.IdGeneratorStrategy;
+import javax.jdo.annotations.IdentityType;
+import javax.jdo.annotations.PersistenceCapable;
+import javax.jdo.annotations.Queries;
+import javax.jdo.annotations.Query;
+import javax.jdo.annotations.Version;
+import javax.jdo.annotations.VersionStrategy;
+
+import org.joda.time.DateTime;
+import org.joda.time.Duration;
+
+import org.apache.isis.applib.annotation.Action;
+import org.apache.isis.applib.annotation.BookmarkPolicy;
+import org.apache.isis.applib.annotation.DomainObject;
+import org.apache.isis.applib.annotation.DomainObjectLayout;
+import org.apache.isis.applib.annotation.Editing;
+import org.apache.isis.applib.annotation.SemanticsOf;
+import org.apache.isis.applib.annotation.Where;
+import org.apache.isis.applib.services.background.BackgroundService2;
+import org.apache.isis.applib.services.clock.ClockService;
+import org.apache.isis.applib.services.queryresultscache.QueryResultsCache;
+import org.apache.isis.applib.services.xactn.TransactionService;
+
+import org.incode.module.base.dom.types.NotesType;
+import org.incode.module.document.dom.impl.types.DocumentType;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Renders the documents of many invoices in the background, as a handful of concurrent lanes (rather than as one
+ * background command per invoice), recording the outcome of each invoice as an {@link InvoicePreparationJobItem}.
+ *
+ * <p>
+ *     Each lane renders up to {@link #BATCH_SIZE} of its items in one background command and then schedules itself
+ *     again.  Each item is rendered and committed in a transaction of its own: a failure rolls back only that item's
+ *     render, and is then recorded in a fresh transaction.  Lanes never share items, so can be run concurrently; the
+ *     number of lanes is the limit on the concurrency of the job.
+ * </p>
+ */
+@PersistenceCapable(identityType = IdentityType.DATASTORE, schema = "dbo")
+@DatastoreIdentity(strategy = IdGeneratorStrategy.NATIVE, column = "id")
+@Version(strategy = VersionStrategy.VERSION_NUMBER, column = "version")
+@Queries({
+        @Query(
+                name = "findMostRecent", language = "JDOQL",
+                value = "SELECT "
+                        + "FROM org.estatio.module.lease.dom.invoicing.comms.InvoicePreparationJob "
+                        + "ORDER BY createdAt DESC ")
+})
+@DomainObject(
+        objectType = "lease.InvoicePreparationJob",
+        editing = Editing.DISABLED
+)
+@DomainObjectLayout(
+        bookmarking = BookmarkPolicy.AS_ROOT
+)
+public class InvoicePreparationJob {
+
+    public static final int BATCH_SIZE = 20;
+
+    public String title() {
+        return String.format("Prepare %s: %s", getDocumentType().getName(), getDescription());
+    }
+
+    @Column(allowsNull = "false", length = NotesType.Meta.MAX_LEN)
+    @Getter @Setter
+    private String description;
+
+    @Column(name = "documentTypeId", allowsNull = "false")
+    @Getter @Setter
+    private DocumentType documentType;
+
+    @Column(allowsNull = "false")
+    @Getter @Setter
+    private int lanes;
+
+    @Column(allowsNull = "false")
+    @Getter @Setter
+    private DateTime createdAt;
+
+    //region > progress (derived properties)
+
+    public int getTotal() {
+        return getItems().size();
+    }
+
+    public int getPending() {
+        return count(InvoicePreparationJobItem.State.PENDING);
+    }
+
+    public int getPrepared() {
+        return count(InvoicePreparationJobItem.State.PREPARED);
+    }
+
+    public int getFailed() {
+        return count(InvoicePreparationJobItem.State.FAILED);
+    }
+
+    private int count(final InvoicePreparationJobItem.State state) {
+        return (int) getItems().stream().filter(item -> item.getState() == state).count();
+    }
+
+    public DateTime getLastCompletedAt() {
+        return getItems().stream()
+                .map(InvoicePreparationJobItem::getCompletedAt)
+                .filter(completedAt -> completedAt != null)
+                .max(DateTime::compareTo)
+                .orElse(null);
+    }
+
+    /**
+     * Invoices completed (whether prepared or failed) per minute, from the creation of the job until the most
+     * recent completion.
+     */
+    public BigDecimal getThroughputPerMinute() {
+        final DateTime lastCompletedAt = getLastCompletedAt();
+        if (lastCompletedAt == null) {
+            return null;
+        }
+        final long completed = getTotal() - getPending();
+        final long millis = Math.max(1, new Duration(getCreatedAt(), lastCompletedAt).getMillis());
+        return BigDecimal.valueOf(completed * 60_000L).divide(BigDecimal.valueOf(millis), 1, RoundingMode.HALF_UP);
+    }
+
+    //endregion
+
+    //region > items, failures (derived collections)
+
+    public List<InvoicePreparationJobItem> getItems() {
+        return queryResultsCache.execute(
+                () -> invoicePreparationJobRepository.findItemsByJob(this),
+                InvoicePreparationJob.class, "getItems", this);
+    }
+
+    public List<InvoicePreparationJobItem> getFailures() {
+        return getItems().stream()
+                .filter(item -> item.getState() == InvoicePreparationJobItem.State.FAILED)
+                .collect(Collectors.toList());
+    }
+
+    //endregion
+
+    //region > runLane (programmatic)
+
+    @Action(hidden = Where.EVERYWHERE) // so can invoke via BackgroundService
+    public void runLane(final int lane) {
+        final List<InvoicePreparationJobItem> items = invoicePreparationJobRepository
+                .findItemsByJobAndLaneAndState(this, lane, InvoicePreparationJobItem.State.PENDING, BATCH_SIZE + 1);
+        final List<InvoicePreparationJobItem> batch = items.subList(0, Math.min(BATCH_SIZE, items.size()));
+        for (final InvoicePreparationJobItem item : batch) {
+            prepare(item);
+        }
+        if (items.size() > batch.size()) {
+            backgroundService2.execute(this).runLane(lane);
+        }
+    }
+
+    private void prepare(final InvoicePreparationJobItem item) {
+        try {
+            item.getDocument().render(item.getDocumentTemplate(), item.getInvoice());
+            item.setState(InvoicePreparationJobItem.State.PREPARED);
+            item.setCompletedAt(clockService.nowAsDateTime());
+            transactionService.nextTransaction();
+        } catch (RuntimeException ex) {
+            // the content is only set once rendered; should the render (or the commit) have failed in the
+            // persistence layer instead, the transaction is marked for abort and so is rolled back here
+            transactionService.nextTransaction(TransactionService.Policy.ALWAYS);
+            item.setState(InvoicePreparationJobItem.State.FAILED);
+            item.setFailureMessage(trim(String.valueOf(ex.getMessage()), NotesType.Meta.MAX_LEN));
+            item.setCompletedAt(clockService.nowAsDateTime());
+            transactionService.nextTransaction();
+        }
+    }
+
+    private static String trim(final String str, final int length) {
+        return str.length() > length ? str.substring(0, length) : str;
+    }
+
+    //endregion
+
+    //region > retryFailures (action)
+
+    @Action(semantics = SemanticsOf.NON_IDEMPOTENT)
+    public InvoicePreparationJob retryFailures() {
+        for (final InvoicePreparationJobItem item : getFailures()) {
+            item.setState(InvoicePreparationJobItem.State.PENDING);
+            item.setFailureMessage(null);
+            item.setCompletedAt(null);
+        }
+        for (int lane = 0; lane < getLanes(); lane++) {
+            backgroundService2.execute(this).runLane(lane);
+        }
+        return this;
+    }
+
+    public String disableRetryFailures() {
+        return getFailed() == 0 ? "No failures to retry" : null;
+    }
+
+    //endregion
+
+    @Inject
+    InvoicePreparationJobRepository invoicePreparationJobRepository;
+
+    @Inject
+    BackgroundService2 backgroundService2;
+
+    @Inject
+    ClockService clockService;
+
+    @Inject
+    QueryResultsCache queryResultsCache;
+
+    @Inject
+    TransactionService transactionService;
+
+}
@@ -0,0 +1,126 @@
+/*
+ *
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.module.lease.dom.invoicing.comms;
+
+import javax.jdo.annotations.Column;
+import javax.jdo.annotations.DatastoreIdentity;
+import javax.jdo.annotations.IdGeneratorStrategy;
+import javax.jdo.annotations.IdentityType;
+import javax.jdo.annotations.Index;
+import javax.jdo.annotations.Indices;
+import javax.jdo.annotations.PersistenceCapable;
+import javax.jdo.annotations.Queries;
+import javax.jdo.annotations.Query;
+import javax.jdo.annotations.Version;
+import javax.jdo.annotations.VersionStrategy;
+
+import org.joda.time.DateTime;
+
+import org.apache.isis.applib.annotation.DomainObject;
+import org.apache.isis.applib.annotation.Editing;
+import org.apache.isis.applib.annotation.Property;
+import org.apache.isis.applib.annotation.Where;
+
+import org.incode.module.base.dom.types.NotesType;
+import org.incode.module.document.dom.impl.docs.Document;
+import org.incode.module.document.dom.impl.docs.DocumentTemplate;
+
+import org.estatio.module.lease.dom.invoicing.InvoiceForLease;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The rendering of the document of a single invoice, as part of an {@link InvoicePreparationJob}.
+ */
+@PersistenceCapable(identityType = IdentityType.DATASTORE, schema = "dbo")
+@DatastoreIdentity(strategy = IdGeneratorStrategy.NATIVE, column = "id")
+@Version(strategy = VersionStrategy.VERSION_NUMBER, column = "version")
+@Queries({
+        @Query(
+                name = "findByJob", language = "JDOQL",
+                value = "SELECT "
+                        + "FROM org.estatio.module.lease.dom.invoicing.comms.InvoicePreparationJobItem "
+                        + "WHERE job == :job "),
+        @Query(
+                name = "findByJobAndLaneAndState", language = "JDOQL",
+                value = "SELECT "
+                        + "FROM org.estatio.module.lease.dom.invoicing.comms.InvoicePreparationJobItem "
+                        + "WHERE job == :job "
+                        + "   && lane == :lane "
+                        + "   && state == :state ")
+})
+@Indices({
+        @Index(name = "InvoicePreparationJobItem_job_lane_state_IDX", members = { "job", "lane", "state" })
+})
+@DomainObject(
+        objectType = "lease.InvoicePreparationJobItem",
+        editing = Editing.DISABLED
+)
+public class InvoicePreparationJobItem {
+
+    public enum State {
+        PENDING,
+        PREPARED,
+        FAILED
+    }
+
+    public String title() {
+        return String.format("%s: %s", getInvoice().getNumber(), getState());
+    }
+
+    @Column(name = "jobId", allowsNull = "false")
+    @Getter @Setter
+    @Property(hidden = Where.PARENTED_TABLES)
+    private InvoicePreparationJob job;
+
+    /**
+     * Items in the same lane are rendered one after the other; lanes are rendered concurrently.
+     */
+    @Column(allowsNull = "false")
+    @Getter @Setter
+    @Property(hidden = Where.EVERYWHERE)
+    private int lane;
+
+    @Column(name = "invoiceId", allowsNull = "false")
+    @Getter @Setter
+    private InvoiceForLease invoice;
+
+    @Column(name = "documentId", allowsNull = "false")
+    @Getter @Setter
+    private Document document;
+
+    @Column(name = "documentTemplateId", allowsNull = "false")
+    @Getter @Setter
+    @Property(hidden = Where.ALL_TABLES)
+    private DocumentTemplate documentTemplate;
+
+    @Column(allowsNull = "false")
+    @Getter @Setter
+    private State state;
+
+    @Column(allowsNull = "true")
+    @Getter @Setter
+    private DateTime completedAt;
+
+    @Column(allowsNull = "true", length = NotesType.Meta.MAX_LEN)
+    @Getter @Setter
+    private String failureMessage;
+
+}
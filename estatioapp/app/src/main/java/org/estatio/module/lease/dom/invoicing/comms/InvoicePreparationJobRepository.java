@@ -0,0 +1,130 @@
+/*
+ *
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.module.lease.dom.invoicing.comms;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+
+import org.apache.isis.applib.annotation.DomainService;
+import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.annotation.Programmatic;
+import org.apache.isis.applib.query.QueryDefault;
+import org.apache.isis.applib.services.background.BackgroundService2;
+import org.apache.isis.applib.services.clock.ClockService;
+import org.apache.isis.applib.services.repository.RepositoryService;
+
+import org.incode.module.document.dom.impl.docs.Document;
+import org.incode.module.document.dom.impl.docs.DocumentTemplate;
+import org.incode.module.document.dom.impl.types.DocumentType;
+
+import org.estatio.module.lease.dom.invoicing.InvoiceForLease;
+
+@DomainService(
+        nature = NatureOfService.DOMAIN,
+        repositoryFor = InvoicePreparationJob.class
+)
+public class InvoicePreparationJobRepository {
+
+    public static final int DEFAULT_LANES = 4;
+
+    /**
+     * Creates a job to render each of the (already created and attached, but not yet rendered) documents, spread
+     * round-robin over at most the given number of lanes, and schedules each lane in the background.
+     */
+    @Programmatic
+    public InvoicePreparationJob start(
+            final String description,
+            final DocumentType documentType,
+            final Map<InvoiceForLease, Document> documentByInvoice,
+            final Map<InvoiceForLease, DocumentTemplate> templateByInvoice,
+            final int maxLanes) {
+
+        final int lanes = Math.max(1, Math.min(maxLanes, documentByInvoice.size()));
+
+        final InvoicePreparationJob job = new InvoicePreparationJob();
+        job.setDescription(description);
+        job.setDocumentType(documentType);
+        job.setLanes(lanes);
+        job.setCreatedAt(clockService.nowAsDateTime());
+        repositoryService.persist(job);
+
+        int i = 0;
+        for (final Map.Entry<InvoiceForLease, Document> entry : documentByInvoice.entrySet()) {
+            final InvoicePreparationJobItem item = new InvoicePreparationJobItem();
+            item.setJob(job);
+            item.setLane(i++ % lanes);
+            item.setInvoice(entry.getKey());
+            item.setDocument(entry.getValue());
+            item.setDocumentTemplate(templateByInvoice.get(entry.getKey()));
+            item.setState(InvoicePreparationJobItem.State.PENDING);
+            repositoryService.persist(item);
+        }
+
+        for (int lane = 0; lane < lanes; lane++) {
+            backgroundService2.execute(job).runLane(lane);
+        }
+        return job;
+    }
+
+    @Programmatic
+    public List<InvoicePreparationJob> findMostRecent(final int count) {
+        return repositoryService.allMatches(
+                new QueryDefault<>(
+                        InvoicePreparationJob.class,
+                        "findMostRecent")
+                        .withCount(count));
+    }
+
+    @Programmatic
+    public List<InvoicePreparationJobItem> findItemsByJob(final InvoicePreparationJob job) {
+        return repositoryService.allMatches(
+                new QueryDefault<>(
+                        InvoicePreparationJobItem.class,
+                        "findByJob",
+                        "job", job));
+    }
+
+    @Programmatic
+    public List<InvoicePreparationJobItem> findItemsByJobAndLaneAndState(
+            final InvoicePreparationJob job,
+            final int lane,
+            final InvoicePreparationJobItem.State state,
+            final int count) {
+        return repositoryService.allMatches(
+                new QueryDefault<>(
+                        InvoicePreparationJobItem.class,
+                        "findByJobAndLaneAndState",
+                        "job", job,
+                        "lane", lane,
+                        "state", state)
+                        .withCount(count));
+    }
+
+    @Inject
+    RepositoryService repositoryService;
+
+    @Inject
+    BackgroundService2 backgroundService2;
+
+    @Inject
+    ClockService clockService;
+
+}
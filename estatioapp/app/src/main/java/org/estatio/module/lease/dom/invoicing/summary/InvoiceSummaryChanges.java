@@ -0,0 +1,99 @@
+/*
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.module.lease.dom.invoicing.summary;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.enterprise.context.RequestScoped;
+import javax.jdo.JDOHelper;
+
+import org.apache.isis.applib.annotation.DomainService;
+import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.annotation.Programmatic;
+
+import org.estatio.module.lease.dom.invoicing.InvoiceForLease;
+
+/**
+ * Request-scoped record of the invoices (for lease) changed, and of the groups of the {@link InvoiceSummaryTotal}s
+ * they belonged to, that are yet to be {@link InvoiceSummaryTotalService#refreshPending() refreshed}; also tracks the
+ * nesting of the actions being executed, so that they are refreshed once the outermost one completes.
+ *
+ * <p>
+ *     Refreshing a group recalculates it from the invoices, so it does no harm should a group remain recorded after
+ *     the transaction that changed it was rolled back.
+ * </p>
+ */
+@DomainService(nature = NatureOfService.DOMAIN)
+@RequestScoped
+public class InvoiceSummaryChanges {
+
+    private final Set<InvoiceSummaryKey> keys = new LinkedHashSet<>();
+    private final Set<InvoiceForLease> invoices = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int actionDepth;
+
+    /**
+     * Records the groups the invoice belongs to now and, once {@link #drain() drained}, then.
+     */
+    @Programmatic
+    public void add(final InvoiceForLease invoice) {
+        if (!JDOHelper.isDeleted(invoice)) {
+            keys.addAll(InvoiceSummaryKey.keysOf(invoice));
+        }
+        invoices.add(invoice);
+    }
+
+    /**
+     * The groups recorded, including those the (still persistent) changed invoices belong to by now, which are then
+     * forgotten.
+     */
+    @Programmatic
+    public List<InvoiceSummaryKey> drain() {
+        for (final InvoiceForLease invoice : invoices) {
+            if (JDOHelper.isPersistent(invoice) && !JDOHelper.isDeleted(invoice)) {
+                keys.addAll(InvoiceSummaryKey.keysOf(invoice));
+            }
+        }
+        final List<InvoiceSummaryKey> drained = new ArrayList<>(keys);
+        keys.clear();
+        invoices.clear();
+        return drained;
+    }
+
+    @Programmatic
+    public void actionExecuting() {
+        actionDepth++;
+    }
+
+    /**
+     * @return whether it was the outermost action that has been executed.
+     */
+    @Programmatic
+    public boolean actionExecuted() {
+        if (actionDepth == 0) {
+            return false;
+        }
+        actionDepth--;
+        return actionDepth == 0;
+    }
+
+}
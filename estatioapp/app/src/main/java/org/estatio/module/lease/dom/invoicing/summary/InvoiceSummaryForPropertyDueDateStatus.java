@@ -66,6 +66,19 @@ import lombok.Setter;
                                 "  {this.grossAmount} " +
                                 ") AS " +
                                 "SELECT " +
+                                "  t.\"atPath\", " +
+                                "  t.\"sellerReference\", " +
+                                "  t.\"dueDate\", " +
+                                "  t.\"status\", " +
+                                "  t.\"total\", " +
+                                "  t.\"netAmount\", " +
+                                "  t.\"vatAmount\", " +
+                                "  t.\"grossAmount\" " +
+                                "FROM \"dbo\".\"InvoiceSummaryTotal\" t " +
+                                "WHERE t.\"kind\" = 'PROPERTY_DUE_DATE_STATUS' " +
+                                "UNION ALL " +
+                                // until the totals are first built, falls back to the live aggregate
+                                "SELECT " +
                                 "  i.\"atPath\", " +
                                 "  p.\"reference\" , " +
                                 "  i.\"dueDate\", " +
@@ -80,6 +93,9 @@ import lombok.Setter;
                                 "  INNER JOIN \"dbo\".\"Party\" p " +
                                 "    ON p.\"id\" = i.\"sellerPartyId\" " +
                                 "WHERE i.\"discriminator\" = 'org.estatio.dom.invoice.Invoice' " +
+                                "  AND NOT EXISTS ( " +
+                                "    SELECT 1 FROM \"dbo\".\"InvoiceSummaryTotal\" c " +
+                                "    WHERE c.\"kind\" = 'PROPERTY_DUE_DATE_STATUS') " +
                                 "GROUP BY " +
                                 "  i.\"atPath\", " +
                                 "  p.\"reference\", " +
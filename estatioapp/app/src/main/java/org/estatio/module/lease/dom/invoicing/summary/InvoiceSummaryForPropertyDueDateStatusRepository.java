@@ -19,6 +19,8 @@ package org.estatio.module.lease.dom.invoicing.summary;
 
 import java.util.List;
 
+import javax.inject.Inject;
+
 import org.joda.time.LocalDate;
 
 import org.apache.isis.applib.annotation.DomainService;
@@ -39,6 +41,7 @@ public class InvoiceSummaryForPropertyDueDateStatusRepository
     @Programmatic
     public List<InvoiceSummaryForPropertyDueDateStatus> findInvoicesByStatus(
             final InvoiceStatus status) {
+        invoiceSummaryTotalService.refreshPending();
         return allMatches("findByStatus",
                 "status", status);
     }
@@ -47,6 +50,7 @@ public class InvoiceSummaryForPropertyDueDateStatusRepository
     public List<InvoiceSummaryForPropertyDueDateStatus> findInvoicesByStatusAndDueDateAfter(
             final InvoiceStatus status,
             final LocalDate fromDate) {
+        invoiceSummaryTotalService.refreshPending();
         return allMatches("findByStatusAndDueDateAfter",
                 "status", status,
                 "dueDateAfter", fromDate);
@@ -57,6 +61,7 @@ public class InvoiceSummaryForPropertyDueDateStatusRepository
                 final String atPath,
                 final String sellerReference,
                 final InvoiceStatus status) {
+        invoiceSummaryTotalService.refreshPending();
         return allMatches("findByAtPathAndSellerReferenceAndStatus",
                 "atPath", atPath,
                 "sellerReference", sellerReference,
@@ -69,6 +74,7 @@ public class InvoiceSummaryForPropertyDueDateStatusRepository
                 final String sellerReference,
                 final InvoiceStatus status,
                 final LocalDate dueDate) {
+        invoiceSummaryTotalService.refreshPending();
         return allMatches("findByAtPathAndSellerReferenceAndStatusAndDueDate",
                 "atPath", atPath,
                 "sellerReference", sellerReference,
@@ -76,4 +82,7 @@ public class InvoiceSummaryForPropertyDueDateStatusRepository
                 "dueDate", dueDate);
     }
 
+    @Inject
+    InvoiceSummaryTotalService invoiceSummaryTotalService;
+
 }
@@ -61,6 +61,18 @@ import lombok.Setter;
                                 "  {this.grossAmount} " +
                                 ") AS " +
                                 "SELECT " +
+                                "  t.\"atPath\", " +
+                                "  t.\"sellerReference\", " +
+                                "  t.\"invoiceDate\", " +
+                                "  t.\"total\", " +
+                                "  t.\"netAmount\", " +
+                                "  t.\"vatAmount\", " +
+                                "  t.\"grossAmount\" " +
+                                "FROM \"dbo\".\"InvoiceSummaryTotal\" t " +
+                                "WHERE t.\"kind\" = 'PROPERTY_INVOICE_DATE' " +
+                                "UNION ALL " +
+                                // until the totals are first built, falls back to the live aggregate
+                                "SELECT " +
                                 "  i.\"atPath\", " +
                                 "  p.\"reference\" , " +
                                 "  i.\"invoiceDate\", " +
@@ -74,6 +86,9 @@ import lombok.Setter;
                                 "  INNER JOIN \"dbo\".\"Party\" p " +
                                 "    ON p.\"id\" = i.\"sellerPartyId\" " +
                                 "WHERE i.\"discriminator\" = 'org.estatio.dom.invoice.Invoice' " +
+                                "  AND NOT EXISTS ( " +
+                                "    SELECT 1 FROM \"dbo\".\"InvoiceSummaryTotal\" c " +
+                                "    WHERE c.\"kind\" = 'PROPERTY_INVOICE_DATE') " +
                                 "GROUP BY " +
                                 "  i.\"atPath\", " +
                                 "  p.\"reference\", " +
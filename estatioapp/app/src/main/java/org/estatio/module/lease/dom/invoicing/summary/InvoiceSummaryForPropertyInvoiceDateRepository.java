@@ -19,6 +19,8 @@ package org.estatio.module.lease.dom.invoicing.summary;
 
 import java.util.List;
 
+import javax.inject.Inject;
+
 import org.joda.time.LocalDate;
 
 import org.apache.isis.applib.annotation.DomainService;
@@ -37,12 +39,17 @@ public class InvoiceSummaryForPropertyInvoiceDateRepository
 
     @Programmatic
     public List<InvoiceSummaryForPropertyInvoiceDate> allInvoices() {
+        invoiceSummaryTotalService.refreshPending();
         return allMatches("all");
     }
 
     @Programmatic
     public List<InvoiceSummaryForPropertyInvoiceDate> byInvoiceDate(final LocalDate date) {
+        invoiceSummaryTotalService.refreshPending();
         return allMatches("byInvoiceDate", "date", date);
     }
 
+    @Inject
+    InvoiceSummaryTotalService invoiceSummaryTotalService;
+
 }
@@ -0,0 +1,88 @@
+/*
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.module.lease.dom.invoicing.summary;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.joda.time.LocalDate;
+
+import org.estatio.module.invoice.dom.InvoiceStatus;
+import org.estatio.module.lease.dom.invoicing.InvoiceForLease;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Identifies the group of invoices of one {@link InvoiceSummaryTotal}.
+ */
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class InvoiceSummaryKey {
+
+    @Getter
+    private final InvoiceSummaryTotal.Kind kind;
+    @Getter
+    private final String atPath;
+    @Getter
+    private final String sellerReference;
+    @Getter
+    private final LocalDate dueDate;
+    @Getter
+    private final InvoiceStatus status;
+    @Getter
+    private final LocalDate invoiceDate;
+
+    /**
+     * The keys of the groups the invoice currently belongs to, mirroring the joins of the live aggregates of the
+     * <tt>view-definition</tt>s: the summaries by property require a seller.
+     */
+    public static List<InvoiceSummaryKey> keysOf(final InvoiceForLease invoice) {
+        final List<InvoiceSummaryKey> keys = new ArrayList<>();
+        final String atPath = invoice.getApplicationTenancyPath();
+        if (invoice.getSeller() != null) {
+            final String sellerReference = invoice.getSeller().getReference();
+            keys.add(new InvoiceSummaryKey(
+                    InvoiceSummaryTotal.Kind.PROPERTY_DUE_DATE_STATUS, atPath, sellerReference, invoice.getDueDate(), invoice.getStatus(), null));
+            keys.add(new InvoiceSummaryKey(
+                    InvoiceSummaryTotal.Kind.PROPERTY_INVOICE_DATE, atPath, sellerReference, null, null, invoice.getInvoiceDate()));
+        }
+        return keys;
+    }
+
+    /**
+     * The key of the group of the kind with the given key columns, as selected by
+     * {@link InvoiceSummaryTotalRepository#aggregate(InvoiceSummaryTotal.Kind, java.util.Collection)}.
+     */
+    public static InvoiceSummaryKey of(final InvoiceSummaryTotal.Kind kind, final Object[] columns) {
+        switch (kind) {
+        case PROPERTY_DUE_DATE_STATUS:
+            return new InvoiceSummaryKey(
+                    kind, (String) columns[0], (String) columns[1], (LocalDate) columns[2], (InvoiceStatus) columns[3], null);
+        case PROPERTY_INVOICE_DATE:
+            return new InvoiceSummaryKey(
+                    kind, (String) columns[0], (String) columns[1], null, null, (LocalDate) columns[2]);
+        default:
+            throw new IllegalArgumentException(String.format("Unknown kind %s", kind));
+        }
+    }
+
+}
@@ -0,0 +1,147 @@
+/*
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.module.lease.dom.invoicing.summary;
+
+import java.math.BigDecimal;
+
+import javax.jdo.annotations.Column;
+import javax.jdo.annotations.IdGeneratorStrategy;
+import javax.jdo.annotations.IdentityType;
+import javax.jdo.annotations.Query;
+import javax.jdo.annotations.Unique;
+import javax.jdo.annotations.VersionStrategy;
+
+import org.joda.time.LocalDate;
+
+import org.apache.isis.applib.annotation.DomainObject;
+import org.apache.isis.applib.annotation.Editing;
+import org.apache.isis.applib.annotation.Programmatic;
+
+import org.incode.module.base.dom.types.ReferenceType;
+import org.incode.module.document.dom.types.AtPathType;
+
+import org.estatio.module.invoice.dom.InvoiceStatus;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The cached totals of one group of invoices (for lease) of one of the invoice summaries by property, as read by the
+ * <tt>view-definition</tt>s of {@link InvoiceSummaryForPropertyDueDateStatus} and
+ * {@link InvoiceSummaryForPropertyInvoiceDate}.
+ *
+ * <p>
+ *     Maintained by the {@link InvoiceSummaryTotalService}; only the key properties that apply to the
+ *     {@link #getKind() kind} of summary are set.  As long as there are no totals of a kind at all, the
+ *     <tt>view-definition</tt> of that kind falls back to the live aggregate.
+ * </p>
+ */
+@javax.jdo.annotations.PersistenceCapable(
+        identityType = IdentityType.DATASTORE
+        , schema = "dbo" // Isis' ObjectSpecId inferred from @DomainObject#objectType
+)
+@javax.jdo.annotations.DatastoreIdentity(
+        strategy = IdGeneratorStrategy.NATIVE,
+        column = "id")
+@javax.jdo.annotations.Version(
+        strategy = VersionStrategy.VERSION_NUMBER,
+        column = "version")
+@javax.jdo.annotations.Queries({
+        @Query(
+                name = "findByKey", language = "JDOQL",
+                value = "SELECT " +
+                        "FROM org.estatio.module.lease.dom.invoicing.summary.InvoiceSummaryTotal " +
+                        "WHERE kind == :kind " +
+                        "   && atPath == :atPath " +
+                        "   && sellerReference == :sellerReference " +
+                        "   && dueDate == :dueDate " +
+                        "   && status == :status " +
+                        "   && invoiceDate == :invoiceDate "),
+        @Query(
+                name = "findByKind", language = "JDOQL",
+                value = "SELECT " +
+                        "FROM org.estatio.module.lease.dom.invoicing.summary.InvoiceSummaryTotal " +
+                        "WHERE kind == :kind "),
+        @Query(
+                name = "findByKindAndAtPathIn", language = "JDOQL",
+                value = "SELECT " +
+                        "FROM org.estatio.module.lease.dom.invoicing.summary.InvoiceSummaryTotal " +
+                        "WHERE kind == :kind " +
+                        "   && :atPaths.contains(atPath) ")
+})
+@javax.jdo.annotations.Indices({
+        @javax.jdo.annotations.Index(name = "InvoiceSummaryTotal_kind_status_dueDate_IDX",
+                members = { "kind", "status", "dueDate" })
+})
+@Unique(name = "InvoiceSummaryTotal_key_UNQ", members = { "kind", "atPath", "sellerReference", "dueDate", "status", "invoiceDate" })
+@DomainObject(
+        editing = Editing.DISABLED,
+        objectType = "lease.InvoiceSummaryTotal"
+)
+public class InvoiceSummaryTotal {
+
+    public enum Kind {
+        PROPERTY_DUE_DATE_STATUS,
+        PROPERTY_INVOICE_DATE
+    }
+
+    @Column(allowsNull = "false", length = 30)
+    @Getter @Setter
+    private Kind kind;
+
+    @Column(allowsNull = "false", length = AtPathType.Meta.MAX_LEN)
+    @Getter @Setter
+    private String atPath;
+
+    @Column(allowsNull = "true", length = ReferenceType.Meta.MAX_LEN)
+    @Getter @Setter
+    private String sellerReference;
+
+    @Column(allowsNull = "true")
+    @Getter @Setter
+    private LocalDate dueDate;
+
+    @Column(allowsNull = "true", length = InvoiceStatus.Meta.MAX_LEN)
+    @Getter @Setter
+    private InvoiceStatus status;
+
+    @Column(allowsNull = "true")
+    @Getter @Setter
+    private LocalDate invoiceDate;
+
+    @Getter @Setter
+    private int total;
+
+    @Column(allowsNull = "true", scale = 2)
+    @Getter @Setter
+    private BigDecimal netAmount;
+
+    @Column(allowsNull = "true", scale = 2)
+    @Getter @Setter
+    private BigDecimal vatAmount;
+
+    @Column(allowsNull = "true", scale = 2)
+    @Getter @Setter
+    private BigDecimal grossAmount;
+
+    @Programmatic
+    public InvoiceSummaryKey key() {
+        return new InvoiceSummaryKey(getKind(), getAtPath(), getSellerReference(), getDueDate(), getStatus(), getInvoiceDate());
+    }
+
+}
@@ -0,0 +1,151 @@
+/*
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.module.lease.dom.invoicing.summary;
+
+import java.util.Collection;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.jdo.Query;
+
+import com.google.common.collect.Lists;
+
+import org.apache.isis.applib.annotation.DomainService;
+import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.annotation.Programmatic;
+import org.apache.isis.applib.query.QueryDefault;
+import org.apache.isis.applib.services.repository.RepositoryService;
+
+import org.estatio.module.base.dom.UdoDomainRepositoryAndFactory;
+
+@DomainService(nature = NatureOfService.DOMAIN, repositoryFor = InvoiceSummaryTotal.class)
+public class InvoiceSummaryTotalRepository extends UdoDomainRepositoryAndFactory<InvoiceSummaryTotal> {
+
+    public InvoiceSummaryTotalRepository() {
+        super(InvoiceSummaryTotalRepository.class, InvoiceSummaryTotal.class);
+    }
+
+    @Programmatic
+    public InvoiceSummaryTotal findByKey(final InvoiceSummaryKey key) {
+        return uniqueMatch("findByKey",
+                "kind", key.getKind(),
+                "atPath", key.getAtPath(),
+                "sellerReference", key.getSellerReference(),
+                "dueDate", key.getDueDate(),
+                "status", key.getStatus(),
+                "invoiceDate", key.getInvoiceDate());
+    }
+
+    /**
+     * The stored totals of the kind, restricted (unless null) to those of the given atPaths.
+     */
+    @Programmatic
+    public List<InvoiceSummaryTotal> findByKind(
+            final InvoiceSummaryTotal.Kind kind,
+            final Collection<String> atPaths) {
+        return atPaths == null
+                ? allMatches("findByKind", "kind", kind)
+                : allMatches("findByKindAndAtPathIn", "kind", kind, "atPaths", atPaths);
+    }
+
+    /**
+     * Whether there are any stored totals of the kind, ie whether they have been built (and so are read by the
+     * <tt>view-definition</tt> rather than the live aggregate).
+     */
+    @Programmatic
+    public boolean isBuilt(final InvoiceSummaryTotal.Kind kind) {
+        return !repositoryService.allMatches(
+                new QueryDefault<>(
+                        InvoiceSummaryTotal.class,
+                        "findByKind",
+                        "kind", kind)
+                        .withCount(1))
+                .isEmpty();
+    }
+
+    /**
+     * Aggregates the invoices (for lease) and their items by the groups of the kind, restricted (unless null) to
+     * those of the given atPaths, in a single query; mirrors the joins of the live aggregates of the
+     * <tt>view-definition</tt>s.
+     *
+     * @return the key columns of each group (as per {@link InvoiceSummaryKey#of(InvoiceSummaryTotal.Kind, Object[])}),
+     *         followed by the number of invoices and the sums of the net, vat and gross amounts of their items.
+     */
+    @Programmatic
+    @SuppressWarnings("unchecked")
+    public List<Object[]> aggregate(
+            final InvoiceSummaryTotal.Kind kind,
+            final Collection<String> atPaths) {
+        final String groupBy;
+        switch (kind) {
+        case PROPERTY_DUE_DATE_STATUS:
+            groupBy = "applicationTenancyPath, seller.reference, dueDate, status";
+            break;
+        case PROPERTY_INVOICE_DATE:
+            groupBy = "applicationTenancyPath, seller.reference, invoiceDate";
+            break;
+        default:
+            throw new IllegalArgumentException(String.format("Unknown kind %s", kind));
+        }
+        String filter = "items.contains(item) && seller != null";
+        if (atPaths != null) {
+            filter += " && :atPaths.contains(applicationTenancyPath)";
+        }
+        final Query query = newQuery(
+                "SELECT " + groupBy + ", count(DISTINCT this), "
+                        + "sum(item.netAmount), sum(item.vatAmount), sum(item.grossAmount) "
+                        + "FROM org.estatio.module.lease.dom.invoicing.InvoiceForLease "
+                        + "WHERE " + filter + " "
+                        + "VARIABLES org.estatio.module.invoice.dom.InvoiceItem item "
+                        + "GROUP BY " + groupBy);
+        try {
+            return Lists.newArrayList((List<Object[]>) (atPaths != null
+                    ? query.execute(atPaths)
+                    : query.execute()));
+        } finally {
+            query.closeAll();
+        }
+    }
+
+    @Programmatic
+    public InvoiceSummaryTotal newTotal(final InvoiceSummaryKey key) {
+        final InvoiceSummaryTotal total = new InvoiceSummaryTotal();
+        total.setKind(key.getKind());
+        total.setAtPath(key.getAtPath());
+        total.setSellerReference(key.getSellerReference());
+        total.setDueDate(key.getDueDate());
+        total.setStatus(key.getStatus());
+        total.setInvoiceDate(key.getInvoiceDate());
+        repositoryService.persist(total);
+        return total;
+    }
+
+    @Programmatic
+    public void remove(final InvoiceSummaryTotal total) {
+        repositoryService.remove(total);
+    }
+
+    @Programmatic
+    public List<InvoiceSummaryTotal> allTotals() {
+        return allInstances();
+    }
+
+    @Inject
+    RepositoryService repositoryService;
+
+}
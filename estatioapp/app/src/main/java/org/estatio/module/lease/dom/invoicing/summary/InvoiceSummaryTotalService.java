@@ -0,0 +1,301 @@
+/*
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.module.lease.dom.invoicing.summary;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import javax.inject.Inject;
+
+import org.apache.isis.applib.AbstractSubscriber;
+import org.apache.isis.applib.annotation.DomainService;
+import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.annotation.Programmatic;
+import org.apache.isis.applib.services.eventbus.ActionDomainEvent;
+import org.apache.isis.applib.services.xactn.TransactionService;
+
+import org.estatio.module.lease.dom.invoicing.InvoiceForLease;
+import org.estatio.module.lease.dom.invoicing.InvoiceItemForLease;
+
+/**
+ * Maintains the {@link InvoiceSummaryTotal}s, in the same transaction as the changes to the invoices (for lease) and
+ * their {@link InvoiceItemForLease items}: every change marks the groups the invoice belongs to, both before (the
+ * updating lifecycle event is posted before the first change to an object) and after the change.
+ *
+ * <p>
+ *     The marked groups are {@link #refreshPending() refreshed} once the outermost action completes, and before any
+ *     of the summaries by property are read, with one aggregate query per kind of summary.  Concurrent transactions
+ *     changing invoices of the same group therefore conflict over its totals (and the losing transaction is rolled
+ *     back, like for any other object), but the totals never lag behind a committed change.
+ * </p>
+ *
+ * <p>
+ *     The totals are only a cache: until the totals of a kind are first {@link #rebuildAll() rebuilt} they are
+ *     neither refreshed nor read, the <tt>view-definition</tt> falling back to the live aggregate.
+ *     {@link #rebuildAll()} and {@link #verifyAll()} recalculate all groups, again with one aggregate query per kind.
+ * </p>
+ */
+@DomainService(nature = NatureOfService.DOMAIN)
+public class InvoiceSummaryTotalService extends AbstractSubscriber {
+
+    @Programmatic
+    @com.google.common.eventbus.Subscribe
+    @org.axonframework.eventhandling.annotation.EventHandler
+    public void on(final InvoiceForLease.PersistingLifecycleEvent ev) {
+        changed(ev.getSource());
+    }
+
+    @Programmatic
+    @com.google.common.eventbus.Subscribe
+    @org.axonframework.eventhandling.annotation.EventHandler
+    public void on(final InvoiceForLease.UpdatingLifecycleEvent ev) {
+        changed(ev.getSource());
+    }
+
+    @Programmatic
+    @com.google.common.eventbus.Subscribe
+    @org.axonframework.eventhandling.annotation.EventHandler
+    public void on(final InvoiceForLease.RemovingLifecycleEvent ev) {
+        changed(ev.getSource());
+    }
+
+    @Programmatic
+    @com.google.common.eventbus.Subscribe
+    @org.axonframework.eventhandling.annotation.EventHandler
+    public void on(final InvoiceItemForLease.PersistingLifecycleEvent ev) {
+        changed(ev.getSource());
+    }
+
+    @Programmatic
+    @com.google.common.eventbus.Subscribe
+    @org.axonframework.eventhandling.annotation.EventHandler
+    public void on(final InvoiceItemForLease.UpdatingLifecycleEvent ev) {
+        changed(ev.getSource());
+    }
+
+    @Programmatic
+    @com.google.common.eventbus.Subscribe
+    @org.axonframework.eventhandling.annotation.EventHandler
+    public void on(final InvoiceItemForLease.RemovingLifecycleEvent ev) {
+        changed(ev.getSource());
+    }
+
+    @Programmatic
+    @com.google.common.eventbus.Subscribe
+    @org.axonframework.eventhandling.annotation.EventHandler
+    public void on(final ActionDomainEvent<?> ev) {
+        switch (ev.getEventPhase()) {
+        case EXECUTING:
+            invoiceSummaryChanges.actionExecuting();
+            break;
+        case EXECUTED:
+            if (invoiceSummaryChanges.actionExecuted()) {
+                refreshPending();
+            }
+            break;
+        default:
+            break;
+        }
+    }
+
+    private void changed(final InvoiceItemForLease item) {
+        if (item.getInvoice() instanceof InvoiceForLease) {
+            changed((InvoiceForLease) item.getInvoice());
+        }
+    }
+
+    private void changed(final InvoiceForLease invoice) {
+        invoiceSummaryChanges.add(invoice);
+    }
+
+    // //////////////////////////////////////
+
+    /**
+     * Flushes the current transaction, and refreshes the groups marked by the changes so far.
+     */
+    @Programmatic
+    public void refreshPending() {
+        transactionService.flushTransaction();
+        final List<InvoiceSummaryKey> keys = invoiceSummaryChanges.drain();
+        if (!keys.isEmpty()) {
+            refresh(keys);
+        }
+    }
+
+    /**
+     * Recalculates the totals of the groups (of those kinds that have been built), with one aggregate query per kind.
+     */
+    @Programmatic
+    public void refresh(final Collection<InvoiceSummaryKey> keys) {
+        final Map<InvoiceSummaryTotal.Kind, Set<String>> atPathsByKind = new EnumMap<>(InvoiceSummaryTotal.Kind.class);
+        for (final InvoiceSummaryKey key : keys) {
+            atPathsByKind.computeIfAbsent(key.getKind(), kind -> new LinkedHashSet<>()).add(key.getAtPath());
+        }
+        for (final Map.Entry<InvoiceSummaryTotal.Kind, Set<String>> entry : atPathsByKind.entrySet()) {
+            final InvoiceSummaryTotal.Kind kind = entry.getKey();
+            if (!invoiceSummaryTotalRepository.isBuilt(kind)) {
+                continue;
+            }
+            final Map<InvoiceSummaryKey, Totals> totalsByKey =
+                    totalsByKey(kind, invoiceSummaryTotalRepository.aggregate(kind, entry.getValue()));
+            final Map<InvoiceSummaryKey, InvoiceSummaryTotal> existingByKey = new HashMap<>();
+            for (final InvoiceSummaryTotal existing : invoiceSummaryTotalRepository.findByKind(kind, entry.getValue())) {
+                existingByKey.put(existing.key(), existing);
+            }
+            for (final InvoiceSummaryKey key : keys) {
+                if (key.getKind() == kind) {
+                    store(key, totalsByKey.getOrDefault(key, Totals.NONE), existingByKey.get(key));
+                }
+            }
+        }
+    }
+
+    private void store(final InvoiceSummaryKey key, final Totals totals, final InvoiceSummaryTotal existing) {
+        if (totals.getTotal() == 0) {
+            if (existing != null) {
+                invoiceSummaryTotalRepository.remove(existing);
+            }
+            return;
+        }
+        final InvoiceSummaryTotal summaryTotal = existing != null ? existing : invoiceSummaryTotalRepository.newTotal(key);
+        if (!totals.isSameAs(summaryTotal)) {
+            summaryTotal.setTotal(totals.getTotal());
+            summaryTotal.setNetAmount(totals.getNetAmount());
+            summaryTotal.setVatAmount(totals.getVatAmount());
+            summaryTotal.setGrossAmount(totals.getGrossAmount());
+        }
+    }
+
+    /**
+     * Recalculates all totals, eg after they have been created for the first time.
+     */
+    @Programmatic
+    public void rebuildAll() {
+        for (final InvoiceSummaryTotal.Kind kind : InvoiceSummaryTotal.Kind.values()) {
+            final Map<InvoiceSummaryKey, Totals> totalsByKey = totalsByKey(kind, invoiceSummaryTotalRepository.aggregate(kind, null));
+            for (final InvoiceSummaryTotal existing : invoiceSummaryTotalRepository.findByKind(kind, null)) {
+                final Totals totals = totalsByKey.remove(existing.key());
+                store(existing.key(), totals != null ? totals : Totals.NONE, existing);
+            }
+            totalsByKey.forEach((key, totals) -> store(key, totals, null));
+        }
+    }
+
+    /**
+     * The groups whose stored totals differ from the recalculated ones.
+     */
+    @Programmatic
+    public List<InvoiceSummaryKey> verifyAll() {
+        final List<InvoiceSummaryKey> discrepancies = new ArrayList<>();
+        for (final InvoiceSummaryTotal.Kind kind : InvoiceSummaryTotal.Kind.values()) {
+            final Map<InvoiceSummaryKey, Totals> totalsByKey = totalsByKey(kind, invoiceSummaryTotalRepository.aggregate(kind, null));
+            for (final InvoiceSummaryTotal existing : invoiceSummaryTotalRepository.findByKind(kind, null)) {
+                final Totals totals = totalsByKey.remove(existing.key());
+                if (totals == null || !totals.isSameAs(existing)) {
+                    discrepancies.add(existing.key());
+                }
+            }
+            discrepancies.addAll(totalsByKey.keySet());
+        }
+        return discrepancies;
+    }
+
+    /**
+     * The totals of each group, from the rows returned by
+     * {@link InvoiceSummaryTotalRepository#aggregate(InvoiceSummaryTotal.Kind, Collection)}.
+     */
+    static Map<InvoiceSummaryKey, Totals> totalsByKey(final InvoiceSummaryTotal.Kind kind, final List<Object[]> rows) {
+        final Map<InvoiceSummaryKey, Totals> totalsByKey = new LinkedHashMap<>();
+        for (final Object[] row : rows) {
+            final int n = row.length - 4;
+            totalsByKey.put(
+                    InvoiceSummaryKey.of(kind, row),
+                    new Totals(((Number) row[n]).intValue(), (BigDecimal) row[n + 1], (BigDecimal) row[n + 2], (BigDecimal) row[n + 3]));
+        }
+        return totalsByKey;
+    }
+
+    /**
+     * The number of distinct invoices and the sums of the amounts of their items (<tt>null</tt> if all amounts
+     * are).
+     */
+    static class Totals {
+
+        static final Totals NONE = new Totals(0, null, null, null);
+
+        private final int total;
+        private final BigDecimal netAmount;
+        private final BigDecimal vatAmount;
+        private final BigDecimal grossAmount;
+
+        Totals(final int total, final BigDecimal netAmount, final BigDecimal vatAmount, final BigDecimal grossAmount) {
+            this.total = total;
+            this.netAmount = netAmount;
+            this.vatAmount = vatAmount;
+            this.grossAmount = grossAmount;
+        }
+
+        int getTotal() {
+            return total;
+        }
+
+        BigDecimal getNetAmount() {
+            return netAmount;
+        }
+
+        BigDecimal getVatAmount() {
+            return vatAmount;
+        }
+
+        BigDecimal getGrossAmount() {
+            return grossAmount;
+        }
+
+        boolean isSameAs(final InvoiceSummaryTotal summaryTotal) {
+            return summaryTotal.getTotal() == getTotal()
+                    && sameAmount(summaryTotal.getNetAmount(), getNetAmount())
+                    && sameAmount(summaryTotal.getVatAmount(), getVatAmount())
+                    && sameAmount(summaryTotal.getGrossAmount(), getGrossAmount());
+        }
+
+        private static boolean sameAmount(final BigDecimal amount, final BigDecimal other) {
+            return amount == null || other == null ? Objects.equals(amount, other) : amount.compareTo(other) == 0;
+        }
+    }
+
+    // //////////////////////////////////////
+
+    @Inject
+    InvoiceSummaryTotalRepository invoiceSummaryTotalRepository;
+
+    @Inject
+    InvoiceSummaryChanges invoiceSummaryChanges;
+
+    @Inject
+    TransactionService transactionService;
+
+}
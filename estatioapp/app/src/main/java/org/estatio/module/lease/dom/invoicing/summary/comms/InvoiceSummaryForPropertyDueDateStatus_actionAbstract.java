@@ -31,7 +31,7 @@ import org.incode.module.document.dom.impl.docs.DocumentAbstract;
 import org.incode.module.document.dom.impl.docs.DocumentTemplate;
 import org.incode.module.document.dom.impl.docs.DocumentTemplateRepository;
 import org.incode.module.document.dom.impl.paperclips.Paperclip;
-import org.incode.module.document.dom.impl.paperclips.PaperclipRepository;
+import org.incode.module.document.dom.impl.paperclips.PaperclipLoader;
 import org.incode.module.document.dom.impl.types.DocumentType;
 import org.incode.module.document.dom.impl.types.DocumentTypeRepository;
 
@@ -56,7 +56,7 @@ public abstract class InvoiceSummaryForPropertyDueDateStatus_actionAbstract {
     }
 
     Document findMostRecentAttachedTo(final Invoice invoice, final DocumentType documentType) {
-        final List<Paperclip> paperclips = paperclipRepository.findByAttachedTo(invoice);
+        final List<Paperclip> paperclips = paperclipLoader.findByAttachedTo(invoice);
         for (Paperclip paperclip : paperclips) {
             final DocumentAbstract documentAbstract = paperclip.getDocument();
             if (!(documentAbstract instanceof Document)) {
@@ -96,7 +96,7 @@ public abstract class InvoiceSummaryForPropertyDueDateStatus_actionAbstract {
     TitleService titleService;
 
     @Inject
-    PaperclipRepository paperclipRepository;
+    PaperclipLoader paperclipLoader;
 
     @Inject
     QueryResultsCache queryResultsCache;
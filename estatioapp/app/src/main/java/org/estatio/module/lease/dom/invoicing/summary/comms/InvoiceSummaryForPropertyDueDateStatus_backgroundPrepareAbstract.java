@@ -20,27 +20,32 @@ package org.estatio.module.lease.dom.invoicing.summary.comms;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.inject.Inject;
 
 import com.google.common.base.Predicate;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 import org.apache.isis.applib.annotation.Action;
 import org.apache.isis.applib.annotation.ActionLayout;
 import org.apache.isis.applib.annotation.Contributed;
 import org.apache.isis.applib.annotation.SemanticsOf;
-import org.apache.isis.applib.services.factory.FactoryService;
 
 import org.incode.module.document.dom.impl.docs.Document;
 import org.incode.module.document.dom.impl.docs.DocumentState;
 import org.incode.module.document.dom.impl.docs.DocumentTemplate;
+import org.incode.module.document.dom.services.DocumentCreatorService;
 
 import org.estatio.module.invoice.dom.DocumentTypeData;
 import org.estatio.module.invoice.dom.Invoice;
 import org.estatio.module.invoice.dom.paperclips.InvoiceDocAndCommService;
 import org.estatio.module.lease.dom.invoicing.InvoiceForLease;
-import org.estatio.module.lease.dom.invoicing.comms.InvoiceForLease_backgroundPrepare;
+import org.estatio.module.lease.dom.invoicing.comms.InvoicePreparationJob;
+import org.estatio.module.lease.dom.invoicing.comms.InvoicePreparationJobRepository;
 import org.estatio.module.lease.dom.invoicing.summary.InvoiceSummaryForPropertyDueDateStatus;
 
 public abstract class InvoiceSummaryForPropertyDueDateStatus_backgroundPrepareAbstract extends InvoiceSummaryForPropertyDueDateStatus_actionAbstract {
@@ -51,49 +56,74 @@ public abstract class InvoiceSummaryForPropertyDueDateStatus_backgroundPrepareAb
         super(invoiceSummary, documentTypeData);
     }
 
+    /**
+     * Creates and attaches the documents straight away, and renders them in the background as a single
+     * {@link InvoicePreparationJob}, which is returned so that its progress can be followed.
+     */
     @Action(semantics = SemanticsOf.NON_IDEMPOTENT_ARE_YOU_SURE)
     @ActionLayout(contributed = Contributed.AS_ACTION)
-    public InvoiceSummaryForPropertyDueDateStatus $$() throws IOException {
+    public Object $$() throws IOException {
         final List<InvoiceForLease> invoices = invoicesToPrepare();
-        for (Invoice invoice : invoices) {
+        if(invoices.isEmpty()) {
+            return this.invoiceSummary;
+        }
+        final Map<InvoiceForLease, Document> documentByInvoice = Maps.newLinkedHashMap();
+        final Map<InvoiceForLease, DocumentTemplate> templateByInvoice = Maps.newHashMap();
+        for (InvoiceForLease invoice : invoices) {
             final DocumentTemplate documentTemplate = documentTemplateFor(invoice);
-            factoryService.mixin(InvoiceForLease_backgroundPrepare.class, invoice).$$(documentTemplate);
+            final Document document = documentCreatorService.createDocumentAndAttachPaperclips(invoice, documentTemplate);
+            documentByInvoice.put(invoice, document);
+            templateByInvoice.put(invoice, documentTemplate);
         }
-        return this.invoiceSummary;
+        return invoicePreparationJobRepository.start(
+                titleService.titleOf(invoiceSummary), getDocumentType(),
+                documentByInvoice, templateByInvoice,
+                InvoicePreparationJobRepository.DEFAULT_LANES);
     }
 
     public String disable$$() {
         return invoicesToPrepare().isEmpty()? "No invoices available to be prepared": null;
     }
 
+    /**
+     * Those invoices with no document yet, or whose document is not yet rendered or not yet sent; the documents and
+     * their communications are looked up for all of the invoices at once.
+     */
     private List<InvoiceForLease> invoicesToPrepare() {
-        final List<InvoiceForLease> invoices = invoiceSummary.getInvoices();
-        return FluentIterable.from(invoices)
-                .filter(invoice -> noDocumentOrNotYetSent(invoice))
+        final List<InvoiceForLease> invoices = FluentIterable.from(invoiceSummary.getInvoices())
                 .filter(filter())
                 .toList();
-    }
 
-    private boolean noDocumentOrNotYetSent(final InvoiceForLease invoice) {
+        final Map<InvoiceForLease, Document> documentByInvoice =
+                invoiceDocAndCommService.findMostRecentDocuments(invoices, getDocumentType());
+        final Set<Document> communicated =
+                invoiceDocAndCommService.findDocumentsWithCommunication(Lists.newArrayList(documentByInvoice.values()));
+
+        return FluentIterable.from(invoices)
+                .filter(invoice -> noDocumentOrNotYetSent(documentByInvoice.get(invoice), communicated))
+                .toList();
+    }
 
-        final Document document = findMostRecentAttachedTo(invoice, getDocumentType());
+    private static boolean noDocumentOrNotYetSent(final Document document, final Set<Document> communicated) {
         if(document == null) {
             return true;
         }
         if(document.getState() == DocumentState.NOT_RENDERED) {
             return true;
         }
-
-        return invoiceDocAndCommService.findFirstCommunication(document) == null;
+        return !communicated.contains(document);
     }
 
     abstract Predicate<Invoice> filter();
 
     @Inject
-    FactoryService factoryService;
+    DocumentCreatorService documentCreatorService;
 
     @Inject
     InvoiceDocAndCommService invoiceDocAndCommService;
 
+    @Inject
+    InvoicePreparationJobRepository invoicePreparationJobRepository;
+
 
 }
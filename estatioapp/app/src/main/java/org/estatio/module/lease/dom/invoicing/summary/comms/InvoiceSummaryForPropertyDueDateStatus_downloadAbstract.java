@@ -30,6 +30,7 @@ import org.apache.isis.applib.services.queryresultscache.QueryResultsCache;
 
 import org.incode.module.document.dom.impl.docs.Document;
 import org.incode.module.document.dom.impl.docs.DocumentState;
+import org.incode.module.document.dom.impl.paperclips.PaperclipLoader;
 import org.incode.module.document.dom.impl.types.DocumentType;
 import org.incode.module.document.dom.impl.types.DocumentTypeRepository;
 
@@ -61,6 +62,7 @@ public abstract class InvoiceSummaryForPropertyDueDateStatus_downloadAbstract<T
 
     public String disableAct() {
         final List<T> docAndComms = findDocAndComms();
+        paperclipLoader.prime(invoiceSummary.getInvoices());
         for (T docAndComm : docAndComms) {
             final Document document = invoiceDocAndCommService.findDocument(docAndComm.getInvoice(), getDocumentType());
             if(document != null && document.getState() == DocumentState.RENDERED) {
@@ -93,4 +95,7 @@ public abstract class InvoiceSummaryForPropertyDueDateStatus_downloadAbstract<T
     @Inject
     InvoiceDocAndCommService invoiceDocAndCommService;
 
+    @Inject
+    PaperclipLoader paperclipLoader;
+
 }
@@ -75,6 +75,7 @@ public abstract class InvoiceSummaryForPropertyDueDateStatus_sendAbstract extend
     private List<InvoiceAndDocument> invoiceAndDocumentsToSend(Predicate<InvoiceAndDocument> filter) {
         final List<InvoiceAndDocument> invoiceAndDocuments = Lists.newArrayList();
         final List<InvoiceForLease> invoices = invoiceSummary.getInvoices();
+        paperclipLoader.prime(invoices);
         for (InvoiceForLease invoice : invoices) {
             appendTuplesToSend(invoice, filter, invoiceAndDocuments);
         }
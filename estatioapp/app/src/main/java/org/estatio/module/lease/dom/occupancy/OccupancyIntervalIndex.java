@@ -0,0 +1,156 @@
+package org.estatio.module.lease.dom.occupancy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+
+import org.joda.time.LocalDate;
+
+import org.incode.module.base.dom.valuetypes.LocalDateInterval;
+
+import org.estatio.module.lease.dom.Lease;
+
+/**
+ * An in-memory index of a set of {@link Occupancy occupancies} (typically those of the units of a property), for
+ * finding those overlapping an interval and those of a lease without querying per lease.
+ *
+ * <p>
+ *     The occupancies are held as an interval tree: sorted by start date, as an implicit balanced binary tree
+ *     whose every node also holds the latest end date of its subtree, so that subtrees ending before (or starting
+ *     after) the interval queried for are skipped.
+ * </p>
+ *
+ * <p>
+ *     The index is a snapshot: it is meant to be built (using
+ *     {@link OccupancyRepository#intervalIndexFor(org.estatio.module.asset.dom.Property)}) for a single calculation
+ *     or assignment, not held on to.
+ * </p>
+ */
+public class OccupancyIntervalIndex {
+
+    private static final Comparator<LocalDate> START_DATES = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    private static final Comparator<LocalDate> END_DATES = Comparator.nullsLast(Comparator.naturalOrder());
+
+    /**
+     * Sorted by start date (open start first).
+     */
+    private final Occupancy[] occupancies;
+
+    /**
+     * The latest end date (null being open ended) of the subtree rooted at the same index of {@link #occupancies}.
+     */
+    private final LocalDate[] maxEndDates;
+
+    private final ListMultimap<Lease, Occupancy> occupanciesByLease = ArrayListMultimap.create();
+
+    public static OccupancyIntervalIndex of(final Collection<Occupancy> occupancies) {
+        return new OccupancyIntervalIndex(occupancies);
+    }
+
+    private OccupancyIntervalIndex(final Collection<Occupancy> occupancies) {
+        this.occupancies = occupancies.toArray(new Occupancy[0]);
+        Arrays.sort(this.occupancies, Comparator.comparing(Occupancy::getStartDate, START_DATES));
+        this.maxEndDates = new LocalDate[this.occupancies.length];
+        if (this.occupancies.length > 0) {
+            computeMaxEndDates(0, this.occupancies.length);
+        }
+
+        for (final Occupancy occupancy : occupancies) {
+            occupanciesByLease.put(occupancy.getLease(), occupancy);
+        }
+        // in the same order as Lease#getOccupancies()
+        for (final Lease lease : occupanciesByLease.keySet()) {
+            occupanciesByLease.get(lease).sort(Comparator.naturalOrder());
+        }
+    }
+
+    /**
+     * @param from - inclusive, and less than <tt>to</tt>
+     * @param to - exclusive
+     */
+    private LocalDate computeMaxEndDates(final int from, final int to) {
+        final int mid = (from + to) >>> 1;
+        LocalDate maxEndDate = occupancies[mid].getEndDate();
+        if (from < mid) {
+            maxEndDate = latest(maxEndDate, computeMaxEndDates(from, mid));
+        }
+        if (mid + 1 < to) {
+            maxEndDate = latest(maxEndDate, computeMaxEndDates(mid + 1, to));
+        }
+        maxEndDates[mid] = maxEndDate;
+        return maxEndDate;
+    }
+
+    private static LocalDate latest(final LocalDate date1, final LocalDate date2) {
+        return END_DATES.compare(date1, date2) >= 0 ? date1 : date2;
+    }
+
+    /**
+     * The occupancies whose {@link Occupancy#getInterval() interval} overlaps the given interval, by start date.
+     */
+    public List<Occupancy> overlapping(final LocalDateInterval interval) {
+        final List<Occupancy> result = new ArrayList<>();
+        collectOverlapping(0, occupancies.length, interval, result);
+        return result;
+    }
+
+    private void collectOverlapping(
+            final int from,
+            final int to,
+            final LocalDateInterval interval,
+            final List<Occupancy> result) {
+        if (from >= to) {
+            return;
+        }
+        final int mid = (from + to) >>> 1;
+        if (endsBefore(maxEndDates[mid], interval.startDate())) {
+            // nothing in this subtree ends on or after the start of the interval
+            return;
+        }
+        collectOverlapping(from, mid, interval, result);
+        if (startsAfter(occupancies[mid].getStartDate(), interval.endDate())) {
+            // neither this occupancy nor any later one starts on or before the end of the interval
+            return;
+        }
+        // the above is only a (conservative) pre-filter; the interval decides
+        if (occupancies[mid].getInterval().overlaps(interval)) {
+            result.add(occupancies[mid]);
+        }
+        collectOverlapping(mid + 1, to, interval, result);
+    }
+
+    private static boolean endsBefore(final LocalDate endDate, final LocalDate startDate) {
+        return endDate != null && startDate != null && endDate.isBefore(startDate);
+    }
+
+    private static boolean startsAfter(final LocalDate startDate, final LocalDate endDate) {
+        return startDate != null && endDate != null && startDate.isAfter(endDate);
+    }
+
+    /**
+     * The leases having at least one occupancy overlapping the given interval.
+     */
+    public Set<Lease> leasesOverlapping(final LocalDateInterval interval) {
+        final Set<Lease> leases = new LinkedHashSet<>();
+        for (final Occupancy occupancy : overlapping(interval)) {
+            leases.add(occupancy.getLease());
+        }
+        return leases;
+    }
+
+    /**
+     * The occupancies of the lease, in the same order as {@link Lease#getOccupancies()}.
+     */
+    public List<Occupancy> occupanciesOf(final Lease lease) {
+        return occupanciesByLease.get(lease);
+    }
+
+}
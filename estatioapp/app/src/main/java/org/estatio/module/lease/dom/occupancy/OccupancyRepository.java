@@ -129,6 +129,14 @@ public class OccupancyRepository extends UdoDomainRepositoryAndFactory<Occupancy
         return allMatches("findByProperty", "property", property);
     }
 
+    /**
+     * An index of the occupancies of the units of the property, built with a single query.
+     */
+    @Programmatic
+    public OccupancyIntervalIndex intervalIndexFor(final Property property) {
+        return OccupancyIntervalIndex.of(findByProperty(property));
+    }
+
     // //////////////////////////////////////
 
     private void verifyFor(Lease lease) {
@@ -20,7 +20,10 @@ package org.estatio.module.lease.dom.util;
 
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.google.common.collect.Lists;
 import com.google.ical.compat.jodatime.LocalDateIterator;
@@ -65,9 +68,102 @@ public final class CalendarUtils {
      * @return
      */
     public static Interval intervalContaining(final LocalDate containingDate, final String rrule) {
+        if (containingDate == null || rrule == null) {
+            return null;
+        }
+        if (containingDate.isBefore(TABLE_HORIZON)) {
+            return intervalTableFor(rrule).intervalContaining(containingDate);
+        }
         return currentInterval(containingDate, rrule, START_DATE_DEFAULT);
     }
 
+    /**
+     * Dates from which {@link #intervalContaining(LocalDate, String)} no longer uses the (cached) {@link IntervalTable}
+     * but iterates the rrule instead; bounds the size of the tables.
+     */
+    private static final LocalDate TABLE_HORIZON = START_DATE_DEFAULT.plusYears(200);
+
+    private static final ConcurrentMap<String, IntervalTable> INTERVAL_TABLES = new ConcurrentHashMap<>();
+
+    private static IntervalTable intervalTableFor(final String rrule) {
+        IntervalTable table = INTERVAL_TABLES.get(rrule);
+        if (table == null) {
+            final IntervalTable newTable = new IntervalTable(rrule, START_DATE_DEFAULT);
+            table = INTERVAL_TABLES.putIfAbsent(rrule, newTable);
+            if (table == null) {
+                table = newTable;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * The dates generated by an rrule from a given start date, generated once (and extended on demand) so that
+     * finding the interval containing a date is a binary search rather than iterating the rrule from the start date.
+     *
+     * <p>
+     *     Equivalent to {@link #currentInterval(LocalDate, String, LocalDate)} for the same rrule and start date.
+     * </p>
+     */
+    static class IntervalTable {
+
+        private final LocalDate startDate;
+        private final LocalDateIterator iterator;
+
+        private LocalDate[] dates = new LocalDate[64];
+        private long[] startMillis = new long[64];
+        private int size;
+        private boolean exhausted;
+
+        IntervalTable(final String rrule, final LocalDate startDate) {
+            this.startDate = startDate;
+            try {
+                this.iterator = LocalDateIteratorFactory.createLocalDateIterator(rrule, startDate, true);
+            } catch (final ParseException ex) {
+                throw new IncodeApplicationException("Unable to parse rrule >>" + rrule + "<<", ex);
+            }
+        }
+
+        synchronized Interval intervalContaining(final LocalDate date) {
+            while (!exhausted && (size == 0 || dates[size - 1].compareTo(date) <= 0)) {
+                extend();
+            }
+            // first generated date after the date
+            int low = 0;
+            int high = size - 1;
+            int found = -1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                if (dates[mid].compareTo(date) > 0) {
+                    found = mid;
+                    high = mid - 1;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            if (found == -1) {
+                return null;
+            }
+            final long start = found == 0 ? startDate.toInterval().getStartMillis() : startMillis[found - 1];
+            return new Interval(start, startMillis[found]);
+        }
+
+        private void extend() {
+            if (!iterator.hasNext()) {
+                exhausted = true;
+                return;
+            }
+            if (size == dates.length) {
+                dates = Arrays.copyOf(dates, size * 2);
+                startMillis = Arrays.copyOf(startMillis, size * 2);
+            }
+            final LocalDate next = iterator.next();
+            dates[size] = next;
+            startMillis[size] = next.toInterval().getStartMillis();
+            size++;
+        }
+    }
+
     public static Interval currentInterval(
             final LocalDate date,
             final String rrule,
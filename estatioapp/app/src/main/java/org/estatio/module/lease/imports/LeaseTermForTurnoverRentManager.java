@@ -45,6 +45,7 @@ import org.estatio.module.lease.dom.LeaseItemType;
 import org.estatio.module.lease.dom.LeaseTerm;
 import org.estatio.module.lease.dom.LeaseTermForTurnoverRent;
 import org.estatio.module.lease.dom.LeaseTermRepository;
+import org.estatio.module.lease.dom.invoicing.LeaseInvoicingChangeSubscriber;
 
 import lombok.Getter;
 import lombok.Setter;
@@ -153,6 +154,7 @@ public class LeaseTermForTurnoverRentManager {
             final LeaseTermForTurnoverRent leaseTerm = lineItem.getLeaseTerm();
             leaseTerm.setAuditedTurnover(lineItem.getAuditedTurnover());
             leaseTerm.verify();
+            leaseInvoicingChangeSubscriber.changed(leaseTerm.getLeaseItem().getLease());
         }
         return this;
     }
@@ -170,6 +172,9 @@ public class LeaseTermForTurnoverRentManager {
     @javax.inject.Inject
     private LeaseTermForTurnoverRentService budgetAuditService;
 
+    @javax.inject.Inject
+    private LeaseInvoicingChangeSubscriber leaseInvoicingChangeSubscriber;
+
     //endregion
 
 }
@@ -19,6 +19,8 @@
 package org.estatio.module.numerator.dom;
 
 import java.math.BigInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.jdo.annotations.Column;
 import javax.jdo.annotations.IdGeneratorStrategy;
@@ -228,7 +230,45 @@ public class Numerator
     String format(final BigInteger n) {
         return String.format(getFormat(), n);
     }
-    
+
+    private static final Pattern INTEGER_CONVERSION = Pattern.compile("%[-#+ 0,(]*\\d*d");
+
+    /**
+     * The inverse of {@link #format(BigInteger)}: the increment that formats to the value, or <tt>null</tt> if the
+     * value was not generated by this numerator's {@link #getFormat() format}.
+     */
+    @Programmatic
+    public BigInteger parse(final String value) {
+        if (value == null || getFormat() == null) {
+            return null;
+        }
+        final Matcher conversion = INTEGER_CONVERSION.matcher(getFormat());
+        if (!conversion.find()) {
+            return null;
+        }
+        final String prefix = formatPrefix();
+        final String suffix = getFormat().substring(conversion.end()).replace("%%", "%");
+        final Matcher matcher = Pattern.compile(Pattern.quote(prefix) + "\\s*(\\d+)" + Pattern.quote(suffix)).matcher(value);
+        if (!matcher.matches()) {
+            return null;
+        }
+        final BigInteger n = new BigInteger(matcher.group(1));
+        // eg leading zeroes beyond the width of the format
+        return format(n).equals(value) ? n : null;
+    }
+
+    /**
+     * The text that all values {@link #format(BigInteger) formatted} by this numerator start with, eg to query them.
+     */
+    @Programmatic
+    public String formatPrefix() {
+        if (getFormat() == null) {
+            return "";
+        }
+        final Matcher conversion = INTEGER_CONVERSION.matcher(getFormat());
+        return (conversion.find() ? getFormat().substring(0, conversion.start()) : getFormat()).replace("%%", "%");
+    }
+
     // //////////////////////////////////////
 
     public Numerator changeParameters(
@@ -237,6 +277,10 @@ public class Numerator
             ) {
         setFormat(format);
         setLastIncrement(lastIncrement);
+        setGeneration(nextGeneration());
+        if (numeratorAllocationService != null) {
+            numeratorAllocationService.discardBlocks(this);
+        }
         return this;
     }
 
@@ -268,6 +312,25 @@ public class Numerator
 
     // //////////////////////////////////////
 
+    /**
+     * Incremented whenever the {@link #changeParameters(String, BigInteger) parameters are changed}, so that the
+     * blocks reserved by the {@link NumeratorAllocationService} beforehand (on any node) are no longer served from.
+     */
+    @javax.jdo.annotations.Column(allowsNull = "true")
+    @Property(hidden = Where.EVERYWHERE)
+    @Getter @Setter
+    private Long generation;
+
+    long currentGeneration() {
+        return getGeneration() == null ? 0L : getGeneration();
+    }
+
+    private Long nextGeneration() {
+        return currentGeneration() + 1;
+    }
+
+    // //////////////////////////////////////
+
     @Programmatic
     public String nextIncrementStr() {
         return format(incrementCounter());
@@ -302,6 +365,11 @@ public class Numerator
 
     // //////////////////////////////////////
 
+    @javax.inject.Inject
+    NumeratorAllocationService numeratorAllocationService;
+
+    // //////////////////////////////////////
+
     public static class FormatType {
 
         private FormatType() {}
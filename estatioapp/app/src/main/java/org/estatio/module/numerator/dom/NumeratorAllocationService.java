@@ -0,0 +1,285 @@
+/*
+ *
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.module.numerator.dom;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.jdo.JDOHelper;
+
+import com.google.common.base.Splitter;
+
+import org.apache.isis.applib.annotation.DomainService;
+import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.annotation.Programmatic;
+import org.apache.isis.applib.services.jdosupport.IsisJdoSupport;
+import org.apache.isis.applib.services.xactn.TransactionService;
+import org.apache.isis.core.runtime.system.context.IsisContext;
+
+/**
+ * Hands out the values of {@link Numerator}s, either strictly (gap-free) or relaxed (from blocks reserved up front).
+ *
+ * <p>
+ *     A numerator is used in the {@link #modeFor(Numerator) mode configured} for its name: relaxed, unless listed in
+ *     the {@link #STRICT_NAMES_KEY} property. A numerator should consistently be used in the one mode: a block
+ *     reservation updates the numerator outside of the caller's transaction, so a strict increment of the same
+ *     numerator in a transaction that started earlier would fail on its (stale) version.
+ * </p>
+ */
+@DomainService(nature = NatureOfService.DOMAIN)
+public class NumeratorAllocationService {
+
+    public enum Mode {
+        /**
+         * Increments the numerator in the caller's transaction, so that a rollback also rolls back the increment.
+         * Gap-free, but all callers serialise on the numerator; for series that are required to be gap-free.
+         */
+        STRICT,
+        /**
+         * Hands out values from memory, from a block that is reserved in a short separate transaction. Values of a
+         * block that are not used (because the caller's transaction rolls back, or the application is stopped) are
+         * lost, leaving gaps, which can be reported with {@link #findGaps(Numerator, Collection)}.
+         */
+        RELAXED
+    }
+
+    /**
+     * Comma-separated names of the numerators (eg <tt>Invoice number</tt>) to be used in {@link Mode#STRICT strict}
+     * mode.
+     */
+    public static final String STRICT_NAMES_KEY = "estatio.numerator.strictNames";
+
+    public static final int DEFAULT_BLOCK_SIZE = 50;
+
+    private static final int MAX_RESERVATION_ATTEMPTS = 3;
+
+    private static final long RESERVATION_TIMEOUT_SECONDS = 30;
+
+    private final ConcurrentMap<Object, Block> blocksByObjectId = new ConcurrentHashMap<>();
+
+    private final Set<String> strictNames = new HashSet<>();
+
+    /**
+     * Reserves the blocks, each in an interaction (session and transaction) of its own.
+     */
+    private final ExecutorService reservationExecutor = Executors.newSingleThreadExecutor();
+
+    @PostConstruct
+    public void init(final Map<String, String> properties) {
+        final String names = properties.get(STRICT_NAMES_KEY);
+        if (names != null) {
+            strictNames.addAll(Splitter.on(',').trimResults().omitEmptyStrings().splitToList(names));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reservationExecutor.shutdownNow();
+    }
+
+    @Programmatic
+    public Mode modeFor(final Numerator numerator) {
+        return strictNames.contains(numerator.getName()) ? Mode.STRICT : Mode.RELAXED;
+    }
+
+    @Programmatic
+    public String nextIncrementStr(final Numerator numerator) {
+        return nextIncrementStr(numerator, modeFor(numerator));
+    }
+
+    @Programmatic
+    public String nextIncrementStr(final Numerator numerator, final Mode mode) {
+        return nextIncrementStr(numerator, mode, DEFAULT_BLOCK_SIZE);
+    }
+
+    @Programmatic
+    public String nextIncrementStr(final Numerator numerator, final Mode mode, final int blockSize) {
+        final Object objectId = JDOHelper.getObjectId(numerator);
+        if (mode == Mode.STRICT || objectId == null || JDOHelper.isNew(numerator) || JDOHelper.isDirty(numerator)) {
+            // a numerator not yet committed cannot be reserved from in another transaction, and one changed in the
+            // caller's transaction would have that transaction and the reservation wait on each other
+            return numerator.nextIncrementStr();
+        }
+        final Block block = blocksByObjectId.computeIfAbsent(objectId, id -> new Block());
+        synchronized (block) {
+            if (!block.isCurrentFor(numerator.currentGeneration())) {
+                // parameters changed since the block was reserved, possibly by another node
+                block.discard();
+            }
+            if (!block.hasNext()) {
+                reserveBlock(objectId, blockSize, block);
+                // the reservation has moved the persisted numerator on (and bumped its version), so the caller's copy
+                // is reloaded; otherwise any later update of it in the caller's transaction would fail on its version
+                isisJdoSupport.refresh(numerator);
+            }
+            return numerator.format(block.next());
+        }
+    }
+
+    /**
+     * Increments the persisted numerator by the size of the block in an interaction of its own, resetting the block to
+     * the values reserved.
+     */
+    private void reserveBlock(final Object objectId, final int blockSize, final Block block) {
+        final Callable<Block> reservation = () -> IsisContext.getSessionFactory().doInSession(
+                () -> doReserveBlock(objectId, blockSize));
+        for (int attempt = 1; ; attempt++) {
+            final Future<Block> future = reservationExecutor.submit(reservation);
+            try {
+                final Block reserved = future.get(RESERVATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                block.reset(reserved.next, reserved.remaining, reserved.generation);
+                return;
+            } catch (final ExecutionException ex) {
+                // eg reserved concurrently by another node, so failing on the numerator's version
+                if (attempt == MAX_RESERVATION_ATTEMPTS) {
+                    throw new IllegalStateException("Could not reserve a block of values for numerator", ex.getCause());
+                }
+            } catch (final TimeoutException ex) {
+                future.cancel(true);
+                throw new IllegalStateException("Timed out reserving a block of values for numerator", ex);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted reserving a block of values for numerator", ex);
+            }
+        }
+    }
+
+    private Block doReserveBlock(final Object objectId, final int blockSize) {
+        transactionService.nextTransaction();
+        final Numerator numerator = (Numerator) isisJdoSupport.getJdoPersistenceManager().getObjectById(objectId);
+        isisJdoSupport.refresh(numerator);
+        final BigInteger last = numerator.getLastIncrement() == null ? BigInteger.ZERO : numerator.getLastIncrement();
+        final Block reserved = new Block();
+        reserved.reset(last.add(BigInteger.ONE), blockSize, numerator.currentGeneration());
+        numerator.setLastIncrement(last.add(BigInteger.valueOf(blockSize)));
+        transactionService.nextTransaction();
+        return reserved;
+    }
+
+    /**
+     * Forgets the blocks reserved for the numerator on this node, eg after its parameters have been changed; other
+     * nodes notice the change from the numerator's {@link Numerator#getGeneration() generation} instead.
+     */
+    @Programmatic
+    public void discardBlocks(final Numerator numerator) {
+        final Object objectId = JDOHelper.getObjectId(numerator);
+        if (objectId != null) {
+            blocksByObjectId.remove(objectId);
+        }
+    }
+
+    // //////////////////////////////////////
+
+    /**
+     * The increments of a numerator that were not issued: those between the lowest of the issued values and the
+     * {@link Numerator#getLastIncrement() last increment} (or, in {@link Mode#RELAXED relaxed} mode, where the rest of
+     * a reserved block is still to be handed out, the highest of the issued values) that are missing from the values.
+     *
+     * <p>
+     *     Values that were not generated by the numerator's format are ignored.
+     * </p>
+     */
+    @Programmatic
+    public List<String> findGaps(final Numerator numerator, final Collection<String> issuedValues) {
+        final SortedSet<BigInteger> issued = new TreeSet<>();
+        for (final String value : issuedValues) {
+            final BigInteger n = numerator.parse(value);
+            if (n != null) {
+                issued.add(n);
+            }
+        }
+        final List<String> gaps = new ArrayList<>();
+        if (issued.isEmpty() || numerator.getLastIncrement() == null) {
+            return gaps;
+        }
+        final BigInteger last = modeFor(numerator) == Mode.STRICT ? numerator.getLastIncrement() : issued.last();
+        for (BigInteger n = issued.first(); n.compareTo(last) <= 0; n = n.add(BigInteger.ONE)) {
+            if (!issued.contains(n)) {
+                gaps.add(numerator.format(n));
+            }
+        }
+        return gaps;
+    }
+
+    // //////////////////////////////////////
+
+    static class Block {
+
+        private BigInteger next;
+        private int remaining;
+        private long generation;
+
+        boolean hasNext() {
+            return remaining > 0;
+        }
+
+        /**
+         * Whether the block was reserved from the numerator's current parameters; a caller holding an older copy of
+         * the numerator may still be served.
+         */
+        boolean isCurrentFor(final long numeratorGeneration) {
+            return generation >= numeratorGeneration;
+        }
+
+        BigInteger next() {
+            final BigInteger value = next;
+            next = next.add(BigInteger.ONE);
+            remaining--;
+            return value;
+        }
+
+        void reset(final BigInteger first, final int size, final long generation) {
+            this.next = first;
+            this.remaining = size;
+            this.generation = generation;
+        }
+
+        void discard() {
+            this.remaining = 0;
+        }
+    }
+
+    // //////////////////////////////////////
+
+    @Inject
+    IsisJdoSupport isisJdoSupport;
+
+    @Inject
+    TransactionService transactionService;
+
+}
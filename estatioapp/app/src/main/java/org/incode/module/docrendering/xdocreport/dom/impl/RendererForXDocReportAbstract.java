@@ -1,6 +1,9 @@
 package org.incode.module.docrendering.xdocreport.dom.impl;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Map;
 
 import javax.inject.Inject;
 
@@ -8,11 +11,21 @@ import org.apache.isis.applib.services.clock.ClockService;
 
 import org.isisaddons.module.xdocreport.dom.service.OutputType;
 import org.isisaddons.module.xdocreport.dom.service.XDocReportModel;
-import org.isisaddons.module.xdocreport.dom.service.XDocReportService;
 
 import org.incode.module.document.dom.impl.docs.DocumentRepository;
 import org.incode.module.document.dom.impl.renderers.RendererFromBytesToBytes;
 import org.incode.module.document.dom.impl.types.DocumentType;
+import org.incode.module.document.dom.services.CompiledTemplateCache;
+
+import fr.opensagres.xdocreport.converter.ConverterTypeTo;
+import fr.opensagres.xdocreport.converter.ConverterTypeVia;
+import fr.opensagres.xdocreport.converter.Options;
+import fr.opensagres.xdocreport.core.XDocReportException;
+import fr.opensagres.xdocreport.document.IXDocReport;
+import fr.opensagres.xdocreport.document.registry.XDocReportRegistry;
+import fr.opensagres.xdocreport.template.IContext;
+import fr.opensagres.xdocreport.template.TemplateEngineKind;
+import fr.opensagres.xdocreport.template.formatter.FieldsMetadata;
 
 public abstract class RendererForXDocReportAbstract implements RendererFromBytesToBytes {
 
@@ -34,7 +47,69 @@ public abstract class RendererForXDocReportAbstract implements RendererFromBytes
 
         final XDocReportModel xDocReportModel = (XDocReportModel) dataModel;
 
-        return xDocReportService.render(templateBytes, xDocReportModel, outputType);
+        try (final CompiledTemplateCache.Lease<CompiledReport> compiledReport = compiledTemplateCache.compiled(
+                documentType, variant, atPath, version, templateBytes,
+                CompiledReport.class, () -> CompiledReport.compile(templateBytes, xDocReportModel))) {
+            return compiledReport.get().render(xDocReportModel, outputType);
+        }
+    }
+
+    /**
+     * A DOCX template, parsed and preprocessed once and then rendered any number of times (as does
+     * <tt>XDocReportService</tt>, but without reloading the template on each call).
+     */
+    static class CompiledReport implements AutoCloseable {
+
+        private final IXDocReport report;
+
+        private CompiledReport(final IXDocReport report) {
+            this.report = report;
+        }
+
+        /**
+         * The fields metadata (which fields are lists) is derived from the data model of the first render; this is
+         * the same for every render of any one template.
+         */
+        static CompiledReport compile(final byte[] templateBytes, final XDocReportModel dataModel) throws IOException {
+            try {
+                final IXDocReport report = XDocReportRegistry.getRegistry()
+                        .loadReport(new ByteArrayInputStream(templateBytes), TemplateEngineKind.Freemarker, false);
+                final FieldsMetadata fieldsMetadata = report.createFieldsMetadata();
+                for (final Map.Entry<String, XDocReportModel.Data> entry : dataModel.getContextData().entrySet()) {
+                    final XDocReportModel.Data data = entry.getValue();
+                    fieldsMetadata.load(entry.getKey(), data.getCls(), data.isList());
+                }
+                // eagerly, so that the report is not modified (and so can be shared) once cached
+                report.preprocess();
+                return new CompiledReport(report);
+            } catch (XDocReportException e) {
+                throw new IOException(e);
+            }
+        }
+
+        byte[] render(final XDocReportModel dataModel, final OutputType outputType) throws IOException {
+            try {
+                final IContext context = report.createContext();
+                for (final Map.Entry<String, XDocReportModel.Data> entry : dataModel.getContextData().entrySet()) {
+                    context.put(entry.getKey(), entry.getValue().getObj());
+                }
+
+                final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                if (outputType == OutputType.PDF) {
+                    report.convert(context, Options.getTo(ConverterTypeTo.PDF).via(ConverterTypeVia.XWPF), baos);
+                } else {
+                    report.process(context, baos);
+                }
+                return baos.toByteArray();
+            } catch (XDocReportException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            XDocReportRegistry.getRegistry().unregisterReport(report);
+        }
     }
 
     @Inject
@@ -42,6 +117,6 @@ public abstract class RendererForXDocReportAbstract implements RendererFromBytes
     @Inject
     private ClockService clockService;
     @Inject
-    private XDocReportService xDocReportService;
+    private CompiledTemplateCache compiledTemplateCache;
 
 }
@@ -37,6 +37,7 @@ import org.apache.isis.applib.value.Clob;
 import org.apache.isis.schema.utils.jaxbadapters.PersistentEntityAdapter;
 
 import org.incode.module.document.DocumentModule;
+import org.incode.module.document.dom.spi.DocumentBlobStore;
 import org.incode.module.document.dom.impl.types.DocumentType;
 
 import lombok.Getter;
@@ -78,6 +79,17 @@ import lombok.Setter;
                         +           "FROM org.incode.module.document.dom.impl.paperclips.Paperclip p "
                         +           "WHERE p.document == this "
                         +        ").isEmpty() "),
+        @Query(
+                name = "findBySort", language = "JDOQL",
+                value = "SELECT "
+                        + "FROM org.incode.module.document.dom.impl.docs.Document "
+                        + "WHERE sort == :sort "
+                        + "ORDER BY createdAt "),
+        @Query(
+                name = "findByExternalUrlStartingWith", language = "JDOQL",
+                value = "SELECT "
+                        + "FROM org.incode.module.document.dom.impl.docs.Document "
+                        + "WHERE externalUrl.startsWith(:prefix) "),
 })
 @Indices({
     // none yet
@@ -221,6 +233,25 @@ public class Document extends DocumentAbstract<Document> {
     //endregion
 
 
+    //region > moveToBlobStore (programmatic)
+    /**
+     * Moves the content of a {@link DocumentSort#BLOB blob} document out of the database and into the
+     * {@link DocumentBlobStore}, if one is configured; documents of any other sort, or without content (eg not yet
+     * rendered), are left as they are.
+     */
+    @Action(hidden = Where.EVERYWHERE) // so can invoke via BackgroundService
+    public void moveToBlobStore() {
+        if(getSort() != DocumentSort.BLOB || getBlobBytes() == null || !documentBlobStore.isEnabled()) {
+            return;
+        }
+        final String externalUrl = documentBlobStore.store(getBlobBytes());
+        setExternalUrl(externalUrl);
+        setBlobBytes(null);
+        setSort(DocumentSort.EXTERNAL_BLOB);
+    }
+    //endregion
+
+
     //region > setBlob, setClob, setTextData
     @Override
     public void modifyBlob(Blob blob) {
@@ -34,6 +34,7 @@ import org.apache.isis.applib.value.Clob;
 
 import org.incode.module.document.DocumentModule;
 import org.incode.module.document.dom.impl.types.DocumentType;
+import org.incode.module.document.dom.spi.DocumentBlobStore;
 import org.incode.module.document.dom.types.AtPathType;
 
 import lombok.Getter;
@@ -170,6 +171,13 @@ public abstract class DocumentAbstract<T extends DocumentAbstract> implements Co
             editing = Editing.DISABLED
     )
     public Blob getBlob() {
+        if(getSort() == DocumentSort.EXTERNAL_BLOB && this instanceof Document) {
+            // moved to the blob store (other external URLs are not downloaded just to render the property)
+            final String externalUrl = ((Document) this).getExternalUrl();
+            if(documentBlobStore.holds(externalUrl)) {
+                return new Blob(getName(), getMimeType(), documentBlobStore.asBytes(externalUrl));
+            }
+        }
         return new Blob(getName(), getMimeType(), getBlobBytes());
 
     }
@@ -282,6 +290,8 @@ public abstract class DocumentAbstract<T extends DocumentAbstract> implements Co
     DocumentRepository documentRepository;
     @Inject
     FactoryService factoryService;
+    @Inject
+    DocumentBlobStore documentBlobStore;
     //endregion
 
     //region > types
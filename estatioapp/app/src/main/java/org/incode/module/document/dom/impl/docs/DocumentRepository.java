@@ -72,6 +72,30 @@ public class DocumentRepository {
         return repositoryService.allMatches(query);
     }
 
+    /**
+     * The oldest documents of the given sort, up to the number requested.
+     */
+    @Programmatic
+    public List<Document> findBySort(final DocumentSort sort, final int count) {
+        return repositoryService.allMatches(
+                new QueryDefault<>(Document.class,
+                        "findBySort",
+                        "sort", sort)
+                        .withCount(count));
+    }
+
+    /**
+     * Documents whose external URL starts with the given prefix, up to the number requested.
+     */
+    @Programmatic
+    public List<Document> findByExternalUrlStartingWith(final String prefix, final int count) {
+        return repositoryService.allMatches(
+                new QueryDefault<>(Document.class,
+                        "findByExternalUrlStartingWith",
+                        "prefix", prefix)
+                        .withCount(count));
+    }
+
     @Programmatic
     public List<DocumentAbstract> allDocuments() {
         return repositoryService.allInstances(DocumentAbstract.class);
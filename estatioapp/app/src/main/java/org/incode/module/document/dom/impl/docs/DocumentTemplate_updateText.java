@@ -1,5 +1,7 @@
 package org.incode.module.document.dom.impl.docs;
 
+import javax.inject.Inject;
+
 import org.apache.isis.applib.annotation.Action;
 import org.apache.isis.applib.annotation.ActionLayout;
 import org.apache.isis.applib.annotation.Contributed;
@@ -8,6 +10,7 @@ import org.apache.isis.applib.annotation.ParameterLayout;
 import org.apache.isis.applib.annotation.SemanticsOf;
 
 import org.incode.module.document.DocumentModule;
+import org.incode.module.document.dom.services.CompiledTemplateCache;
 
 @Mixin
 public class DocumentTemplate_updateText {
@@ -32,6 +35,7 @@ public class DocumentTemplate_updateText {
             final String text
     ) {
         documentTemplate.setText(text);
+        compiledTemplateCache.invalidate(documentTemplate);
         return documentTemplate;
     }
 
@@ -44,4 +48,7 @@ public class DocumentTemplate_updateText {
     }
 
 
+    @Inject
+    CompiledTemplateCache compiledTemplateCache;
+
 }
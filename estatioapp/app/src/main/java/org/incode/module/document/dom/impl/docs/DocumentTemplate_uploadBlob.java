@@ -1,5 +1,7 @@
 package org.incode.module.document.dom.impl.docs;
 
+import javax.inject.Inject;
+
 import org.apache.isis.applib.annotation.Action;
 import org.apache.isis.applib.annotation.ActionLayout;
 import org.apache.isis.applib.annotation.Contributed;
@@ -9,6 +11,7 @@ import org.apache.isis.applib.annotation.SemanticsOf;
 import org.apache.isis.applib.value.Blob;
 
 import org.incode.module.document.DocumentModule;
+import org.incode.module.document.dom.services.CompiledTemplateCache;
 
 @Mixin
 public class DocumentTemplate_uploadBlob {
@@ -34,6 +37,7 @@ public class DocumentTemplate_uploadBlob {
     ) {
         documentTemplate.setMimeType(blob.getMimeType().toString());
         documentTemplate.setBlobBytes(blob.getBytes());
+        compiledTemplateCache.invalidate(documentTemplate);
         return documentTemplate;
     }
 
@@ -41,4 +45,8 @@ public class DocumentTemplate_uploadBlob {
         return documentTemplate.getSort() != DocumentSort.BLOB;
     }
 
+
+    @Inject
+    CompiledTemplateCache compiledTemplateCache;
+
 }
@@ -1,5 +1,7 @@
 package org.incode.module.document.dom.impl.docs;
 
+import javax.inject.Inject;
+
 import org.apache.isis.applib.annotation.Action;
 import org.apache.isis.applib.annotation.ActionLayout;
 import org.apache.isis.applib.annotation.Contributed;
@@ -9,6 +11,7 @@ import org.apache.isis.applib.annotation.SemanticsOf;
 import org.apache.isis.applib.value.Clob;
 
 import org.incode.module.document.DocumentModule;
+import org.incode.module.document.dom.services.CompiledTemplateCache;
 
 @Mixin
 public class DocumentTemplate_uploadClob {
@@ -34,6 +37,7 @@ public class DocumentTemplate_uploadClob {
     ) {
         documentTemplate.setMimeType(clob.getMimeType().toString());
         documentTemplate.setClobChars(clob.getChars().toString());
+        compiledTemplateCache.invalidate(documentTemplate);
         return documentTemplate;
     }
 
@@ -41,4 +45,8 @@ public class DocumentTemplate_uploadClob {
         return documentTemplate.getSort() != DocumentSort.CLOB;
     }
 
+
+    @Inject
+    CompiledTemplateCache compiledTemplateCache;
+
 }
@@ -9,6 +9,7 @@ import org.apache.isis.applib.annotation.SemanticsOf;
 import org.apache.isis.applib.value.Blob;
 
 import org.incode.module.document.DocumentModule;
+import org.incode.module.document.dom.spi.DocumentBlobStore;
 import org.incode.module.document.dom.spi.UrlDownloadService;
 
 @Mixin
@@ -30,11 +31,17 @@ public class Document_downloadExternalUrlAsBlob {
     )
     @ActionLayout(named = "Download")
     public Blob $$() {
+        final String externalUrl = document.getExternalUrl();
+        // (still called programmatically, by DocumentSort#asBytes)
+        if(documentBlobStore.holds(externalUrl)) {
+            return new Blob(document.getName(), document.getMimeType(), documentBlobStore.asBytes(externalUrl));
+        }
         return urlDownloadService.downloadAsBlob(document);
     }
 
     public boolean hide$$() {
-        return document.getSort() != DocumentSort.EXTERNAL_BLOB;
+        // documents in the blob store are downloaded by streaming them instead, see Document_downloadFromBlobStore
+        return document.getSort() != DocumentSort.EXTERNAL_BLOB || documentBlobStore.holds(document.getExternalUrl());
     }
 
 
@@ -42,4 +49,7 @@ public class Document_downloadExternalUrlAsBlob {
     @Inject
     UrlDownloadService urlDownloadService;
 
+    @Inject
+    DocumentBlobStore documentBlobStore;
+
 }
@@ -0,0 +1,74 @@
+package org.incode.module.document.dom.impl.docs;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+
+import javax.inject.Inject;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+
+import org.apache.isis.applib.annotation.Action;
+import org.apache.isis.applib.annotation.ActionLayout;
+import org.apache.isis.applib.annotation.Mixin;
+import org.apache.isis.applib.annotation.SemanticsOf;
+import org.apache.isis.applib.services.clock.ClockService;
+
+import org.isisaddons.module.servletapi.dom.HttpServletRequestProvider;
+import org.isisaddons.module.servletapi.dom.HttpSessionProvider;
+
+import org.incode.module.document.DocumentModule;
+import org.incode.module.document.dom.spi.DocumentBlobStore;
+import org.incode.module.document.dom.spi.DocumentBlobStoreServlet;
+
+/**
+ * Downloads a document held in the {@link DocumentBlobStore} through the {@link DocumentBlobStoreServlet}, which
+ * streams it from the store, rather than as a {@link org.apache.isis.applib.value.Blob} read into memory.
+ */
+@Mixin
+public class Document_downloadFromBlobStore {
+
+    //region > constructor
+    private final Document document;
+
+    public Document_downloadFromBlobStore(final Document document) {
+        this.document = document;
+    }
+    //endregion
+
+
+    public static class ActionDomainEvent extends DocumentModule.ActionDomainEvent<Document_downloadFromBlobStore> { }
+    @Action(
+            semantics = SemanticsOf.SAFE,
+            domainEvent = ActionDomainEvent.class
+    )
+    @ActionLayout(named = "Download")
+    public URL $$() throws MalformedURLException {
+        final HttpSession session = httpSessionProvider.getHttpSession()
+                .orElseThrow(() -> new IllegalStateException("No HTTP session to grant the download to"));
+        final HttpServletRequest request = httpServletRequestProvider.getServletRequest()
+                .orElseThrow(() -> new IllegalStateException("No HTTP request to download relative to"));
+        final String path = DocumentBlobStoreServlet.grant(
+                session, document.getExternalUrl(), document.getName(), document.getMimeType(),
+                clockService.nowAsMillis());
+        return new URL(new URL(request.getRequestURL().toString()), request.getContextPath() + path);
+    }
+
+    public boolean hide$$() {
+        return document.getSort() != DocumentSort.EXTERNAL_BLOB || !documentBlobStore.holds(document.getExternalUrl());
+    }
+
+
+
+    @Inject
+    DocumentBlobStore documentBlobStore;
+
+    @Inject
+    HttpSessionProvider httpSessionProvider;
+
+    @Inject
+    HttpServletRequestProvider httpServletRequestProvider;
+
+    @Inject
+    ClockService clockService;
+
+}
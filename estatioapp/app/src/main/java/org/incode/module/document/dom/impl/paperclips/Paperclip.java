@@ -57,6 +57,25 @@ import lombok.Setter;
                         + "FROM org.incode.module.document.dom.impl.paperclips.Paperclip "
                         + "WHERE attachedToStr == :attachedToStr "
                         + "ORDER BY documentCreatedAt DESC "),
+        @javax.jdo.annotations.Query(
+                name = "findByAttachedToStrIn", language = "JDOQL",
+                value = "SELECT "
+                        + "FROM org.incode.module.document.dom.impl.paperclips.Paperclip "
+                        + "WHERE :attachedToStrs.contains(attachedToStr) "
+                        + "ORDER BY documentCreatedAt DESC "),
+        @javax.jdo.annotations.Query(
+                name = "findByAttachedToStrInAndRoleName", language = "JDOQL",
+                value = "SELECT "
+                        + "FROM org.incode.module.document.dom.impl.paperclips.Paperclip "
+                        + "WHERE :attachedToStrs.contains(attachedToStr) "
+                        + "   && roleName      == :roleName "
+                        + "ORDER BY documentCreatedAt DESC "),
+        @javax.jdo.annotations.Query(
+                name = "findByDocumentIn", language = "JDOQL",
+                value = "SELECT "
+                        + "FROM org.incode.module.document.dom.impl.paperclips.Paperclip "
+                        + "WHERE :documents.contains(document) "
+                        + "ORDER BY documentCreatedAt DESC "),
         @javax.jdo.annotations.Query(
                 name = "findByAttachedToAndRoleName", language = "JDOQL",
                 value = "SELECT "
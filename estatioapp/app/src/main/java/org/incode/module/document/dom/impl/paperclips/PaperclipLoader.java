@@ -0,0 +1,124 @@
+package org.incode.module.document.dom.impl.paperclips;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Maps;
+
+import org.apache.isis.applib.annotation.DomainService;
+import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.annotation.Programmatic;
+import org.apache.isis.applib.services.bookmark.Bookmark;
+import org.apache.isis.applib.services.bookmark.BookmarkService;
+
+/**
+ * Request-scoped loader of the {@link Paperclip}s attached to domain objects, for code that looks them up one object
+ * at a time (typically in a loop).
+ *
+ * <p>
+ *     Objects can be {@link #prime(Collection) primed} up front; the first lookup of any object then loads the
+ *     paperclips of it and of all of the (not yet loaded) primed objects using
+ *     {@link PaperclipRepository#findByAttachedToIn(Collection, String)}, rather than a query per object. The
+ *     paperclips of each object are held for the rest of the request, other than those evicted by
+ *     {@link PaperclipRepository#attach(org.incode.module.document.dom.impl.docs.DocumentAbstract, String, Object) attach}
+ *     and {@link PaperclipRepository#delete(Paperclip) delete}.
+ * </p>
+ */
+@DomainService(nature = NatureOfService.DOMAIN)
+@RequestScoped
+public class PaperclipLoader {
+
+    /**
+     * Paperclips (most recent first) keyed by the bookmark of the object they are attached to.
+     */
+    private final Map<String, List<Paperclip>> paperclipsByAttachedToStr = Maps.newHashMap();
+
+    /**
+     * Objects primed but not yet loaded, keyed by their bookmark.
+     */
+    private final Map<String, Object> pendingByAttachedToStr = Maps.newLinkedHashMap();
+
+    /**
+     * Registers the objects whose paperclips are about to be looked up, so that they are loaded together.
+     */
+    @Programmatic
+    public void prime(final Collection<?> attachedTos) {
+        for (final Object attachedTo : attachedTos) {
+            final String attachedToStr = attachedToStrFor(attachedTo);
+            if (attachedToStr != null && !paperclipsByAttachedToStr.containsKey(attachedToStr)) {
+                pendingByAttachedToStr.put(attachedToStr, attachedTo);
+            }
+        }
+    }
+
+    /**
+     * As {@link PaperclipRepository#findByAttachedTo(Object)}, but the returned list is immutable.
+     */
+    @Programmatic
+    public List<Paperclip> findByAttachedTo(final Object attachedTo) {
+        final String attachedToStr = attachedToStrFor(attachedTo);
+        if (attachedToStr == null) {
+            return Collections.emptyList();
+        }
+        final List<Paperclip> paperclips = paperclipsByAttachedToStr.get(attachedToStr);
+        if (paperclips != null) {
+            return paperclips;
+        }
+        pendingByAttachedToStr.put(attachedToStr, attachedTo);
+        loadPending();
+        return paperclipsByAttachedToStr.get(attachedToStr);
+    }
+
+    /**
+     * As {@link PaperclipRepository#findByAttachedToAndRoleName(Object, String)}, but the returned list is
+     * immutable.
+     */
+    @Programmatic
+    public List<Paperclip> findByAttachedToAndRoleName(final Object attachedTo, final String roleName) {
+        return findByAttachedTo(attachedTo).stream()
+                .filter(paperclip -> roleName.equals(paperclip.getRoleName()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Discards the paperclips held for the object with this bookmark (as a string), so that they are reloaded on
+     * next lookup.
+     */
+    @Programmatic
+    public void evict(final String attachedToStr) {
+        paperclipsByAttachedToStr.remove(attachedToStr);
+    }
+
+    private void loadPending() {
+        final ListMultimap<Object, Paperclip> paperclipsByAttachedTo =
+                paperclipRepository.findByAttachedToIn(pendingByAttachedToStr.values(), null);
+        for (final Map.Entry<String, Object> pending : pendingByAttachedToStr.entrySet()) {
+            paperclipsByAttachedToStr.put(
+                    pending.getKey(), ImmutableList.copyOf(paperclipsByAttachedTo.get(pending.getValue())));
+        }
+        pendingByAttachedToStr.clear();
+    }
+
+    private String attachedToStrFor(final Object attachedTo) {
+        if (attachedTo == null) {
+            return null;
+        }
+        final Bookmark bookmark = bookmarkService.bookmarkFor(attachedTo);
+        return bookmark != null ? bookmark.toString() : null;
+    }
+
+    @Inject
+    PaperclipRepository paperclipRepository;
+
+    @Inject
+    BookmarkService bookmarkService;
+
+}
@@ -1,9 +1,16 @@
 package org.incode.module.document.dom.impl.paperclips;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import javax.inject.Inject;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
 import org.apache.isis.applib.annotation.DomainService;
 import org.apache.isis.applib.annotation.NatureOfService;
 import org.apache.isis.applib.annotation.Programmatic;
@@ -54,6 +61,77 @@ public class PaperclipRepository {
     }
     //endregion
 
+    //region > findByAttachedToIn, findByDocumentIn (programmatic)
+
+    /**
+     * The number of values passed as a single query parameter, kept well within the limits of the JDBC drivers.
+     */
+    static final int IN_CHUNK_SIZE = 500;
+
+    /**
+     * As {@link #findByAttachedTo(Object)}, but for many objects at once; the paperclips of each object are in the
+     * same (most recent first) order.
+     */
+    @Programmatic
+    public List<Paperclip> findByAttachedToIn(final Collection<?> attachedTos) {
+        return Lists.newArrayList(findByAttachedToIn(attachedTos, null).values());
+    }
+
+    /**
+     * As {@link #findByAttachedTo(Object)} (or {@link #findByAttachedToAndRoleName(Object, String)}, if a role name
+     * is provided), but for many objects at once, running a query per chunk of objects rather than per object.
+     *
+     * <p>
+     *     The paperclips of each object are in the same (most recent first) order; objects with no paperclips (or
+     *     that cannot be bookmarked) are simply absent from the returned multimap.
+     * </p>
+     */
+    @Programmatic
+    public <T> ListMultimap<T, Paperclip> findByAttachedToIn(
+            final Collection<T> attachedTos,
+            final String roleNameIfAny) {
+        final Map<String, T> attachedToByStr = Maps.newLinkedHashMap();
+        for (final T attachedTo : attachedTos) {
+            final Bookmark bookmark = attachedTo != null ? bookmarkService.bookmarkFor(attachedTo) : null;
+            if(bookmark != null) {
+                attachedToByStr.put(bookmark.toString(), attachedTo);
+            }
+        }
+        final ListMultimap<T, Paperclip> paperclipsByAttachedTo = ArrayListMultimap.create();
+        for (final List<String> chunk : Lists.partition(Lists.newArrayList(attachedToByStr.keySet()), IN_CHUNK_SIZE)) {
+            final List<Paperclip> paperclips = roleNameIfAny == null
+                    ? repositoryService.allMatches(
+                            new QueryDefault<>(Paperclip.class,
+                                    "findByAttachedToStrIn",
+                                    "attachedToStrs", chunk))
+                    : repositoryService.allMatches(
+                            new QueryDefault<>(Paperclip.class,
+                                    "findByAttachedToStrInAndRoleName",
+                                    "attachedToStrs", chunk,
+                                    "roleName", roleNameIfAny));
+            for (final Paperclip paperclip : paperclips) {
+                paperclipsByAttachedTo.put(attachedToByStr.get(paperclip.getAttachedToStr()), paperclip);
+            }
+        }
+        return paperclipsByAttachedTo;
+    }
+
+    /**
+     * As {@link #findByDocument(DocumentAbstract)}, but for many documents at once.
+     */
+    @Programmatic
+    public List<Paperclip> findByDocumentIn(final Collection<? extends DocumentAbstract> documents) {
+        final List<Paperclip> paperclips = Lists.newArrayList();
+        for (final List<? extends DocumentAbstract> chunk : Lists.partition(Lists.newArrayList(documents), IN_CHUNK_SIZE)) {
+            paperclips.addAll(repositoryService.allMatches(
+                    new QueryDefault<>(Paperclip.class,
+                            "findByDocumentIn",
+                            "documents", chunk)));
+        }
+        return paperclips;
+    }
+    //endregion
+
     //region > findByAttachedToAndRoleName (programmatic)
     @Programmatic
     public List<Paperclip> findByAttachedToAndRoleName(
@@ -176,6 +254,7 @@ public class PaperclipRepository {
         paperclip.setAttachedToStr(bookmark.toString());
 
         repositoryService.persistAndFlush(paperclip);
+        paperclipLoader.evict(paperclip.getAttachedToStr());
 
         return paperclip;
     }
@@ -223,6 +302,7 @@ public class PaperclipRepository {
     //region > delete, deleteIfAttachedTo
     @Programmatic
     public void delete(final Paperclip paperclip) {
+        paperclipLoader.evict(paperclip.getAttachedToStr());
         repositoryService.remove(paperclip);
     }
 
@@ -315,6 +395,9 @@ public class PaperclipRepository {
 
     @Inject
     List<SubtypeProvider> subtypeProviders;
+
+    @Inject
+    PaperclipLoader paperclipLoader;
     //endregion
 
 
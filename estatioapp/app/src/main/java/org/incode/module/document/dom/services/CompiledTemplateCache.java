@@ -0,0 +1,236 @@
+package org.incode.module.document.dom.services;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PostConstruct;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.isis.applib.annotation.DomainService;
+import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.annotation.Programmatic;
+
+import org.incode.module.document.dom.impl.docs.DocumentTemplate;
+import org.incode.module.document.dom.impl.types.DocumentType;
+
+import lombok.Data;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Holds templates compiled by renderers (eg a parsed and preprocessed DOCX), so that rendering many
+ * documents from the same {@link DocumentTemplate} compiles it only once.
+ *
+ * <p>
+ *     Compiled templates are keyed by the template's type, application tenancy path and version, and the variant
+ *     (content or name) rendered. Because the version of a template only changes once its transaction commits, the
+ *     source of each compiled template is also kept and compared on every lookup; the mixins that update a template
+ *     additionally {@link #invalidate(DocumentTemplate) invalidate} its compiled forms.
+ * </p>
+ *
+ * <p>
+ *     Compiled templates are handed out as {@link Lease}s, to be closed once rendered from.  Any compiled template that
+ *     is {@link AutoCloseable} is closed once it has been evicted (or replaced or invalidated) <i>and</i> all of its
+ *     leases have been closed, so never while a render is still using it.
+ * </p>
+ */
+@DomainService(nature = NatureOfService.DOMAIN)
+public class CompiledTemplateCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CompiledTemplateCache.class);
+
+    public static final String MAX_SIZE_KEY = "incode.module.document.compiledTemplateCache.maxSize";
+
+    private static final long MAX_SIZE_DEFAULT = 100;
+
+    public interface Compiler<T> {
+        T compile() throws IOException;
+    }
+
+    @Data
+    static class Key {
+        private final String typeReference;
+        private final String atPath;
+        private final String variant;
+        private final long version;
+        private final Class<?> compiledType;
+    }
+
+    @RequiredArgsConstructor
+    static class Compiled {
+        @Getter
+        private final Object source;
+        @Getter
+        private final Object compiled;
+
+        /**
+         * One for the cache, plus one for each open lease.
+         */
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        /**
+         * Fails if already closed (evicted, with no leases left).
+         */
+        boolean acquire() {
+            for (;;) {
+                final int count = references.get();
+                if (count == 0) {
+                    return false;
+                }
+                if (references.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void release() {
+            if (references.decrementAndGet() == 0) {
+                close(this);
+            }
+        }
+    }
+
+    /**
+     * A compiled template, held open (ie not closed even if evicted) until the lease is closed.
+     */
+    public static class Lease<T> implements AutoCloseable {
+
+        private final Compiled compiled;
+        private final T value;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Lease(final Compiled compiled, final T value) {
+            this.compiled = compiled;
+            this.value = value;
+        }
+
+        public T get() {
+            return value;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                compiled.release();
+            }
+        }
+    }
+
+    private Cache<Key, Compiled> cache;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public String getId() {
+        return "incodeDocuments.CompiledTemplateCache";
+    }
+
+    @PostConstruct
+    public void init(final Map<String, String> properties) {
+        final String maxSize = properties.get(MAX_SIZE_KEY);
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize != null ? Long.parseLong(maxSize) : MAX_SIZE_DEFAULT)
+                .removalListener((RemovalListener<Key, Compiled>) notification -> notification.getValue().release())
+                .build();
+    }
+
+    /**
+     * The template compiled from the source (either <tt>byte[]</tt> or {@link String}), compiling it only if not
+     * already held for this template version and source; the lease must be closed once rendered from.
+     */
+    @Programmatic
+    public <T> Lease<T> compiled(
+            final DocumentType documentType,
+            final String variant,
+            final String atPath,
+            final long version,
+            final Object source,
+            final Class<T> compiledType,
+            final Compiler<T> compiler) throws IOException {
+
+        final Key key = new Key(documentType.getReference(), atPath, variant, version, compiledType);
+
+        final Compiled cached = cache.getIfPresent(key);
+        if (cached != null && Objects.deepEquals(cached.getSource(), source) && cached.acquire()) {
+            hits.increment();
+            return new Lease<>(cached, compiledType.cast(cached.getCompiled()));
+        }
+
+        misses.increment();
+        final T compiled = compiler.compile();
+        final Compiled entry = new Compiled(source, compiled);
+        entry.acquire();
+        cache.put(key, entry);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("compiled {}; hit rate now {}", key, getHitRate());
+        }
+        return new Lease<>(entry, compiled);
+    }
+
+    /**
+     * Discards all compiled forms (of any version or variant) of the template.
+     */
+    @Programmatic
+    public void invalidate(final DocumentTemplate documentTemplate) {
+        final String typeReference = documentTemplate.getType().getReference();
+        final String atPath = documentTemplate.getAtPath();
+        cache.asMap().keySet().removeIf(key ->
+                Objects.equals(key.getTypeReference(), typeReference) && Objects.equals(key.getAtPath(), atPath));
+    }
+
+    @Programmatic
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    //region > metrics
+
+    @Programmatic
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @Programmatic
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * The proportion of lookups that found the template already compiled; <tt>1.0</tt> if there have been none.
+     */
+    @Programmatic
+    public double getHitRate() {
+        final long hitCount = getHitCount();
+        final long lookups = hitCount + getMissCount();
+        return lookups == 0 ? 1.0 : (double) hitCount / lookups;
+    }
+
+    @Programmatic
+    public long getSize() {
+        return cache.size();
+    }
+
+    //endregion
+
+    private static void close(final Compiled compiled) {
+        if (compiled == null || !(compiled.getCompiled() instanceof AutoCloseable)) {
+            return;
+        }
+        try {
+            ((AutoCloseable) compiled.getCompiled()).close();
+        } catch (Exception ex) {
+            LOG.warn("Failed to close compiled template", ex);
+        }
+    }
+
+}
@@ -0,0 +1,184 @@
+package org.incode.module.document.dom.spi;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+
+import com.google.common.hash.Hashing;
+
+import org.apache.isis.applib.annotation.DomainService;
+import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.annotation.Programmatic;
+
+import org.incode.module.document.dom.impl.docs.Document;
+import org.incode.module.document.dom.impl.docs.DocumentRepository;
+import org.incode.module.document.dom.impl.docs.DocumentSort;
+
+/**
+ * Stores the content of {@link DocumentSort#EXTERNAL_BLOB externally held} {@link Document}s outside of the
+ * database, addressed by their content; the document's {@link Document#getExternalUrl() external URL} identifies it.
+ */
+public interface DocumentBlobStore {
+
+    /**
+     * Whether this store is configured; if not, documents are left in the database.
+     */
+    @Programmatic
+    boolean isEnabled();
+
+    /**
+     * Stores the bytes (unless identical bytes are stored already), returning the URL to refer to them.
+     */
+    @Programmatic
+    String store(final byte[] bytes);
+
+    /**
+     * Whether the URL refers to content in this store.
+     */
+    @Programmatic
+    boolean holds(final String externalUrl);
+
+    @Programmatic
+    byte[] asBytes(final String externalUrl);
+
+    /**
+     * Writes the content to the channel, without copying it through the heap where the platform allows.
+     *
+     * @return the number of bytes written
+     */
+    @Programmatic
+    long transferTo(final String externalUrl, final WritableByteChannel target);
+
+    /**
+     * Stores content on the local filesystem, under the directory configured as {@link #DIRECTORY_KEY}, by its
+     * SHA-256 hash. Identical content is therefore stored only once.
+     */
+    @DomainService(nature = NatureOfService.DOMAIN)
+    public class Default implements DocumentBlobStore {
+
+        public static final String DIRECTORY_KEY = "incode.module.document.blobStore.directory";
+
+        static final String URL_PREFIX = "blobstore:sha256:";
+
+        private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+        private Path directory;
+
+        public String getId() {
+            return "incodeDocuments.DocumentBlobStore$Default";
+        }
+
+        @PostConstruct
+        public void init(final Map<String, String> properties) {
+            final String directoryName = properties.get(DIRECTORY_KEY);
+            this.directory = directoryName != null ? Paths.get(directoryName) : null;
+            if (directory == null && !documentRepository.findByExternalUrlStartingWith(URL_PREFIX, 1).isEmpty()) {
+                // rather than failing on each access of a moved document
+                throw new IllegalStateException(String.format(
+                        "Documents have been moved to the blob store, but '%s' is not configured", DIRECTORY_KEY));
+            }
+        }
+
+        @Programmatic
+        @Override
+        public boolean isEnabled() {
+            return directory != null;
+        }
+
+        @Programmatic
+        @Override
+        public String store(final byte[] bytes) {
+            if (!isEnabled()) {
+                return null;
+            }
+            final String hash = Hashing.sha256().hashBytes(bytes).toString();
+            final Path path = pathFor(hash);
+            try {
+                if (Files.exists(path) && Files.size(path) == bytes.length) {
+                    return URL_PREFIX + hash;
+                }
+                Files.createDirectories(path.getParent());
+                // write alongside then move, so that the content is never seen partially written
+                final Path temp = Files.createTempFile(path.getParent(), hash, ".tmp");
+                try {
+                    Files.write(temp, bytes);
+                    Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (FileAlreadyExistsException ex) {
+                    // stored concurrently, with the same content
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+                return URL_PREFIX + hash;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Programmatic
+        @Override
+        public boolean holds(final String externalUrl) {
+            return isEnabled()
+                    && externalUrl != null
+                    && externalUrl.startsWith(URL_PREFIX)
+                    && HASH.matcher(externalUrl.substring(URL_PREFIX.length())).matches();
+        }
+
+        @Programmatic
+        @Override
+        public byte[] asBytes(final String externalUrl) {
+            try (final FileChannel channel = FileChannel.open(pathFor(externalUrl), StandardOpenOption.READ)) {
+                final ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // keep reading
+                }
+                return buffer.array();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Programmatic
+        @Override
+        public long transferTo(final String externalUrl, final WritableByteChannel target) {
+            try (final FileChannel channel = FileChannel.open(pathFor(externalUrl), StandardOpenOption.READ)) {
+                final long size = channel.size();
+                long position = 0;
+                while (position < size) {
+                    position += channel.transferTo(position, size - position, target);
+                }
+                return size;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        private Path pathFor(final String externalUrlOrHash) {
+            final String hash = externalUrlOrHash.startsWith(URL_PREFIX)
+                    ? externalUrlOrHash.substring(URL_PREFIX.length())
+                    : externalUrlOrHash;
+            if (!HASH.matcher(hash).matches()) {
+                throw new IllegalArgumentException("Not held in the blob store: " + externalUrlOrHash);
+            }
+            // fan out over subdirectories, to keep each directory small
+            return directory.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+        }
+
+        @Inject
+        DocumentRepository documentRepository;
+
+    }
+
+}
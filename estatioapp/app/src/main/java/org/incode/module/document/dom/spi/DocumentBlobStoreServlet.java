@@ -0,0 +1,114 @@
+package org.incode.module.document.dom.spi;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import org.apache.isis.applib.services.clock.ClockService;
+import org.apache.isis.core.metamodel.services.ServicesInjector;
+import org.apache.isis.core.runtime.system.context.IsisContext;
+
+import lombok.Data;
+
+/**
+ * Serves the content of documents held in the {@link DocumentBlobStore} by streaming it from the store to the
+ * response with {@link DocumentBlobStore#transferTo(String, WritableByteChannel)}, rather than reading it into
+ * memory first.
+ *
+ * <p>
+ *     The servlet does not authorise access itself: a document is only served to the HTTP session that was
+ *     {@link #grant(HttpSession, String, String, String, long) granted} it, by an action that the framework has
+ *     authorised, and only once and for a short while.
+ * </p>
+ *
+ * <p>
+ *     To be registered in <tt>web.xml</tt> under {@link #PATH}.
+ * </p>
+ */
+public class DocumentBlobStoreServlet extends HttpServlet {
+
+    public static final String PATH = "/documentBlob/";
+
+    static final String GRANTS_ATTRIBUTE = DocumentBlobStoreServlet.class.getName() + ".grants";
+
+    static final long GRANT_MILLIS = 60_000L;
+
+    @Data
+    static class Grant implements Serializable {
+        private final String externalUrl;
+        private final String name;
+        private final String mimeType;
+        private final long expiresAt;
+    }
+
+    /**
+     * Grants the session a single download of the content, returning the path (relative to the context root) to
+     * download it from.
+     */
+    public static String grant(
+            final HttpSession session,
+            final String externalUrl,
+            final String name,
+            final String mimeType,
+            final long now) {
+        final String token = UUID.randomUUID().toString();
+        synchronized (session) {
+            final Map<String, Grant> grants = grantsOf(session);
+            grants.values().removeIf(grant -> grant.getExpiresAt() < now);
+            grants.put(token, new Grant(externalUrl, name, mimeType, now + GRANT_MILLIS));
+            // (re)set, so that the change is replicated
+            session.setAttribute(GRANTS_ATTRIBUTE, grants);
+        }
+        return PATH + token;
+    }
+
+    static Grant take(final HttpSession session, final String token, final long now) {
+        synchronized (session) {
+            final Map<String, Grant> grants = grantsOf(session);
+            final Grant grant = grants.remove(token);
+            session.setAttribute(GRANTS_ATTRIBUTE, grants);
+            return grant != null && grant.getExpiresAt() >= now ? grant : null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Grant> grantsOf(final HttpSession session) {
+        final Map<String, Grant> grants = (Map<String, Grant>) session.getAttribute(GRANTS_ATTRIBUTE);
+        return grants != null ? grants : new HashMap<>();
+    }
+
+    @Override
+    protected void doGet(final HttpServletRequest request, final HttpServletResponse response) throws IOException {
+        final ServicesInjector servicesInjector = IsisContext.getSessionFactory().getServicesInjector();
+        final HttpSession session = request.getSession(false);
+        final String pathInfo = request.getPathInfo();
+        final Grant grant = session != null && pathInfo != null
+                ? take(session, pathInfo.substring(1), servicesInjector.lookupService(ClockService.class).nowAsMillis())
+                : null;
+        if (grant == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        final DocumentBlobStore documentBlobStore = servicesInjector.lookupService(DocumentBlobStore.class);
+
+        response.setContentType(grant.getMimeType());
+        response.setHeader("Content-Disposition", String.format("attachment; filename=\"%s\"", safe(grant.getName())));
+        try (final WritableByteChannel channel = Channels.newChannel(response.getOutputStream())) {
+            documentBlobStore.transferTo(grant.getExternalUrl(), channel);
+        }
+    }
+
+    private static String safe(final String name) {
+        return name.replaceAll("[\"\\\\\\r\\n]", "_");
+    }
+
+}
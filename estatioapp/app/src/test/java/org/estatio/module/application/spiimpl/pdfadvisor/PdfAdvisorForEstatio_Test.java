@@ -0,0 +1,129 @@
+package org.estatio.module.application.spiimpl.pdfadvisor;
+
+import java.util.Collections;
+
+import javax.jdo.JDODataStoreException;
+
+import com.google.common.collect.ImmutableMap;
+
+import org.jmock.Expectations;
+import org.jmock.auto.Mock;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.apache.isis.core.unittestsupport.jmocking.JUnitRuleMockery2;
+
+import org.isisaddons.wicket.pdfjs.cpt.applib.PdfJsViewerAdvisor.InstanceKey;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PdfAdvisorForEstatio_Test {
+
+    @Rule
+    public JUnitRuleMockery2 context = JUnitRuleMockery2.createFor(JUnitRuleMockery2.Mode.INTERFACES_AND_CLASSES);
+
+    @Mock
+    PdfViewerPositionRepository mockPdfViewerPositionRepository;
+
+    PdfAdvisorForEstatio advisor;
+
+    @Before
+    public void setUp() throws Exception {
+        advisor = new PdfAdvisorForEstatio();
+        advisor.pdfViewerPositionRepository = mockPdfViewerPositionRepository;
+    }
+
+    static InstanceKey key(final String identifier) {
+        return new InstanceKey("incodedocuments.Document", identifier, "blob", "fbloggs");
+    }
+
+    public static class InMemory_Test extends PdfAdvisorForEstatio_Test {
+
+        @Test
+        public void remembers_page_number() throws Exception {
+            // given
+            advisor.init(Collections.emptyMap());
+            assertThat(advisor.pageNumFor(key("1"))).isEqualTo(1);
+
+            // when
+            advisor.pageNumChangedTo(key("1"), 5);
+
+            // then
+            assertThat(advisor.pageNumFor(key("1"))).isEqualTo(5);
+            assertThat(advisor.pageNumFor(key("2"))).isEqualTo(1);
+            assertThat(advisor.getInstanceCount()).isEqualTo(2);
+        }
+
+        @Test
+        public void evicts_when_exceeds_max_bytes() throws Exception {
+            // given
+            final long maxBytes = 10L * PdfAdvisorForEstatio.approximateSizeOf(key("0"));
+            advisor.init(Collections.singletonMap(PdfAdvisorForEstatio.MAX_BYTES_KEY, "" + maxBytes));
+
+            // when
+            for (int i = 0; i < 100; i++) {
+                advisor.pageNumChangedTo(key("" + (i % 10)), i);
+                advisor.pageNumChangedTo(key("" + i), i);
+            }
+
+            // then
+            assertThat(advisor.getApproximateBytes()).isLessThanOrEqualTo(maxBytes);
+            assertThat(advisor.getEvictionCount()).isGreaterThan(0);
+        }
+    }
+
+    public static class Persistent_Test extends PdfAdvisorForEstatio_Test {
+
+        @Before
+        public void setUp() throws Exception {
+            advisor.init(ImmutableMap.of(PdfAdvisorForEstatio.PERSISTENT_KEY, "true"));
+        }
+
+        @Test
+        public void reads_through_once_then_cached() throws Exception {
+            // given
+            final PdfViewerPosition position = new PdfViewerPosition();
+            position.setPageNum(7);
+
+            context.checking(new Expectations() {{
+                oneOf(mockPdfViewerPositionRepository).findBy(key("1"));
+                will(returnValue(position));
+            }});
+
+            // when, then
+            assertThat(advisor.pageNumFor(key("1"))).isEqualTo(7);
+            assertThat(advisor.pageNumFor(key("1"))).isEqualTo(7);
+        }
+
+        @Test
+        public void writes_through() throws Exception {
+            // expecting
+            context.checking(new Expectations() {{
+                oneOf(mockPdfViewerPositionRepository).upsert(key("1"), 3);
+            }});
+
+            // when
+            advisor.pageNumChangedTo(key("1"), 3);
+
+            // then
+            assertThat(advisor.pageNumFor(key("1"))).isEqualTo(3);
+        }
+
+        @Test
+        public void write_through_is_best_effort() throws Exception {
+            // expecting
+            context.checking(new Expectations() {{
+                oneOf(mockPdfViewerPositionRepository).upsert(key("1"), 3);
+                will(throwException(new JDODataStoreException("PdfViewerPosition_key_UNQ")));
+            }});
+
+            // when
+            advisor.pageNumChangedTo(key("1"), 3);
+
+            // then
+            assertThat(advisor.pageNumFor(key("1"))).isEqualTo(3);
+        }
+    }
+
+}
@@ -97,4 +97,46 @@ public class ApplicationTenancyEvaluatorForEstatio_Test {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void verdicts_are_consistent_when_asked_again() throws Exception {
+
+        assertThat(evaluator.verdictFor(italianCaraselloObject, italianUser))
+                .isEqualTo(ApplicationTenancyEvaluatorForEstatio.Verdict.ENABLED);
+        assertThat(evaluator.verdictFor(italianObject, italianCaraselloUser))
+                .isEqualTo(ApplicationTenancyEvaluatorForEstatio.Verdict.VISIBLE);
+        assertThat(evaluator.verdictFor(italianCaraselloObject, italianIgigliUser))
+                .isEqualTo(ApplicationTenancyEvaluatorForEstatio.Verdict.HIDDEN);
+
+        // answered from the verdicts already held
+        assertThat(evaluator.verdictFor(italianCaraselloObject, italianUser))
+                .isEqualTo(ApplicationTenancyEvaluatorForEstatio.Verdict.ENABLED);
+        assertThat(evaluator.verdictFor(italianObject, italianCaraselloUser))
+                .isEqualTo(ApplicationTenancyEvaluatorForEstatio.Verdict.VISIBLE);
+        assertThat(evaluator.verdictFor(italianCaraselloObject, italianIgigliUser))
+                .isEqualTo(ApplicationTenancyEvaluatorForEstatio.Verdict.HIDDEN);
+    }
+
+    @Test
+    public void overridden_parts_equal_is_honoured() throws Exception {
+
+        // given
+        evaluator = new ApplicationTenancyEvaluatorForEstatio() {
+            @Override
+            protected boolean partsEqual(final String objectTenancyPathPart, final String userTenancyPathPart) {
+                return objectTenancyPathPart.equals(userTenancyPathPart);
+            }
+        };
+
+        // then
+        assertThat(evaluator.objectVisibleToUser(italianCaraselloObject, italianXCaraselloUser)).isFalse();
+        assertThat(evaluator.objectVisibleToUser(italianCaraselloObject, italianCaraselloUser)).isTrue();
+    }
+
+    @Test
+    public void matcher_ignores_empty_segments() throws Exception {
+
+        assertThat(evaluator.objectEnabledForUser("/ITA/CAR/", "//ITA/X-CAR")).isTrue();
+        assertThat(evaluator.objectVisibleToUser("/FRA//", "/ITA")).isFalse();
+    }
+
+}
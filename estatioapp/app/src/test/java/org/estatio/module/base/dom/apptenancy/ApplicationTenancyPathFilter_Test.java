@@ -0,0 +1,63 @@
+package org.estatio.module.base.dom.apptenancy;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ApplicationTenancyPathFilter_Test {
+
+    public static class ForUser extends ApplicationTenancyPathFilter_Test {
+
+        @Test
+        public void global_or_no_tenancy_is_unrestricted() throws Exception {
+            assertThat(ApplicationTenancyPathFilter.forUser("/").isUnrestricted()).isTrue();
+            assertThat(ApplicationTenancyPathFilter.forUser(null).isUnrestricted()).isTrue();
+            assertThat(ApplicationTenancyPathFilter.forUser("/").toJdoql("applicationTenancyPath")).isEqualTo("true");
+            assertThat(ApplicationTenancyPathFilter.forUser("/").getParameters()).isEmpty();
+        }
+
+        @Test
+        public void accepts_same_above_and_below() throws Exception {
+            final ApplicationTenancyPathFilter filter = ApplicationTenancyPathFilter.forUser("/ITA/CAR");
+
+            assertThat(filter.accepts("/")).isTrue();
+            assertThat(filter.accepts("/ITA")).isTrue();
+            assertThat(filter.accepts("/ITA/CAR")).isTrue();
+            assertThat(filter.accepts("/ITA/CAR/_")).isTrue();
+
+            assertThat(filter.accepts("/FRA")).isFalse();
+            assertThat(filter.accepts("/ITA/GIG")).isFalse();
+            assertThat(filter.accepts("/ITA/CARX")).isFalse();
+            assertThat(filter.accepts("/ITA/X-CAR")).isFalse();
+            assertThat(filter.accepts(null)).isFalse();
+        }
+
+        @Test
+        public void wildcard_segment_also_accepts_its_base() throws Exception {
+            final ApplicationTenancyPathFilter filter = ApplicationTenancyPathFilter.forUser("/ITA/X-CAR");
+
+            assertThat(filter.accepts("/ITA/X-CAR")).isTrue();
+            assertThat(filter.accepts("/ITA/CAR")).isTrue();
+            assertThat(filter.accepts("/ITA/CAR/_")).isTrue();
+            assertThat(filter.accepts("/ITA/GIG")).isFalse();
+        }
+    }
+
+    public static class ToJdoql extends ApplicationTenancyPathFilter_Test {
+
+        @Test
+        public void one_prefix_parameter_per_variant() throws Exception {
+            final ApplicationTenancyPathFilter filter = ApplicationTenancyPathFilter.forUser("/ITA/X-CAR");
+
+            assertThat(filter.toJdoql("applicationTenancyPath")).isEqualTo(
+                    "(:tenancyAtPaths.contains(applicationTenancyPath)"
+                            + " || applicationTenancyPath.startsWith(:tenancyAtPathPrefix0)"
+                            + " || applicationTenancyPath.startsWith(:tenancyAtPathPrefix1))");
+            assertThat(filter.getParameters()).containsOnlyKeys(
+                    "tenancyAtPaths", "tenancyAtPathPrefix0", "tenancyAtPathPrefix1");
+            assertThat(filter.getParameters().get("tenancyAtPathPrefix0")).isEqualTo("/ITA/X-CAR/");
+            assertThat(filter.getParameters().get("tenancyAtPathPrefix1")).isEqualTo("/ITA/CAR/");
+        }
+    }
+
+}
@@ -0,0 +1,203 @@
+package org.estatio.module.budget.dom;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that {@link DistributionService#distribute(List, BigDecimal, int)} gives exactly the same values (including
+ * their scale) as the original implementation, kept below as {@link ReferenceDistributionService}, over a corpus of
+ * generated key tables.
+ */
+public class DistributionService_differential_Test {
+
+    private static final long SEED = 20181018L;
+
+    private static final int NUMBER_OF_CASES = 2000;
+
+    @Test
+    public void same_values_as_reference_implementation() throws Exception {
+        final Random random = new Random(SEED);
+        for (int i = 0; i < NUMBER_OF_CASES; i++) {
+
+            // given
+            final int numberOfItems = 1 + random.nextInt(random.nextBoolean() ? 15 : 250);
+            final int precision = random.nextInt(7);
+            final BigDecimal targetTotal = randomTargetTotal(random);
+            final List<BigDecimal> sourceValues = new ArrayList<>();
+            for (int j = 0; j < numberOfItems; j++) {
+                sourceValues.add(randomSourceValue(random));
+            }
+
+            // when
+            final List<Distributable> expected = new ReferenceDistributionService()
+                    .distribute(itemsFor(sourceValues), targetTotal, precision);
+            final List<Distributable> actual = new DistributionService()
+                    .distribute(itemsFor(sourceValues), targetTotal, precision);
+
+            // then
+            final String description = String.format(
+                    "case %d: targetTotal %s, precision %d, sourceValues %s", i, targetTotal, precision, sourceValues);
+            assertThat(actual).as(description).hasSameSizeAs(expected);
+            for (int j = 0; j < expected.size(); j++) {
+                assertThat(actual.get(j).getValue()).as(description + ", item " + j)
+                        .isEqualTo(expected.get(j).getValue());
+            }
+        }
+    }
+
+    private static BigDecimal randomTargetTotal(final Random random) {
+        switch (random.nextInt(4)) {
+        case 0:
+            return new BigDecimal(100);
+        case 1:
+            return new BigDecimal(1000);
+        case 2:
+            return BigDecimal.valueOf(random.nextInt(100_000_000), 2);
+        default:
+            return BigDecimal.valueOf(random.nextInt(1_000_000), random.nextInt(5));
+        }
+    }
+
+    private static BigDecimal randomSourceValue(final Random random) {
+        switch (random.nextInt(5)) {
+        case 0:
+            return BigDecimal.ZERO;
+        case 1:
+            return BigDecimal.valueOf(1.99);
+        default:
+            return BigDecimal.valueOf(random.nextInt(1_000_000), random.nextInt(4));
+        }
+    }
+
+    private static List<Distributable> itemsFor(final List<BigDecimal> sourceValues) {
+        final List<Distributable> items = new ArrayList<>();
+        for (final BigDecimal sourceValue : sourceValues) {
+            items.add(new DistributableForTesting(sourceValue));
+        }
+        return items;
+    }
+
+    static class DistributableForTesting implements Distributable {
+
+        private final BigDecimal sourceValue;
+        private BigDecimal value;
+
+        DistributableForTesting(final BigDecimal sourceValue) {
+            this.sourceValue = sourceValue;
+        }
+
+        @Override
+        public BigDecimal getSourceValue() {
+            return sourceValue;
+        }
+
+        @Override
+        public BigDecimal getValue() {
+            return value;
+        }
+
+        @Override
+        public void setValue(final BigDecimal value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * The original implementation of {@link DistributionService}, which rescans all items for each unit of the
+     * rounding correction.
+     */
+    static class ReferenceDistributionService {
+
+        List<Distributable> distribute(
+                final List<Distributable> input,
+                final BigDecimal targetTotal,
+                final int precision) {
+
+            BigDecimal denominator = BigDecimal.ZERO;
+            for (Distributable distributable : input) {
+                denominator = denominator.add(distributable.getSourceValue(), MathContext.DECIMAL64);
+            }
+
+            if (denominator.compareTo(BigDecimal.ZERO) <= 0) {
+                for (Distributable inputItem : input) {
+                    inputItem.setValue(BigDecimal.ZERO);
+                }
+                return input;
+            }
+
+            List<OutputHelper> outputHelperList = new ArrayList<>();
+            for (Distributable distributable : input) {
+                BigDecimal unroundedTargetValue = distributable.getSourceValue().multiply(targetTotal, MathContext.DECIMAL64).divide(denominator, MathContext.DECIMAL64);
+                BigDecimal roundedTargetValue = unroundedTargetValue.setScale(precision, BigDecimal.ROUND_HALF_UP);
+                distributable.setValue(roundedTargetValue);
+                outputHelperList.add(new OutputHelper(
+                        distributable,
+                        roundedTargetValue.subtract(unroundedTargetValue, MathContext.DECIMAL64)));
+            }
+
+            BigDecimal sumOfCalculatedRoundedValues = BigDecimal.ZERO;
+            for (OutputHelper helper : outputHelperList) {
+                sumOfCalculatedRoundedValues = sumOfCalculatedRoundedValues.add(helper.distributable.getValue(), MathContext.DECIMAL64);
+            }
+
+            BigDecimal deltaOfSum = BigDecimal.ZERO;
+            boolean deltaNegative = false;
+            BigDecimal validTotal = targetTotal.setScale(precision, BigDecimal.ROUND_HALF_UP);
+            if (sumOfCalculatedRoundedValues.compareTo(validTotal) > 0) {
+                deltaOfSum = deltaOfSum.add(sumOfCalculatedRoundedValues.subtract(validTotal, MathContext.DECIMAL64));
+            }
+            if (sumOfCalculatedRoundedValues.compareTo(validTotal) < 0) {
+                deltaNegative = true;
+                deltaOfSum = deltaOfSum.add(sumOfCalculatedRoundedValues.subtract(validTotal, MathContext.DECIMAL64));
+            }
+
+            int numberOfIterationsNeeded = deltaOfSum.abs().multiply(new BigDecimal(10).pow(precision, MathContext.DECIMAL64)).intValue();
+            BigDecimal increment = BigDecimal.valueOf(0.1).pow(precision, MathContext.DECIMAL64);
+
+            for (int i = 0; i < numberOfIterationsNeeded; i = i + 1) {
+                OutputHelper helperToCorrect = null;
+                for (OutputHelper helper : outputHelperList) {
+                    if ((deltaNegative ? helper.delta.compareTo(new BigDecimal(-1)) > 0 : helper.delta.compareTo(BigDecimal.ONE) < 0)
+                            && !helper.corrected
+                            && !(helper.distributable.getSourceValue().compareTo(BigDecimal.ZERO) == 0)) {
+                        helperToCorrect = helper;
+                    }
+                }
+                helperToCorrect.distributable.setValue(
+                        (deltaNegative
+                                ? helperToCorrect.distributable.getValue().add(increment, MathContext.DECIMAL64)
+                                : helperToCorrect.distributable.getValue().subtract(increment, MathContext.DECIMAL64))
+                                .setScale(precision, BigDecimal.ROUND_HALF_UP));
+                helperToCorrect.corrected = true;
+            }
+
+            List<Distributable> output = new ArrayList<>();
+            for (OutputHelper helper : outputHelperList) {
+                output.add(helper.distributable);
+            }
+            return output;
+        }
+
+        private static class OutputHelper {
+
+            OutputHelper(final Distributable distributable, final BigDecimal delta) {
+                this.distributable = distributable;
+                this.delta = delta;
+            }
+
+            private final Distributable distributable;
+
+            private final BigDecimal delta;
+
+            private boolean corrected;
+        }
+    }
+
+}
@@ -117,6 +117,23 @@ public class BudgetCalculationRepository_Test {
 
     }
 
+    public static class FindByBudget extends BudgetCalculationRepository_Test {
+
+        @Test
+        public void happyCase() {
+
+            Budget budget = new Budget();
+            budgetCalculationRepository.findByBudget(budget);
+
+            assertThat(finderInteraction.getFinderMethod()).isEqualTo(FinderInteraction.FinderMethod.ALL_MATCHES);
+            assertThat(finderInteraction.getResultType()).isEqualTo(BudgetCalculation.class);
+            assertThat(finderInteraction.getQueryName()).isEqualTo("findByBudget");
+            assertThat(finderInteraction.getArgumentsByParameterName().get("budget")).isEqualTo((Object) budget);
+            assertThat(finderInteraction.getArgumentsByParameterName()).hasSize(1);
+        }
+
+    }
+
     public static class FindByBudgetAndInvoiceChargeAndType extends BudgetCalculationRepository_Test {
 
         @Test
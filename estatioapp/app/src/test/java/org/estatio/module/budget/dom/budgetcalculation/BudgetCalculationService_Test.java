@@ -20,6 +20,7 @@ package org.estatio.module.budget.dom.budgetcalculation;
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
+import java.util.SortedSet;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -45,6 +46,7 @@ public class BudgetCalculationService_Test {
         KeyTable keyTable;
         KeyItem keyItem1;
         KeyItem keyItem2;
+        int keyTableItemsLoaded;
 
         BudgetCalculationService service = new BudgetCalculationService();
 
@@ -68,7 +70,13 @@ public class BudgetCalculationService_Test {
                 }
             };
 
-            keyTable = new KeyTable();
+            keyTable = new KeyTable(){
+                @Override
+                public SortedSet<KeyItem> getItems(){
+                    keyTableItemsLoaded++;
+                    return super.getItems();
+                }
+            };
             keyTable.setKeyValueMethod(KeyValueMethod.PERCENT);
             keyTable.setPrecision(6);
 
@@ -178,6 +186,53 @@ public class BudgetCalculationService_Test {
 
         }
 
+        @Test
+        public void keyTableIsLoadedOncePerBudget() {
+
+            // given
+            budgetItemValue.setValue(new BigDecimal("1000.00"));
+            budgetItemValue.setType(BudgetCalculationType.BUDGETED);
+            partitionItem.setPercentage(new BigDecimal("50.00"));
+            final PartitionItem otherPartitionItem = new PartitionItem();
+            otherPartitionItem.setBudgetItem(budgetItem);
+            otherPartitionItem.setKeyTable(keyTable);
+            otherPartitionItem.setPercentage(new BigDecimal("50.00"));
+            final BudgetItem budgetItemWithTwoPartitions = new BudgetItem(){
+                @Override
+                public BigDecimal getBudgetedValue(){
+                    return budgetItemValue.getValue();
+                }
+                @Override
+                public BigDecimal getAuditedValue(){
+                    return new BigDecimal("900.00");
+                }
+                @Override
+                public List<PartitionItem> getPartitionItems(){
+                    return Arrays.asList(partitionItem, otherPartitionItem);
+                }
+            };
+            partitionItem.setBudgetItem(budgetItemWithTwoPartitions);
+            otherPartitionItem.setBudgetItem(budgetItemWithTwoPartitions);
+            budget.getItems().clear();
+            budget.getItems().add(budgetItemWithTwoPartitions);
+            keyTableItemsLoaded = 0;
+
+            // when
+            List<BudgetCalculationViewmodel> results = service.getAllCalculations(budget);
+
+            // then
+            assertThat(keyTableItemsLoaded).isEqualTo(1);
+            assertThat(results).hasSize(8);
+            assertThat(results).extracting(BudgetCalculationViewmodel::getCalculationType).containsExactly(
+                    BudgetCalculationType.BUDGETED, BudgetCalculationType.BUDGETED, BudgetCalculationType.BUDGETED, BudgetCalculationType.BUDGETED,
+                    BudgetCalculationType.ACTUAL, BudgetCalculationType.ACTUAL, BudgetCalculationType.ACTUAL, BudgetCalculationType.ACTUAL);
+            assertThat(results.get(0).getValue()).isEqualTo(new BigDecimal("5.000000"));
+            assertThat(results.get(3).getValue()).isEqualTo(new BigDecimal("10.000000"));
+            assertThat(results.get(4).getValue()).isEqualTo(new BigDecimal("4.500000"));
+            assertThat(results.get(7).getValue()).isEqualTo(new BigDecimal("9.000000"));
+
+        }
+
         @Test
         public void keySumKeyTableIsZero() {
 
@@ -27,6 +27,7 @@ import org.estatio.module.lease.dom.LeaseItemType;
 import org.estatio.module.lease.dom.LeaseRepository;
 import org.estatio.module.lease.dom.LeaseStatus;
 import org.estatio.module.lease.dom.occupancy.Occupancy;
+import org.estatio.module.lease.dom.occupancy.OccupancyRepository;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -100,6 +101,13 @@ public class BudgetAssignmentService_Test {
             }
         };
         budgetAssignmentService.leaseRepository = leaseRepository;
+        OccupancyRepository occupancyRepository = new OccupancyRepository(){
+            @Override
+            public List<Occupancy> findByProperty(final Property property) {
+                return Arrays.asList(o1, o2, o3, o4, o5);
+            }
+        };
+        budgetAssignmentService.occupancyRepository = occupancyRepository;
 
     }
 
@@ -113,6 +121,11 @@ public class BudgetAssignmentService_Test {
         o4.setEndDate(new LocalDate(2014,12,31));
         o5.setStartDate(new LocalDate(2015,01,01));
         leaseTerminated.setStatus(LeaseStatus.TERMINATED);
+        o1.setLease(leaseWith1ActiveOccupancy);
+        o2.setLease(leaseWith2ActiveOccupancies);
+        o3.setLease(leaseWith2ActiveOccupancies);
+        o4.setLease(leaseWithNoActiveOccupancies);
+        o5.setLease(leaseTerminated);
 
         // when
         List<Lease> leasesfound = budgetAssignmentService.leasesWithActiveOccupations(budget);
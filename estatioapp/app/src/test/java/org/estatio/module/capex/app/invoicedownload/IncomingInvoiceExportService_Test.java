@@ -0,0 +1,204 @@
+package org.estatio.module.capex.app.invoicedownload;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ListMultimap;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.jmock.Expectations;
+import org.jmock.auto.Mock;
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.apache.isis.applib.value.Blob;
+import org.apache.isis.core.unittestsupport.jmocking.JUnitRuleMockery2;
+
+import org.incode.module.document.dom.impl.docs.Document;
+
+import org.estatio.module.capex.dom.coda.CodaElement;
+import org.estatio.module.capex.dom.coda.CodaMapping;
+import org.estatio.module.capex.dom.coda.CodaMappingRepository;
+import org.estatio.module.capex.dom.documents.LookupAttachedPdfService;
+import org.estatio.module.capex.dom.invoice.IncomingInvoice;
+import org.estatio.module.capex.dom.invoice.IncomingInvoiceItem;
+import org.estatio.module.capex.dom.invoice.IncomingInvoiceType;
+import org.estatio.module.capex.dom.invoice.approval.IncomingInvoiceApprovalState;
+import org.estatio.module.capex.dom.invoice.approval.IncomingInvoiceApprovalStateTransition;
+import org.estatio.module.charge.dom.Charge;
+import org.estatio.module.party.dom.Organisation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IncomingInvoiceExportService_Test {
+
+    @Rule
+    public JUnitRuleMockery2 context = JUnitRuleMockery2.createFor(JUnitRuleMockery2.Mode.INTERFACES_AND_CLASSES);
+
+    @Mock
+    CodaMappingRepository mockCodaMappingRepository;
+
+    @Mock
+    LookupAttachedPdfService mockLookupAttachedPdfService;
+
+    @Mock
+    IncomingInvoiceApprovalStateTransition.Repository mockStateTransitionRepository;
+
+    @Mock
+    Document mockDocument;
+
+    IncomingInvoiceExportService service;
+
+    Charge charge;
+    IncomingInvoice invoiceWithDocument;
+    IncomingInvoice invoiceWithoutDocument;
+
+    @Before
+    public void setUp() throws Exception {
+        service = new IncomingInvoiceExportService();
+        service.codaMappingRepository = mockCodaMappingRepository;
+        service.lookupAttachedPdfService = mockLookupAttachedPdfService;
+        service.stateTransitionRepository = mockStateTransitionRepository;
+
+        charge = new Charge();
+        charge.setReference("WORKS");
+        charge.setName("Works");
+
+        invoiceWithDocument = newInvoice("INV-1");
+        invoiceWithoutDocument = newInvoice("INV-2");
+    }
+
+    private static IncomingInvoice newInvoice(final String invoiceNumber) {
+        final Organisation buyer = new Organisation();
+        buyer.setReference("BUY");
+        buyer.setName("Buyer");
+        final Organisation seller = new Organisation();
+        seller.setReference("SEL");
+        seller.setName("Seller");
+
+        final IncomingInvoice invoice = new IncomingInvoice();
+        invoice.setInvoiceNumber(invoiceNumber);
+        invoice.setInvoiceDate(new LocalDate(2018, 1, 15));
+        invoice.setBuyer(buyer);
+        invoice.setSeller(seller);
+        invoice.setApprovalState(IncomingInvoiceApprovalState.APPROVED);
+        return invoice;
+    }
+
+    private IncomingInvoiceItem newItem(final IncomingInvoice invoice, final String netAmount) {
+        final IncomingInvoiceItem item = new IncomingInvoiceItem();
+        item.setInvoice(invoice);
+        item.setIncomingInvoiceType(IncomingInvoiceType.CAPEX);
+        item.setCharge(charge);
+        item.setNetAmount(new BigDecimal(netAmount));
+        item.setGrossAmount(new BigDecimal(netAmount));
+        return item;
+    }
+
+    private static CodaMapping newCodaMapping(final Charge charge, final String code) {
+        final CodaElement codaElement = new CodaElement();
+        codaElement.setCode(code);
+        codaElement.setName("Element " + code);
+        final CodaMapping codaMapping = new CodaMapping();
+        codaMapping.setIncomingInvoiceType(IncomingInvoiceType.CAPEX);
+        codaMapping.setCharge(charge);
+        codaMapping.setCodaElement(codaElement);
+        return codaMapping;
+    }
+
+    public static class ExportsFor extends IncomingInvoiceExportService_Test {
+
+        @Test
+        public void looks_up_documents_comments_and_coda_elements_once_for_all_items() throws Exception {
+
+            // given
+            final List<IncomingInvoiceItem> items = Arrays.asList(
+                    newItem(invoiceWithoutDocument, "10.00"),
+                    newItem(invoiceWithDocument, "20.00"),
+                    newItem(invoiceWithDocument, "30.00"));
+            final ListMultimap<IncomingInvoice, String> comments = ArrayListMultimap.create();
+            comments.put(invoiceWithDocument, "approved");
+            comments.put(invoiceWithDocument, "checked");
+
+            // expect
+            context.checking(new Expectations() {{
+                oneOf(mockCodaMappingRepository).all();
+                will(returnValue(Arrays.asList(newCodaMapping(charge, "1"), newCodaMapping(charge, "2"))));
+
+                oneOf(mockLookupAttachedPdfService).lookupIncomingInvoicePdfByInvoice(
+                        Arrays.asList(invoiceWithoutDocument, invoiceWithDocument));
+                will(returnValue(ImmutableMap.of(invoiceWithDocument, mockDocument)));
+
+                oneOf(mockStateTransitionRepository).findTaskCommentsByInvoices(
+                        Arrays.asList(invoiceWithoutDocument, invoiceWithDocument));
+                will(returnValue(comments));
+
+                allowing(mockDocument).getName();
+                will(returnValue("3020100123.pdf"));
+            }});
+
+            // when
+            final List<IncomingInvoiceExport> exports = service.exportsFor(items);
+
+            // then
+            assertThat(exports).extracting(IncomingInvoiceExport::getDocumentNumber)
+                    .containsExactly("3020100123.pdf", "3020100123.pdf", null);
+            assertThat(exports).extracting(IncomingInvoiceExport::getNetAmount)
+                    .containsExactly(new BigDecimal("20.00"), new BigDecimal("30.00"), new BigDecimal("10.00"));
+            assertThat(exports).extracting(IncomingInvoiceExport::getCodaElementCode)
+                    .containsOnly("1");
+            assertThat(exports.get(0).getComments()).isEqualTo("approved | checked | ");
+            assertThat(exports.get(2).getComments()).isEqualTo("");
+        }
+    }
+
+    public static class CommentsFor extends IncomingInvoiceExportService_Test {
+
+        @Test
+        public void each_comment_is_followed_by_separator() throws Exception {
+            assertThat(IncomingInvoiceExportService.commentsFor(Arrays.asList("a", "b"))).isEqualTo("a | b | ");
+            assertThat(IncomingInvoiceExportService.commentsFor(Collections.emptyList())).isEqualTo("");
+        }
+    }
+
+    public static class ToExcel extends IncomingInvoiceExportService_Test {
+
+        @Test
+        public void writes_header_and_typed_cells() throws Exception {
+
+            // given
+            final IncomingInvoiceExport export = new IncomingInvoiceExport(
+                    newItem(invoiceWithDocument, "12.50"), "3020100123.pdf", null, "approved | ");
+
+            // when
+            final Blob blob = service.toExcel(Collections.singletonList(export), "invoiceExport", "export.xlsx");
+
+            // then
+            assertThat(blob.getName()).isEqualTo("export.xlsx");
+            try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(blob.getBytes()))) {
+                final Sheet sheet = workbook.getSheet("invoiceExport");
+                assertThat(sheet.getLastRowNum()).isEqualTo(1);
+
+                final Row header = sheet.getRow(0);
+                assertThat(header.getLastCellNum()).isEqualTo((short) IncomingInvoiceExportService.COLUMNS.size());
+                assertThat(header.getCell(0).getStringCellValue()).isEqualTo("Buyer Reference");
+
+                final Row row = sheet.getRow(1);
+                assertThat(row.getCell(0).getStringCellValue()).isEqualTo("BUY");
+                assertThat(row.getCell(5).getDateCellValue()).isEqualTo(new LocalDate(2018, 1, 15).toDate());
+                assertThat(row.getCell(8).getNumericCellValue()).isEqualTo(12.5);
+                assertThat(row.getCell(20).getStringCellValue()).isEqualTo("3020100123.pdf");
+            }
+        }
+    }
+
+}
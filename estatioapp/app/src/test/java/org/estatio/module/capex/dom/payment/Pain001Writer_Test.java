@@ -0,0 +1,156 @@
+package org.estatio.module.capex.dom.payment;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.concurrent.Callable;
+
+import org.jmock.Expectations;
+import org.jmock.auto.Mock;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.apache.isis.applib.services.jaxb.JaxbService;
+import org.apache.isis.applib.services.queryresultscache.QueryResultsCache;
+import org.apache.isis.applib.services.registry.ServiceRegistry2;
+import org.apache.isis.core.unittestsupport.jmocking.JUnitRuleMockery2;
+
+import org.estatio.module.capex.dom.invoice.IncomingInvoice;
+import org.estatio.module.capex.dom.payment.approval.PaymentBatchApprovalState;
+import org.estatio.module.currency.dom.Currency;
+import org.estatio.module.financial.dom.BankAccount;
+import org.estatio.module.party.dom.Organisation;
+import org.estatio.module.party.dom.Party;
+import org.estatio.module.party.dom.Person;
+import org.estatio.module.party.dom.PersonRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class Pain001Writer_Test {
+
+    @Rule
+    public JUnitRuleMockery2 context = JUnitRuleMockery2.createFor(JUnitRuleMockery2.Mode.INTERFACES_AND_CLASSES);
+
+    @JUnitRuleMockery2.Ignoring
+    @Mock
+    ServiceRegistry2 mockServiceRegistry2;
+
+    @Mock
+    PersonRepository mockPersonRepository;
+
+    PaymentBatch paymentBatch;
+
+    @Before
+    public void setUp() throws Exception {
+        final Person me = new Person();
+        me.setReference("JBLOGGS");
+        context.checking(new Expectations() {{
+            allowing(mockPersonRepository).me();
+            will(returnValue(me));
+        }});
+
+        paymentBatch = new PaymentBatch() {
+            @Override public String getId() {
+                return "97834";
+            }
+        };
+        paymentBatch.setCreatedOn(new DateTime(2017, 7, 14, 15, 50, 12, 345, DateTimeZone.forID("Europe/Paris")));
+        paymentBatch.setRequestedExecutionDate(new DateTime(2017, 7, 17, 0, 0, DateTimeZone.UTC));
+        paymentBatch.setApprovalState(PaymentBatchApprovalState.NEW);
+        paymentBatch.serviceRegistry2 = mockServiceRegistry2;
+        paymentBatch.personRepository = mockPersonRepository;
+        paymentBatch.queryResultsCache = new QueryResultsCache() {
+            @Override public <T> T execute(
+                    final Callable<T> callable,
+                    final Class<?> callingClass,
+                    final String methodName,
+                    final Object... keys) {
+                try {
+                    return callable.call();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+
+        final Party debtor = newOrganisation("ESTATIO", "/FRA");
+        paymentBatch.setDebtorBankAccount(newBankAccount("FR7630004000031234567890143", "BNPAFRPPXXX", debtor));
+
+        final Party seller1 = newOrganisation("ACME", "/FRA");
+        final Party seller2 = newOrganisation("YOUKEA & CO", "/ITA");
+        final BankAccount seller1BankAccount = newBankAccount("NL42RBOS0601349900", "INGBFRPP", seller1);
+        final BankAccount seller2BankAccount = newBankAccount("NL46RABO0370675415", "BSPFFRPPXXX", seller2);
+
+        paymentBatch.addLineIfRequired(
+                newInvoice(new LocalDate(2017, 7, 7), seller1, seller1BankAccount, "EUR", "361754.46", "AF3T2017"));
+        paymentBatch.addLineIfRequired(
+                newInvoice(new LocalDate(2017, 6, 30), seller2, seller2BankAccount, "EUR", "15251.70", "DGD <11420> & 170522"));
+        paymentBatch.addLineIfRequired(
+                newInvoice(new LocalDate(2017, 6, 5), seller1, seller1BankAccount, "EUR", "-172805.79", "REDD2016VT"));
+    }
+
+    Organisation newOrganisation(final String reference, final String applicationTenancyPath) {
+        final Organisation organisation = new Organisation() {
+            @Override public String getAtPath() {
+                return applicationTenancyPath;
+            }
+        };
+        organisation.setReference(reference);
+        organisation.setName(reference + " Organisation");
+        organisation.setApplicationTenancyPath(applicationTenancyPath);
+        return organisation;
+    }
+
+    BankAccount newBankAccount(final String iban, final String bic, final Party owner) {
+        BankAccount bankAccount = new BankAccount();
+        bankAccount.setIban(iban);
+        bankAccount.setBic(bic);
+        bankAccount.setOwner(owner);
+        return bankAccount;
+    }
+
+    IncomingInvoice newInvoice(
+            final LocalDate invoiceDate,
+            final Party seller,
+            final BankAccount sellerBankAccount,
+            final String currencyRef, final String grossAmount,
+            final String invoiceNumber) {
+        final IncomingInvoice invoice = new IncomingInvoice();
+        invoice.setInvoiceDate(invoiceDate);
+        invoice.setSeller(seller);
+        invoice.setBankAccount(sellerBankAccount);
+        invoice.setGrossAmount(new BigDecimal(grossAmount));
+        invoice.setInvoiceNumber(invoiceNumber);
+        final Currency currency = new Currency();
+        currency.setReference(currencyRef);
+        invoice.setCurrency(currency);
+        return invoice;
+    }
+
+    @Test
+    public void identical_to_jaxb() throws Exception {
+
+        // given
+        final String expected = new JaxbService.Simple().toXml(paymentBatch.convertToXmlDocument());
+
+        // when
+        final StringWriter xml = new StringWriter();
+        new Pain001Writer(true).write(paymentBatch, xml);
+
+        // then
+        assertThat(xml.toString()).isEqualTo(expected);
+    }
+
+    @Test
+    public void dates_as_printed_by_jaxb() throws Exception {
+        final DateTime paris = new DateTime(2017, 7, 14, 15, 50, 0, 0, DateTimeZone.forID("Europe/Paris"));
+        assertThat(Pain001Writer.dateTime(paris)).isEqualTo("2017-07-14T15:50:00.000+02:00");
+        assertThat(Pain001Writer.date(paris)).isEqualTo("2017-07-14+02:00");
+        assertThat(Pain001Writer.date(paris.withZone(DateTimeZone.UTC))).isEqualTo("2017-07-14Z");
+        assertThat(Pain001Writer.dateTime(null)).isNull();
+    }
+
+}
@@ -0,0 +1,167 @@
+package org.estatio.module.capex.dom.state;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jmock.Expectations;
+import org.jmock.api.Invocation;
+import org.jmock.auto.Mock;
+import org.jmock.lib.action.CustomAction;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.apache.isis.applib.services.scratchpad.Scratchpad;
+import org.apache.isis.applib.services.xactn.Transaction;
+import org.apache.isis.applib.services.xactn.TransactionService;
+import org.apache.isis.core.unittestsupport.jmocking.JUnitRuleMockery2;
+
+import org.estatio.module.capex.dom.payment.approval.PaymentBatchApprovalStateTransition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StateTransitionCache_Test {
+
+    @Rule
+    public JUnitRuleMockery2 context = JUnitRuleMockery2.createFor(JUnitRuleMockery2.Mode.INTERFACES_AND_CLASSES);
+
+    @Mock
+    TransactionService mockTransactionService;
+
+    @Mock
+    Transaction mockTransaction;
+
+    StateTransitionCache cache;
+
+    final UUID transactionId = UUID.randomUUID();
+    final AtomicInteger sequence = new AtomicInteger();
+    final AtomicInteger loads = new AtomicInteger();
+
+    final Object domainObject = new Object();
+    final PaymentBatchApprovalStateTransition pending = new PaymentBatchApprovalStateTransition();
+    final PaymentBatchApprovalStateTransition completed = new PaymentBatchApprovalStateTransition();
+
+    @Before
+    public void setUp() throws Exception {
+        context.checking(new Expectations() {{
+            allowing(mockTransactionService).currentTransaction();
+            will(returnValue(mockTransaction));
+            allowing(mockTransaction).getTransactionId();
+            will(returnValue(transactionId));
+            allowing(mockTransaction).getSequence();
+            will(new CustomAction("current sequence") {
+                @Override
+                public Object invoke(final Invocation invocation) {
+                    return sequence.get();
+                }
+            });
+        }});
+
+        cache = new StateTransitionCache();
+        cache.scratchpad = new Scratchpad();
+        cache.transactionService = mockTransactionService;
+    }
+
+    PaymentBatchApprovalStateTransition pendingTransition() {
+        return cache.pendingTransitionOf(domainObject, PaymentBatchApprovalStateTransition.class, () -> {
+            loads.incrementAndGet();
+            return pending;
+        });
+    }
+
+    PaymentBatchApprovalStateTransition mostRecentlyCompletedTransition() {
+        return cache.mostRecentlyCompletedTransitionOf(domainObject, PaymentBatchApprovalStateTransition.class, () -> {
+            loads.incrementAndGet();
+            return completed;
+        });
+    }
+
+    public static class Lookup extends StateTransitionCache_Test {
+
+        @Test
+        public void loaded_once_per_transaction() throws Exception {
+            assertThat(pendingTransition()).isSameAs(pending);
+            assertThat(pendingTransition()).isSameAs(pending);
+            assertThat(mostRecentlyCompletedTransition()).isSameAs(completed);
+            assertThat(mostRecentlyCompletedTransition()).isSameAs(completed);
+            assertThat(loads.get()).isEqualTo(2);
+
+            // when
+            sequence.incrementAndGet();
+
+            // then
+            assertThat(pendingTransition()).isSameAs(pending);
+            assertThat(loads.get()).isEqualTo(3);
+        }
+
+        @Test
+        public void prefetched() throws Exception {
+            final Object otherDomainObject = new Object();
+
+            // when
+            cache.prefetched(
+                    PaymentBatchApprovalStateTransition.class,
+                    Arrays.asList(domainObject, otherDomainObject),
+                    Collections.singletonMap(domainObject, pending),
+                    Collections.emptyMap());
+
+            // then
+            assertThat(pendingTransition()).isSameAs(pending);
+            assertThat(mostRecentlyCompletedTransition()).isNull();
+            assertThat(cache.pendingTransitionOf(otherDomainObject, PaymentBatchApprovalStateTransition.class, () -> {
+                loads.incrementAndGet();
+                return pending;
+            })).isNull();
+            assertThat(loads.get()).isEqualTo(0);
+        }
+    }
+
+    public static class Maintenance extends StateTransitionCache_Test {
+
+        @Test
+        public void completed_pending_transition_becomes_the_most_recent() throws Exception {
+            // given
+            assertThat(pendingTransition()).isSameAs(pending);
+            assertThat(mostRecentlyCompletedTransition()).isSameAs(completed);
+
+            // when
+            cache.completed(domainObject, pending, PaymentBatchApprovalStateTransition.class);
+
+            // then
+            assertThat(pendingTransition()).isNull();
+            assertThat(mostRecentlyCompletedTransition()).isSameAs(pending);
+            assertThat(loads.get()).isEqualTo(2);
+        }
+
+        @Test
+        public void created_transition_is_pending() throws Exception {
+            // given
+            assertThat(pendingTransition()).isSameAs(pending);
+            final PaymentBatchApprovalStateTransition next = new PaymentBatchApprovalStateTransition();
+
+            // when
+            cache.removed(domainObject, pending, PaymentBatchApprovalStateTransition.class);
+            cache.created(domainObject, next, PaymentBatchApprovalStateTransition.class);
+
+            // then
+            assertThat(pendingTransition()).isSameAs(next);
+            assertThat(loads.get()).isEqualTo(1);
+        }
+
+        @Test
+        public void evicted() throws Exception {
+            // given
+            assertThat(pendingTransition()).isSameAs(pending);
+
+            // when
+            cache.evict(domainObject, PaymentBatchApprovalStateTransition.class);
+
+            // then
+            assertThat(pendingTransition()).isSameAs(pending);
+            assertThat(loads.get()).isEqualTo(2);
+        }
+    }
+
+}
@@ -0,0 +1,148 @@
+package org.estatio.module.capex.dom.task;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.joda.time.LocalDateTime;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TaskRepository_page_Test {
+
+    final LocalDateTime now = new LocalDateTime(2018, 3, 1, 9, 0);
+
+    final Map<Task, Long> ids = new IdentityHashMap<>();
+    final List<Task> tasks = new ArrayList<>();
+
+    TaskRepository taskRepository;
+    InMemorySource source;
+
+    @Before
+    public void setUp() throws Exception {
+        taskRepository = new TaskRepository() {
+            @Override
+            long idOf(final Task task) {
+                return ids.get(task);
+            }
+        };
+        source = new InMemorySource();
+
+        // five tasks created at the same moment, in between others
+        newTask(1, now);
+        newTask(2, now.plusMinutes(1));
+        newTask(3, now.plusMinutes(1));
+        newTask(4, now.plusMinutes(1));
+        newTask(5, now.plusMinutes(1));
+        newTask(6, now.plusMinutes(1));
+        newTask(7, now.plusMinutes(2));
+        newTask(8, now.plusMinutes(3));
+    }
+
+    private Task newTask(final long id, final LocalDateTime createdOn) {
+        final Task task = new Task(null, null, "Task " + id, createdOn, "cat.Cat");
+        ids.put(task, id);
+        tasks.add(task);
+        return task;
+    }
+
+    private Task task(final long id) {
+        return tasks.get((int) id - 1);
+    }
+
+    private List<Long> idsOf(final List<Task> page) {
+        return page.stream().map(ids::get).collect(Collectors.toList());
+    }
+
+    @Test
+    public void pages_through_all_tasks_in_order() throws Exception {
+        final List<Long> visited = new ArrayList<>();
+
+        // when
+        Task key = null;
+        List<Task> page;
+        while (!(page = taskRepository.page(key, 3, true, source)).isEmpty()) {
+            assertThat(page.size()).isLessThanOrEqualTo(3);
+            visited.addAll(idsOf(page));
+            key = page.get(page.size() - 1);
+        }
+
+        // then
+        assertThat(visited).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L);
+    }
+
+    @Test
+    public void pages_backwards_through_all_tasks_in_order() throws Exception {
+        final List<Long> visited = new ArrayList<>();
+
+        // when
+        Task key = task(8);
+        List<Task> page;
+        while (!(page = taskRepository.page(key, 2, false, source)).isEmpty()) {
+            visited.addAll(idsOf(page));
+            key = page.get(page.size() - 1);
+        }
+
+        // then
+        assertThat(visited).containsExactly(7L, 6L, 5L, 4L, 3L, 2L, 1L);
+    }
+
+    @Test
+    public void next_of_task_created_at_the_same_moment_as_others() throws Exception {
+        assertThat(idsOf(taskRepository.page(task(4), 1, true, source))).containsExactly(5L);
+        assertThat(idsOf(taskRepository.page(task(6), 1, true, source))).containsExactly(7L);
+        assertThat(idsOf(taskRepository.page(task(4), 1, false, source))).containsExactly(3L);
+        assertThat(idsOf(taskRepository.page(task(2), 1, false, source))).containsExactly(1L);
+    }
+
+    @Test
+    public void none_beyond_the_last() throws Exception {
+        assertThat(taskRepository.page(task(8), 1, true, source)).isEmpty();
+        assertThat(taskRepository.page(task(1), 1, false, source)).isEmpty();
+    }
+
+    /**
+     * Orders only by createdOn, like the database; tasks created at the same moment come in descending id order, so
+     * that pages cut off part way through them miss the lower ids.
+     */
+    class InMemorySource implements TaskRepository.KeysetSource {
+
+        private List<Task> matching(
+                final Predicate<Task> predicate,
+                final Comparator<Task> ordering,
+                final int count) {
+            return tasks.stream()
+                    .filter(predicate)
+                    .sorted(ordering.thenComparing(Comparator.comparing(ids::get).reversed()))
+                    .limit(count)
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public List<Task> createdOn(final LocalDateTime createdOn) {
+            return matching(task -> task.getCreatedOn().equals(createdOn), Comparator.comparing(Task::getCreatedOn), Integer.MAX_VALUE);
+        }
+
+        @Override
+        public List<Task> createdOnAfter(final LocalDateTime createdOn, final int count) {
+            return matching(task -> task.getCreatedOn().isAfter(createdOn), Comparator.comparing(Task::getCreatedOn), count);
+        }
+
+        @Override
+        public List<Task> createdOnBefore(final LocalDateTime createdOn, final int count) {
+            return matching(task -> task.getCreatedOn().isBefore(createdOn), Comparator.comparing(Task::getCreatedOn).reversed(), count);
+        }
+
+        @Override
+        public List<Task> oldest(final int count) {
+            return matching(task -> true, Comparator.comparing(Task::getCreatedOn), count);
+        }
+    }
+
+}
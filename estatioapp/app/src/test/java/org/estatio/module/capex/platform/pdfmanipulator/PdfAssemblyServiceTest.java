@@ -0,0 +1,235 @@
+package org.estatio.module.capex.platform.pdfmanipulator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PdfAssemblyServiceTest {
+
+    PdfAssemblyService pdfAssemblyService;
+
+    final AtomicInteger extractions = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        pdfAssemblyService = new PdfAssemblyService();
+        // the "extraction" passes the single page document through as is
+        pdfAssemblyService.pdfManipulator = new PdfManipulator() {
+            @Override
+            public byte[] extractAndStamp(
+                    final byte[] docBytes,
+                    final ExtractSpec extractSpec,
+                    final Stamp stamp) {
+                extractions.incrementAndGet();
+                return docBytes;
+            }
+        };
+        pdfAssemblyService.init(Collections.singletonMap(PdfAssemblyService.WINDOW_KEY, "3"));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pdfAssemblyService.shutdown();
+    }
+
+    /**
+     * A single page document, identified by the width of its page.
+     */
+    private static byte[] pageOfWidth(final int width) throws IOException {
+        try (final PDDocument document = new PDDocument()) {
+            document.addPage(new PDPage(new PDRectangle(width, 100)));
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            document.save(baos);
+            return baos.toByteArray();
+        }
+    }
+
+    private static PdfAssemblyService.Part part(final String documentKey, final int width) {
+        return new PdfAssemblyService.Part(documentKey, () -> pageOfWidth(width), ExtractSpec.FIRST_PAGE_ONLY, null);
+    }
+
+    private static List<Integer> widthsOf(final byte[] pdfBytes) throws IOException {
+        try (final PDDocument document = PDDocument.load(pdfBytes)) {
+            final List<Integer> widths = Lists.newArrayList();
+            for (final PDPage page : document.getPages()) {
+                widths.add((int) page.getMediaBox().getWidth());
+            }
+            return widths;
+        }
+    }
+
+    @Test
+    public void assembles_in_order() throws Exception {
+        // given
+        final List<PdfAssemblyService.Part> parts = IntStream.rangeClosed(1, 10)
+                .mapToObj(i -> part(null, 100 + i))
+                .collect(Collectors.toList());
+
+        // when
+        final byte[] assembled = pdfAssemblyService.assemble(parts);
+
+        // then
+        assertThat(widthsOf(assembled)).containsExactly(101, 102, 103, 104, 105, 106, 107, 108, 109, 110);
+        assertThat(extractions.get()).isEqualTo(10);
+    }
+
+    @Test
+    public void extractions_are_memoised() throws Exception {
+        // given
+        pdfAssemblyService.assemble(Lists.newArrayList(part("doc-1@1", 201), part("doc-2@1", 202)));
+        assertThat(extractions.get()).isEqualTo(2);
+
+        // when
+        final byte[] assembled = pdfAssemblyService.assemble(
+                Lists.newArrayList(part("doc-1@1", 201), part("doc-2@2", 203), part("doc-2@1", 202)));
+
+        // then
+        assertThat(widthsOf(assembled)).containsExactly(201, 203, 202);
+        assertThat(extractions.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void failure_is_propagated() throws Exception {
+        // given
+        final List<PdfAssemblyService.Part> parts = Lists.newArrayList(
+                part(null, 101),
+                new PdfAssemblyService.Part(null, () -> {
+                    throw new IOException("unreadable");
+                }, ExtractSpec.FIRST_PAGE_ONLY, null),
+                part(null, 103));
+
+        // when
+        IOException thrown = null;
+        try {
+            pdfAssemblyService.assemble(parts);
+        } catch (IOException ex) {
+            thrown = ex;
+        }
+
+        // then
+        assertThat(thrown).hasMessage("unreadable");
+    }
+
+    @Test
+    public void discarded_extractions_delete_their_spooled_files() throws Exception {
+        // given
+        pdfAssemblyService.shutdown();
+        final byte[] failing = pageOfWidth(101);
+        pdfAssemblyService = new PdfAssemblyService();
+        // the first part fails at once, while the others are still being extracted (ignoring the interrupt)
+        pdfAssemblyService.pdfManipulator = new PdfManipulator() {
+            @Override
+            public byte[] extractAndStamp(
+                    final byte[] docBytes,
+                    final ExtractSpec extractSpec,
+                    final Stamp stamp) {
+                if (Arrays.equals(docBytes, failing)) {
+                    throw new IllegalStateException("corrupt");
+                }
+                Uninterruptibles.sleepUninterruptibly(200, TimeUnit.MILLISECONDS);
+                return docBytes;
+            }
+        };
+        pdfAssemblyService.init(ImmutableMap.of(
+                PdfAssemblyService.THREADS_KEY, "3",
+                PdfAssemblyService.WINDOW_KEY, "3"));
+        final File spoolDirectory = Files.createTempDirectory("pdf-assembly-test").toFile();
+        pdfAssemblyService.spoolDirectory = spoolDirectory;
+
+        try {
+            // when
+            IllegalStateException thrown = null;
+            try {
+                pdfAssemblyService.assemble(Lists.newArrayList(part(null, 101), part(null, 102), part(null, 103)));
+            } catch (IllegalStateException ex) {
+                thrown = ex;
+            }
+
+            // then
+            assertThat(thrown).hasMessage("corrupt");
+            // (once the extractions still running when discarded have completed)
+            Thread.sleep(1_000);
+            assertThat(spoolDirectory.list()).isEmpty();
+        } finally {
+            Files.delete(spoolDirectory.toPath());
+        }
+    }
+
+    @Test
+    public void zips_each_part_as_an_entry_in_order() throws Exception {
+        // given
+        final List<PdfAssemblyService.Part> parts = IntStream.rangeClosed(1, 5)
+                .mapToObj(i -> part(null, 100 + i))
+                .collect(Collectors.toList());
+        final List<String> entryNames = IntStream.rangeClosed(1, 5)
+                .mapToObj(i -> "doc-" + i + ".pdf")
+                .collect(Collectors.toList());
+
+        // when
+        final File zipFile = pdfAssemblyService.zip(parts, entryNames);
+
+        // then
+        try (final ZipInputStream zis = new ZipInputStream(new FileInputStream(zipFile))) {
+            final List<String> names = Lists.newArrayList();
+            final List<Integer> widths = Lists.newArrayList();
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                names.add(entry.getName());
+                widths.addAll(widthsOf(ByteStreams.toByteArray(zis)));
+            }
+            assertThat(names).isEqualTo(entryNames);
+            assertThat(widths).containsExactly(101, 102, 103, 104, 105);
+        } finally {
+            Files.delete(zipFile.toPath());
+        }
+    }
+
+    @Test
+    public void zip_failure_identifies_the_part() throws Exception {
+        // given
+        final List<PdfAssemblyService.Part> parts = Lists.newArrayList(
+                part(null, 101),
+                part(null, 102),
+                new PdfAssemblyService.Part(null, () -> {
+                    throw new IOException("unreadable");
+                }, ExtractSpec.FIRST_PAGE_ONLY, null));
+
+        // when
+        PdfAssemblyService.PartFailedException thrown = null;
+        try {
+            pdfAssemblyService.zip(parts, Lists.newArrayList("doc-1.pdf", "doc-2.pdf", "doc-3.pdf"));
+        } catch (PdfAssemblyService.PartFailedException ex) {
+            thrown = ex;
+        }
+
+        // then
+        assertThat(thrown.getPartIndex()).isEqualTo(2);
+        assertThat(thrown.getCause()).hasMessage("unreadable");
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ *
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.module.index.dom;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import org.joda.time.LocalDate;
+import org.joda.time.LocalDateTime;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IndexTimeSeries_Test {
+
+    IndexBase ib1990;
+    IndexBase ib2000;
+    IndexBase ib2010;
+    IndexValue iv1995;
+    IndexValue iv2001;
+    IndexValue iv2011;
+
+    IndexTimeSeries timeSeries;
+
+    @Before
+    public void setup() {
+        ib1990 = new IndexBase();
+        ib1990.setStartDate(new LocalDate(1990, 1, 1));
+
+        ib2000 = new IndexBase();
+        ib2000.setPrevious(ib1990);
+        ib2000.setFactor(BigDecimal.valueOf(1.345));
+        ib2000.setStartDate(new LocalDate(2000, 1, 1));
+
+        ib2010 = new IndexBase();
+        ib2010.setPrevious(ib2000);
+        ib2010.setFactor(BigDecimal.valueOf(1.234));
+        ib2010.setStartDate(new LocalDate(2010, 1, 1));
+
+        iv1995 = newIndexValue(ib1990, new LocalDate(1995, 6, 1), "101.3");
+        iv2001 = newIndexValue(ib2000, new LocalDate(2001, 1, 1), "122.2");
+        iv2011 = newIndexValue(ib2010, new LocalDate(2011, 1, 1), "111.1");
+
+        // deliberately out of order
+        timeSeries = IndexTimeSeries.of(new LocalDateTime(2018, 1, 1, 0, 0), Arrays.asList(iv2011, iv1995, iv2001));
+    }
+
+    private static IndexValue newIndexValue(final IndexBase indexBase, final LocalDate startDate, final String value) {
+        final IndexValue indexValue = new IndexValue();
+        indexValue.setIndexBase(indexBase);
+        indexValue.setStartDate(startDate);
+        indexValue.setValue(new BigDecimal(value));
+        return indexValue;
+    }
+
+    public static class ValueFor extends IndexTimeSeries_Test {
+
+        @Test
+        public void happy_case() throws Exception {
+            assertThat(timeSeries.size()).isEqualTo(3);
+            assertThat(timeSeries.valueFor(new LocalDate(1995, 6, 1))).isEqualTo(new BigDecimal("101.3"));
+            assertThat(timeSeries.valueFor(new LocalDate(2001, 1, 1))).isEqualTo(new BigDecimal("122.2"));
+            assertThat(timeSeries.valueFor(new LocalDate(2011, 1, 1))).isEqualTo(new BigDecimal("111.1"));
+        }
+
+        @Test
+        public void only_on_the_start_date() throws Exception {
+            assertThat(timeSeries.valueFor(new LocalDate(2001, 1, 2))).isNull();
+            assertThat(timeSeries.valueFor(new LocalDate(1980, 1, 1))).isNull();
+            assertThat(timeSeries.valueFor(null)).isNull();
+        }
+
+    }
+
+    public static class RebaseFactorFor extends IndexTimeSeries_Test {
+
+        @Test
+        public void same_as_factor_for_date_of_base() throws Exception {
+            for (final IndexValue next : Arrays.asList(iv1995, iv2001, iv2011)) {
+                for (final LocalDate baseDate : Arrays.asList(
+                        new LocalDate(1991, 1, 1), new LocalDate(1999, 12, 31), new LocalDate(2000, 1, 1),
+                        new LocalDate(2005, 1, 1), new LocalDate(2010, 1, 1), new LocalDate(2012, 1, 1))) {
+                    assertThat(timeSeries.rebaseFactorFor(baseDate, next.getStartDate()))
+                            .isEqualTo(next.getIndexBase().factorForDate(baseDate));
+                }
+            }
+        }
+
+        @Test
+        public void when_no_value_for_next_date() throws Exception {
+            assertThat(timeSeries.rebaseFactorFor(new LocalDate(2001, 1, 1), new LocalDate(2011, 2, 1))).isNull();
+        }
+
+        @Test(expected = IllegalStateException.class)
+        public void when_before_first_base_without_factor() throws Exception {
+            timeSeries.rebaseFactorFor(new LocalDate(1980, 1, 1), new LocalDate(2011, 1, 1));
+        }
+
+    }
+
+}
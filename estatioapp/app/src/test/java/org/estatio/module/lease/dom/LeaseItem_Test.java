@@ -28,6 +28,7 @@ import java.util.TreeSet;
 import org.jmock.Expectations;
 import org.jmock.auto.Mock;
 import org.joda.time.LocalDate;
+import org.joda.time.LocalDateTime;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -47,6 +48,7 @@ import org.incode.module.unittestsupport.dom.with.WithIntervalMutableContractTes
 
 import org.estatio.module.agreement.dom.type.AgreementType;
 import org.estatio.module.charge.dom.Charge;
+import org.estatio.module.index.dom.Index;
 import org.estatio.module.tax.dom.Tax;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -122,6 +124,108 @@ public class LeaseItem_Test {
         }
     }
 
+    public static class IsVerifiedUntil extends LeaseItem_Test {
+
+        @Mock
+        LeaseItemSourceRepository mockLeaseItemSourceRepository;
+
+        private final LocalDateTime verifiedOn = new LocalDateTime(2018, 1, 1, 12, 0);
+
+        private Lease lease;
+        private LeaseItem sourceItem;
+        private Index index;
+        private LeaseTermForIndexable term;
+
+        @Before
+        public void setUp() throws Exception {
+            lease = new Lease();
+            lease.setInvoicingInputsChangedOn(verifiedOn.minusHours(1));
+
+            leaseItem = new LeaseItem();
+            leaseItem.setLease(lease);
+            leaseItem.leaseItemSourceRepository = mockLeaseItemSourceRepository;
+            leaseItem.setVerifiedUntil(new LocalDate(2018, 4, 1));
+            leaseItem.setVerifiedOn(verifiedOn);
+
+            index = new Index();
+            term = new LeaseTermForIndexable();
+            term.setLeaseItem(leaseItem);
+            term.setStartDate(new LocalDate(2017, 1, 1));
+            term.setIndex(index);
+            leaseItem.getTerms().add(term);
+
+            sourceItem = new LeaseItem();
+            final LeaseItemSource source = new LeaseItemSource();
+            source.setItem(leaseItem);
+            source.setSourceItem(sourceItem);
+
+            context.checking(new Expectations() {
+                {
+                    allowing(mockLeaseItemSourceRepository).findByItem(leaseItem);
+                    will(returnValue(Arrays.asList(source)));
+                }
+            });
+            sourceItem.setVerifiedOn(verifiedOn.minusMinutes(1));
+        }
+
+        @Test
+        public void when_nothing_changed() throws Exception {
+            assertThat(leaseItem.isVerifiedUntil(new LocalDate(2018, 4, 1))).isTrue();
+            assertThat(leaseItem.isVerifiedUntil(new LocalDate(2018, 1, 1))).isTrue();
+        }
+
+        @Test
+        public void when_not_verified_that_far() throws Exception {
+            assertThat(leaseItem.isVerifiedUntil(new LocalDate(2018, 4, 2))).isFalse();
+        }
+
+        @Test
+        public void when_never_verified() throws Exception {
+            leaseItem.setVerifiedUntil(null);
+            leaseItem.setVerifiedOn(null);
+            assertThat(leaseItem.isVerifiedUntil(new LocalDate(2018, 1, 1))).isFalse();
+        }
+
+        @Test
+        public void when_lease_changed() throws Exception {
+            lease.setInvoicingInputsChangedOn(verifiedOn.plusSeconds(1));
+            assertThat(leaseItem.isVerifiedUntil(new LocalDate(2018, 1, 1))).isFalse();
+        }
+
+        @Test
+        public void when_changes_to_the_lease_are_not_tracked() throws Exception {
+            lease.setInvoicingInputsChangedOn(null);
+            assertThat(leaseItem.isVerifiedUntil(new LocalDate(2018, 1, 1))).isFalse();
+        }
+
+        @Test
+        public void when_source_item_verified_since() throws Exception {
+            sourceItem.setVerifiedOn(verifiedOn.plusMinutes(1));
+            assertThat(leaseItem.isVerifiedUntil(new LocalDate(2018, 1, 1))).isFalse();
+        }
+
+        @Test
+        public void when_index_values_changed() throws Exception {
+            index.setValuesChangedOn(verifiedOn.plusMinutes(1));
+            assertThat(leaseItem.isVerifiedUntil(new LocalDate(2018, 1, 1))).isFalse();
+
+            index.setValuesChangedOn(verifiedOn.minusMinutes(1));
+            assertThat(leaseItem.isVerifiedUntil(new LocalDate(2018, 1, 1))).isTrue();
+        }
+
+        @Test
+        public void deposit_only_when_verified_until_the_very_date() throws Exception {
+            final LeaseTermForDeposit deposit = new LeaseTermForDeposit();
+            deposit.setLeaseItem(leaseItem);
+            deposit.setStartDate(new LocalDate(2018, 1, 1));
+            leaseItem.getTerms().add(deposit);
+
+            assertThat(leaseItem.isVerifiedUntil(new LocalDate(2018, 4, 1))).isTrue();
+            assertThat(leaseItem.isVerifiedUntil(new LocalDate(2018, 1, 1))).isFalse();
+        }
+
+    }
+
     public static class BeanProperties extends AbstractBeanPropertiesTest {
 
         @Test
@@ -128,6 +128,7 @@ public class LeaseTerm_Test {
                 ltt.modifyStartDate(startDate);
                 ltt.modifyEndDate(endDate);
                 ltt.clockService = mockClockService;
+                ltt.leaseTermRepository = mockLeaseTermRepository;
                 return ltt;
             }
 
@@ -167,6 +168,54 @@ public class LeaseTerm_Test {
 
     }
 
+    public static class VerifyUntil extends LeaseTerm_Test {
+
+        @Before
+        public void setUp() throws Exception {
+            context.checking(new Expectations() {
+                {
+                    allowing(mockLeaseTermRepository).newLeaseTerm(
+                            with(any(LeaseItem.class)),
+                            with(any(LeaseTerm.class)),
+                            with(any(LocalDate.class)),
+                            with(any(LocalDate.class)));
+                    will(returnLeaseTerm());
+                }
+            });
+            item.setType(LeaseItemType.RENT);
+        }
+
+        @Test
+        public void creates_terms_until_the_end_of_the_item() throws Exception {
+            // when
+            term.verifyUntil(new LocalDate(2020, 1, 1));
+
+            // then
+            assertThat(item.getTerms()).hasSize(2);
+            assertThat(term.getEndDate()).isEqualTo(new LocalDate(2012, 12, 31));
+            assertThat(term.getNext().getStartDate()).isEqualTo(new LocalDate(2013, 1, 1));
+            assertThat(term.getNext().getNext()).isNull();
+        }
+
+        @Test
+        public void verifies_a_long_chain() throws Exception {
+            // given
+            item.setEndDate(null);
+
+            // when
+            term.verifyUntil(new LocalDate(7012, 1, 1));
+
+            // then
+            assertThat(item.getTerms()).hasSize(5000);
+            LeaseTerm last = term;
+            while (last.getNext() != null) {
+                last = last.getNext();
+            }
+            assertThat(last.getStartDate()).isEqualTo(new LocalDate(7011, 1, 1));
+        }
+
+    }
+
     public static class Update extends LeaseTerm_Test {
 
         // TODO: the call to update is actually commented out ???
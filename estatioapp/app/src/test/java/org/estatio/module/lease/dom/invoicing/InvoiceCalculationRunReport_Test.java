@@ -0,0 +1,59 @@
+/*
+ *
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.module.lease.dom.invoicing;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InvoiceCalculationRunReport_Test {
+
+    @Test
+    public void aggregates_partitions() throws Exception {
+
+        // given
+        final InvoiceCalculationRunReport report = new InvoiceCalculationRunReport("RUN-1");
+
+        // when
+        report.succeeded(Arrays.asList("OXF-POISON-003", "OXF-TOPMODEL-001"), 5);
+        report.failed(Arrays.asList("OXF-MIRACL-005"), new IllegalStateException("boom"));
+        report.succeeded(Arrays.asList("OXF-MEDIAX-002"), 2);
+
+        // then
+        assertThat(report.getRunId()).isEqualTo("RUN-1");
+        assertThat(report.getPartitions()).hasSize(3);
+        assertThat(report.getNumberOfLeases()).isEqualTo(4);
+        assertThat(report.getNumberOfItems()).isEqualTo(7);
+        assertThat(report.hasFailures()).isTrue();
+        assertThat(report.getFailedPartitions()).hasSize(1);
+        assertThat(report.getFailedPartitions().get(0).getLeaseReferences()).containsExactly("OXF-MIRACL-005");
+        assertThat(report.getFailedPartitions().get(0).getNumberOfItems()).isEqualTo(0);
+    }
+
+    @Test
+    public void no_failures_when_empty() throws Exception {
+        final InvoiceCalculationRunReport report = new InvoiceCalculationRunReport("RUN-2");
+
+        assertThat(report.hasFailures()).isFalse();
+        assertThat(report.getNumberOfItems()).isEqualTo(0);
+    }
+
+}
@@ -0,0 +1,269 @@
+/*
+ *
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.module.lease.dom.invoicing;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+
+import org.jmock.Expectations;
+import org.jmock.api.Invocation;
+import org.jmock.auto.Mock;
+import org.jmock.lib.action.CustomAction;
+import org.joda.time.LocalDate;
+import org.joda.time.LocalDateTime;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.apache.isis.applib.services.xactn.TransactionService;
+import org.apache.isis.applib.services.xactn.TransactionState;
+import org.apache.isis.core.commons.exceptions.IsisException;
+import org.apache.isis.core.runtime.system.transaction.IsisTransaction;
+import org.apache.isis.core.unittestsupport.jmocking.JUnitRuleMockery2;
+
+import org.estatio.module.asset.dom.Property;
+import org.estatio.module.index.dom.Index;
+import org.estatio.module.index.dom.IndexRepository;
+import org.estatio.module.invoice.dom.InvoiceRunType;
+import org.estatio.module.lease.dom.Lease;
+import org.estatio.module.lease.dom.LeaseTermForIndexableRepository;
+import org.estatio.module.lease.dom.invoicing.summary.InvoiceSummaryTotalService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InvoiceCalculationRunService_Test {
+
+    static final LocalDateTime START_OF_RUN = new LocalDateTime(2014, 3, 1, 10, 0, 0);
+
+    @Rule
+    public JUnitRuleMockery2 context = JUnitRuleMockery2.createFor(JUnitRuleMockery2.Mode.INTERFACES_AND_CLASSES);
+
+    @Mock
+    InvoiceCalculationService mockInvoiceCalculationService;
+
+    @Mock
+    InvoiceForLeaseRepository mockInvoiceForLeaseRepository;
+
+    @Mock
+    InvoiceSummaryTotalService mockInvoiceSummaryTotalService;
+
+    @Mock
+    TransactionService mockTransactionService;
+
+    @Mock
+    IsisTransaction mockTransaction;
+
+    @Mock
+    IndexRepository mockIndexRepository;
+
+    @Mock
+    LeaseTermForIndexableRepository mockLeaseTermForIndexableRepository;
+
+    InvoiceCalculationRunService service;
+
+    InvoiceCalculationParameters parameters;
+    Lease lease;
+    InvoiceForLease previousInvoice;
+
+    @Before
+    public void setUp() throws Exception {
+        service = new InvoiceCalculationRunService();
+        service.invoiceCalculationService = mockInvoiceCalculationService;
+        service.invoiceForLeaseRepository = mockInvoiceForLeaseRepository;
+        service.invoiceSummaryTotalService = mockInvoiceSummaryTotalService;
+        service.transactionService = mockTransactionService;
+
+        final Property property = new Property();
+        property.setReference("OXF");
+        parameters = InvoiceCalculationParameters.builder()
+                .property(property)
+                .invoiceRunType(InvoiceRunType.NORMAL_RUN)
+                .invoiceDueDate(new LocalDate(2014, 4, 1))
+                .startDueDate(new LocalDate(2014, 4, 1))
+                .nextDueDate(new LocalDate(2014, 4, 2))
+                .build();
+
+        lease = new Lease();
+
+        previousInvoice = new InvoiceForLease();
+        previousInvoice.setRunId(START_OF_RUN.toString() + " - " + parameters.toString());
+    }
+
+    @Test
+    public void run_id_is_parsed() throws Exception {
+        assertThat(InvoiceCalculationService.startOfRun(previousInvoice.getRunId())).isEqualTo(START_OF_RUN);
+        assertThat(InvoiceCalculationService.isRunFor(previousInvoice.getRunId(), parameters, null)).isTrue();
+        assertThat(InvoiceCalculationService.startOfRun("not a run id")).isNull();
+        assertThat(InvoiceCalculationService.startOfRun(null)).isNull();
+    }
+
+    @Test
+    public void unchanged_when_no_changes_since_previous_run() throws Exception {
+        lease.setInvoicingInputsChangedOn(START_OF_RUN.minusDays(1));
+
+        assertThat(service.isUnchangedSince(lease, Arrays.asList(previousInvoice), parameters, null)).isTrue();
+    }
+
+    @Test
+    public void changed_when_lease_changed_after_previous_run() throws Exception {
+        lease.setInvoicingInputsChangedOn(START_OF_RUN.plusMinutes(1));
+
+        assertThat(service.isUnchangedSince(lease, Arrays.asList(previousInvoice), parameters, null)).isFalse();
+    }
+
+    @Test
+    public void changed_when_lease_changed_shortly_before_previous_run() throws Exception {
+        // may not have been committed yet when the previous run started
+        lease.setInvoicingInputsChangedOn(START_OF_RUN.minusMinutes(InvoiceCalculationRunService.IN_FLIGHT_MARGIN_MINUTES - 1));
+
+        assertThat(service.isUnchangedSince(lease, Arrays.asList(previousInvoice), parameters, null)).isFalse();
+    }
+
+    @Test
+    public void changed_when_not_tracked_or_not_previously_calculated() throws Exception {
+        assertThat(service.isUnchangedSince(lease, Arrays.asList(previousInvoice), parameters, null)).isFalse();
+
+        lease.setInvoicingInputsChangedOn(START_OF_RUN.minusDays(1));
+        assertThat(service.isUnchangedSince(lease, Collections.<InvoiceForLease>emptyList(), parameters, null)).isFalse();
+    }
+
+    @Test
+    public void changed_when_previous_run_had_other_parameters() throws Exception {
+        lease.setInvoicingInputsChangedOn(START_OF_RUN.minusDays(1));
+        previousInvoice.setRunId(START_OF_RUN.toString() + " - something else");
+
+        assertThat(service.isUnchangedSince(lease, Arrays.asList(previousInvoice), parameters, null)).isFalse();
+    }
+
+    @Test
+    public void changed_when_index_changed_after_previous_run() throws Exception {
+        lease.setInvoicingInputsChangedOn(START_OF_RUN.minusDays(1));
+
+        assertThat(service.isUnchangedSince(lease, Arrays.asList(previousInvoice), parameters, START_OF_RUN.plusDays(1))).isFalse();
+        assertThat(service.isUnchangedSince(lease, Arrays.asList(previousInvoice), parameters, START_OF_RUN.minusDays(2))).isTrue();
+    }
+
+    @Test
+    public void only_indices_changed_since_previous_run_are_looked_up() throws Exception {
+
+        // given
+        final Index changedIndex = new Index();
+        changedIndex.setValuesChangedOn(START_OF_RUN.plusDays(1));
+        final Index unchangedIndex = new Index();
+        unchangedIndex.setValuesChangedOn(START_OF_RUN.minusDays(1));
+        final Index untrackedIndex = new Index();
+
+        service.indexRepository = mockIndexRepository;
+        service.leaseTermForIndexableRepository = mockLeaseTermForIndexableRepository;
+
+        // expect
+        context.checking(new Expectations() {{
+            allowing(mockIndexRepository).all();
+            will(returnValue(Arrays.asList(changedIndex, unchangedIndex, untrackedIndex)));
+            oneOf(mockLeaseTermForIndexableRepository).findLeasesByIndex(changedIndex);
+            will(returnValue(Arrays.asList(lease)));
+        }});
+
+        // when
+        final Map<Lease, LocalDateTime> changedOnByLease =
+                service.indexValuesChangedOnByLease(Arrays.asList(previousInvoice), parameters);
+
+        // then
+        assertThat(changedOnByLease).containsEntry(lease, START_OF_RUN.plusDays(1));
+        assertThat(changedOnByLease).hasSize(1);
+    }
+
+    @Test
+    public void failed_partition_is_rolled_back_and_the_run_carries_on() throws Exception {
+
+        // given
+        final Lease lease1 = newLease("OXF-1");
+        final Lease lease2 = newLease("OXF-2");
+        final List<String> transactions = Lists.newArrayList();
+        final boolean[] markedForAbort = { false };
+
+        context.checking(new Expectations() {{
+            allowing(mockInvoiceCalculationService).leasesFor(parameters);
+            will(returnValue(Arrays.asList(lease1, lease2)));
+            allowing(mockInvoiceCalculationService).newRunId(parameters);
+            will(returnValue("run"));
+            oneOf(mockInvoiceForLeaseRepository).removeRuns(parameters);
+            allowing(mockInvoiceSummaryTotalService).refreshPending();
+
+            oneOf(mockInvoiceCalculationService).calculateAndInvoice(Arrays.asList(lease1), parameters, "run");
+            will(throwException(new IllegalStateException("no charge")));
+            oneOf(mockInvoiceCalculationService).calculateAndInvoice(Arrays.asList(lease2), parameters, "run");
+            will(returnValue(3));
+
+            allowing(mockTransactionService).currentTransaction();
+            will(returnValue(mockTransaction));
+            allowing(mockTransaction).getTransactionState();
+            will(returnValue(TransactionState.IN_PROGRESS));
+            oneOf(mockTransaction).setAbortCause(with(any(IsisException.class)));
+            will(new CustomAction("mark for abort") {
+                @Override
+                public Object invoke(final Invocation invocation) throws Throwable {
+                    markedForAbort[0] = true;
+                    return null;
+                }
+            });
+
+            allowing(mockTransactionService).nextTransaction();
+            will(new CustomAction("commit") {
+                @Override
+                public Object invoke(final Invocation invocation) throws Throwable {
+                    if (markedForAbort[0]) {
+                        throw new IsisException("Transaction is marked to abort");
+                    }
+                    transactions.add("commit");
+                    return null;
+                }
+            });
+            allowing(mockTransactionService).nextTransaction(TransactionService.Policy.ALWAYS);
+            will(new CustomAction("commit or abort") {
+                @Override
+                public Object invoke(final Invocation invocation) throws Throwable {
+                    transactions.add(markedForAbort[0] ? "abort" : "commit");
+                    markedForAbort[0] = false;
+                    return null;
+                }
+            });
+        }});
+
+        // when
+        final InvoiceCalculationRunReport report = service.calculateAndInvoice(parameters, 1);
+
+        // then the removal of the previous runs is committed, the failed partition rolled back, and the next committed
+        assertThat(transactions).containsExactly("commit", "abort", "commit");
+        assertThat(report.hasFailures()).isTrue();
+        assertThat(report.getFailedPartitions()).hasSize(1);
+        assertThat(report.getPartitions()).hasSize(2);
+    }
+
+    private static Lease newLease(final String reference) {
+        final Lease lease = new Lease();
+        lease.setReference(reference);
+        return lease;
+    }
+
+}
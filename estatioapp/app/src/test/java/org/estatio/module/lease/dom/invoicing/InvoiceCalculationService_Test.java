@@ -19,6 +19,7 @@
 package org.estatio.module.lease.dom.invoicing;
 
 import java.math.BigDecimal;
+import java.math.MathContext;
 import java.math.RoundingMode;
 import java.util.Arrays;
 import java.util.List;
@@ -485,4 +486,21 @@ public class InvoiceCalculationService_Test {
     }
 
 
-}
\ No newline at end of file
+    public static class RangeFactor extends InvoiceCalculationService_Test {
+
+        @Test
+        public void same_as_division() throws Exception {
+            for (final int[] days : new int[][] { { 90, 90 }, { 31, 31 }, { 45, 90 }, { 1, 3 }, { 0, 30 } }) {
+                assertThat(InvoiceCalculationService.rangeFactor(days[0], days[1]))
+                        .isEqualTo(new BigDecimal(days[0]).divide(new BigDecimal(days[1]), MathContext.DECIMAL64));
+            }
+        }
+
+        @Test
+        public void zero_days() throws Exception {
+            assertThat(InvoiceCalculationService.rangeFactor(0, 0)).isEqualTo(BigDecimal.ZERO);
+        }
+
+    }
+
+}
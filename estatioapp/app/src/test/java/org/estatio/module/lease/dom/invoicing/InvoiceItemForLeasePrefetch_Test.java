@@ -0,0 +1,114 @@
+/*
+ *
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.module.lease.dom.invoicing;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.incode.module.base.dom.valuetypes.LocalDateInterval;
+
+import org.estatio.module.lease.dom.LeaseTermForTesting;
+import org.estatio.module.lease.dom.LeaseTermValueType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InvoiceItemForLeasePrefetch_Test {
+
+    LeaseTermForTesting term;
+    LeaseTermForTesting otherTerm;
+
+    LocalDateInterval q1;
+    LocalDateInterval q2;
+
+    @Before
+    public void setUp() throws Exception {
+        term = new LeaseTermForTesting();
+        otherTerm = new LeaseTermForTesting();
+        q1 = LocalDateInterval.including(new LocalDate(2014, 1, 1), new LocalDate(2014, 3, 31));
+        q2 = LocalDateInterval.including(new LocalDate(2014, 4, 1), new LocalDate(2014, 6, 30));
+    }
+
+    @Test
+    public void invoiced_value_sums_items_of_interval() throws Exception {
+
+        // given
+        final InvoiceItemForLeasePrefetch prefetch = new InvoiceItemForLeasePrefetch(Arrays.asList(
+                itemFor(term, q1, q1, "100.00"),
+                itemFor(term, q1, q1, "-20.00"),
+                itemFor(term, q2, q2, "50.00"),
+                itemFor(otherTerm, q1, q1, "7.00")));
+
+        // then
+        assertThat(prefetch.invoicedValue(term, q1)).isEqualByComparingTo("80.00");
+        assertThat(prefetch.invoicedValue(term, q2)).isEqualByComparingTo("50.00");
+        assertThat(prefetch.invoicedValue(otherTerm, q2)).isEqualByComparingTo("0");
+    }
+
+    @Test
+    public void invoiced_value_of_fixed_term_sums_all_items() throws Exception {
+
+        // given
+        term.setLeaseTermValueType(LeaseTermValueType.FIXED);
+        final InvoiceItemForLeasePrefetch prefetch = new InvoiceItemForLeasePrefetch(Arrays.asList(
+                itemFor(term, q1, q1, "100.00")));
+
+        // when
+        prefetch.add(itemFor(term, q2, q2, "25.00"));
+
+        // then
+        assertThat(prefetch.invoicedValue(term, q1)).isEqualByComparingTo("125.00");
+    }
+
+    @Test
+    public void find_by_effective_interval_matches_calculation_or_effective_dates() throws Exception {
+
+        // given
+        final LocalDateInterval partOfQ1 = LocalDateInterval.including(new LocalDate(2014, 2, 1), new LocalDate(2014, 3, 31));
+        final InvoiceItemForLease item = itemFor(term, q1, partOfQ1, "10.00");
+        item.setCalculationStartDate(new LocalDate(2014, 1, 15));
+        item.setCalculationEndDate(new LocalDate(2014, 3, 31));
+        final InvoiceItemForLeasePrefetch prefetch = new InvoiceItemForLeasePrefetch(Arrays.asList(item));
+
+        // then
+        assertThat(prefetch.findByLeaseTermAndEffectiveInterval(term, partOfQ1)).containsExactly(item);
+        assertThat(prefetch.findByLeaseTermAndEffectiveInterval(
+                term, LocalDateInterval.including(new LocalDate(2014, 1, 15), new LocalDate(2014, 3, 31)))).containsExactly(item);
+        assertThat(prefetch.findByLeaseTermAndEffectiveInterval(term, q1)).isEmpty();
+    }
+
+    private static InvoiceItemForLease itemFor(
+            final LeaseTermForTesting leaseTerm,
+            final LocalDateInterval interval,
+            final LocalDateInterval effectiveInterval,
+            final String netAmount) {
+        final InvoiceItemForLease item = new InvoiceItemForLease();
+        item.setLeaseTerm(leaseTerm);
+        item.setStartDate(interval.startDate());
+        item.setEndDate(interval.endDate());
+        item.setEffectiveStartDate(effectiveInterval.startDate());
+        item.setEffectiveEndDate(effectiveInterval.endDate());
+        item.setNetAmount(new BigDecimal(netAmount));
+        return item;
+    }
+
+}
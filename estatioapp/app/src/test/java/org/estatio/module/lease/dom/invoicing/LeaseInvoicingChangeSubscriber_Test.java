@@ -0,0 +1,140 @@
+/*
+ *
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.module.lease.dom.invoicing;
+
+import org.jmock.Expectations;
+import org.jmock.auto.Mock;
+import org.joda.time.LocalDateTime;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.apache.isis.applib.services.clock.ClockService;
+import org.apache.isis.applib.services.eventbus.AbstractDomainEvent;
+import org.apache.isis.applib.services.eventbus.ActionDomainEvent;
+import org.apache.isis.applib.services.scratchpad.Scratchpad;
+import org.apache.isis.core.unittestsupport.jmocking.JUnitRuleMockery2;
+
+import org.estatio.module.lease.dom.Lease;
+import org.estatio.module.lease.dom.LeaseItem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LeaseInvoicingChangeSubscriber_Test {
+
+    static final LocalDateTime NOW = new LocalDateTime(2018, 3, 1, 10, 0, 0);
+
+    @Rule
+    public JUnitRuleMockery2 context = JUnitRuleMockery2.createFor(JUnitRuleMockery2.Mode.INTERFACES_AND_CLASSES);
+
+    @Mock
+    ClockService mockClockService;
+
+    LeaseInvoicingChangeSubscriber subscriber;
+
+    Lease lease1;
+
+    @Before
+    public void setUp() throws Exception {
+        subscriber = new LeaseInvoicingChangeSubscriber();
+        subscriber.scratchpad = new Scratchpad();
+        subscriber.clockService = mockClockService;
+
+        lease1 = new Lease();
+
+        context.checking(new Expectations() {{
+            allowing(mockClockService).nowAsLocalDateTime();
+            will(returnValue(NOW));
+        }});
+    }
+
+    @Test
+    public void not_stamped_when_suspended() throws Exception {
+
+        // when
+        subscriber.suspend();
+        subscriber.changing(lease1);
+        subscriber.stampRecorded();
+
+        // then
+        assertThat(lease1.getInvoicingInputsChangedOn()).isNull();
+    }
+
+    @Test
+    public void recorded_changes_are_only_stamped_once_the_action_has_executed() throws Exception {
+
+        // given
+        final LeaseItem leaseItem = new LeaseItem();
+        leaseItem.setLease(lease1);
+        final LeaseItem.PersistingLifecycleEvent persisting = new LeaseItem.PersistingLifecycleEvent();
+        persisting.setSource(leaseItem);
+
+        // when
+        subscriber.on(persisting);
+
+        // then
+        assertThat(lease1.getInvoicingInputsChangedOn()).isNull();
+
+        // when
+        subscriber.on(executed());
+
+        // then
+        assertThat(lease1.getInvoicingInputsChangedOn()).isEqualTo(NOW);
+    }
+
+    @Test
+    public void changes_fed_in_are_stamped_even_when_suspended() throws Exception {
+
+        // when
+        subscriber.suspend();
+        subscriber.changed(lease1);
+
+        // then
+        assertThat(lease1.getInvoicingInputsChangedOn()).isEqualTo(NOW);
+    }
+
+    @Test
+    public void suspension_nests() throws Exception {
+
+        // when
+        subscriber.suspend();
+        subscriber.suspend();
+        subscriber.resume();
+        subscriber.changing(lease1);
+        subscriber.stampRecorded();
+
+        // then
+        assertThat(lease1.getInvoicingInputsChangedOn()).isNull();
+
+        // when
+        subscriber.resume();
+        subscriber.changing(lease1);
+        subscriber.stampRecorded();
+
+        // then
+        assertThat(lease1.getInvoicingInputsChangedOn()).isEqualTo(NOW);
+    }
+
+    private static ActionDomainEvent<Object> executed() {
+        final ActionDomainEvent<Object> ev = new ActionDomainEvent<Object>() {};
+        ev.setEventPhase(AbstractDomainEvent.Phase.EXECUTED);
+        return ev;
+    }
+
+}
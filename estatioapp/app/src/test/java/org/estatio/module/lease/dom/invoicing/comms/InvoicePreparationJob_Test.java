@@ -0,0 +1,267 @@
+package org.estatio.module.lease.dom.invoicing.comms;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import com.google.common.collect.Lists;
+
+import org.jmock.Expectations;
+import org.jmock.api.Invocation;
+import org.jmock.auto.Mock;
+import org.jmock.lib.action.CustomAction;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.apache.isis.applib.services.background.BackgroundService2;
+import org.apache.isis.applib.services.clock.ClockService;
+import org.apache.isis.applib.services.queryresultscache.QueryResultsCache;
+import org.apache.isis.applib.services.xactn.TransactionService;
+import org.apache.isis.core.commons.exceptions.IsisException;
+import org.apache.isis.core.unittestsupport.jmocking.JUnitRuleMockery2;
+
+import org.incode.module.document.dom.impl.docs.Document;
+import org.incode.module.document.dom.impl.docs.DocumentTemplate;
+
+import org.estatio.module.lease.dom.invoicing.InvoiceForLease;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InvoicePreparationJob_Test {
+
+    @Rule
+    public JUnitRuleMockery2 context = JUnitRuleMockery2.createFor(JUnitRuleMockery2.Mode.INTERFACES_AND_CLASSES);
+
+    @Mock
+    InvoicePreparationJobRepository mockInvoicePreparationJobRepository;
+
+    @Mock
+    BackgroundService2 mockBackgroundService2;
+
+    @Mock
+    ClockService mockClockService;
+
+    @Mock
+    TransactionService mockTransactionService;
+
+    @Mock
+    InvoicePreparationJob mockJobInBackground;
+
+    @Mock
+    DocumentTemplate mockDocumentTemplate;
+
+    InvoicePreparationJob job;
+
+    final DateTime now = new DateTime(2018, 3, 1, 10, 5, 0);
+
+    @Before
+    public void setUp() throws Exception {
+        job = new InvoicePreparationJob();
+        job.setCreatedAt(new DateTime(2018, 3, 1, 10, 0, 0));
+        job.setLanes(2);
+        job.invoicePreparationJobRepository = mockInvoicePreparationJobRepository;
+        job.backgroundService2 = mockBackgroundService2;
+        job.clockService = mockClockService;
+        job.transactionService = mockTransactionService;
+        job.queryResultsCache = new QueryResultsCache() {
+            @Override public <T> T execute(
+                    final Callable<T> callable,
+                    final Class<?> callingClass,
+                    final String methodName,
+                    final Object... keys) {
+                try {
+                    return callable.call();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+
+        context.checking(new Expectations() {{
+            allowing(mockClockService).nowAsDateTime();
+            will(returnValue(now));
+        }});
+    }
+
+    InvoicePreparationJobItem newItem(final Document document) {
+        final InvoicePreparationJobItem item = new InvoicePreparationJobItem();
+        item.setJob(job);
+        item.setInvoice(new InvoiceForLease());
+        item.setDocument(document);
+        item.setDocumentTemplate(mockDocumentTemplate);
+        item.setState(InvoicePreparationJobItem.State.PENDING);
+        return item;
+    }
+
+    public static class RunLane_Test extends InvoicePreparationJob_Test {
+
+        @Mock
+        Document mockDocument1;
+
+        @Mock
+        Document mockDocument2;
+
+        @Test
+        public void renders_pending_items_recording_failures() throws Exception {
+
+            // given
+            final InvoicePreparationJobItem item1 = newItem(mockDocument1);
+            final InvoicePreparationJobItem item2 = newItem(mockDocument2);
+
+            context.checking(new Expectations() {{
+                oneOf(mockInvoicePreparationJobRepository).findItemsByJobAndLaneAndState(
+                        job, 1, InvoicePreparationJobItem.State.PENDING, InvoicePreparationJob.BATCH_SIZE + 1);
+                will(returnValue(Lists.newArrayList(item1, item2)));
+
+                oneOf(mockDocument1).render(mockDocumentTemplate, item1.getInvoice());
+                oneOf(mockTransactionService).nextTransaction();
+
+                oneOf(mockDocument2).render(mockDocumentTemplate, item2.getInvoice());
+                will(throwException(new IllegalStateException("no data")));
+                // rolled back (if marked for abort), then the failure recorded in a transaction of its own
+                oneOf(mockTransactionService).nextTransaction(TransactionService.Policy.ALWAYS);
+                oneOf(mockTransactionService).nextTransaction();
+
+                // nothing more to do, so not rescheduled (no call to mockBackgroundService2)
+            }});
+
+            // when
+            job.runLane(1);
+
+            // then
+            assertThat(item1.getState()).isEqualTo(InvoicePreparationJobItem.State.PREPARED);
+            assertThat(item1.getCompletedAt()).isEqualTo(now);
+            assertThat(item2.getState()).isEqualTo(InvoicePreparationJobItem.State.FAILED);
+            assertThat(item2.getFailureMessage()).isEqualTo("no data");
+        }
+
+        /**
+         * The transaction service follows the contract of the framework's: a transaction marked for abort (as by a
+         * failed flush) cannot be committed, so {@link TransactionService#nextTransaction()} throws; it can only be
+         * rolled back, by {@link TransactionService#nextTransaction(TransactionService.Policy) ALWAYS}.
+         */
+        @Test
+        public void failure_marking_the_transaction_for_abort_is_rolled_back_and_recorded() throws Exception {
+
+            // given
+            final InvoicePreparationJobItem item1 = newItem(mockDocument1);
+            final InvoicePreparationJobItem item2 = newItem(mockDocument2);
+            final List<String> transactions = Lists.newArrayList();
+            final boolean[] markedForAbort = { false };
+
+            context.checking(new Expectations() {{
+                oneOf(mockInvoicePreparationJobRepository).findItemsByJobAndLaneAndState(
+                        job, 0, InvoicePreparationJobItem.State.PENDING, InvoicePreparationJob.BATCH_SIZE + 1);
+                will(returnValue(Lists.newArrayList(item1, item2)));
+
+                oneOf(mockDocument1).render(mockDocumentTemplate, item1.getInvoice());
+                will(new CustomAction("fails to flush") {
+                    @Override
+                    public Object invoke(final Invocation invocation) throws Throwable {
+                        markedForAbort[0] = true;
+                        throw new IsisException("could not flush");
+                    }
+                });
+                oneOf(mockDocument2).render(mockDocumentTemplate, item2.getInvoice());
+
+                allowing(mockTransactionService).nextTransaction();
+                will(new CustomAction("commit") {
+                    @Override
+                    public Object invoke(final Invocation invocation) throws Throwable {
+                        if (markedForAbort[0]) {
+                            throw new IsisException("Transaction is marked to abort");
+                        }
+                        transactions.add("commit");
+                        return null;
+                    }
+                });
+                allowing(mockTransactionService).nextTransaction(TransactionService.Policy.ALWAYS);
+                will(new CustomAction("commit or abort") {
+                    @Override
+                    public Object invoke(final Invocation invocation) throws Throwable {
+                        transactions.add(markedForAbort[0] ? "abort" : "commit");
+                        markedForAbort[0] = false;
+                        return null;
+                    }
+                });
+            }});
+
+            // when
+            job.runLane(0);
+
+            // then the failed render is rolled back, its failure committed, and the lane carries on
+            assertThat(transactions).containsExactly("abort", "commit", "commit");
+            assertThat(item1.getState()).isEqualTo(InvoicePreparationJobItem.State.FAILED);
+            assertThat(item1.getFailureMessage()).isEqualTo("could not flush");
+            assertThat(item2.getState()).isEqualTo(InvoicePreparationJobItem.State.PREPARED);
+        }
+
+        @Test
+        public void reschedules_itself_when_more_than_a_batch() throws Exception {
+
+            // given
+            final List<InvoicePreparationJobItem> items = Lists.newArrayList();
+            for (int i = 0; i < InvoicePreparationJob.BATCH_SIZE + 1; i++) {
+                items.add(newItem(mockDocument1));
+            }
+
+            context.checking(new Expectations() {{
+                oneOf(mockInvoicePreparationJobRepository).findItemsByJobAndLaneAndState(
+                        job, 0, InvoicePreparationJobItem.State.PENDING, InvoicePreparationJob.BATCH_SIZE + 1);
+                will(returnValue(items));
+
+                exactly(InvoicePreparationJob.BATCH_SIZE).of(mockDocument1).render(
+                        with(mockDocumentTemplate), with(any(InvoiceForLease.class)));
+                exactly(InvoicePreparationJob.BATCH_SIZE).of(mockTransactionService).nextTransaction();
+
+                oneOf(mockBackgroundService2).execute(job);
+                will(returnValue(mockJobInBackground));
+                oneOf(mockJobInBackground).runLane(0);
+            }});
+
+            // when
+            job.runLane(0);
+
+            // then
+            assertThat(items.get(InvoicePreparationJob.BATCH_SIZE).getState())
+                    .isEqualTo(InvoicePreparationJobItem.State.PENDING);
+        }
+    }
+
+    public static class Progress_Test extends InvoicePreparationJob_Test {
+
+        @Test
+        public void counts_and_throughput() throws Exception {
+
+            // given
+            final InvoicePreparationJobItem prepared1 = newItem(null);
+            prepared1.setState(InvoicePreparationJobItem.State.PREPARED);
+            prepared1.setCompletedAt(new DateTime(2018, 3, 1, 10, 1, 0));
+            final InvoicePreparationJobItem prepared2 = newItem(null);
+            prepared2.setState(InvoicePreparationJobItem.State.PREPARED);
+            prepared2.setCompletedAt(new DateTime(2018, 3, 1, 10, 2, 0));
+            final InvoicePreparationJobItem failed = newItem(null);
+            failed.setState(InvoicePreparationJobItem.State.FAILED);
+            failed.setCompletedAt(new DateTime(2018, 3, 1, 10, 1, 30));
+            final InvoicePreparationJobItem pending = newItem(null);
+
+            context.checking(new Expectations() {{
+                allowing(mockInvoicePreparationJobRepository).findItemsByJob(job);
+                will(returnValue(Lists.newArrayList(prepared1, prepared2, failed, pending)));
+            }});
+
+            // then
+            assertThat(job.getTotal()).isEqualTo(4);
+            assertThat(job.getPrepared()).isEqualTo(2);
+            assertThat(job.getFailed()).isEqualTo(1);
+            assertThat(job.getPending()).isEqualTo(1);
+            assertThat(job.getFailures()).containsExactly(failed);
+            assertThat(job.getLastCompletedAt()).isEqualTo(new DateTime(2018, 3, 1, 10, 2, 0));
+            // 3 completed in 2 minutes
+            assertThat(job.getThroughputPerMinute()).isEqualTo(new BigDecimal("1.5"));
+        }
+    }
+
+}
@@ -0,0 +1,276 @@
+/*
+ *
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.module.lease.dom.invoicing.summary;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+import org.jmock.Expectations;
+import org.jmock.auto.Mock;
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.apache.isis.applib.services.eventbus.AbstractDomainEvent;
+import org.apache.isis.applib.services.eventbus.ActionDomainEvent;
+import org.apache.isis.applib.services.xactn.TransactionService;
+import org.apache.isis.core.unittestsupport.jmocking.JUnitRuleMockery2;
+
+import org.estatio.module.invoice.dom.InvoiceStatus;
+import org.estatio.module.lease.dom.invoicing.InvoiceForLease;
+import org.estatio.module.party.dom.Organisation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InvoiceSummaryTotalService_Test {
+
+    static final LocalDate DUE_DATE = new LocalDate(2018, 1, 1);
+
+    Organisation seller;
+
+    @Before
+    public void setUp() throws Exception {
+        seller = new Organisation();
+        seller.setReference("SELLER");
+    }
+
+    InvoiceForLease newInvoice(final InvoiceStatus status) {
+        final InvoiceForLease invoice = new InvoiceForLease();
+        invoice.setApplicationTenancyPath("/ITA/CAR");
+        invoice.setSeller(seller);
+        invoice.setDueDate(DUE_DATE);
+        invoice.setStatus(status);
+        return invoice;
+    }
+
+    public static class KeysOf extends InvoiceSummaryTotalService_Test {
+
+        @Test
+        public void all_kinds() {
+            final InvoiceForLease invoice = newInvoice(InvoiceStatus.NEW);
+
+            assertThat(InvoiceSummaryKey.keysOf(invoice)).containsExactly(
+                    new InvoiceSummaryKey(InvoiceSummaryTotal.Kind.PROPERTY_DUE_DATE_STATUS, "/ITA/CAR", "SELLER", DUE_DATE, InvoiceStatus.NEW, null),
+                    new InvoiceSummaryKey(InvoiceSummaryTotal.Kind.PROPERTY_INVOICE_DATE, "/ITA/CAR", "SELLER", null, null, null));
+        }
+
+        @Test
+        public void none_without_seller() {
+            final InvoiceForLease invoice = newInvoice(InvoiceStatus.NEW);
+            invoice.setSeller(null);
+
+            assertThat(InvoiceSummaryKey.keysOf(invoice)).isEmpty();
+        }
+    }
+
+    public static class TotalsByKey extends InvoiceSummaryTotalService_Test {
+
+        @Test
+        public void from_aggregated_rows() {
+            final Map<InvoiceSummaryKey, InvoiceSummaryTotalService.Totals> totals = InvoiceSummaryTotalService.totalsByKey(
+                    InvoiceSummaryTotal.Kind.PROPERTY_DUE_DATE_STATUS,
+                    Collections.singletonList(new Object[] {
+                            "/ITA/CAR", "SELLER", DUE_DATE, InvoiceStatus.NEW,
+                            2L, new BigDecimal("160.00"), new BigDecimal("33.00"), new BigDecimal("183.00") }));
+
+            final InvoiceSummaryTotalService.Totals newTotals =
+                    totals.get(InvoiceSummaryKey.keysOf(newInvoice(InvoiceStatus.NEW)).get(0));
+            assertThat(newTotals.getTotal()).isEqualTo(2);
+            assertThat(newTotals.getNetAmount()).isEqualByComparingTo("160.00");
+            assertThat(newTotals.getVatAmount()).isEqualByComparingTo("33.00");
+            assertThat(newTotals.getGrossAmount()).isEqualByComparingTo("183.00");
+        }
+
+        @Test
+        public void without_amounts() {
+            final Map<InvoiceSummaryKey, InvoiceSummaryTotalService.Totals> totals = InvoiceSummaryTotalService.totalsByKey(
+                    InvoiceSummaryTotal.Kind.PROPERTY_INVOICE_DATE,
+                    Collections.singletonList(new Object[] {
+                            "/ITA/CAR", "SELLER", null, 1L, new BigDecimal("10.00"), null, null }));
+
+            final InvoiceSummaryTotalService.Totals invoiceDateTotals =
+                    totals.get(InvoiceSummaryKey.keysOf(newInvoice(InvoiceStatus.NEW)).get(1));
+            assertThat(invoiceDateTotals.getTotal()).isEqualTo(1);
+            assertThat(invoiceDateTotals.getVatAmount()).isNull();
+
+            final InvoiceSummaryTotal summaryTotal = new InvoiceSummaryTotal();
+            summaryTotal.setTotal(1);
+            summaryTotal.setNetAmount(new BigDecimal("10.0"));
+            assertThat(invoiceDateTotals.isSameAs(summaryTotal)).isTrue();
+        }
+    }
+
+    public static class Refresh extends InvoiceSummaryTotalService_Test {
+
+        @Rule
+        public JUnitRuleMockery2 context = JUnitRuleMockery2.createFor(JUnitRuleMockery2.Mode.INTERFACES_AND_CLASSES);
+
+        @Mock
+        InvoiceSummaryTotalRepository mockInvoiceSummaryTotalRepository;
+
+        @Test
+        public void one_aggregate_query_per_kind_for_all_groups() {
+
+            // given
+            final InvoiceSummaryTotalService service = new InvoiceSummaryTotalService();
+            service.invoiceSummaryTotalRepository = mockInvoiceSummaryTotalRepository;
+
+            final InvoiceSummaryKey newKey = InvoiceSummaryKey.keysOf(newInvoice(InvoiceStatus.NEW)).get(0);
+            final InvoiceSummaryKey approvedKey = InvoiceSummaryKey.keysOf(newInvoice(InvoiceStatus.APPROVED)).get(0);
+            final InvoiceSummaryKey invoicedKey = InvoiceSummaryKey.keysOf(newInvoice(InvoiceStatus.INVOICED)).get(0);
+
+            final InvoiceSummaryTotal newTotal = totalFor(newKey, 1, "10.00");
+            final InvoiceSummaryTotal approvedTotal = totalFor(approvedKey, 1, "10.00");
+            final InvoiceSummaryTotal invoicedTotal = totalFor(invoicedKey, 1, "10.00");
+
+            // expect
+            context.checking(new Expectations() {{
+                oneOf(mockInvoiceSummaryTotalRepository).isBuilt(InvoiceSummaryTotal.Kind.PROPERTY_DUE_DATE_STATUS);
+                will(returnValue(true));
+                oneOf(mockInvoiceSummaryTotalRepository).aggregate(
+                        InvoiceSummaryTotal.Kind.PROPERTY_DUE_DATE_STATUS, Collections.singleton("/ITA/CAR"));
+                will(returnValue(Arrays.asList(
+                        new Object[] { "/ITA/CAR", "SELLER", DUE_DATE, InvoiceStatus.NEW, 2L, new BigDecimal("20.00"), null, null },
+                        new Object[] { "/ITA/CAR", "SELLER", DUE_DATE, InvoiceStatus.INVOICED, 1L, new BigDecimal("10.00"), null, null })));
+                oneOf(mockInvoiceSummaryTotalRepository).findByKind(
+                        InvoiceSummaryTotal.Kind.PROPERTY_DUE_DATE_STATUS, Collections.singleton("/ITA/CAR"));
+                will(returnValue(Arrays.asList(newTotal, approvedTotal, invoicedTotal)));
+
+                // no longer any approved invoices
+                oneOf(mockInvoiceSummaryTotalRepository).remove(approvedTotal);
+            }});
+
+            // when
+            service.refresh(Arrays.asList(newKey, approvedKey));
+
+            // then
+            assertThat(newTotal.getTotal()).isEqualTo(2);
+            assertThat(newTotal.getNetAmount()).isEqualByComparingTo("20.00");
+            // not refreshed
+            assertThat(invoicedTotal.getNetAmount()).isEqualByComparingTo("10.00");
+        }
+
+        @Test
+        public void kinds_not_yet_built_are_left_to_the_live_aggregate() {
+
+            // given
+            final InvoiceSummaryTotalService service = new InvoiceSummaryTotalService();
+            service.invoiceSummaryTotalRepository = mockInvoiceSummaryTotalRepository;
+
+            // expect
+            context.checking(new Expectations() {{
+                oneOf(mockInvoiceSummaryTotalRepository).isBuilt(InvoiceSummaryTotal.Kind.PROPERTY_DUE_DATE_STATUS);
+                will(returnValue(false));
+                oneOf(mockInvoiceSummaryTotalRepository).isBuilt(InvoiceSummaryTotal.Kind.PROPERTY_INVOICE_DATE);
+                will(returnValue(false));
+                never(mockInvoiceSummaryTotalRepository).aggregate(with(any(InvoiceSummaryTotal.Kind.class)), with(any(Collection.class)));
+            }});
+
+            // when
+            service.refresh(InvoiceSummaryKey.keysOf(newInvoice(InvoiceStatus.NEW)));
+        }
+
+        private static InvoiceSummaryTotal totalFor(final InvoiceSummaryKey key, final int total, final String netAmount) {
+            final InvoiceSummaryTotal summaryTotal = new InvoiceSummaryTotal();
+            summaryTotal.setKind(key.getKind());
+            summaryTotal.setAtPath(key.getAtPath());
+            summaryTotal.setSellerReference(key.getSellerReference());
+            summaryTotal.setDueDate(key.getDueDate());
+            summaryTotal.setStatus(key.getStatus());
+            summaryTotal.setTotal(total);
+            summaryTotal.setNetAmount(new BigDecimal(netAmount));
+            return summaryTotal;
+        }
+    }
+
+    public static class RefreshPending extends InvoiceSummaryTotalService_Test {
+
+        @Rule
+        public JUnitRuleMockery2 context = JUnitRuleMockery2.createFor(JUnitRuleMockery2.Mode.INTERFACES_AND_CLASSES);
+
+        @Mock
+        InvoiceSummaryTotalRepository mockInvoiceSummaryTotalRepository;
+
+        @Mock
+        TransactionService mockTransactionService;
+
+        InvoiceSummaryTotalService service;
+
+        @Before
+        public void setUp() throws Exception {
+            super.setUp();
+            service = new InvoiceSummaryTotalService();
+            service.invoiceSummaryTotalRepository = mockInvoiceSummaryTotalRepository;
+            service.transactionService = mockTransactionService;
+            service.invoiceSummaryChanges = new InvoiceSummaryChanges();
+        }
+
+        @Test
+        public void once_the_outermost_action_has_executed() {
+
+            // given
+            final InvoiceForLease invoice = newInvoice(InvoiceStatus.NEW);
+            service.on(actionEvent(AbstractDomainEvent.Phase.EXECUTING));
+            service.on(actionEvent(AbstractDomainEvent.Phase.EXECUTING));
+            service.invoiceSummaryChanges.add(invoice);
+
+            // when nested action executed, then nothing refreshed yet
+            service.on(actionEvent(AbstractDomainEvent.Phase.EXECUTED));
+
+            // expect
+            context.checking(new Expectations() {{
+                oneOf(mockTransactionService).flushTransaction();
+                oneOf(mockInvoiceSummaryTotalRepository).isBuilt(InvoiceSummaryTotal.Kind.PROPERTY_DUE_DATE_STATUS);
+                will(returnValue(false));
+                oneOf(mockInvoiceSummaryTotalRepository).isBuilt(InvoiceSummaryTotal.Kind.PROPERTY_INVOICE_DATE);
+                will(returnValue(false));
+            }});
+
+            // when outermost action executed
+            service.on(actionEvent(AbstractDomainEvent.Phase.EXECUTED));
+
+            // then
+            assertThat(service.invoiceSummaryChanges.drain()).isEmpty();
+        }
+
+        @Test
+        public void nothing_to_refresh() {
+
+            // expect
+            context.checking(new Expectations() {{
+                oneOf(mockTransactionService).flushTransaction();
+                never(mockInvoiceSummaryTotalRepository);
+            }});
+
+            // when
+            service.refreshPending();
+        }
+
+        private static ActionDomainEvent<?> actionEvent(final AbstractDomainEvent.Phase phase) {
+            final ActionDomainEvent<?> ev = new ActionDomainEvent.Default();
+            ev.setEventPhase(phase);
+            return ev;
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+package org.estatio.module.lease.dom.occupancy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.joda.time.LocalDate;
+import org.junit.Test;
+
+import org.incode.module.base.dom.valuetypes.LocalDateInterval;
+
+import org.estatio.module.lease.dom.Lease;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OccupancyIntervalIndex_Test {
+
+    private static Occupancy newOccupancy(final Lease lease, final LocalDate startDate, final LocalDate endDate) {
+        final Occupancy occupancy = new Occupancy();
+        occupancy.setLease(lease);
+        occupancy.setStartDate(startDate);
+        occupancy.setEndDate(endDate);
+        return occupancy;
+    }
+
+    private static Lease newLease(final String reference) {
+        final Lease lease = new Lease();
+        lease.setReference(reference);
+        return lease;
+    }
+
+    public static class Overlapping extends OccupancyIntervalIndex_Test {
+
+        @Test
+        public void same_as_checking_every_occupancy() throws Exception {
+
+            // given
+            final Random random = new Random(42L);
+            final Lease lease = newLease("LEASE");
+            final List<Occupancy> occupancies = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                final LocalDate startDate = random.nextInt(10) == 0 ? null : new LocalDate(2010, 1, 1).plusDays(random.nextInt(3000));
+                final LocalDate endDate = random.nextInt(3) == 0 ? null : (startDate != null ? startDate : new LocalDate(2010, 1, 1)).plusDays(random.nextInt(1500));
+                occupancies.add(newOccupancy(lease, startDate, endDate));
+            }
+            final OccupancyIntervalIndex index = OccupancyIntervalIndex.of(occupancies);
+
+            for (int i = 0; i < 100; i++) {
+                final LocalDate startDate = new LocalDate(2009, 1, 1).plusDays(random.nextInt(4000));
+                final LocalDateInterval interval = LocalDateInterval.including(
+                        startDate, i % 10 == 0 ? null : startDate.plusDays(random.nextInt(400)));
+
+                // when
+                final List<Occupancy> overlapping = index.overlapping(interval);
+
+                // then
+                final List<Occupancy> expected = occupancies.stream()
+                        .filter(occupancy -> occupancy.getInterval().overlaps(interval))
+                        .collect(Collectors.toList());
+                assertThat(overlapping).as(interval.toString()).containsOnlyElementsOf(expected);
+                assertThat(overlapping).hasSameSizeAs(expected);
+            }
+        }
+
+        @Test
+        public void when_empty() throws Exception {
+            final OccupancyIntervalIndex index = OccupancyIntervalIndex.of(new ArrayList<>());
+            assertThat(index.overlapping(LocalDateInterval.including(new LocalDate(2015, 1, 1), null))).isEmpty();
+        }
+    }
+
+    public static class LeasesOverlapping extends OccupancyIntervalIndex_Test {
+
+        @Test
+        public void leases_with_any_occupancy_overlapping() throws Exception {
+
+            // given
+            final Lease leaseActive = newLease("ACTIVE");
+            final Lease leaseEnded = newLease("ENDED");
+            final Lease leaseStartingLater = newLease("LATER");
+            final OccupancyIntervalIndex index = OccupancyIntervalIndex.of(Arrays.asList(
+                    newOccupancy(leaseActive, new LocalDate(2014, 1, 1), new LocalDate(2014, 12, 31)),
+                    newOccupancy(leaseActive, new LocalDate(2015, 1, 1), null),
+                    newOccupancy(leaseEnded, null, new LocalDate(2014, 12, 31)),
+                    newOccupancy(leaseStartingLater, new LocalDate(2016, 1, 1), null)));
+
+            // when, then
+            assertThat(index.leasesOverlapping(
+                    LocalDateInterval.including(new LocalDate(2015, 1, 1), new LocalDate(2015, 12, 31))))
+                    .containsOnly(leaseActive);
+        }
+    }
+
+    public static class OccupanciesOf extends OccupancyIntervalIndex_Test {
+
+        @Test
+        public void in_same_order_as_lease() throws Exception {
+
+            // given
+            final Lease lease = newLease("LEASE");
+            final Occupancy first = newOccupancy(lease, new LocalDate(2014, 1, 1), null);
+            final Occupancy second = newOccupancy(lease, new LocalDate(2015, 1, 1), null);
+            final OccupancyIntervalIndex index = OccupancyIntervalIndex.of(Arrays.asList(first, second));
+
+            // when, then
+            assertThat(index.occupanciesOf(lease)).containsExactlyElementsOf(
+                    new TreeSet<>(Arrays.asList(first, second)));
+            assertThat(index.occupanciesOf(newLease("OTHER"))).isEmpty();
+        }
+    }
+
+}
@@ -18,6 +18,7 @@
  */
 package org.estatio.module.lease.dom.util;
 
+import java.util.Arrays;
 import java.util.List;
 
 import org.assertj.core.api.Assertions;
@@ -54,6 +55,26 @@ public class CalendarUtils_Test {
 
         }
 
+        @Test
+        public void same_as_current_interval() throws Exception {
+            final List<String> rrules = Arrays.asList(
+                    "RRULE:FREQ=MONTHLY;INTERVAL=1",
+                    "RRULE:FREQ=MONTHLY;INTERVAL=3",
+                    "RRULE:FREQ=MONTHLY;INTERVAL=3;BYMONTHDAY=15",
+                    "RRULE:FREQ=YEARLY;INTERVAL=1");
+            for (final String rrule : rrules) {
+                // out of order, so that the table is both extended and searched
+                for (final LocalDate date : Arrays.asList(
+                        new LocalDate(2014, 5, 31), new LocalDate(2000, 1, 1), new LocalDate(2012, 2, 29),
+                        new LocalDate(2030, 12, 31), new LocalDate(2001, 3, 15), new LocalDate(2001, 3, 14))) {
+                    assertEquals(
+                            rrule + " " + date,
+                            CalendarUtils.currentInterval(date, rrule, new LocalDate(2000, 1, 1)),
+                            CalendarUtils.intervalContaining(date, rrule));
+                }
+            }
+        }
+
     }
 
     public static class IntervalMatching extends CalendarUtils_Test {
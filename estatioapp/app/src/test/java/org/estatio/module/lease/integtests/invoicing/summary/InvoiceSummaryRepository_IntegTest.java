@@ -27,6 +27,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import org.apache.isis.applib.fixturescripts.FixtureScript;
+import org.apache.isis.applib.services.xactn.TransactionService;
 
 import org.estatio.module.invoice.dom.InvoiceStatus;
 import org.estatio.module.invoice.dom.PaymentMethod;
@@ -39,6 +40,7 @@ import org.estatio.module.lease.dom.invoicing.summary.InvoiceSummaryForInvoiceRu
 import org.estatio.module.lease.dom.invoicing.summary.InvoiceSummaryForInvoiceRunRepository;
 import org.estatio.module.lease.dom.invoicing.summary.InvoiceSummaryForPropertyDueDateStatus;
 import org.estatio.module.lease.dom.invoicing.summary.InvoiceSummaryForPropertyDueDateStatusRepository;
+import org.estatio.module.lease.dom.invoicing.summary.InvoiceSummaryTotalService;
 import org.estatio.module.lease.fixtures.invoice.enums.InvoiceForLease_enum;
 import org.estatio.module.lease.fixtures.lease.enums.Lease_enum;
 import org.estatio.module.lease.integtests.LeaseModuleIntegTestAbstract;
@@ -74,6 +76,29 @@ public class InvoiceSummaryRepository_IntegTest extends LeaseModuleIntegTestAbst
             assertThat(summaries.size()).isEqualTo(2);
         }
 
+        @Test
+        public void when_totals_built() throws Exception {
+            // Given
+            invoiceSummaryTotalService.rebuildAll();
+            transactionService.nextTransaction();
+            assertThat(repository.findInvoicesByStatus(InvoiceStatus.NEW)).hasSize(2);
+
+            // When
+            final InvoiceForLease invoice = InvoiceForLease_enum.OxfPoison003Gb.findUsing(serviceRegistry);
+            invoice.setStatus(InvoiceStatus.APPROVED);
+
+            // Then
+            assertThat(repository.findInvoicesByStatus(InvoiceStatus.NEW)).hasSize(1);
+            assertThat(repository.findInvoicesByStatus(InvoiceStatus.APPROVED)).hasSize(1);
+            assertThat(invoiceSummaryTotalService.verifyAll()).isEmpty();
+        }
+
+        @Inject
+        private InvoiceSummaryTotalService invoiceSummaryTotalService;
+
+        @Inject
+        private TransactionService transactionService;
+
     }
 
     public static class FindByRunId extends InvoiceSummaryRepository_IntegTest {
@@ -0,0 +1,138 @@
+/*
+ *
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.module.numerator.dom;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+
+import com.google.common.collect.ImmutableMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NumeratorAllocationService_Test {
+
+    NumeratorAllocationService service;
+    Numerator numerator;
+
+    @Before
+    public void setUp() throws Exception {
+        service = new NumeratorAllocationService();
+        numerator = new Numerator();
+        numerator.setFormat("XXX-%05d");
+    }
+
+    public static class NextIncrementStr extends NumeratorAllocationService_Test {
+
+        @Test
+        public void strict() {
+            assertThat(service.nextIncrementStr(numerator, NumeratorAllocationService.Mode.STRICT)).isEqualTo("XXX-00001");
+            assertThat(service.nextIncrementStr(numerator, NumeratorAllocationService.Mode.STRICT)).isEqualTo("XXX-00002");
+            assertThat(numerator.getLastIncrement()).isEqualTo(BigInteger.valueOf(2));
+        }
+
+        @Test
+        public void relaxed_when_not_persisted() {
+            assertThat(service.nextIncrementStr(numerator, NumeratorAllocationService.Mode.RELAXED)).isEqualTo("XXX-00001");
+            assertThat(numerator.getLastIncrement()).isEqualTo(BigInteger.ONE);
+        }
+    }
+
+    public static class ModeFor extends NumeratorAllocationService_Test {
+
+        @Test
+        public void relaxed_unless_configured_as_strict() {
+            service.init(ImmutableMap.of(NumeratorAllocationService.STRICT_NAMES_KEY, "Invoice number, Other"));
+
+            numerator.setName("Invoice number");
+            assertThat(service.modeFor(numerator)).isEqualTo(NumeratorAllocationService.Mode.STRICT);
+
+            numerator.setName("Collection number");
+            assertThat(service.modeFor(numerator)).isEqualTo(NumeratorAllocationService.Mode.RELAXED);
+        }
+
+        @Test
+        public void relaxed_when_not_configured() {
+            service.init(Collections.emptyMap());
+            numerator.setName("Invoice number");
+
+            assertThat(service.modeFor(numerator)).isEqualTo(NumeratorAllocationService.Mode.RELAXED);
+        }
+    }
+
+    public static class Block extends NumeratorAllocationService_Test {
+
+        @Test
+        public void hands_out_its_size() {
+            final NumeratorAllocationService.Block block = new NumeratorAllocationService.Block();
+            assertThat(block.hasNext()).isFalse();
+
+            block.reset(BigInteger.valueOf(11), 2, 0L);
+            assertThat(block.next()).isEqualTo(BigInteger.valueOf(11));
+            assertThat(block.next()).isEqualTo(BigInteger.valueOf(12));
+            assertThat(block.hasNext()).isFalse();
+        }
+
+        @Test
+        public void not_current_once_parameters_changed() {
+            final NumeratorAllocationService.Block block = new NumeratorAllocationService.Block();
+            block.reset(BigInteger.valueOf(11), 2, 1L);
+
+            assertThat(block.isCurrentFor(0L)).isTrue();
+            assertThat(block.isCurrentFor(1L)).isTrue();
+            assertThat(block.isCurrentFor(2L)).isFalse();
+
+            block.discard();
+            assertThat(block.hasNext()).isFalse();
+        }
+    }
+
+    public static class FindGaps extends NumeratorAllocationService_Test {
+
+        @Test
+        public void happyCase() {
+            service.init(ImmutableMap.of(NumeratorAllocationService.STRICT_NAMES_KEY, "Invoice number"));
+            numerator.setName("Invoice number");
+            numerator.setLastIncrement(BigInteger.valueOf(7));
+
+            assertThat(service.findGaps(numerator, Arrays.asList("XXX-00003", "XXX-00005", "XXX-00004", "OTHER-1")))
+                    .containsExactly("XXX-00006", "XXX-00007");
+        }
+
+        @Test
+        public void relaxed_up_to_highest_issued() {
+            numerator.setLastIncrement(BigInteger.valueOf(50));
+
+            assertThat(service.findGaps(numerator, Arrays.asList("XXX-00003", "XXX-00006", "XXX-00004")))
+                    .containsExactly("XXX-00005");
+        }
+
+        @Test
+        public void none() {
+            numerator.setLastIncrement(BigInteger.valueOf(2));
+
+            assertThat(service.findGaps(numerator, Arrays.asList("XXX-00001", "XXX-00002"))).isEmpty();
+            assertThat(service.findGaps(numerator, Collections.emptyList())).isEmpty();
+        }
+    }
+
+}
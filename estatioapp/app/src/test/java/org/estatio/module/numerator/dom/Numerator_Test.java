@@ -51,6 +51,20 @@ public class Numerator_Test {
 
     }
 
+    public static class ChangeParameters extends Numerator_Test {
+
+        @Test
+        public void increments_generation() {
+            assertThat(numerator.currentGeneration()).isEqualTo(0L);
+
+            numerator.changeParameters("YYY-%05d", BigInteger.TEN);
+
+            assertThat(numerator.getGeneration()).isEqualTo(1L);
+            assertEquals("YYY-00011", numerator.nextIncrementStr());
+        }
+
+    }
+
     public static class Title extends Numerator_Test {
 
         @Test
@@ -81,6 +95,21 @@ public class Numerator_Test {
         }
     }
 
+    public static class Parse extends Numerator_Test {
+
+        @Test
+        public void happyCase() {
+            assertEquals(BigInteger.valueOf(12), numerator.parse("XXX-00012"));
+        }
+
+        @Test
+        public void whenNotFormatted() {
+            assertThat(numerator.parse("YYY-00012")).isNull();
+            assertThat(numerator.parse("XXX-012")).isNull();
+            assertThat(numerator.parse(null)).isNull();
+        }
+    }
+
     public static class AppTenancyPathAdaption extends Numerator_Test {
 
         @Test
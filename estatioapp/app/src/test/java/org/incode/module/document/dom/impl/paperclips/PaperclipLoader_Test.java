@@ -0,0 +1,132 @@
+package org.incode.module.document.dom.impl.paperclips;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.TypeSafeMatcher;
+import org.jmock.Expectations;
+import org.jmock.auto.Mock;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.apache.isis.applib.services.bookmark.Bookmark;
+import org.apache.isis.applib.services.bookmark.BookmarkService;
+import org.apache.isis.core.unittestsupport.jmocking.JUnitRuleMockery2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PaperclipLoader_Test {
+
+    @Rule
+    public JUnitRuleMockery2 context = JUnitRuleMockery2.createFor(JUnitRuleMockery2.Mode.INTERFACES_AND_CLASSES);
+
+    @Mock
+    PaperclipRepository mockPaperclipRepository;
+
+    @Mock
+    BookmarkService mockBookmarkService;
+
+    PaperclipLoader loader;
+
+    Object object1 = new Object();
+    Object object2 = new Object();
+
+    Paperclip paperclip1a;
+    Paperclip paperclip1b;
+
+    @Before
+    public void setUp() throws Exception {
+        loader = new PaperclipLoader();
+        loader.paperclipRepository = mockPaperclipRepository;
+        loader.bookmarkService = mockBookmarkService;
+
+        context.checking(new Expectations() {{
+            allowing(mockBookmarkService).bookmarkFor(object1);
+            will(returnValue(new Bookmark("X", "1")));
+            allowing(mockBookmarkService).bookmarkFor(object2);
+            will(returnValue(new Bookmark("X", "2")));
+        }});
+
+        paperclip1a = newPaperclip("X:1", "primary");
+        paperclip1b = newPaperclip("X:1", "supporting");
+    }
+
+    private static Paperclip newPaperclip(final String attachedToStr, final String roleName) {
+        final Paperclip paperclip = new PaperclipForTesting();
+        paperclip.setAttachedToStr(attachedToStr);
+        paperclip.setRoleName(roleName);
+        return paperclip;
+    }
+
+    private static Matcher<Collection<?>> containsExactly(final Object... objects) {
+        return new TypeSafeMatcher<Collection<?>>() {
+            @Override
+            protected boolean matchesSafely(final Collection<?> item) {
+                return Arrays.asList(objects).equals(Arrays.asList(item.toArray()));
+            }
+
+            @Override
+            public void describeTo(final Description description) {
+                description.appendValueList("[", ", ", "]", objects);
+            }
+        };
+    }
+
+    public static class FindByAttachedTo_Test extends PaperclipLoader_Test {
+
+        @Test
+        public void primed_objects_are_loaded_together_and_only_once() throws Exception {
+
+            // given
+            final ListMultimap<Object, Paperclip> paperclips = ArrayListMultimap.create();
+            paperclips.put(object1, paperclip1a);
+            paperclips.put(object1, paperclip1b);
+            loader.prime(Arrays.asList(object1, object2));
+
+            // expect
+            context.checking(new Expectations() {{
+                oneOf(mockPaperclipRepository).findByAttachedToIn(with(containsExactly(object1, object2)), with(aNull(String.class)));
+                will(returnValue(paperclips));
+            }});
+
+            // when, then
+            assertThat(loader.findByAttachedTo(object2)).isEmpty();
+            assertThat(loader.findByAttachedTo(object1)).containsExactly(paperclip1a, paperclip1b);
+            assertThat(loader.findByAttachedToAndRoleName(object1, "supporting")).containsExactly(paperclip1b);
+        }
+
+        @Test
+        public void evicted_object_is_reloaded() throws Exception {
+
+            // given
+            final ListMultimap<Object, Paperclip> before = ArrayListMultimap.create();
+            final ListMultimap<Object, Paperclip> after = ArrayListMultimap.create();
+            after.put(object1, paperclip1a);
+
+            // expect
+            context.checking(new Expectations() {{
+                oneOf(mockPaperclipRepository).findByAttachedToIn(with(containsExactly(object1)), with(aNull(String.class)));
+                will(returnValue(before));
+                oneOf(mockPaperclipRepository).findByAttachedToIn(with(containsExactly(object1)), with(aNull(String.class)));
+                will(returnValue(after));
+            }});
+
+            // when, then
+            assertThat(loader.findByAttachedTo(object1)).isEmpty();
+            loader.evict("X:1");
+            assertThat(loader.findByAttachedTo(object1)).containsExactly(paperclip1a);
+        }
+
+        @Test
+        public void null_is_attached_to_nothing() throws Exception {
+            assertThat(loader.findByAttachedTo(null)).isEmpty();
+        }
+    }
+
+}
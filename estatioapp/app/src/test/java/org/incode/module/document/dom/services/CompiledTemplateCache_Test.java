@@ -0,0 +1,156 @@
+package org.incode.module.document.dom.services;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jmock.Expectations;
+import org.jmock.auto.Mock;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.apache.isis.core.unittestsupport.jmocking.JUnitRuleMockery2;
+
+import org.incode.module.document.dom.impl.docs.DocumentTemplate;
+import org.incode.module.document.dom.impl.types.DocumentType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CompiledTemplateCache_Test {
+
+    @Rule
+    public JUnitRuleMockery2 context = JUnitRuleMockery2.createFor(JUnitRuleMockery2.Mode.INTERFACES_AND_CLASSES);
+
+    @Mock
+    DocumentTemplate mockDocumentTemplate;
+
+    CompiledTemplateCache cache;
+
+    DocumentType invoice = new DocumentType("INVOICE", "Invoice");
+    DocumentType prelimLetter = new DocumentType("PRELIM", "Preliminary letter");
+
+    final AtomicInteger compilations = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new CompiledTemplateCache();
+        cache.init(Collections.emptyMap());
+    }
+
+    String compile(final DocumentType type, final String atPath, final long version, final byte[] source)
+            throws Exception {
+        try (final CompiledTemplateCache.Lease<String> lease =
+                cache.compiled(type, "content", atPath, version, source, String.class, () -> {
+                    compilations.incrementAndGet();
+                    return new String(source, "UTF-8");
+                })) {
+            return lease.get();
+        }
+    }
+
+    public static class compiled_Test extends CompiledTemplateCache_Test {
+
+        @Test
+        public void compiles_once_per_version() throws Exception {
+            // when
+            assertThat(compile(invoice, "/ITA", 1, "a".getBytes())).isEqualTo("a");
+            assertThat(compile(invoice, "/ITA", 1, "a".getBytes())).isEqualTo("a");
+            assertThat(compile(invoice, "/FRA", 1, "a".getBytes())).isEqualTo("a");
+            assertThat(compile(invoice, "/ITA", 2, "b".getBytes())).isEqualTo("b");
+
+            // then
+            assertThat(compilations.get()).isEqualTo(3);
+            assertThat(cache.getHitCount()).isEqualTo(1);
+            assertThat(cache.getMissCount()).isEqualTo(3);
+            assertThat(cache.getHitRate()).isEqualTo(0.25);
+        }
+
+        @Test
+        public void recompiles_if_source_changed_within_same_version() throws Exception {
+            // when
+            compile(invoice, "/ITA", 1, "a".getBytes());
+            final String compiled = compile(invoice, "/ITA", 1, "b".getBytes());
+
+            // then
+            assertThat(compiled).isEqualTo("b");
+            assertThat(compilations.get()).isEqualTo(2);
+        }
+
+        @Test
+        public void closes_when_evicted() throws Exception {
+            // given
+            cache.init(Collections.singletonMap(CompiledTemplateCache.MAX_SIZE_KEY, "1"));
+            final AtomicInteger closed = new AtomicInteger();
+            final AutoCloseable first = closed::incrementAndGet;
+
+            // when
+            cache.compiled(invoice, "content", "/ITA", 1, "a", AutoCloseable.class, () -> first).close();
+            cache.compiled(invoice, "content", "/FRA", 1, "a", AutoCloseable.class, () -> () -> {}).close();
+
+            // then
+            assertThat(closed.get()).isEqualTo(1);
+        }
+
+        @Test
+        public void not_closed_while_leased_when_replaced() throws Exception {
+            // given
+            final AtomicInteger closed = new AtomicInteger();
+            final AutoCloseable first = closed::incrementAndGet;
+            final CompiledTemplateCache.Lease<AutoCloseable> inFlight =
+                    cache.compiled(invoice, "content", "/ITA", 1, "a", AutoCloseable.class, () -> first);
+
+            // when (source changed within the same version)
+            cache.compiled(invoice, "content", "/ITA", 1, "b", AutoCloseable.class, () -> () -> {}).close();
+
+            // then
+            assertThat(closed.get()).isEqualTo(0);
+
+            // and when
+            inFlight.close();
+            inFlight.close();
+
+            // then
+            assertThat(closed.get()).isEqualTo(1);
+        }
+
+        @Test
+        public void not_served_once_closed() throws Exception {
+            // given
+            final CompiledTemplateCache.Compiled compiled = new CompiledTemplateCache.Compiled("a", "a");
+
+            // when
+            compiled.release();
+
+            // then
+            assertThat(compiled.acquire()).isFalse();
+        }
+    }
+
+    public static class invalidate_Test extends CompiledTemplateCache_Test {
+
+        @Test
+        public void only_that_template() throws Exception {
+            // given
+            compile(invoice, "/ITA", 1, "a".getBytes());
+            compile(invoice, "/FRA", 1, "a".getBytes());
+            compile(prelimLetter, "/ITA", 1, "a".getBytes());
+            assertThat(cache.getSize()).isEqualTo(3);
+
+            context.checking(new Expectations() {{
+                allowing(mockDocumentTemplate).getType();
+                will(returnValue(invoice));
+                allowing(mockDocumentTemplate).getAtPath();
+                will(returnValue("/ITA"));
+            }});
+
+            // when
+            cache.invalidate(mockDocumentTemplate);
+
+            // then
+            assertThat(cache.getSize()).isEqualTo(2);
+            compile(invoice, "/ITA", 1, "a".getBytes());
+            assertThat(compilations.get()).isEqualTo(4);
+        }
+    }
+
+}
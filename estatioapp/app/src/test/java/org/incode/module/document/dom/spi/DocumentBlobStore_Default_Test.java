@@ -0,0 +1,152 @@
+package org.incode.module.document.dom.spi;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import org.jmock.Expectations;
+import org.jmock.auto.Mock;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.apache.isis.core.unittestsupport.jmocking.JUnitRuleMockery2;
+
+import org.incode.module.document.dom.impl.docs.Document;
+import org.incode.module.document.dom.impl.docs.DocumentRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DocumentBlobStore_Default_Test {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Rule
+    public JUnitRuleMockery2 context = JUnitRuleMockery2.createFor(JUnitRuleMockery2.Mode.INTERFACES_AND_CLASSES);
+
+    @Mock
+    DocumentRepository mockDocumentRepository;
+
+    @Mock
+    Document mockDocument;
+
+    DocumentBlobStore.Default store;
+
+    File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = temporaryFolder.newFolder();
+        store = new DocumentBlobStore.Default();
+        store.documentRepository = mockDocumentRepository;
+        store.init(Collections.singletonMap(DocumentBlobStore.Default.DIRECTORY_KEY, directory.getPath()));
+    }
+
+    static byte[] bytesOf(final String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    long filesStored() throws Exception {
+        try (final Stream<Path> paths = Files.walk(directory.toPath())) {
+            return paths.filter(Files::isRegularFile).count();
+        }
+    }
+
+    public static class store_Test extends DocumentBlobStore_Default_Test {
+
+        @Test
+        public void addressed_by_content() throws Exception {
+            // when
+            final String url = store.store(bytesOf("hello"));
+
+            // then
+            assertThat(url).isEqualTo(
+                    "blobstore:sha256:2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824");
+            assertThat(store.holds(url)).isTrue();
+            assertThat(store.asBytes(url)).isEqualTo(bytesOf("hello"));
+        }
+
+        @Test
+        public void identical_content_stored_once() throws Exception {
+            // when
+            final String url1 = store.store(bytesOf("hello"));
+            final String url2 = store.store(bytesOf("hello"));
+            final String url3 = store.store(bytesOf("world"));
+
+            // then
+            assertThat(url1).isEqualTo(url2);
+            assertThat(url3).isNotEqualTo(url1);
+            assertThat(filesStored()).isEqualTo(2);
+        }
+
+        @Test
+        public void when_not_configured() throws Exception {
+            // given
+            context.checking(new Expectations() {{
+                allowing(mockDocumentRepository).findByExternalUrlStartingWith("blobstore:sha256:", 1);
+                will(returnValue(Collections.emptyList()));
+            }});
+            store.init(Collections.emptyMap());
+
+            // then
+            assertThat(store.isEnabled()).isFalse();
+            assertThat(store.store(bytesOf("hello"))).isNull();
+            assertThat(store.holds(
+                    "blobstore:sha256:2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824")).isFalse();
+        }
+    }
+
+    public static class init_Test extends DocumentBlobStore_Default_Test {
+
+        @Test(expected = IllegalStateException.class)
+        public void fails_when_documents_moved_but_not_configured() throws Exception {
+            // given
+            context.checking(new Expectations() {{
+                allowing(mockDocumentRepository).findByExternalUrlStartingWith("blobstore:sha256:", 1);
+                will(returnValue(Collections.singletonList(mockDocument)));
+            }});
+
+            // when
+            store.init(Collections.emptyMap());
+        }
+    }
+
+    public static class holds_Test extends DocumentBlobStore_Default_Test {
+
+        @Test
+        public void other_urls() throws Exception {
+            assertThat(store.holds(null)).isFalse();
+            assertThat(store.holds("http://example.com/some.pdf")).isFalse();
+            assertThat(store.holds("blobstore:sha256:../../etc/passwd")).isFalse();
+        }
+    }
+
+    public static class transferTo_Test extends DocumentBlobStore_Default_Test {
+
+        @Test
+        public void happy_case() throws Exception {
+            // given
+            final byte[] bytes = new byte[100_000];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = (byte) i;
+            }
+            final String url = store.store(bytes);
+
+            // when
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            final long transferred = store.transferTo(url, Channels.newChannel(baos));
+
+            // then
+            assertThat(transferred).isEqualTo(bytes.length);
+            assertThat(baos.toByteArray()).isEqualTo(bytes);
+        }
+    }
+
+}
@@ -0,0 +1,140 @@
+/*
+ *
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.joda.time.LocalDate;
+
+import org.estatio.module.lease.dom.InvoicingFrequency;
+import org.estatio.module.lease.dom.Lease;
+import org.estatio.module.lease.dom.LeaseItem;
+import org.estatio.module.lease.dom.LeaseItemType;
+import org.estatio.module.lease.dom.LeaseTermForIndexable;
+import org.estatio.module.lease.dom.LeaseTermForServiceCharge;
+import org.estatio.module.lease.dom.LeaseTermFrequency;
+
+import lombok.Getter;
+
+/**
+ * An in-memory portfolio of leases, each with an indexable rent item (a single term) and a service charge item (a
+ * chain of yearly terms covering the whole lease), generated deterministically from a seed.
+ *
+ * <p>
+ *     The objects are never persisted; the benchmarks only exercise the calculations on them.
+ * </p>
+ */
+public class SyntheticPortfolio {
+
+    public static final LocalDate FIRST_START_DATE = new LocalDate(2010, 1, 1);
+
+    private static final InvoicingFrequency[] FREQUENCIES = {
+            InvoicingFrequency.QUARTERLY_IN_ADVANCE,
+            InvoicingFrequency.MONTHLY_IN_ADVANCE,
+            InvoicingFrequency.QUARTERLY_IN_ARREARS,
+            InvoicingFrequency.SEMI_YEARLY_IN_ADVANCE
+    };
+
+    @Getter
+    private final List<Lease> leases = new ArrayList<>();
+
+    @Getter
+    private final List<LeaseTermForIndexable> rentTerms = new ArrayList<>();
+
+    /**
+     * The first term of each service charge chain.
+     */
+    @Getter
+    private final List<LeaseTermForServiceCharge> serviceChargeTerms = new ArrayList<>();
+
+    public SyntheticPortfolio(final int numberOfLeases, final long seed) {
+        final Random random = new Random(seed);
+        for (int i = 0; i < numberOfLeases; i++) {
+            final LocalDate startDate = FIRST_START_DATE.plusMonths(random.nextInt(60)).plusDays(random.nextInt(28));
+            final LocalDate endDate = startDate.plusYears(5 + random.nextInt(8)).minusDays(1);
+
+            final Lease lease = new Lease();
+            lease.setReference(String.format("BENCH-%06d", i));
+            lease.setStartDate(startDate);
+            lease.setEndDate(endDate);
+            lease.setTenancyStartDate(startDate);
+            lease.setTenancyEndDate(endDate);
+            leases.add(lease);
+
+            rentTerms.add(newRentTerm(lease, random));
+            serviceChargeTerms.add(newServiceChargeChain(lease, random));
+        }
+    }
+
+    private static LeaseTermForIndexable newRentTerm(final Lease lease, final Random random) {
+        final LeaseItem item = newItem(lease, LeaseItemType.RENT, FREQUENCIES[random.nextInt(FREQUENCIES.length)]);
+
+        final LeaseTermForIndexable term = new LeaseTermForIndexable();
+        term.setLeaseItem(item);
+        term.setFrequency(LeaseTermFrequency.YEARLY);
+        term.setStartDate(lease.getStartDate());
+        term.setEndDate(lease.getEndDate());
+        term.setBaseValue(BigDecimal.valueOf(10000 + random.nextInt(240000), 2));
+        term.setBaseIndexValue(BigDecimal.valueOf(1000 + random.nextInt(100), 1));
+        term.setNextIndexValue(BigDecimal.valueOf(1000 + random.nextInt(150), 1));
+        term.setRebaseFactor(BigDecimal.ONE);
+        term.setLevellingPercentage(random.nextBoolean() ? null : BigDecimal.valueOf(75));
+        return term;
+    }
+
+    private static LeaseTermForServiceCharge newServiceChargeChain(final Lease lease, final Random random) {
+        final LeaseItem item = newItem(lease, LeaseItemType.SERVICE_CHARGE, InvoicingFrequency.QUARTERLY_IN_ADVANCE);
+
+        LeaseTermForServiceCharge first = null;
+        LeaseTermForServiceCharge previous = null;
+        LocalDate startDate = lease.getStartDate();
+        while (!startDate.isAfter(lease.getEndDate())) {
+            final LocalDate nextStartDate = new LocalDate(startDate.getYear() + 1, 1, 1);
+            final LeaseTermForServiceCharge term = new LeaseTermForServiceCharge();
+            term.setLeaseItem(item);
+            term.setFrequency(LeaseTermFrequency.YEARLY);
+            term.setStartDate(startDate);
+            term.setEndDate(nextStartDate.isAfter(lease.getEndDate()) ? lease.getEndDate() : nextStartDate.minusDays(1));
+            // only some terms are budgeted, the others take the value of their predecessor on align
+            term.setBudgetedValue(previous == null || random.nextInt(3) == 0 ? BigDecimal.valueOf(random.nextInt(500000), 2) : null);
+            term.setPrevious(previous);
+            if (previous == null) {
+                first = term;
+            } else {
+                previous.setNext(term);
+            }
+            previous = term;
+            startDate = nextStartDate;
+        }
+        return first;
+    }
+
+    private static LeaseItem newItem(final Lease lease, final LeaseItemType type, final InvoicingFrequency invoicingFrequency) {
+        final LeaseItem item = new LeaseItem();
+        item.setLease(lease);
+        item.setType(type);
+        item.setStartDate(lease.getStartDate());
+        item.setInvoicingFrequency(invoicingFrequency);
+        return item;
+    }
+
+}
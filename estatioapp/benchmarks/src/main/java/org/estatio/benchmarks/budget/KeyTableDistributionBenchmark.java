@@ -0,0 +1,134 @@
+/*
+ *
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.benchmarks.budget;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.estatio.module.budget.dom.budget.Budget;
+import org.estatio.module.budget.dom.budgetcalculation.BudgetCalculationService;
+import org.estatio.module.budget.dom.budgetcalculation.BudgetCalculationViewmodel;
+import org.estatio.module.budget.dom.budgetitem.BudgetItem;
+import org.estatio.module.budget.dom.keyitem.KeyItem;
+import org.estatio.module.budget.dom.keytable.KeyTable;
+import org.estatio.module.budget.dom.keytable.KeyValueMethod;
+import org.estatio.module.budget.dom.partioning.PartitionItem;
+
+/**
+ * {@link BudgetCalculationService#getAllCalculations(Budget)} for a budget whose partition items distribute over key
+ * tables with one key item per unit.
+ *
+ * <p>
+ *     Like the unit tests, the budget item returns its partition items directly rather than through the repository.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class KeyTableDistributionBenchmark {
+
+    static final int PARTITION_ITEMS = 10;
+
+    static final int KEY_TABLES = 2;
+
+    @Param({ "1000", "10000", "100000" })
+    public int units;
+
+    @Param({ "DEFAULT", "PROMILLE" })
+    public KeyValueMethod keyValueMethod;
+
+    Budget budget;
+
+    BudgetCalculationService budgetCalculationService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random random = new Random(42L);
+
+        final List<KeyTable> keyTables = new ArrayList<>();
+        for (int i = 0; i < KEY_TABLES; i++) {
+            final KeyTable keyTable = new KeyTable();
+            keyTable.setName("Key table " + i);
+            keyTable.setKeyValueMethod(keyValueMethod);
+            keyTable.setPrecision(6);
+            for (int j = 0; j < units; j++) {
+                final KeyItem keyItem = new KeyItem();
+                keyItem.setKeyTable(keyTable);
+                // source values are unique, so that the items are distinct in the (sorted) set
+                keyItem.setSourceValue(BigDecimal.valueOf(j + 1));
+                keyItem.setValue(BigDecimal.valueOf(1 + random.nextInt(100000), 3));
+                keyTable.getItems().add(keyItem);
+            }
+            keyTables.add(keyTable);
+        }
+
+        final List<PartitionItem> partitionItems = new ArrayList<>();
+        final BudgetItem budgetItem = new BudgetItem() {
+            @Override
+            public BigDecimal getBudgetedValue() {
+                return new BigDecimal("1250000.00");
+            }
+            @Override
+            public BigDecimal getAuditedValue() {
+                return new BigDecimal("1312345.67");
+            }
+            @Override
+            public List<PartitionItem> getPartitionItems() {
+                return partitionItems;
+            }
+        };
+        for (int i = 0; i < PARTITION_ITEMS; i++) {
+            final PartitionItem partitionItem = new PartitionItem();
+            partitionItem.setBudgetItem(budgetItem);
+            partitionItem.setKeyTable(keyTables.get(i % KEY_TABLES));
+            partitionItem.setPercentage(BigDecimal.TEN);
+            partitionItems.add(partitionItem);
+        }
+
+        budget = new Budget();
+        budget.getItems().add(budgetItem);
+
+        budgetCalculationService = new BudgetCalculationService();
+    }
+
+    @Benchmark
+    public List<BudgetCalculationViewmodel> getAllCalculations() {
+        return budgetCalculationService.getAllCalculations(budget);
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ *
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.benchmarks.index;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.estatio.benchmarks.SyntheticPortfolio;
+import org.estatio.module.index.dom.calc.IndexationCalculationMethod;
+import org.estatio.module.lease.dom.LeaseTermForIndexable;
+
+/**
+ * {@link IndexationCalculationMethod#calc(org.estatio.module.index.dom.Indexable)} for the rent term of every lease,
+ * for each of the calculation methods.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class IndexationCalculationBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    public int leases;
+
+    @Param({ "DEFAULT", "ITALY", "FRANCE" })
+    public IndexationCalculationMethod method;
+
+    SyntheticPortfolio portfolio;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        portfolio = new SyntheticPortfolio(leases, 42L);
+    }
+
+    @Benchmark
+    public void calc(final Blackhole blackhole) {
+        for (final LeaseTermForIndexable term : portfolio.getRentTerms()) {
+            blackhole.consume(method.calc(term));
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ *
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.benchmarks.lease;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.estatio.benchmarks.SyntheticPortfolio;
+import org.estatio.module.invoice.dom.InvoicingInterval;
+import org.estatio.module.lease.dom.LeaseTermForIndexable;
+import org.estatio.module.lease.dom.invoicing.InvoiceCalculationService;
+
+/**
+ * {@link InvoiceCalculationService#calculateTerm(org.estatio.module.lease.dom.LeaseTerm, List)} for the rent term of
+ * every lease, with the invoicing intervals of a yearly invoice run computed up front.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class CalculateTermBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    public int leases;
+
+    SyntheticPortfolio portfolio;
+
+    List<List<InvoicingInterval>> intervals;
+
+    InvoiceCalculationService invoiceCalculationService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        portfolio = new SyntheticPortfolio(leases, 42L);
+        intervals = new ArrayList<>();
+        for (final LeaseTermForIndexable term : portfolio.getRentTerms()) {
+            intervals.add(term.getLeaseItem().getInvoicingFrequency().intervalsInDueDateRange(
+                    InvoicingFrequencyBenchmark.DUE_DATE_RANGE, term.getInterval()));
+        }
+        // no settings service: falls back to the default epoch date
+        invoiceCalculationService = new InvoiceCalculationService();
+    }
+
+    @Benchmark
+    public void calculateTerm(final Blackhole blackhole) {
+        final List<LeaseTermForIndexable> terms = portfolio.getRentTerms();
+        for (int i = 0; i < terms.size(); i++) {
+            blackhole.consume(invoiceCalculationService.calculateTerm(terms.get(i), intervals.get(i)));
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ *
+ *  Copyright 2012-2014 Eurocommercial Properties NV
+ *
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.estatio.benchmarks.lease;
+
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.LocalDate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.estatio.benchmarks.SyntheticPortfolio;
+import org.estatio.module.lease.dom.LeaseTermForServiceCharge;
+
+/**
+ * {@link org.estatio.module.lease.dom.LeaseTerm#verifyUntil(LocalDate)} on the service charge chain of every lease.
+ *
+ * <p>
+ *     The chains cover their leases entirely, so no terms are created; this measures walking and aligning the chains.
+ *     Verifying changes the terms, so the portfolio is rebuilt (outside of the measurement) before each invocation,
+ *     so that every invocation verifies the same, not yet verified, state.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class VerifyUntilBenchmark {
+
+    static final LocalDate VERIFY_UNTIL = new LocalDate(2025, 1, 1);
+
+    @Param({ "1000", "10000", "100000" })
+    public int leases;
+
+    SyntheticPortfolio portfolio;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        portfolio = new SyntheticPortfolio(leases, 42L);
+    }
+
+    @Benchmark
+    public void verifyUntil(final Blackhole blackhole) {
+        for (final LeaseTermForServiceCharge term : portfolio.getServiceChargeTerms()) {
+            blackhole.consume(term.verifyUntil(VERIFY_UNTIL));
+        }
+    }
+
+}